@@ -0,0 +1,24 @@
+package com.asistencia.config;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cachés locales de cada instancia, en la capa de servicio y con valores inmutables (nunca entidades JPA).
+ * Se invalidan con InvalidacionCacheService cuando otra instancia modifica los datos.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    public static final String EMPLEADOS_POR_DNI = "empleadosPorDni";
+    public static final String USUARIOS_POR_USERNAME = "usuariosPorUsername";
+    
+    @Bean
+    public CacheManager cacheManager() {
+        return new ConcurrentMapCacheManager(EMPLEADOS_POR_DNI, USUARIOS_POR_USERNAME);
+    }
+}
@@ -0,0 +1,38 @@
+package com.asistencia.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Destino de las transacciones de solo lectura según el hilo: las de los hilos de reportes usan el pool
+ * "reportes"; las demás (login, consultas de empleados, turnos y horarios) siguen en el primario.
+ * Así un reporte que agota su pool solo hace esperar a otros reportes.
+ */
+public class CompartimentoReportesDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Boolean> HILO_DE_REPORTES = ThreadLocal.withInitial(() -> false);
+
+    enum Destino { PRIMARIO, REPORTES }
+
+    public CompartimentoReportesDataSource(DataSource primario, DataSource reportes) {
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPORTES, reportes));
+        setDefaultTargetDataSource(primario);
+    }
+
+    /**
+     * Envuelve el cuerpo de un hilo de reportes: sus lecturas usan el pool de reportes mientras viva
+     */
+    public static Runnable enHiloDeReportes(Runnable cuerpo) {
+        return () -> {
+            HILO_DE_REPORTES.set(true);
+            cuerpo.run();
+        };
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return HILO_DE_REPORTES.get() ? Destino.REPORTES : Destino.PRIMARIO;
+    }
+}
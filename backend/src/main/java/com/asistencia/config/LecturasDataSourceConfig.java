@@ -0,0 +1,101 @@
+package com.asistencia.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Separa las conexiones de los reportes de las del resto de la aplicación. Las transacciones readOnly de los
+ * hilos de reportes usan un pool propio, dimensionado con el compartimento de reportes (un reporte por hilo
+ * más las consultas por área), para no agotar las conexiones del login ni del registro de marcaciones;
+ * con asistencia.replica.enabled todas las transacciones readOnly van además a la réplica de lectura.
+ * La conexión física se obtiene en la primera sentencia, cuando ya se sabe si la transacción es de solo lectura.
+ */
+@Configuration
+public class LecturasDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    /**
+     * Pool de los hilos de reportes; asistencia.reportes.hikari.maximum-pool-size reemplaza el tamaño calculado
+     */
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("asistencia.reportes.hikari")
+    public HikariDataSource reportesDataSource(DataSourceProperties properties,
+                                               @Value("${asistencia.reportes.bulkhead.hilos:4}") int hilos,
+                                               @Value("${asistencia.reportes.paralelismo:4}") int paralelismo) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("reportes");
+        dataSource.setReadOnly(true);
+        dataSource.setMaximumPoolSize(hilos + paralelismo);
+        return dataSource;
+    }
+
+    @Bean
+    public CompartimentoReportesDataSource lecturasDataSource(@Qualifier("primarioDataSource") DataSource primario,
+                                                              @Qualifier("reportesDataSource") DataSource reportes) {
+        return new CompartimentoReportesDataSource(primario, reportes);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primarioDataSource") DataSource primario,
+                                 @Qualifier("lecturasDataSource") DataSource lecturas,
+                                 ObjectProvider<ReplicaRoutingDataSource> replica) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primario);
+        proxy.setReadOnlyDataSource(replica.getIfAvailable() != null ? replica.getIfAvailable() : lecturas);
+        return proxy;
+    }
+
+    /**
+     * Réplica de lectura con retorno al primario (los reportes, a su pool) si se retrasa o no responde
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "asistencia.replica.enabled", havingValue = "true")
+    static class ReplicaConfig {
+
+        @Bean(destroyMethod = "close")
+        @ConfigurationProperties("asistencia.replica.hikari")
+        public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                                  @Value("${asistencia.replica.url}") String url,
+                                                  @Value("${asistencia.replica.username:${spring.datasource.username}}") String username,
+                                                  @Value("${asistencia.replica.password:${spring.datasource.password}}") String password) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url)
+                    .username(username)
+                    .password(password)
+                    .build();
+            dataSource.setPoolName("replica");
+            dataSource.setReadOnly(true);
+            return dataSource;
+        }
+
+        @Bean(initMethod = "iniciarVerificacion", destroyMethod = "close")
+        public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("lecturasDataSource") DataSource lecturas,
+                                                                 @Qualifier("replicaDataSource") DataSource replica,
+                                                                 @Value("${asistencia.replica.lag-sql}") String lagSql,
+                                                                 @Value("${asistencia.replica.max-lag-segundos:10}") double maxLagSegundos,
+                                                                 @Value("${asistencia.replica.verificacion-ms:5000}") long verificacionMs) {
+            return new ReplicaRoutingDataSource(lecturas, replica, lagSql, maxLagSegundos, verificacionMs);
+        }
+    }
+}
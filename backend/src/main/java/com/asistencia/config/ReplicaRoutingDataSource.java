@@ -0,0 +1,113 @@
+package com.asistencia.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Destino de las transacciones de solo lectura: la réplica mientras responda y su retraso
+ * no supere el máximo configurado; si no, las lecturas del primario (CompartimentoReportesDataSource).
+ * El retraso se mide en un hilo propio, no en el scheduler compartido con los procesos largos, y una
+ * medición vencida (más de VERIFICACIONES_VIGENTES intervalos) cuenta como réplica no disponible.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    enum Destino { PRIMARIO, REPLICA }
+
+    /** Intervalos sin verificación tras los cuales el último resultado deja de valer */
+    static final int VERIFICACIONES_VIGENTES = 3;
+
+    private final DataSource replica;
+    private final String lagSql;
+    private final double maxLagSegundos;
+    private final long verificacionMs;
+
+    // Hasta la primera verificación se lee del primario
+    private volatile boolean replicaDisponible = false;
+    private volatile long ultimaVerificacionNanos;
+
+    private ScheduledExecutorService verificador;
+
+    public ReplicaRoutingDataSource(DataSource primario, DataSource replica, String lagSql, double maxLagSegundos,
+                                    long verificacionMs) {
+        this.replica = replica;
+        this.lagSql = lagSql;
+        this.maxLagSegundos = maxLagSegundos;
+        this.verificacionMs = verificacionMs;
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return isReplicaDisponible() ? Destino.REPLICA : Destino.PRIMARIO;
+    }
+
+    /**
+     * Arranca la verificación periódica en su propio hilo
+     */
+    public void iniciarVerificacion() {
+        verificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "replica-verificacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        verificador.scheduleWithFixedDelay(() -> {
+            try {
+                verificarReplica();
+            } catch (RuntimeException e) {
+                // Una excepción cancelaría las siguientes ejecuciones; la medición vencerá sola
+                logger.error("Error al verificar la réplica", e);
+            }
+        }, 0, verificacionMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void close() {
+        if (verificador != null) {
+            verificador.shutdownNow();
+        }
+    }
+
+    /**
+     * Mide el retraso de la réplica y decide si las lecturas pueden ir a ella
+     */
+    public void verificarReplica() {
+        boolean disponible;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagSql)) {
+            double lag = rs.next() ? rs.getDouble(1) : 0;
+            disponible = lag <= maxLagSegundos;
+            if (!disponible && replicaDisponible) {
+                logger.warn("Réplica retrasada {} s (máximo {} s): las lecturas pasan al primario", lag, maxLagSegundos);
+            }
+        } catch (SQLException e) {
+            disponible = false;
+            if (replicaDisponible) {
+                logger.warn("Réplica no disponible, las lecturas pasan al primario: {}", e.getMessage());
+            }
+        }
+        if (disponible && !replicaDisponible) {
+            logger.info("Réplica disponible: las transacciones de solo lectura se envían a la réplica");
+        }
+        replicaDisponible = disponible;
+        ultimaVerificacionNanos = System.nanoTime();
+    }
+
+    public boolean isReplicaDisponible() {
+        return replicaDisponible && System.nanoTime() - ultimaVerificacionNanos
+                <= TimeUnit.MILLISECONDS.toNanos(verificacionMs * VERIFICACIONES_VIGENTES);
+    }
+}
@@ -0,0 +1,99 @@
+package com.asistencia.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Reflexión y recursos que el procesamiento AOT no descubre por sí solo (perfiles aot y native del pom).
+ * No tiene efecto al ejecutar el jar normal.
+ */
+@Configuration
+@ImportRuntimeHints(RuntimeHintsConfig.AsistenciaRuntimeHints.class)
+public class RuntimeHintsConfig {
+
+    static class AsistenciaRuntimeHints implements RuntimeHintsRegistrar {
+
+        // jjwt-api instancia la implementación por nombre (Classes.newInstance)
+        private static final String[] JJWT = {
+                "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+                "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+                "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+                "io.jsonwebtoken.impl.security.KeysBridge",
+                "io.jsonwebtoken.impl.security.JwksBridge",
+                "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardKeyOperations",
+                "io.jsonwebtoken.impl.security.StandardCurves",
+                "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        };
+
+        // Tipos XMLBeans que POI crea por nombre al escribir un .xlsx (libro, hojas, estilos y propiedades)
+        private static final String[] POI_XMLBEANS = {
+                "org/openxmlformats/schemas/spreadsheetml/x2006/main/impl",
+                "org/openxmlformats/schemas/officeDocument/x2006/extendedProperties/impl",
+                "org/openxmlformats/schemas/officeDocument/x2006/customProperties/impl"
+        };
+
+        private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Entidades y DTOs viajan dentro de Map<String, Object> y Page: AOT no ve esos tipos en las firmas
+            for (String paquete : new String[] {"com.asistencia.entity", "com.asistencia.dto"}) {
+                for (Class<?> tipo : clasesDe(paquete, classLoader)) {
+                    bindingRegistrar.registerReflectionHints(hints.reflection(), tipo);
+                }
+            }
+
+            for (String clase : JJWT) {
+                hints.reflection().registerType(TypeReference.of(clase),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+
+            hints.reflection().registerType(TypeReference.of("org.apache.poi.schemas.ooxml.system.ooxml.TypeSystemHolder"),
+                    MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            hints.resources().registerPattern("org/apache/poi/schemas/ooxml/**/*.xsb");
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+            for (String paquete : POI_XMLBEANS) {
+                try {
+                    for (Resource recurso : resolver.getResources("classpath*:" + paquete + "/*.class")) {
+                        String nombre = paquete.replace('/', '.') + "." + recurso.getFilename().replace(".class", "");
+                        hints.reflection().registerType(TypeReference.of(nombre), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            // Métricas de las fuentes estándar de iText (Helvetica en los PDF)
+            hints.resources().registerPattern("com/itextpdf/io/font/afm/*");
+        }
+
+        private static Iterable<Class<?>> clasesDe(String paquete, ClassLoader classLoader) {
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+            return scanner.findCandidateComponents(paquete).stream()
+                    .map(BeanDefinition::getBeanClassName)
+                    .<Class<?>>map(nombre -> ClassUtils.resolveClassName(nombre, classLoader))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.asistencia.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita los procesos programados (cálculo diario de incidencias, archivo, outbox...)
+ * con un pool de spring.task.scheduling.pool.size hilos, para que uno largo no retrase a los periódicos
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,6 +1,7 @@
 package com.asistencia.config;
 
 import com.asistencia.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -54,8 +55,12 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                // Los despachos asíncronos (SSE) ya pasaron la autorización en la petición original
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 // Endpoints públicos - sin autenticación
                 .requestMatchers("/api/public/**").permitAll()
+                // Protocolo push de los lectores ZKTeco (solo los números de serie configurados)
+                .requestMatchers("/iclock/**").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 // Endpoints administrativos - requieren autenticación JWT
@@ -2,16 +2,26 @@ package com.asistencia.controller;
 
 import com.asistencia.dto.MarcacionRequestDTO;
 import com.asistencia.dto.MarcacionResponseDTO;
-import com.asistencia.exception.EmpleadoNotFoundException;
-import com.asistencia.exception.MarcacionDuplicadaException;
+import com.asistencia.dto.PresenciaDTO;
 import com.asistencia.service.AsistenciaService;
+import com.asistencia.service.IdempotenciaMarcacionService;
+import com.asistencia.service.MarcacionFeedService;
+import com.asistencia.service.PresenciaService;
+import com.asistencia.service.ResultadoMarcacion;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador para el manejo de asistencias
@@ -27,39 +37,114 @@ public class AsistenciaController {
     @Autowired
     private AsistenciaService asistenciaService;
     
+    @Autowired
+    private MarcacionFeedService marcacionFeedService;
+    
+    @Autowired
+    private PresenciaService presenciaService;
+    
+    @Autowired
+    private IdempotenciaMarcacionService idempotenciaMarcacionService;
+    
     /**
      * Endpoint público para registrar marcación de asistencia
      * No requiere autenticación para permitir acceso directo del lector ZKTeco
      * 
+     * Con el header Idempotency-Key los reintentos del lector con la misma clave reciben la respuesta original
+     * (con el header Idempotent-Replayed) en lugar de registrar otra marcación o recibir un 409
+     * 
      * @param request DTO con el DNI del empleado
+     * @param claveIdempotencia clave opcional elegida por el lector para la marcación
      * @return Respuesta con el resultado de la marcación
      */
     @PostMapping("/public/asistencia/marcar")
-    public ResponseEntity<MarcacionResponseDTO> marcarAsistencia(@Valid @RequestBody MarcacionRequestDTO request) {
+    public ResponseEntity<MarcacionResponseDTO> marcarAsistencia(@Valid @RequestBody MarcacionRequestDTO request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia) {
+        if (claveIdempotencia == null || claveIdempotencia.isBlank()) {
+            return marcar(request);
+        }
+        if (claveIdempotencia.length() > IdempotenciaMarcacionService.LARGO_MAXIMO_CLAVE) {
+            return ResponseEntity.badRequest().body(MarcacionResponseDTO.error(
+                    "La Idempotency-Key admite hasta " + IdempotenciaMarcacionService.LARGO_MAXIMO_CLAVE + " caracteres"));
+        }
+        try {
+            IdempotenciaMarcacionService.Respuesta respuesta = idempotenciaMarcacionService.ejecutar(
+                    claveIdempotencia, request.getDni(), () -> {
+                        ResponseEntity<MarcacionResponseDTO> resultado = marcar(request);
+                        return new IdempotenciaMarcacionService.Respuesta(resultado.getStatusCode().value(), resultado.getBody());
+                    });
+            if (respuesta.repetida()) {
+                logger.debug("Reintento de marcación para DNI: {} con Idempotency-Key: {}", request.getDni(), claveIdempotencia);
+            }
+            return ResponseEntity.status(respuesta.status())
+                    .header("Idempotent-Replayed", String.valueOf(respuesta.repetida()))
+                    .body(respuesta.cuerpo());
+        } catch (Exception e) {
+            logger.error("Error inesperado al procesar marcación para DNI: {}", request.getDni(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(MarcacionResponseDTO.error("Error interno del servidor"));
+        }
+    }
+    
+    private ResponseEntity<MarcacionResponseDTO> marcar(MarcacionRequestDTO request) {
         try {
-            logger.info("Procesando marcación para DNI: {}", request.getDni());
+            logger.debug("Procesando marcación para DNI: {}", request.getDni());
             
-            MarcacionResponseDTO response = asistenciaService.registrarMarcacion(request.getDni());
+            // Los rechazos esperados llegan como resultado y se cuentan en asistencia.marcaciones.rechazadas
+            ResultadoMarcacion resultado = asistenciaService.marcar(request.getDni());
+            if (!resultado.isRegistrada()) {
+                logger.debug("Marcación rechazada para DNI: {} - {}", request.getDni(), resultado.rechazo());
+                HttpStatus status = resultado.rechazo() == ResultadoMarcacion.Rechazo.EMPLEADO_NO_ENCONTRADO
+                        ? HttpStatus.NOT_FOUND : HttpStatus.CONFLICT;
+                return ResponseEntity.status(status).body(MarcacionResponseDTO.error(resultado.rechazo().getMensaje()));
+            }
             
+            MarcacionResponseDTO response = resultado.respuesta();
             logger.info("Marcación exitosa para DNI: {} - Tipo: {} - Estado: {}", 
                        request.getDni(), response.getTipo(), response.getEstado());
             
             return ResponseEntity.ok(response);
             
-        } catch (EmpleadoNotFoundException e) {
-            logger.warn("Empleado no encontrado para DNI: {}", request.getDni());
-            MarcacionResponseDTO errorResponse = MarcacionResponseDTO.error("Empleado no encontrado");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
-            
-        } catch (MarcacionDuplicadaException e) {
-            logger.warn("Marcación duplicada para DNI: {} - {}", request.getDni(), e.getMessage());
-            MarcacionResponseDTO errorResponse = MarcacionResponseDTO.error("Ya existe una marcación reciente");
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
-            
         } catch (Exception e) {
             logger.error("Error inesperado al procesar marcación para DNI: {}", request.getDni(), e);
             MarcacionResponseDTO errorResponse = MarcacionResponseDTO.error("Error interno del servidor");
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Feed en vivo de marcaciones para el panel de supervisión (Server-Sent Events)
+     * Cada marcación confirmada llega como evento "marcacion" con el JSON de la asistencia
+     */
+    @GetMapping(value = "/admin/marcaciones/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMarcaciones(HttpServletResponse response) {
+        // Evita que nginx acumule los eventos en su buffer
+        response.setHeader("X-Accel-Buffering", "no");
+        response.setHeader("Cache-Control", "no-cache");
+        return marcacionFeedService.suscribir();
+    }
+    
+    /**
+     * Ocupación actual: total de presentes y conteo por área, desde el índice en memoria
+     */
+    @GetMapping("/admin/presencia")
+    public ResponseEntity<Map<String, Object>> getOcupacion() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", presenciaService.getOcupacion());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Empleados presentes ahora, opcionalmente de un área (conteo de evacuación)
+     */
+    @GetMapping("/admin/presencia/empleados")
+    public ResponseEntity<Map<String, Object>> getPresentes(@RequestParam(required = false) String area) {
+        List<PresenciaDTO> presentes = presenciaService.findPresentes(area);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", presentes);
+        response.put("total", presentes.size());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,16 +1,27 @@
 package com.asistencia.controller;
 
 import com.asistencia.dto.EmpleadoDTO;
+import com.asistencia.dto.EstadisticasDTO;
+import com.asistencia.dto.ImportacionResultadoDTO;
+import com.asistencia.dto.RespuestaDTO;
+import com.asistencia.dto.SugerenciaEmpleadoDTO;
+import com.asistencia.exception.EmpleadoValidationException;
+import com.asistencia.service.AutocompletadoEmpleadoService;
+import com.asistencia.service.EmpleadoImportService;
 import com.asistencia.service.EmpleadoService;
+import com.asistencia.service.FiltroDniService;
+import com.asistencia.util.EmpleadoJsonWriter;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -29,27 +40,33 @@ public class EmpleadoController {
     @Autowired
     private EmpleadoService empleadoService;
     
+    @Autowired
+    private EmpleadoImportService empleadoImportService;
+    
+    @Autowired
+    private AutocompletadoEmpleadoService autocompletadoEmpleadoService;
+    
+    @Autowired
+    private EmpleadoJsonWriter empleadoJsonWriter;
+    
+    @Autowired(required = false)
+    private FiltroDniService filtroDniService;
+    
     /**
      * Obtiene todos los empleados activos
      * GET /api/admin/empleados
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllEmpleados() {
+    public ResponseEntity<StreamingResponseBody> getAllEmpleados() {
         try {
             List<EmpleadoDTO> empleados = empleadoService.findAllActivos();
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", empleados);
-            response.put("total", empleados.size());
             
             logger.info("Obtenidos {} empleados activos", empleados.size());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(empleadoJsonWriter.lista(empleados));
         } catch (Exception e) {
             logger.error("Error al obtener empleados: ", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al obtener empleados");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON)
+                    .body(empleadoJsonWriter.error("Error al obtener empleados"));
         }
     }
     
@@ -58,22 +75,16 @@ public class EmpleadoController {
      * GET /api/admin/empleados/all
      */
     @GetMapping("/all")
-    public ResponseEntity<Map<String, Object>> getAllEmpleadosIncludingInactive() {
+    public ResponseEntity<StreamingResponseBody> getAllEmpleadosIncludingInactive() {
         try {
             List<EmpleadoDTO> empleados = empleadoService.findAll();
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", empleados);
-            response.put("total", empleados.size());
             
             logger.info("Obtenidos {} empleados (incluyendo inactivos)", empleados.size());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(empleadoJsonWriter.lista(empleados));
         } catch (Exception e) {
             logger.error("Error al obtener todos los empleados: ", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al obtener empleados");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON)
+                    .body(empleadoJsonWriter.error("Error al obtener empleados"));
         }
     }
     
@@ -82,28 +93,21 @@ public class EmpleadoController {
      * GET /api/admin/empleados/{id}
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getEmpleadoById(@PathVariable Long id) {
+    public ResponseEntity<RespuestaDTO<EmpleadoDTO>> getEmpleadoById(@PathVariable Long id) {
         try {
             Optional<EmpleadoDTO> empleado = empleadoService.findById(id);
-            Map<String, Object> response = new HashMap<>();
             
             if (empleado.isPresent()) {
-                response.put("success", true);
-                response.put("data", empleado.get());
                 logger.info("Empleado encontrado con ID: {}", id);
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok(RespuestaDTO.ok(empleado.get()));
             } else {
-                response.put("success", false);
-                response.put("mensaje", "Empleado no encontrado");
                 logger.warn("Empleado no encontrado con ID: {}", id);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(RespuestaDTO.error("Empleado no encontrado"));
             }
         } catch (Exception e) {
             logger.error("Error al obtener empleado con ID {}: ", id, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al obtener empleado");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al obtener empleado"));
         }
     }
     
@@ -112,28 +116,22 @@ public class EmpleadoController {
      * GET /api/admin/empleados/buscar/dni/{dni}
      */
     @GetMapping("/buscar/dni/{dni}")
-    public ResponseEntity<Map<String, Object>> getEmpleadoByDni(@PathVariable String dni) {
+    public ResponseEntity<RespuestaDTO<EmpleadoDTO>> getEmpleadoByDni(@PathVariable String dni) {
         try {
             Optional<EmpleadoDTO> empleado = empleadoService.findByDni(dni);
-            Map<String, Object> response = new HashMap<>();
             
             if (empleado.isPresent()) {
-                response.put("success", true);
-                response.put("data", empleado.get());
                 logger.info("Empleado encontrado con DNI: {}", dni);
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok(RespuestaDTO.ok(empleado.get()));
             } else {
-                response.put("success", false);
-                response.put("mensaje", "Empleado no encontrado con DNI: " + dni);
                 logger.warn("Empleado no encontrado con DNI: {}", dni);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(RespuestaDTO.error("Empleado no encontrado con DNI: " + dni));
             }
         } catch (Exception e) {
             logger.error("Error al buscar empleado con DNI {}: ", dni, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al buscar empleado");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al buscar empleado"));
         }
     }
     
@@ -142,22 +140,17 @@ public class EmpleadoController {
      * GET /api/admin/empleados/buscar/area/{area}
      */
     @GetMapping("/buscar/area/{area}")
-    public ResponseEntity<Map<String, Object>> getEmpleadosByArea(@PathVariable String area) {
+    public ResponseEntity<RespuestaDTO<List<EmpleadoDTO>>> getEmpleadosByArea(@PathVariable String area) {
         try {
             List<EmpleadoDTO> empleados = empleadoService.findByArea(area);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", empleados);
-            response.put("total", empleados.size());
+            RespuestaDTO<List<EmpleadoDTO>> response = RespuestaDTO.lista(empleados);
             
             logger.info("Encontrados {} empleados en el área: {}", empleados.size(), area);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al buscar empleados por área {}: ", area, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al buscar empleados por área");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al buscar empleados por área"));
         }
     }
     
@@ -166,23 +159,44 @@ public class EmpleadoController {
      * GET /api/admin/empleados/buscar/cargo/{cargo}
      */
     @GetMapping("/buscar/cargo/{cargo}")
-    public ResponseEntity<Map<String, Object>> getEmpleadosByCargo(@PathVariable String cargo) {
+    public ResponseEntity<RespuestaDTO<List<EmpleadoDTO>>> getEmpleadosByCargo(@PathVariable String cargo) {
         try {
             List<EmpleadoDTO> empleados = empleadoService.findByCargo(cargo);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", empleados);
-            response.put("total", empleados.size());
+            RespuestaDTO<List<EmpleadoDTO>> response = RespuestaDTO.lista(empleados);
             
             logger.info("Encontrados {} empleados con cargo: {}", empleados.size(), cargo);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al buscar empleados por cargo {}: ", cargo, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al buscar empleados por cargo");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al buscar empleados por cargo"));
+        }
+    }
+    
+    /**
+     * Sugerencias por prefijo de DNI, nombres o apellidos (índice en memoria, sin consultar la base de datos)
+     * GET /api/admin/empleados/autocompletar?q={texto}&limite={n}
+     */
+    @GetMapping("/autocompletar")
+    public ResponseEntity<RespuestaDTO<List<SugerenciaEmpleadoDTO>>> autocompletarEmpleados(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limite) {
+        List<SugerenciaEmpleadoDTO> sugerencias = autocompletadoEmpleadoService.sugerir(q, limite);
+        RespuestaDTO<List<SugerenciaEmpleadoDTO>> response = RespuestaDTO.lista(sugerencias);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Estado del filtro de DNIs de las marcaciones: tamaño, tasas de falsos positivos y DNIs descartados
+     * GET /api/admin/empleados/filtro-dni
+     */
+    @GetMapping("/filtro-dni")
+    public ResponseEntity<RespuestaDTO<Map<String, Object>>> getEstadoFiltroDni() {
+        if (filtroDniService == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(RespuestaDTO.error("El filtro de DNIs está deshabilitado (requiere asistencia.cache.bus=postgres)"));
         }
+        return ResponseEntity.ok(RespuestaDTO.ok(filtroDniService.getEstado()));
     }
     
     /**
@@ -190,22 +204,17 @@ public class EmpleadoController {
      * GET /api/admin/empleados/buscar?q={termino}
      */
     @GetMapping("/buscar")
-    public ResponseEntity<Map<String, Object>> searchEmpleados(@RequestParam String q) {
+    public ResponseEntity<RespuestaDTO<List<EmpleadoDTO>>> searchEmpleados(@RequestParam String q) {
         try {
             List<EmpleadoDTO> empleados = empleadoService.findByNombreOrApellido(q);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", empleados);
-            response.put("total", empleados.size());
+            RespuestaDTO<List<EmpleadoDTO>> response = RespuestaDTO.lista(empleados);
             
             logger.info("Encontrados {} empleados con término de búsqueda: {}", empleados.size(), q);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al buscar empleados con término {}: ", q, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al buscar empleados");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al buscar empleados"));
         }
     }
     
@@ -214,28 +223,44 @@ public class EmpleadoController {
      * POST /api/admin/empleados
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createEmpleado(@Valid @RequestBody EmpleadoDTO empleadoDTO) {
+    public ResponseEntity<RespuestaDTO<EmpleadoDTO>> createEmpleado(@Valid @RequestBody EmpleadoDTO empleadoDTO) {
         try {
             EmpleadoDTO nuevoEmpleado = empleadoService.create(empleadoDTO);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("mensaje", "Empleado creado exitosamente");
-            response.put("data", nuevoEmpleado);
+            RespuestaDTO<EmpleadoDTO> response = RespuestaDTO.ok(nuevoEmpleado, "Empleado creado exitosamente");
             
             logger.info("Empleado creado exitosamente: {} - {}", nuevoEmpleado.getDni(), nuevoEmpleado.getNombreCompleto());
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (IllegalArgumentException e) {
             logger.warn("Error de validación al crear empleado: {}", e.getMessage());
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(RespuestaDTO.error(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error al crear empleado: ", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error interno al crear empleado");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error interno al crear empleado"));
+        }
+    }
+    
+    /**
+     * Importa empleados de forma masiva desde un archivo CSV o XLSX
+     * POST /api/admin/empleados/importar
+     */
+    @PostMapping("/importar")
+    public ResponseEntity<RespuestaDTO<ImportacionResultadoDTO>> importarEmpleados(@RequestParam("archivo") MultipartFile archivo) {
+        try {
+            ImportacionResultadoDTO resultado = empleadoImportService.importar(archivo);
+            RespuestaDTO<ImportacionResultadoDTO> response = RespuestaDTO.ok(resultado, String.format(
+                    "Importados %d de %d empleados", resultado.getImportados(), resultado.getTotalFilas()));
+            
+            logger.info("Importación de {}: {} importados, {} rechazados",
+                    archivo.getOriginalFilename(), resultado.getImportados(), resultado.getRechazados());
+            return ResponseEntity.ok(response);
+        } catch (EmpleadoValidationException e) {
+            logger.warn("Error de validación al importar empleados: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(RespuestaDTO.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error al importar empleados: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error interno al importar empleados"));
         }
     }
     
@@ -244,28 +269,20 @@ public class EmpleadoController {
      * PUT /api/admin/empleados/{id}
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> updateEmpleado(@PathVariable Long id, @Valid @RequestBody EmpleadoDTO empleadoDTO) {
+    public ResponseEntity<RespuestaDTO<EmpleadoDTO>> updateEmpleado(@PathVariable Long id, @Valid @RequestBody EmpleadoDTO empleadoDTO) {
         try {
             EmpleadoDTO empleadoActualizado = empleadoService.update(id, empleadoDTO);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("mensaje", "Empleado actualizado exitosamente");
-            response.put("data", empleadoActualizado);
+            RespuestaDTO<EmpleadoDTO> response = RespuestaDTO.ok(empleadoActualizado, "Empleado actualizado exitosamente");
             
             logger.info("Empleado actualizado exitosamente: {} - {}", empleadoActualizado.getDni(), empleadoActualizado.getNombreCompleto());
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             logger.warn("Error de validación al actualizar empleado con ID {}: {}", id, e.getMessage());
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(RespuestaDTO.error(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error al actualizar empleado con ID {}: ", id, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error interno al actualizar empleado");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error interno al actualizar empleado"));
         }
     }
     
@@ -274,27 +291,20 @@ public class EmpleadoController {
      * DELETE /api/admin/empleados/{id}
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> deleteEmpleado(@PathVariable Long id) {
+    public ResponseEntity<RespuestaDTO<Void>> deleteEmpleado(@PathVariable Long id) {
         try {
             empleadoService.delete(id);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("mensaje", "Empleado desactivado exitosamente");
+            RespuestaDTO<Void> response = RespuestaDTO.mensaje("Empleado desactivado exitosamente");
             
             logger.info("Empleado desactivado exitosamente con ID: {}", id);
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             logger.warn("Error al desactivar empleado con ID {}: {}", id, e.getMessage());
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", e.getMessage());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(RespuestaDTO.error(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error al desactivar empleado con ID {}: ", id, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error interno al desactivar empleado");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error interno al desactivar empleado"));
         }
     }
     
@@ -303,33 +313,25 @@ public class EmpleadoController {
      * PUT /api/admin/empleados/{id}/reactivar
      */
     @PutMapping("/{id}/reactivar")
-    public ResponseEntity<Map<String, Object>> reactivateEmpleado(@PathVariable Long id) {
+    public ResponseEntity<RespuestaDTO<EmpleadoDTO>> reactivateEmpleado(@PathVariable Long id) {
         try {
             Optional<EmpleadoDTO> empleadoOpt = empleadoService.findById(id);
             if (empleadoOpt.isEmpty()) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("mensaje", "Empleado no encontrado");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(RespuestaDTO.error("Empleado no encontrado"));
             }
             
             EmpleadoDTO empleado = empleadoOpt.get();
             empleado.setActivo(true);
             EmpleadoDTO empleadoReactivado = empleadoService.update(id, empleado);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("mensaje", "Empleado reactivado exitosamente");
-            response.put("data", empleadoReactivado);
+            RespuestaDTO<EmpleadoDTO> response = RespuestaDTO.ok(empleadoReactivado, "Empleado reactivado exitosamente");
             
             logger.info("Empleado reactivado exitosamente con ID: {}", id);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al reactivar empleado con ID {}: ", id, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error interno al reactivar empleado");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error interno al reactivar empleado"));
         }
     }
     
@@ -338,29 +340,21 @@ public class EmpleadoController {
      * GET /api/admin/empleados/estadisticas
      */
     @GetMapping("/estadisticas")
-    public ResponseEntity<Map<String, Object>> getEstadisticas() {
+    public ResponseEntity<RespuestaDTO<EstadisticasDTO>> getEstadisticas() {
         try {
             long totalActivos = empleadoService.countActivos();
             List<EmpleadoDTO> todosEmpleados = empleadoService.findAll();
             long totalInactivos = todosEmpleados.size() - totalActivos;
             
-            Map<String, Object> estadisticas = new HashMap<>();
-            estadisticas.put("totalActivos", totalActivos);
-            estadisticas.put("totalInactivos", totalInactivos);
-            estadisticas.put("total", todosEmpleados.size());
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", estadisticas);
+            EstadisticasDTO estadisticas = new EstadisticasDTO(totalActivos, totalInactivos, todosEmpleados.size(), null);
+            RespuestaDTO<EstadisticasDTO> response = RespuestaDTO.ok(estadisticas);
             
             logger.info("Estadísticas obtenidas: {} activos, {} inactivos", totalActivos, totalInactivos);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al obtener estadísticas: ", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al obtener estadísticas");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al obtener estadísticas"));
         }
     }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.asistencia.controller;
 
+import com.asistencia.dto.EstadisticasDTO;
 import com.asistencia.dto.HorarioDTO;
+import com.asistencia.dto.RespuestaDTO;
+import com.asistencia.dto.SolapamientoDTO;
 import com.asistencia.entity.TipoMarcacion;
 import com.asistencia.service.HorarioService;
 import jakarta.validation.Valid;
@@ -12,9 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -36,22 +37,17 @@ public class HorarioController {
      * GET /api/admin/horarios
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllHorarios() {
+    public ResponseEntity<RespuestaDTO<List<HorarioDTO>>> getAllHorarios() {
         try {
             List<HorarioDTO> horarios = horarioService.findAll();
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", horarios);
-            response.put("total", horarios.size());
+            RespuestaDTO<List<HorarioDTO>> response = RespuestaDTO.lista(horarios);
             
             logger.info("Obtenidos {} horarios", horarios.size());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al obtener horarios: ", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al obtener horarios");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al obtener horarios"));
         }
     }
     
@@ -60,22 +56,17 @@ public class HorarioController {
      * GET /api/admin/horarios/activos
      */
     @GetMapping("/activos")
-    public ResponseEntity<Map<String, Object>> getHorariosActivos() {
+    public ResponseEntity<RespuestaDTO<List<HorarioDTO>>> getHorariosActivos() {
         try {
             List<HorarioDTO> horarios = horarioService.findAllActivos();
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", horarios);
-            response.put("total", horarios.size());
+            RespuestaDTO<List<HorarioDTO>> response = RespuestaDTO.lista(horarios);
             
             logger.info("Obtenidos {} horarios activos", horarios.size());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al obtener horarios activos: ", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al obtener horarios activos");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al obtener horarios activos"));
         }
     }
     
@@ -84,28 +75,21 @@ public class HorarioController {
      * GET /api/admin/horarios/{id}
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getHorarioById(@PathVariable Long id) {
+    public ResponseEntity<RespuestaDTO<HorarioDTO>> getHorarioById(@PathVariable Long id) {
         try {
             Optional<HorarioDTO> horario = horarioService.findById(id);
-            Map<String, Object> response = new HashMap<>();
             
             if (horario.isPresent()) {
-                response.put("success", true);
-                response.put("data", horario.get());
                 logger.info("Horario encontrado con ID: {}", id);
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok(RespuestaDTO.ok(horario.get()));
             } else {
-                response.put("success", false);
-                response.put("mensaje", "Horario no encontrado");
                 logger.warn("Horario no encontrado con ID: {}", id);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(RespuestaDTO.error("Horario no encontrado"));
             }
         } catch (Exception e) {
             logger.error("Error al obtener horario con ID {}: ", id, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al obtener horario");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al obtener horario"));
         }
     }
     
@@ -114,13 +98,10 @@ public class HorarioController {
      * POST /api/admin/horarios
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createHorario(@Valid @RequestBody HorarioDTO horarioDTO) {
+    public ResponseEntity<RespuestaDTO<HorarioDTO>> createHorario(@Valid @RequestBody HorarioDTO horarioDTO) {
         try {
             HorarioDTO nuevoHorario = horarioService.create(horarioDTO);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("mensaje", "Horario creado exitosamente");
-            response.put("data", nuevoHorario);
+            RespuestaDTO<HorarioDTO> response = RespuestaDTO.ok(nuevoHorario, "Horario creado exitosamente");
             
             logger.info("Horario creado exitosamente: {} - {} ({} - {})", 
                 nuevoHorario.getNombre(), nuevoHorario.getTipo(), 
@@ -128,16 +109,11 @@ public class HorarioController {
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (IllegalArgumentException e) {
             logger.warn("Error de validación al crear horario: {}", e.getMessage());
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(RespuestaDTO.error(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error al crear horario: ", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error interno al crear horario");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error interno al crear horario"));
         }
     }
     
@@ -146,13 +122,10 @@ public class HorarioController {
      * PUT /api/admin/horarios/{id}
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> updateHorario(@PathVariable Long id, @Valid @RequestBody HorarioDTO horarioDTO) {
+    public ResponseEntity<RespuestaDTO<HorarioDTO>> updateHorario(@PathVariable Long id, @Valid @RequestBody HorarioDTO horarioDTO) {
         try {
             HorarioDTO horarioActualizado = horarioService.update(id, horarioDTO);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("mensaje", "Horario actualizado exitosamente");
-            response.put("data", horarioActualizado);
+            RespuestaDTO<HorarioDTO> response = RespuestaDTO.ok(horarioActualizado, "Horario actualizado exitosamente");
             
             logger.info("Horario actualizado exitosamente: {} - {} ({} - {})", 
                 horarioActualizado.getNombre(), horarioActualizado.getTipo(), 
@@ -160,16 +133,11 @@ public class HorarioController {
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             logger.warn("Error de validación al actualizar horario con ID {}: {}", id, e.getMessage());
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(RespuestaDTO.error(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error al actualizar horario con ID {}: ", id, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error interno al actualizar horario");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error interno al actualizar horario"));
         }
     }
     
@@ -178,65 +146,52 @@ public class HorarioController {
      * DELETE /api/admin/horarios/{id}
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> deleteHorario(@PathVariable Long id) {
+    public ResponseEntity<RespuestaDTO<Void>> deleteHorario(@PathVariable Long id) {
         try {
             horarioService.delete(id);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("mensaje", "Horario eliminado exitosamente");
+            RespuestaDTO<Void> response = RespuestaDTO.mensaje("Horario eliminado exitosamente");
             
             logger.info("Horario eliminado exitosamente con ID: {}", id);
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             logger.warn("Error al eliminar horario con ID {}: {}", id, e.getMessage());
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", e.getMessage());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(RespuestaDTO.error(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error al eliminar horario con ID {}: ", id, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error interno al eliminar horario");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error interno al eliminar horario"));
         }
     }
     
     /**
-     * Verifica solapamientos de horarios
+     * Verifica solapamientos de horarios dentro de un turno (o del horario general si no se indica)
      * GET /api/admin/horarios/check-overlap
      */
     @GetMapping("/check-overlap")
-    public ResponseEntity<Map<String, Object>> checkOverlap(
+    public ResponseEntity<SolapamientoDTO> checkOverlap(
             @RequestParam TipoMarcacion tipo,
             @RequestParam String horaInicio,
             @RequestParam String horaFin,
+            @RequestParam(required = false) Long turnoId,
+            @RequestParam(required = false) Integer diasSemana,
             @RequestParam(required = false) Long excludeId) {
         try {
             LocalTime inicio = LocalTime.parse(horaInicio);
             LocalTime fin = LocalTime.parse(horaFin);
             
-            boolean hasOverlap = horarioService.existsOverlappingHorario(tipo, inicio, fin, excludeId);
+            boolean hasOverlap = horarioService.existsOverlappingHorario(turnoId, diasSemana, tipo, inicio, fin, excludeId);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("hasOverlap", hasOverlap);
-            
-            if (hasOverlap) {
-                response.put("mensaje", "Existe un solapamiento con otro horario del mismo tipo");
-            } else {
-                response.put("mensaje", "No hay solapamientos");
-            }
+            SolapamientoDTO response = new SolapamientoDTO(true, hasOverlap, hasOverlap
+                    ? "Existe un solapamiento con otro horario del mismo tipo"
+                    : "No hay solapamientos");
             
             logger.info("Verificación de solapamiento: tipo={}, rango={}-{}, overlap={}", 
                 tipo, horaInicio, horaFin, hasOverlap);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al verificar solapamiento: ", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al verificar solapamiento");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new SolapamientoDTO(false, false, "Error al verificar solapamiento"));
         }
     }
     
@@ -245,28 +200,22 @@ public class HorarioController {
      * GET /api/admin/horarios/tipo/{tipo}
      */
     @GetMapping("/tipo/{tipo}")
-    public ResponseEntity<Map<String, Object>> getHorariosByTipo(@PathVariable TipoMarcacion tipo) {
+    public ResponseEntity<RespuestaDTO<HorarioDTO>> getHorariosByTipo(@PathVariable TipoMarcacion tipo) {
         try {
             Optional<HorarioDTO> horario = horarioService.findByTipo(tipo);
-            Map<String, Object> response = new HashMap<>();
             
             if (horario.isPresent()) {
-                response.put("success", true);
-                response.put("data", horario.get());
                 logger.info("Horario encontrado para tipo: {}", tipo);
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok(RespuestaDTO.ok(horario.get()));
             } else {
-                response.put("success", false);
-                response.put("mensaje", "No hay horario configurado para el tipo: " + tipo);
                 logger.warn("No hay horario configurado para tipo: {}", tipo);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(RespuestaDTO.error("No hay horario configurado para el tipo: " + tipo));
             }
         } catch (Exception e) {
             logger.error("Error al buscar horario por tipo {}: ", tipo, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al buscar horario por tipo");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al buscar horario por tipo"));
         }
     }
     
@@ -275,22 +224,17 @@ public class HorarioController {
      * GET /api/admin/horarios/buscar?q={termino}
      */
     @GetMapping("/buscar")
-    public ResponseEntity<Map<String, Object>> searchHorarios(@RequestParam String q) {
+    public ResponseEntity<RespuestaDTO<List<HorarioDTO>>> searchHorarios(@RequestParam String q) {
         try {
             List<HorarioDTO> horarios = horarioService.findByNombre(q);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", horarios);
-            response.put("total", horarios.size());
+            RespuestaDTO<List<HorarioDTO>> response = RespuestaDTO.lista(horarios);
             
             logger.info("Encontrados {} horarios con término de búsqueda: {}", horarios.size(), q);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al buscar horarios con término {}: ", q, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al buscar horarios");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al buscar horarios"));
         }
     }
     
@@ -299,24 +243,19 @@ public class HorarioController {
      * GET /api/admin/horarios/en-rango?hora={hora}
      */
     @GetMapping("/en-rango")
-    public ResponseEntity<Map<String, Object>> getHorariosEnRango(@RequestParam String hora) {
+    public ResponseEntity<RespuestaDTO<List<HorarioDTO>>> getHorariosEnRango(@RequestParam String hora) {
         try {
             LocalTime horaConsulta = LocalTime.parse(hora);
             List<HorarioDTO> horarios = horarioService.findByHoraEnRango(horaConsulta);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", horarios);
-            response.put("total", horarios.size());
+            RespuestaDTO<List<HorarioDTO>> response = RespuestaDTO.lista(horarios);
             
             logger.info("Encontrados {} horarios que contienen la hora: {}", horarios.size(), hora);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al buscar horarios en rango para hora {}: ", hora, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al buscar horarios en rango");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al buscar horarios en rango"));
         }
     }
     
@@ -325,32 +264,24 @@ public class HorarioController {
      * GET /api/admin/horarios/estadisticas
      */
     @GetMapping("/estadisticas")
-    public ResponseEntity<Map<String, Object>> getEstadisticas() {
+    public ResponseEntity<RespuestaDTO<EstadisticasDTO>> getEstadisticas() {
         try {
             long totalActivos = horarioService.countActivos();
             List<HorarioDTO> todosHorarios = horarioService.findAll();
             long totalInactivos = todosHorarios.size() - totalActivos;
             boolean horariosCompletos = horarioService.tieneHorariosCompletos();
             
-            Map<String, Object> estadisticas = new HashMap<>();
-            estadisticas.put("totalActivos", totalActivos);
-            estadisticas.put("totalInactivos", totalInactivos);
-            estadisticas.put("total", todosHorarios.size());
-            estadisticas.put("horariosCompletos", horariosCompletos);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", estadisticas);
+            EstadisticasDTO estadisticas = new EstadisticasDTO(totalActivos, totalInactivos, todosHorarios.size(),
+                    horariosCompletos);
+            RespuestaDTO<EstadisticasDTO> response = RespuestaDTO.ok(estadisticas);
             
             logger.info("Estadísticas obtenidas: {} activos, {} inactivos, completos: {}", 
                 totalActivos, totalInactivos, horariosCompletos);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al obtener estadísticas: ", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error al obtener estadísticas");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error al obtener estadísticas"));
         }
     }
     
@@ -359,33 +290,25 @@ public class HorarioController {
      * PUT /api/admin/horarios/{id}/reactivar
      */
     @PutMapping("/{id}/reactivar")
-    public ResponseEntity<Map<String, Object>> reactivateHorario(@PathVariable Long id) {
+    public ResponseEntity<RespuestaDTO<HorarioDTO>> reactivateHorario(@PathVariable Long id) {
         try {
             Optional<HorarioDTO> horarioOpt = horarioService.findById(id);
             if (horarioOpt.isEmpty()) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("mensaje", "Horario no encontrado");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(RespuestaDTO.error("Horario no encontrado"));
             }
             
             HorarioDTO horario = horarioOpt.get();
             horario.setActivo(true);
             HorarioDTO horarioReactivado = horarioService.update(id, horario);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("mensaje", "Horario reactivado exitosamente");
-            response.put("data", horarioReactivado);
+            RespuestaDTO<HorarioDTO> response = RespuestaDTO.ok(horarioReactivado, "Horario reactivado exitosamente");
             
             logger.info("Horario reactivado exitosamente con ID: {}", id);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error al reactivar horario con ID {}: ", id, e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("mensaje", "Error interno al reactivar horario");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(RespuestaDTO.error("Error interno al reactivar horario"));
         }
     }
 }
\ No newline at end of file
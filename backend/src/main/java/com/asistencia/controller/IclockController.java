@@ -0,0 +1,107 @@
+package com.asistencia.controller;
+
+import com.asistencia.service.IngestaIclockService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Protocolo push de los lectores ZKTeco (ADMS / iclock): el lector se conecta solo al servidor y sube sus
+ * marcaciones en lotes de texto, sin un puente que las reenvíe una a una a /api/public/asistencia/marcar.
+ * Las respuestas son texto plano, como las espera el firmware.
+ */
+@RestController
+@RequestMapping(value = "/iclock", produces = MediaType.TEXT_PLAIN_VALUE)
+@ConditionalOnProperty(prefix = "asistencia.iclock", name = "enabled", havingValue = "true")
+public class IclockController {
+
+    private static final Logger logger = LoggerFactory.getLogger(IclockController.class);
+
+    @Autowired
+    private IngestaIclockService ingestaIclockService;
+
+    /**
+     * Saludo del lector al encenderse o reconectarse: recibe sus opciones y el Stamp de ATTLOG
+     * GET /iclock/cdata?SN={serie}&options=all
+     */
+    @GetMapping("/cdata")
+    public ResponseEntity<String> opciones(@RequestParam("SN") String sn, HttpServletRequest request) {
+        if (!ingestaIclockService.autorizado(sn)) {
+            return noAutorizado(sn);
+        }
+        return ResponseEntity.ok(ingestaIclockService.opciones(sn, request.getRemoteAddr()));
+    }
+
+    /**
+     * Lote de registros del lector; solo se procesa ATTLOG (marcaciones), las demás tablas se confirman sin más
+     * POST /iclock/cdata?SN={serie}&table=ATTLOG&Stamp={stamp}
+     */
+    @PostMapping("/cdata")
+    public ResponseEntity<String> recibir(@RequestParam("SN") String sn,
+                                          @RequestParam(value = "table", required = false) String tabla,
+                                          @RequestParam(value = "Stamp", required = false) Long stamp,
+                                          HttpServletRequest request) throws IOException {
+        if (!ingestaIclockService.autorizado(sn)) {
+            return noAutorizado(sn);
+        }
+        if (!"ATTLOG".equals(tabla)) {
+            return ResponseEntity.ok("OK");
+        }
+        // El SN viaja en claro: el cuerpo se limita antes de leerlo en memoria
+        int maximo = ingestaIclockService.getMaxCuerpoBytes();
+        if (request.getContentLengthLong() > maximo) {
+            return demasiadoGrande(sn, request.getContentLengthLong());
+        }
+        byte[] cuerpo = request.getInputStream().readNBytes(maximo + 1);
+        if (cuerpo.length > maximo) {
+            return demasiadoGrande(sn, cuerpo.length);
+        }
+        try {
+            IngestaIclockService.ResultadoIngesta resultado = ingestaIclockService.ingerirAttlog(sn, stamp, cuerpo);
+            return ResponseEntity.ok("OK: " + resultado.leidos());
+        } catch (Exception e) {
+            // El lector reenvía el lote más tarde; los ya registrados se descartan como duplicados
+            logger.error("Error al registrar el lote ATTLOG del lector {}", sn, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("ERROR");
+        }
+    }
+
+    /**
+     * Consulta periódica de comandos pendientes; no se envían comandos a los lectores
+     * GET /iclock/getrequest?SN={serie}
+     */
+    @GetMapping("/getrequest")
+    public ResponseEntity<String> comandos(@RequestParam("SN") String sn) {
+        if (!ingestaIclockService.autorizado(sn)) {
+            return noAutorizado(sn);
+        }
+        return ResponseEntity.ok("OK");
+    }
+
+    /**
+     * Resultado de un comando ejecutado por el lector
+     * POST /iclock/devicecmd?SN={serie}
+     */
+    @PostMapping("/devicecmd")
+    public ResponseEntity<String> resultadoComando(@RequestParam("SN") String sn) {
+        return ResponseEntity.ok("OK");
+    }
+
+    private ResponseEntity<String> demasiadoGrande(String sn, long largo) {
+        logger.warn("Lote ATTLOG del lector {} rechazado: {} bytes (ver asistencia.iclock.max-cuerpo-bytes)", sn, largo);
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("ERROR");
+    }
+
+    private ResponseEntity<String> noAutorizado(String sn) {
+        logger.warn("Lector ZKTeco no autorizado: {} (ver asistencia.iclock.dispositivos)", sn);
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Dispositivo no autorizado");
+    }
+}
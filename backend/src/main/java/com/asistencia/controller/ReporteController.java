@@ -1,24 +1,45 @@
 package com.asistencia.controller;
 
+import com.asistencia.dto.ConsultaCuboDTO;
+import com.asistencia.dto.ExpresionIndiceDTO;
+import com.asistencia.dto.HojaTiempoDTO;
+import com.asistencia.dto.MarcacionReporteDTO;
+import com.asistencia.dto.PaginaDTO;
+import com.asistencia.dto.ParteArchivoDTO;
 import com.asistencia.dto.ReporteAsistenciaDTO;
+import com.asistencia.dto.ReporteIncidenciaDTO;
 import com.asistencia.dto.ReporteRequestDTO;
 import com.asistencia.entity.Asistencia;
+import com.asistencia.entity.TipoIncidencia;
+import com.asistencia.service.ArchivoAsistenciaService;
+import com.asistencia.service.CuboAsistenciaService;
+import com.asistencia.service.HojaTiempoService;
+import com.asistencia.service.IncidenciaService;
+import com.asistencia.service.IndiceMarcacionesService;
+import com.asistencia.service.ReporteEjecutorService;
 import com.asistencia.service.ReporteService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/admin/reportes")
@@ -28,54 +49,263 @@ public class ReporteController {
     @Autowired
     private ReporteService reporteService;
     
+    @Autowired
+    private IncidenciaService incidenciaService;
+    
+    @Autowired
+    private HojaTiempoService hojaTiempoService;
+    
+    @Autowired
+    private ReporteEjecutorService reporteEjecutor;
+    
+    @Autowired
+    private ArchivoAsistenciaService archivoAsistenciaService;
+    
+    @Autowired
+    private CuboAsistenciaService cuboAsistenciaService;
+    
+    @Autowired
+    private IndiceMarcacionesService indiceMarcacionesService;
+    
+    /**
+     * Página del reporte de asistencias; las entidades se convierten a registros antes de serializarlas
+     */
     @PostMapping("/asistencias")
-    public ResponseEntity<Page<Asistencia>> obtenerReporteAsistencias(
+    public DeferredResult<ResponseEntity<PaginaDTO<MarcacionReporteDTO>>> obtenerReporteAsistencias(
             @Valid @RequestBody ReporteRequestDTO request,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Asistencia> reporte = reporteService.obtenerReporteAsistencias(request, pageable);
-        
-        return ResponseEntity.ok(reporte);
+        return reporteEjecutor.ejecutar(() -> {
+            Page<Asistencia> reporte = reporteService.obtenerReporteAsistencias(request, pageable);
+            return ResponseEntity.ok(PaginaDTO.de(reporte, MarcacionReporteDTO::de));
+        });
     }
     
     @PostMapping("/export/excel")
-    public ResponseEntity<byte[]> exportarReporteExcel(@Valid @RequestBody ReporteRequestDTO request) {
-        try {
-            byte[] excelData = reporteService.generarReporteExcel(request);
-            
-            String filename = generarNombreArchivo("reporte_asistencias", "xlsx", request);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", filename);
-            headers.setContentLength(excelData.length);
-            
-            return new ResponseEntity<>(excelData, headers, HttpStatus.OK);
-            
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public DeferredResult<ResponseEntity<byte[]>> exportarReporteExcel(@Valid @RequestBody ReporteRequestDTO request) {
+        return exportar(() -> reporteService.generarReporteExcel(request),
+                generarNombreArchivo("reporte_asistencias", "xlsx", request), MediaType.APPLICATION_OCTET_STREAM);
     }
     
     @PostMapping("/export/pdf")
-    public ResponseEntity<byte[]> exportarReportePDF(@Valid @RequestBody ReporteRequestDTO request) {
-        try {
-            byte[] pdfData = reporteService.generarReportePDF(request);
-            
-            String filename = generarNombreArchivo("reporte_asistencias", "pdf", request);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", filename);
-            headers.setContentLength(pdfData.length);
-            
-            return new ResponseEntity<>(pdfData, headers, HttpStatus.OK);
+    public DeferredResult<ResponseEntity<byte[]>> exportarReportePDF(@Valid @RequestBody ReporteRequestDTO request) {
+        return exportar(() -> reporteService.generarReportePDF(request),
+                generarNombreArchivo("reporte_asistencias", "pdf", request), MediaType.APPLICATION_PDF);
+    }
+    
+    /**
+     * Libro con una hoja por área
+     */
+    @PostMapping("/export/excel/por-area")
+    public DeferredResult<ResponseEntity<byte[]>> exportarReporteExcelPorArea(@Valid @RequestBody ReporteRequestDTO request) {
+        return exportar(() -> reporteService.generarReporteExcelPorArea(request),
+                generarNombreArchivo("reporte_asistencias_por_area", "xlsx", request), MediaType.APPLICATION_OCTET_STREAM);
+    }
+    
+    /**
+     * ZIP con un PDF por área
+     */
+    @PostMapping("/export/pdf/por-area")
+    public DeferredResult<ResponseEntity<byte[]>> exportarReportePDFPorArea(@Valid @RequestBody ReporteRequestDTO request) {
+        return exportar(() -> reporteService.generarReportePDFPorArea(request),
+                generarNombreArchivo("reporte_asistencias_por_area", "zip", request), MediaType.parseMediaType("application/zip"));
+    }
+    
+    /**
+     * Ausencias y marcaciones faltantes calculadas por el proceso diario
+     */
+    @PostMapping("/incidencias")
+    public ResponseEntity<List<ReporteIncidenciaDTO>> obtenerReporteIncidencias(
+            @Valid @RequestBody ReporteRequestDTO request,
+            @RequestParam(required = false) TipoIncidencia tipo) {
+        
+        List<ReporteIncidenciaDTO> incidencias = incidenciaService.findReporte(
+                request.getFechaInicio(), request.getFechaFin(), request.getEmpleadoId(), tipo);
+        
+        return ResponseEntity.ok(incidencias);
+    }
+    
+    /**
+     * Recalcula las incidencias de un rango de días ya terminados (días en paralelo), en el pool de reportes
+     */
+    @PostMapping("/incidencias/recalcular")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> recalcularIncidencias(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        
+        return reporteEjecutor.ejecutar(() -> {
+            Map<LocalDate, Integer> porDia = incidenciaService.recalcular(fechaInicio, fechaFin);
             
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", porDia);
+            response.put("total", porDia.values().stream().mapToInt(Integer::intValue).sum());
+            return ResponseEntity.ok(response);
+        });
+    }
+    
+    /**
+     * Horas trabajadas, almuerzo, horas extra y tardanza por empleado en el período
+     */
+    @PostMapping("/hoja-tiempo")
+    public DeferredResult<ResponseEntity<List<HojaTiempoDTO>>> obtenerHojaTiempo(@Valid @RequestBody ReporteRequestDTO request) {
+        return reporteEjecutor.ejecutar(() -> ResponseEntity.ok(hojaTiempoService.calcular(
+                request.getFechaInicio(), request.getFechaFin(), request.getEmpleadoId())));
+    }
+    
+    /**
+     * Conteos del mes en curso por área, cargo, día, tipo y estado, desde el cubo en memoria
+     */
+    @PostMapping("/cubo")
+    public ResponseEntity<Map<String, Object>> consultarCubo(@Valid @RequestBody ConsultaCuboDTO consulta) {
+        Map<String, Object> resultado = cuboAsistenciaService.consultar(consulta);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", resultado);
+        response.put("total", ((List<?>) resultado.get("grupos")).size());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Filas y memoria del cubo en memoria
+     */
+    @GetMapping("/cubo/estado")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoCubo() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", cuboAsistenciaService.getEstado());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Recarga el cubo desde la base de datos (incluye ediciones y marcaciones de otras réplicas)
+     */
+    @PostMapping("/cubo/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirCubo() {
+        cuboAsistenciaService.reconstruir();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", cuboAsistenciaService.getEstado());
+        response.put("mensaje", "Cubo reconstruido correctamente");
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Empleados que cumplen una expresión de conjuntos sobre el índice de marcaciones por día
+     * (por ejemplo, ausentes algún lunes del trimestre y con tardanza en la última semana)
+     */
+    @PostMapping("/indice/consulta")
+    public ResponseEntity<Map<String, Object>> consultarIndice(@Valid @RequestBody ExpresionIndiceDTO expresion) {
+        Map<String, Object> resultado = indiceMarcacionesService.consultar(expresion);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", resultado);
+        response.put("total", resultado.get("total"));
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Empleados que cumplen una condición en al menos "minimo" días del rango, con la cantidad de días
+     */
+    @PostMapping("/indice/frecuencia")
+    public ResponseEntity<Map<String, Object>> consultarFrecuenciaIndice(
+            @Valid @RequestBody ExpresionIndiceDTO condicion,
+            @RequestParam(defaultValue = "1") int minimo) {
+        List<Map<String, Object>> empleados = indiceMarcacionesService.frecuencia(condicion, minimo);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", empleados);
+        response.put("total", empleados.size());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Días, empleados y memoria del índice de marcaciones
+     */
+    @GetMapping("/indice/estado")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoIndice() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", indiceMarcacionesService.getEstado());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Recarga el índice desde la base de datos (incluye ediciones y borrados)
+     */
+    @PostMapping("/indice/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirIndice() {
+        indiceMarcacionesService.reconstruir();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", indiceMarcacionesService.getEstado());
+        response.put("mensaje", "Índice reconstruido correctamente");
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Partes archivadas en almacenamiento frío (manifiesto)
+     */
+    @GetMapping("/archivo")
+    public ResponseEntity<Map<String, Object>> obtenerArchivo() {
+        List<ParteArchivoDTO> partes = archivoAsistenciaService.getManifiesto();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", partes);
+        response.put("total", partes.size());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Archiva un mes cerrado (fuera del período de retención) y lo borra de la tabla
+     */
+    @PostMapping("/archivo")
+    public ResponseEntity<Map<String, Object>> archivarMes(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth mes) {
+        
+        ParteArchivoDTO parte = archivoAsistenciaService.archivarMes(mes);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", parte);
+        response.put("mensaje", parte != null ? "Mes archivado correctamente" : "El mes no tiene marcaciones por archivar");
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/hoja-tiempo/export/excel")
+    public DeferredResult<ResponseEntity<byte[]>> exportarHojaTiempoExcel(@Valid @RequestBody ReporteRequestDTO request) {
+        return exportar(() -> hojaTiempoService.generarExcel(
+                        request.getFechaInicio(), request.getFechaFin(), request.getEmpleadoId()),
+                generarNombreArchivo("hoja_tiempo", "xlsx", request), MediaType.APPLICATION_OCTET_STREAM);
+    }
+    
+    /**
+     * Genera el archivo en el pool de reportes y lo devuelve como descarga
+     */
+    private DeferredResult<ResponseEntity<byte[]>> exportar(Callable<byte[]> generador, String filename, MediaType contentType) {
+        return reporteEjecutor.ejecutar(() -> {
+            try {
+                byte[] data = generador.call();
+                
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(contentType);
+                headers.setContentDispositionFormData("attachment", filename);
+                headers.setContentLength(data.length);
+                
+                return new ResponseEntity<>(data, headers, HttpStatus.OK);
+                
+            } catch (IOException e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        });
     }
     
     private String generarNombreArchivo(String base, String extension, ReporteRequestDTO request) {
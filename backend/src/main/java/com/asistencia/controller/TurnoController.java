@@ -0,0 +1,213 @@
+package com.asistencia.controller;
+
+import com.asistencia.dto.AsignacionTurnoDTO;
+import com.asistencia.dto.HorarioDTO;
+import com.asistencia.dto.TurnoDTO;
+import com.asistencia.service.HorarioService;
+import com.asistencia.service.TurnoService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST para turnos y su asignación a empleados o áreas.
+ * Los horarios de cada turno se crean en /api/admin/horarios indicando turnoId.
+ */
+@RestController
+@RequestMapping("/api/admin/turnos")
+@CrossOrigin(origins = "*")
+public class TurnoController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TurnoController.class);
+    
+    @Autowired
+    private TurnoService turnoService;
+    
+    @Autowired
+    private HorarioService horarioService;
+    
+    /**
+     * Obtiene todos los turnos
+     * GET /api/admin/turnos
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getAllTurnos() {
+        try {
+            List<TurnoDTO> turnos = turnoService.findAll();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", turnos);
+            response.put("total", turnos.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error al obtener turnos: ", e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error al obtener turnos");
+        }
+    }
+    
+    /**
+     * Crea un nuevo turno
+     * POST /api/admin/turnos
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createTurno(@Valid @RequestBody TurnoDTO turnoDTO) {
+        try {
+            TurnoDTO nuevoTurno = turnoService.create(turnoDTO);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("mensaje", "Turno creado exitosamente");
+            response.put("data", nuevoTurno);
+            
+            logger.info("Turno creado exitosamente: {}", nuevoTurno.getNombre());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error de validación al crear turno: {}", e.getMessage());
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al crear turno: ", e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno al crear turno");
+        }
+    }
+    
+    /**
+     * Actualiza un turno
+     * PUT /api/admin/turnos/{id}
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> updateTurno(@PathVariable Long id, @Valid @RequestBody TurnoDTO turnoDTO) {
+        try {
+            TurnoDTO turnoActualizado = turnoService.update(id, turnoDTO);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("mensaje", "Turno actualizado exitosamente");
+            response.put("data", turnoActualizado);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error de validación al actualizar turno con ID {}: {}", id, e.getMessage());
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al actualizar turno con ID {}: ", id, e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno al actualizar turno");
+        }
+    }
+    
+    /**
+     * Desactiva un turno (soft delete)
+     * DELETE /api/admin/turnos/{id}
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> deleteTurno(@PathVariable Long id) {
+        try {
+            turnoService.delete(id);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("mensaje", "Turno eliminado exitosamente");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error al eliminar turno con ID {}: {}", id, e.getMessage());
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al eliminar turno con ID {}: ", id, e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno al eliminar turno");
+        }
+    }
+    
+    /**
+     * Horarios de un turno
+     * GET /api/admin/turnos/{id}/horarios
+     */
+    @GetMapping("/{id}/horarios")
+    public ResponseEntity<Map<String, Object>> getHorarios(@PathVariable Long id) {
+        try {
+            List<HorarioDTO> horarios = horarioService.findByTurno(id);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", horarios);
+            response.put("total", horarios.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error al obtener horarios del turno {}: ", id, e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error al obtener horarios del turno");
+        }
+    }
+    
+    /**
+     * Asignaciones vigentes de un turno
+     * GET /api/admin/turnos/{id}/asignaciones
+     */
+    @GetMapping("/{id}/asignaciones")
+    public ResponseEntity<Map<String, Object>> getAsignaciones(@PathVariable Long id) {
+        try {
+            List<AsignacionTurnoDTO> asignaciones = turnoService.findAsignaciones(id);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", asignaciones);
+            response.put("total", asignaciones.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error al obtener asignaciones del turno {}: ", id, e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error al obtener asignaciones del turno");
+        }
+    }
+    
+    /**
+     * Asigna el turno a un empleado o a un área
+     * POST /api/admin/turnos/{id}/asignaciones
+     */
+    @PostMapping("/{id}/asignaciones")
+    public ResponseEntity<Map<String, Object>> asignar(@PathVariable Long id, @Valid @RequestBody AsignacionTurnoDTO asignacionDTO) {
+        try {
+            AsignacionTurnoDTO asignacion = turnoService.asignar(id, asignacionDTO);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("mensaje", "Turno asignado exitosamente");
+            response.put("data", asignacion);
+            
+            logger.info("Turno {} asignado a {}", asignacion.getTurnoNombre(),
+                asignacion.getEmpleadoId() != null ? "empleado " + asignacion.getEmpleadoId() : "área " + asignacion.getArea());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error de validación al asignar turno {}: {}", id, e.getMessage());
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al asignar turno {}: ", id, e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno al asignar turno");
+        }
+    }
+    
+    /**
+     * Quita una asignación de turno
+     * DELETE /api/admin/turnos/asignaciones/{asignacionId}
+     */
+    @DeleteMapping("/asignaciones/{asignacionId}")
+    public ResponseEntity<Map<String, Object>> quitarAsignacion(@PathVariable Long asignacionId) {
+        try {
+            turnoService.quitarAsignacion(asignacionId);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("mensaje", "Asignación eliminada exitosamente");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error al quitar asignación {}: {}", asignacionId, e.getMessage());
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al quitar asignación {}: ", asignacionId, e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno al quitar asignación");
+        }
+    }
+    
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String mensaje) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("mensaje", mensaje);
+        return ResponseEntity.status(status).body(response);
+    }
+}
@@ -0,0 +1,83 @@
+package com.asistencia.dto;
+
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * Asignación de un turno a un empleado (empleadoId) o a un área (area); se indica solo uno de los dos
+ */
+public class AsignacionTurnoDTO {
+    
+    private Long id;
+    
+    private Long turnoId;
+    
+    private String turnoNombre;
+    
+    private Long empleadoId;
+    
+    private String empleadoNombre;
+    
+    @Size(max = 100, message = "El área no puede exceder 100 caracteres")
+    private String area;
+    
+    private LocalDateTime fechaCreacion;
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getTurnoId() {
+        return turnoId;
+    }
+    
+    public void setTurnoId(Long turnoId) {
+        this.turnoId = turnoId;
+    }
+    
+    public String getTurnoNombre() {
+        return turnoNombre;
+    }
+    
+    public void setTurnoNombre(String turnoNombre) {
+        this.turnoNombre = turnoNombre;
+    }
+    
+    public Long getEmpleadoId() {
+        return empleadoId;
+    }
+    
+    public void setEmpleadoId(Long empleadoId) {
+        this.empleadoId = empleadoId;
+    }
+    
+    public String getEmpleadoNombre() {
+        return empleadoNombre;
+    }
+    
+    public void setEmpleadoNombre(String empleadoNombre) {
+        this.empleadoNombre = empleadoNombre;
+    }
+    
+    public String getArea() {
+        return area;
+    }
+    
+    public void setArea(String area) {
+        this.area = area;
+    }
+    
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+    
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+}
@@ -0,0 +1,101 @@
+package com.asistencia.dto;
+
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+import java.util.List;
+
+/**
+ * Consulta al cubo del mes en curso: dimensiones por las que agrupar y filtros opcionales.
+ * Una lista de filtro vacía o nula no filtra esa dimensión.
+ */
+public class ConsultaCuboDTO {
+    
+    public enum Dimension {
+        AREA, CARGO, DIA, TIPO, ESTADO
+    }
+    
+    private List<Dimension> agrupar = List.of();
+    
+    private List<String> areas;
+    
+    private List<String> cargos;
+    
+    private List<TipoMarcacion> tipos;
+    
+    private List<EstadoMarcacion> estados;
+    
+    @Min(value = 1, message = "El día inicial debe estar entre 1 y 31")
+    @Max(value = 31, message = "El día inicial debe estar entre 1 y 31")
+    private Integer diaDesde;
+    
+    @Min(value = 1, message = "El día final debe estar entre 1 y 31")
+    @Max(value = 31, message = "El día final debe estar entre 1 y 31")
+    private Integer diaHasta;
+    
+    // Constructors
+    public ConsultaCuboDTO() {}
+    
+    public ConsultaCuboDTO(List<Dimension> agrupar) {
+        this.agrupar = agrupar;
+    }
+    
+    // Getters and Setters
+    public List<Dimension> getAgrupar() {
+        return agrupar;
+    }
+    
+    public void setAgrupar(List<Dimension> agrupar) {
+        this.agrupar = agrupar;
+    }
+    
+    public List<String> getAreas() {
+        return areas;
+    }
+    
+    public void setAreas(List<String> areas) {
+        this.areas = areas;
+    }
+    
+    public List<String> getCargos() {
+        return cargos;
+    }
+    
+    public void setCargos(List<String> cargos) {
+        this.cargos = cargos;
+    }
+    
+    public List<TipoMarcacion> getTipos() {
+        return tipos;
+    }
+    
+    public void setTipos(List<TipoMarcacion> tipos) {
+        this.tipos = tipos;
+    }
+    
+    public List<EstadoMarcacion> getEstados() {
+        return estados;
+    }
+    
+    public void setEstados(List<EstadoMarcacion> estados) {
+        this.estados = estados;
+    }
+    
+    public Integer getDiaDesde() {
+        return diaDesde;
+    }
+    
+    public void setDiaDesde(Integer diaDesde) {
+        this.diaDesde = diaDesde;
+    }
+    
+    public Integer getDiaHasta() {
+        return diaHasta;
+    }
+    
+    public void setDiaHasta(Integer diaHasta) {
+        this.diaHasta = diaHasta;
+    }
+}
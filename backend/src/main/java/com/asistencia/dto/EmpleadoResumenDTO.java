@@ -0,0 +1,11 @@
+package com.asistencia.dto;
+
+/**
+ * Datos inmutables de un empleado para registrar marcaciones; es lo que guarda la caché por DNI
+ */
+public record EmpleadoResumenDTO(Long id, String dni, String nombres, String apellidos, String area, String cargo) {
+
+    public String nombreCompleto() {
+        return nombres + " " + apellidos;
+    }
+}
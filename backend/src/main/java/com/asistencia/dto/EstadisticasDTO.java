@@ -0,0 +1,10 @@
+package com.asistencia.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Conteo de registros activos e inactivos; horariosCompletos solo se informa para horarios
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EstadisticasDTO(long totalActivos, long totalInactivos, long total, Boolean horariosCompletos) {
+}
@@ -0,0 +1,130 @@
+package com.asistencia.dto;
+
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.Valid;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Expresión de conjuntos de empleados sobre el índice diario de marcaciones.
+ * Con "args" combina subexpresiones (AND, OR o ANDNOT: el primero menos los demás).
+ * Sin "args" es una hoja: los empleados que cumplen la condición en cada día de desde..hasta
+ * (opcionalmente solo ciertos días de la semana), combinados con "operacion" (OR por defecto: algún día).
+ * La condición es el tipo y/o estado de la marcación, o cualquier marcación si no se indican;
+ * con ausente=true son los empleados activos que no la cumplen.
+ */
+public class ExpresionIndiceDTO {
+    
+    public enum Operacion {
+        AND, OR, ANDNOT
+    }
+    
+    private Operacion operacion;
+    
+    @Valid
+    private List<ExpresionIndiceDTO> args;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate desde;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate hasta;
+    
+    private List<DayOfWeek> diasSemana;
+    
+    private TipoMarcacion tipo;
+    
+    private EstadoMarcacion estado;
+    
+    private boolean ausente;
+    
+    // Constructors
+    public ExpresionIndiceDTO() {}
+    
+    public static ExpresionIndiceDTO hoja(LocalDate desde, LocalDate hasta) {
+        ExpresionIndiceDTO hoja = new ExpresionIndiceDTO();
+        hoja.setDesde(desde);
+        hoja.setHasta(hasta);
+        return hoja;
+    }
+    
+    public static ExpresionIndiceDTO combinar(Operacion operacion, ExpresionIndiceDTO... args) {
+        ExpresionIndiceDTO expresion = new ExpresionIndiceDTO();
+        expresion.setOperacion(operacion);
+        expresion.setArgs(List.of(args));
+        return expresion;
+    }
+    
+    public boolean esHoja() {
+        return args == null || args.isEmpty();
+    }
+    
+    // Getters and Setters
+    public Operacion getOperacion() {
+        return operacion;
+    }
+    
+    public void setOperacion(Operacion operacion) {
+        this.operacion = operacion;
+    }
+    
+    public List<ExpresionIndiceDTO> getArgs() {
+        return args;
+    }
+    
+    public void setArgs(List<ExpresionIndiceDTO> args) {
+        this.args = args;
+    }
+    
+    public LocalDate getDesde() {
+        return desde;
+    }
+    
+    public void setDesde(LocalDate desde) {
+        this.desde = desde;
+    }
+    
+    public LocalDate getHasta() {
+        return hasta;
+    }
+    
+    public void setHasta(LocalDate hasta) {
+        this.hasta = hasta;
+    }
+    
+    public List<DayOfWeek> getDiasSemana() {
+        return diasSemana;
+    }
+    
+    public void setDiasSemana(List<DayOfWeek> diasSemana) {
+        this.diasSemana = diasSemana;
+    }
+    
+    public TipoMarcacion getTipo() {
+        return tipo;
+    }
+    
+    public void setTipo(TipoMarcacion tipo) {
+        this.tipo = tipo;
+    }
+    
+    public EstadoMarcacion getEstado() {
+        return estado;
+    }
+    
+    public void setEstado(EstadoMarcacion estado) {
+        this.estado = estado;
+    }
+    
+    public boolean isAusente() {
+        return ausente;
+    }
+    
+    public void setAusente(boolean ausente) {
+        this.ausente = ausente;
+    }
+}
@@ -0,0 +1,134 @@
+package com.asistencia.dto;
+
+/**
+ * Totales de un empleado en un período: minutos trabajados, de almuerzo, extra y de tardanza
+ */
+public class HojaTiempoDTO {
+    
+    private Long empleadoId;
+    private String empleadoDni;
+    private String empleadoNombres;
+    private String empleadoApellidos;
+    private String empleadoArea;
+    private int diasTrabajados;
+    private int diasIncompletos;
+    private long minutosTrabajados;
+    private long minutosAlmuerzo;
+    private long minutosExtra;
+    private long minutosTardanza;
+    
+    // Constructors
+    public HojaTiempoDTO() {}
+    
+    public HojaTiempoDTO(Long empleadoId, String empleadoDni, String empleadoNombres, String empleadoApellidos,
+                         String empleadoArea, int diasTrabajados, int diasIncompletos, long minutosTrabajados,
+                         long minutosAlmuerzo, long minutosExtra, long minutosTardanza) {
+        this.empleadoId = empleadoId;
+        this.empleadoDni = empleadoDni;
+        this.empleadoNombres = empleadoNombres;
+        this.empleadoApellidos = empleadoApellidos;
+        this.empleadoArea = empleadoArea;
+        this.diasTrabajados = diasTrabajados;
+        this.diasIncompletos = diasIncompletos;
+        this.minutosTrabajados = minutosTrabajados;
+        this.minutosAlmuerzo = minutosAlmuerzo;
+        this.minutosExtra = minutosExtra;
+        this.minutosTardanza = minutosTardanza;
+    }
+    
+    /**
+     * Horas trabajadas con dos decimales
+     */
+    public double getHorasTrabajadas() {
+        return Math.round(minutosTrabajados * 100.0 / 60) / 100.0;
+    }
+    
+    // Getters and Setters
+    public Long getEmpleadoId() {
+        return empleadoId;
+    }
+    
+    public void setEmpleadoId(Long empleadoId) {
+        this.empleadoId = empleadoId;
+    }
+    
+    public String getEmpleadoDni() {
+        return empleadoDni;
+    }
+    
+    public void setEmpleadoDni(String empleadoDni) {
+        this.empleadoDni = empleadoDni;
+    }
+    
+    public String getEmpleadoNombres() {
+        return empleadoNombres;
+    }
+    
+    public void setEmpleadoNombres(String empleadoNombres) {
+        this.empleadoNombres = empleadoNombres;
+    }
+    
+    public String getEmpleadoApellidos() {
+        return empleadoApellidos;
+    }
+    
+    public void setEmpleadoApellidos(String empleadoApellidos) {
+        this.empleadoApellidos = empleadoApellidos;
+    }
+    
+    public String getEmpleadoArea() {
+        return empleadoArea;
+    }
+    
+    public void setEmpleadoArea(String empleadoArea) {
+        this.empleadoArea = empleadoArea;
+    }
+    
+    public int getDiasTrabajados() {
+        return diasTrabajados;
+    }
+    
+    public void setDiasTrabajados(int diasTrabajados) {
+        this.diasTrabajados = diasTrabajados;
+    }
+    
+    public int getDiasIncompletos() {
+        return diasIncompletos;
+    }
+    
+    public void setDiasIncompletos(int diasIncompletos) {
+        this.diasIncompletos = diasIncompletos;
+    }
+    
+    public long getMinutosTrabajados() {
+        return minutosTrabajados;
+    }
+    
+    public void setMinutosTrabajados(long minutosTrabajados) {
+        this.minutosTrabajados = minutosTrabajados;
+    }
+    
+    public long getMinutosAlmuerzo() {
+        return minutosAlmuerzo;
+    }
+    
+    public void setMinutosAlmuerzo(long minutosAlmuerzo) {
+        this.minutosAlmuerzo = minutosAlmuerzo;
+    }
+    
+    public long getMinutosExtra() {
+        return minutosExtra;
+    }
+    
+    public void setMinutosExtra(long minutosExtra) {
+        this.minutosExtra = minutosExtra;
+    }
+    
+    public long getMinutosTardanza() {
+        return minutosTardanza;
+    }
+    
+    public void setMinutosTardanza(long minutosTardanza) {
+        this.minutosTardanza = minutosTardanza;
+    }
+}
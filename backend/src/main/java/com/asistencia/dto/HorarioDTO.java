@@ -1,6 +1,8 @@
 package com.asistencia.dto;
 
 import com.asistencia.entity.TipoMarcacion;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -25,6 +27,13 @@ public class HorarioDTO {
     @NotNull(message = "El tipo de horario es obligatorio")
     private TipoMarcacion tipo;
     
+    // Nulo en el horario general
+    private Long turnoId;
+    
+    @Min(value = 1, message = "El horario debe aplicar al menos un día")
+    @Max(value = 127, message = "Los días de la semana se indican con 7 bits (lunes = 1 ... domingo = 64)")
+    private Integer diasSemana;
+    
     private Boolean activo;
     
     private LocalDateTime fechaCreacion;
@@ -81,6 +90,22 @@ public class HorarioDTO {
         this.tipo = tipo;
     }
     
+    public Long getTurnoId() {
+        return turnoId;
+    }
+    
+    public void setTurnoId(Long turnoId) {
+        this.turnoId = turnoId;
+    }
+    
+    public Integer getDiasSemana() {
+        return diasSemana;
+    }
+    
+    public void setDiasSemana(Integer diasSemana) {
+        this.diasSemana = diasSemana;
+    }
+    
     public Boolean getActivo() {
         return activo;
     }
@@ -99,6 +124,9 @@ public class HorarioDTO {
     
     // Helper methods
     public boolean estaEnRango(LocalTime hora) {
+        if (horaFin.isBefore(horaInicio)) {
+            return !hora.isBefore(horaInicio) || !hora.isAfter(horaFin);
+        }
         return !hora.isBefore(horaInicio) && !hora.isAfter(horaFin);
     }
     
@@ -114,6 +142,8 @@ public class HorarioDTO {
                 ", horaInicio=" + horaInicio +
                 ", horaFin=" + horaFin +
                 ", tipo=" + tipo +
+                ", turnoId=" + turnoId +
+                ", diasSemana=" + diasSemana +
                 ", activo=" + activo +
                 '}';
     }
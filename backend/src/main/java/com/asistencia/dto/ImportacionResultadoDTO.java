@@ -0,0 +1,107 @@
+package com.asistencia.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportacionResultadoDTO {
+
+    private int totalFilas;
+    private int importados;
+    private int rechazados;
+    private long duracionMs;
+    private List<ErrorFila> errores = new ArrayList<>();
+
+    // Constructors
+    public ImportacionResultadoDTO() {}
+
+    /**
+     * Registra una fila rechazada
+     */
+    public void agregarError(int fila, String dni, String mensaje) {
+        errores.add(new ErrorFila(fila, dni, mensaje));
+        rechazados++;
+    }
+
+    // Getters and Setters
+    public int getTotalFilas() {
+        return totalFilas;
+    }
+
+    public void setTotalFilas(int totalFilas) {
+        this.totalFilas = totalFilas;
+    }
+
+    public int getImportados() {
+        return importados;
+    }
+
+    public void setImportados(int importados) {
+        this.importados = importados;
+    }
+
+    public int getRechazados() {
+        return rechazados;
+    }
+
+    public void setRechazados(int rechazados) {
+        this.rechazados = rechazados;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public void setDuracionMs(long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+
+    public List<ErrorFila> getErrores() {
+        return errores;
+    }
+
+    public void setErrores(List<ErrorFila> errores) {
+        this.errores = errores;
+    }
+
+    /**
+     * Error de una fila del archivo (numeración desde 1, incluyendo la cabecera)
+     */
+    public static class ErrorFila {
+
+        private int fila;
+        private String dni;
+        private String mensaje;
+
+        public ErrorFila() {}
+
+        public ErrorFila(int fila, String dni, String mensaje) {
+            this.fila = fila;
+            this.dni = dni;
+            this.mensaje = mensaje;
+        }
+
+        public int getFila() {
+            return fila;
+        }
+
+        public void setFila(int fila) {
+            this.fila = fila;
+        }
+
+        public String getDni() {
+            return dni;
+        }
+
+        public void setDni(String dni) {
+            this.dni = dni;
+        }
+
+        public String getMensaje() {
+            return mensaje;
+        }
+
+        public void setMensaje(String mensaje) {
+            this.mensaje = mensaje;
+        }
+    }
+}
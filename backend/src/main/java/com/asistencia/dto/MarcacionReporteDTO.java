@@ -0,0 +1,27 @@
+package com.asistencia.dto;
+
+import com.asistencia.entity.Asistencia;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila del reporte paginado de asistencias: los datos del empleado van anidados, como los espera el frontend
+ */
+public record MarcacionReporteDTO(Long id, Empleado empleado, LocalDateTime fechaHora, TipoMarcacion tipo,
+                                  EstadoMarcacion estado, String observaciones, LocalDateTime fechaCreacion) {
+
+    public record Empleado(Long id, String codigoUnico, String dni, String nombres, String apellidos,
+                           String cargo, String area, Boolean activo) {
+    }
+
+    public static MarcacionReporteDTO de(Asistencia asistencia) {
+        com.asistencia.entity.Empleado empleado = asistencia.getEmpleado();
+        return new MarcacionReporteDTO(asistencia.getId(),
+                new Empleado(empleado.getId(), empleado.getCodigoUnico(), empleado.getDni(), empleado.getNombres(),
+                        empleado.getApellidos(), empleado.getCargo(), empleado.getArea(), empleado.getActivo()),
+                asistencia.getFechaHora(), asistencia.getTipo(), asistencia.getEstado(),
+                asistencia.getObservaciones(), asistencia.getFechaCreacion());
+    }
+}
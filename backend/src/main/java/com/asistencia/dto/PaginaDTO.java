@@ -0,0 +1,18 @@
+package com.asistencia.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados con los campos que usa el frontend (en lugar de serializar PageImpl)
+ */
+public record PaginaDTO<T>(List<T> content, long totalElements, int totalPages, int number, int size,
+                           boolean first, boolean last) {
+
+    public static <E, T> PaginaDTO<T> de(Page<E> pagina, Function<E, T> conversion) {
+        return new PaginaDTO<>(pagina.getContent().stream().map(conversion).toList(), pagina.getTotalElements(),
+                pagina.getTotalPages(), pagina.getNumber(), pagina.getSize(), pagina.isFirst(), pagina.isLast());
+    }
+}
@@ -0,0 +1,119 @@
+package com.asistencia.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada del manifiesto de archivo: un archivo con marcaciones de un mes
+ */
+public class ParteArchivoDTO {
+    
+    public enum Estado { BORRANDO, COMPLETO }
+    
+    private String mes;
+    private String archivo;
+    private long filas;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime desde;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime hasta;
+    
+    private long bytes;
+    private String sha256;
+    private Estado estado;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime archivadoEn;
+    
+    // Constructors
+    public ParteArchivoDTO() {}
+    
+    public ParteArchivoDTO(String mes, String archivo, long filas, LocalDateTime desde, LocalDateTime hasta,
+                           long bytes, String sha256, Estado estado, LocalDateTime archivadoEn) {
+        this.mes = mes;
+        this.archivo = archivo;
+        this.filas = filas;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.bytes = bytes;
+        this.sha256 = sha256;
+        this.estado = estado;
+        this.archivadoEn = archivadoEn;
+    }
+    
+    // Getters and Setters
+    public String getMes() {
+        return mes;
+    }
+    
+    public void setMes(String mes) {
+        this.mes = mes;
+    }
+    
+    public String getArchivo() {
+        return archivo;
+    }
+    
+    public void setArchivo(String archivo) {
+        this.archivo = archivo;
+    }
+    
+    public long getFilas() {
+        return filas;
+    }
+    
+    public void setFilas(long filas) {
+        this.filas = filas;
+    }
+    
+    public LocalDateTime getDesde() {
+        return desde;
+    }
+    
+    public void setDesde(LocalDateTime desde) {
+        this.desde = desde;
+    }
+    
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+    
+    public void setHasta(LocalDateTime hasta) {
+        this.hasta = hasta;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+    
+    public String getSha256() {
+        return sha256;
+    }
+    
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+    
+    public Estado getEstado() {
+        return estado;
+    }
+    
+    public void setEstado(Estado estado) {
+        this.estado = estado;
+    }
+    
+    public LocalDateTime getArchivadoEn() {
+        return archivadoEn;
+    }
+    
+    public void setArchivadoEn(LocalDateTime archivadoEn) {
+        this.archivadoEn = archivadoEn;
+    }
+}
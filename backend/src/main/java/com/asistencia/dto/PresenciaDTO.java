@@ -0,0 +1,66 @@
+package com.asistencia.dto;
+
+import com.asistencia.entity.TipoMarcacion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Última marcación del día de un empleado y si se considera dentro de las instalaciones
+ */
+public class PresenciaDTO {
+
+    private final Long empleadoId;
+    private final String empleadoDni;
+    private final String empleadoNombre;
+    private final String area;
+    private final TipoMarcacion ultimaMarcacion;
+    private final LocalDateTime fechaHora;
+    private final boolean presente;
+
+    public PresenciaDTO(Long empleadoId, String empleadoDni, String empleadoNombre, String area,
+                        TipoMarcacion ultimaMarcacion, LocalDateTime fechaHora, boolean presente) {
+        this.empleadoId = empleadoId;
+        this.empleadoDni = empleadoDni;
+        this.empleadoNombre = empleadoNombre;
+        this.area = area;
+        this.ultimaMarcacion = ultimaMarcacion;
+        this.fechaHora = fechaHora;
+        this.presente = presente;
+    }
+
+    /**
+     * Copia con otros datos del empleado conservando la marcación
+     */
+    public PresenciaDTO conEmpleado(String dni, String nombre, String nuevaArea) {
+        return new PresenciaDTO(empleadoId, dni, nombre, nuevaArea, ultimaMarcacion, fechaHora, presente);
+    }
+
+    // Getters
+    public Long getEmpleadoId() {
+        return empleadoId;
+    }
+
+    public String getEmpleadoDni() {
+        return empleadoDni;
+    }
+
+    public String getEmpleadoNombre() {
+        return empleadoNombre;
+    }
+
+    public String getArea() {
+        return area;
+    }
+
+    public TipoMarcacion getUltimaMarcacion() {
+        return ultimaMarcacion;
+    }
+
+    public LocalDateTime getFechaHora() {
+        return fechaHora;
+    }
+
+    public boolean isPresente() {
+        return presente;
+    }
+}
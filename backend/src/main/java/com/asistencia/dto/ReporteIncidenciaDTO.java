@@ -0,0 +1,102 @@
+package com.asistencia.dto;
+
+import com.asistencia.entity.TipoIncidencia;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+
+public class ReporteIncidenciaDTO {
+    
+    private Long id;
+    private Long empleadoId;
+    private String empleadoDni;
+    private String empleadoNombres;
+    private String empleadoApellidos;
+    private String empleadoArea;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate fecha;
+    
+    private TipoIncidencia tipo;
+    
+    // Constructors
+    public ReporteIncidenciaDTO() {}
+    
+    public ReporteIncidenciaDTO(Long id, Long empleadoId, String empleadoDni, String empleadoNombres,
+                                String empleadoApellidos, String empleadoArea, LocalDate fecha,
+                                TipoIncidencia tipo) {
+        this.id = id;
+        this.empleadoId = empleadoId;
+        this.empleadoDni = empleadoDni;
+        this.empleadoNombres = empleadoNombres;
+        this.empleadoApellidos = empleadoApellidos;
+        this.empleadoArea = empleadoArea;
+        this.fecha = fecha;
+        this.tipo = tipo;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getEmpleadoId() {
+        return empleadoId;
+    }
+    
+    public void setEmpleadoId(Long empleadoId) {
+        this.empleadoId = empleadoId;
+    }
+    
+    public String getEmpleadoDni() {
+        return empleadoDni;
+    }
+    
+    public void setEmpleadoDni(String empleadoDni) {
+        this.empleadoDni = empleadoDni;
+    }
+    
+    public String getEmpleadoNombres() {
+        return empleadoNombres;
+    }
+    
+    public void setEmpleadoNombres(String empleadoNombres) {
+        this.empleadoNombres = empleadoNombres;
+    }
+    
+    public String getEmpleadoApellidos() {
+        return empleadoApellidos;
+    }
+    
+    public void setEmpleadoApellidos(String empleadoApellidos) {
+        this.empleadoApellidos = empleadoApellidos;
+    }
+    
+    public String getEmpleadoArea() {
+        return empleadoArea;
+    }
+    
+    public void setEmpleadoArea(String empleadoArea) {
+        this.empleadoArea = empleadoArea;
+    }
+    
+    public LocalDate getFecha() {
+        return fecha;
+    }
+    
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+    
+    public TipoIncidencia getTipo() {
+        return tipo;
+    }
+    
+    public void setTipo(TipoIncidencia tipo) {
+        this.tipo = tipo;
+    }
+}
@@ -0,0 +1,32 @@
+package com.asistencia.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Respuesta estándar de la API: success, data, total (en listas) y mensaje; los valores nulos no se escriben
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RespuestaDTO<T>(boolean success, T data, Integer total, String mensaje) {
+
+    public static <T> RespuestaDTO<T> ok(T data) {
+        return new RespuestaDTO<>(true, data, null, null);
+    }
+
+    public static <T> RespuestaDTO<T> ok(T data, String mensaje) {
+        return new RespuestaDTO<>(true, data, null, mensaje);
+    }
+
+    public static <E> RespuestaDTO<List<E>> lista(List<E> data) {
+        return new RespuestaDTO<>(true, data, data.size(), null);
+    }
+
+    public static <T> RespuestaDTO<T> mensaje(String mensaje) {
+        return new RespuestaDTO<>(true, null, null, mensaje);
+    }
+
+    public static <T> RespuestaDTO<T> error(String mensaje) {
+        return new RespuestaDTO<>(false, null, null, mensaje);
+    }
+}
@@ -0,0 +1,7 @@
+package com.asistencia.dto;
+
+/**
+ * Resultado de la verificación de solapamiento de horarios
+ */
+public record SolapamientoDTO(boolean success, boolean hasOverlap, String mensaje) {
+}
@@ -0,0 +1,42 @@
+package com.asistencia.dto;
+
+/**
+ * Empleado sugerido por el autocompletado (datos mínimos para elegirlo en la interfaz)
+ */
+public class SugerenciaEmpleadoDTO {
+
+    private final Long empleadoId;
+    private final String dni;
+    private final String codigoUnico;
+    private final String nombreCompleto;
+    private final String area;
+
+    public SugerenciaEmpleadoDTO(Long empleadoId, String dni, String codigoUnico, String nombreCompleto, String area) {
+        this.empleadoId = empleadoId;
+        this.dni = dni;
+        this.codigoUnico = codigoUnico;
+        this.nombreCompleto = nombreCompleto;
+        this.area = area;
+    }
+
+    // Getters
+    public Long getEmpleadoId() {
+        return empleadoId;
+    }
+
+    public String getDni() {
+        return dni;
+    }
+
+    public String getCodigoUnico() {
+        return codigoUnico;
+    }
+
+    public String getNombreCompleto() {
+        return nombreCompleto;
+    }
+
+    public String getArea() {
+        return area;
+    }
+}
@@ -0,0 +1,60 @@
+package com.asistencia.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+public class TurnoDTO {
+    
+    private Long id;
+    
+    @NotBlank(message = "El nombre del turno es obligatorio")
+    @Size(max = 50, message = "El nombre no puede exceder 50 caracteres")
+    private String nombre;
+    
+    private Boolean activo;
+    
+    private LocalDateTime fechaCreacion;
+    
+    // Constructors
+    public TurnoDTO() {}
+    
+    public TurnoDTO(String nombre) {
+        this.nombre = nombre;
+        this.activo = true;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    public Boolean getActivo() {
+        return activo;
+    }
+    
+    public void setActivo(Boolean activo) {
+        this.activo = activo;
+    }
+    
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+    
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+}
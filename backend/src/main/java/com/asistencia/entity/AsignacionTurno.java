@@ -0,0 +1,104 @@
+package com.asistencia.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Asigna un turno a un empleado o a todos los empleados de un área (uno de los dos).
+ * La asignación del empleado prevalece sobre la de su área.
+ */
+@Entity
+@Table(name = "asignaciones_turno")
+public class AsignacionTurno {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asignaciones_turno_seq")
+    @SequenceGenerator(name = "asignaciones_turno_seq", sequenceName = "asignaciones_turno_id_seq", allocationSize = 50)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "turno_id", nullable = false)
+    private Turno turno;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empleado_id")
+    private Empleado empleado;
+    
+    @Column(name = "area", length = 100)
+    private String area;
+    
+    @Column(name = "activo")
+    private Boolean activo = true;
+    
+    @CreationTimestamp
+    @Column(name = "fecha_creacion", updatable = false)
+    private LocalDateTime fechaCreacion;
+    
+    // Constructors
+    public AsignacionTurno() {}
+    
+    public static AsignacionTurno deEmpleado(Turno turno, Empleado empleado) {
+        AsignacionTurno asignacion = new AsignacionTurno();
+        asignacion.turno = turno;
+        asignacion.empleado = empleado;
+        return asignacion;
+    }
+    
+    public static AsignacionTurno deArea(Turno turno, String area) {
+        AsignacionTurno asignacion = new AsignacionTurno();
+        asignacion.turno = turno;
+        asignacion.area = area;
+        return asignacion;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Turno getTurno() {
+        return turno;
+    }
+    
+    public void setTurno(Turno turno) {
+        this.turno = turno;
+    }
+    
+    public Empleado getEmpleado() {
+        return empleado;
+    }
+    
+    public void setEmpleado(Empleado empleado) {
+        this.empleado = empleado;
+    }
+    
+    public String getArea() {
+        return area;
+    }
+    
+    public void setArea(String area) {
+        this.area = area;
+    }
+    
+    public Boolean getActivo() {
+        return activo;
+    }
+    
+    public void setActivo(Boolean activo) {
+        this.activo = activo;
+    }
+    
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+    
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+}
@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 public class Asistencia {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asistencias_seq")
+    @SequenceGenerator(name = "asistencias_seq", sequenceName = "asistencias_id_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
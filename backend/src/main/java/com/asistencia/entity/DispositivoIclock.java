@@ -0,0 +1,76 @@
+package com.asistencia.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lector ZKTeco que sube sus marcaciones por el protocolo push (ADMS).
+ * La escribe y lee IngestaIclockService con JDBC; la entidad mantiene la tabla con ddl-auto.
+ */
+@Entity
+@Table(name = "dispositivos_iclock")
+public class DispositivoIclock {
+
+    // Número de serie del lector (parámetro SN)
+    @Id
+    @Column(name = "sn", length = 50)
+    private String sn;
+
+    // Último Stamp de ATTLOG recibido; el lector solo sube los registros posteriores
+    @Column(name = "attlog_stamp", nullable = false)
+    private Long attlogStamp = 0L;
+
+    @Column(name = "registros_recibidos", nullable = false)
+    private Long registrosRecibidos = 0L;
+
+    @Column(name = "ultima_conexion")
+    private LocalDateTime ultimaConexion;
+
+    @Column(name = "ultima_ip", length = 45)
+    private String ultimaIp;
+
+    // Constructors
+    public DispositivoIclock() {}
+
+    // Getters and Setters
+    public String getSn() {
+        return sn;
+    }
+
+    public void setSn(String sn) {
+        this.sn = sn;
+    }
+
+    public Long getAttlogStamp() {
+        return attlogStamp;
+    }
+
+    public void setAttlogStamp(Long attlogStamp) {
+        this.attlogStamp = attlogStamp;
+    }
+
+    public Long getRegistrosRecibidos() {
+        return registrosRecibidos;
+    }
+
+    public void setRegistrosRecibidos(Long registrosRecibidos) {
+        this.registrosRecibidos = registrosRecibidos;
+    }
+
+    public LocalDateTime getUltimaConexion() {
+        return ultimaConexion;
+    }
+
+    public void setUltimaConexion(LocalDateTime ultimaConexion) {
+        this.ultimaConexion = ultimaConexion;
+    }
+
+    public String getUltimaIp() {
+        return ultimaIp;
+    }
+
+    public void setUltimaIp(String ultimaIp) {
+        this.ultimaIp = ultimaIp;
+    }
+}
@@ -15,7 +15,8 @@ import java.util.List;
 public class Empleado {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "empleados_seq")
+    @SequenceGenerator(name = "empleados_seq", sequenceName = "empleados_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "codigo_unico", unique = true, nullable = false, length = 20)
@@ -0,0 +1,143 @@
+package com.asistencia.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de asistencia pendiente de entregar a los sistemas externos (planillas, control de acceso).
+ * Se escribe en la misma transacción que la asistencia y lo entrega OutboxRelayService.
+ * El id es IDENTITY (sin bloques pooled-lo) y OutboxService bloquea por empleado al registrar, así el orden
+ * de los ids de un mismo empleado es el de commit también entre réplicas.
+ */
+@Entity
+@Table(name = "outbox_eventos")
+public class EventoOutbox {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "empleado_id", nullable = false)
+    private Long empleadoId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30)
+    private TipoEventoOutbox tipo;
+    
+    // AsistenciaDTO en JSON
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+    
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos = 0;
+    
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+    
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+    
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+    
+    // Constructors
+    public EventoOutbox() {}
+    
+    public EventoOutbox(Long id, Long empleadoId, TipoEventoOutbox tipo, String payload,
+                        LocalDateTime fechaCreacion, Integer intentos) {
+        this.id = id;
+        this.empleadoId = empleadoId;
+        this.tipo = tipo;
+        this.payload = payload;
+        this.fechaCreacion = fechaCreacion;
+        this.intentos = intentos;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getEmpleadoId() {
+        return empleadoId;
+    }
+    
+    public void setEmpleadoId(Long empleadoId) {
+        this.empleadoId = empleadoId;
+    }
+    
+    public TipoEventoOutbox getTipo() {
+        return tipo;
+    }
+    
+    public void setTipo(TipoEventoOutbox tipo) {
+        this.tipo = tipo;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+    
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+    
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+    
+    public Integer getIntentos() {
+        return intentos;
+    }
+    
+    public void setIntentos(Integer intentos) {
+        this.intentos = intentos;
+    }
+    
+    public LocalDateTime getProximoIntento() {
+        return proximoIntento;
+    }
+    
+    public void setProximoIntento(LocalDateTime proximoIntento) {
+        this.proximoIntento = proximoIntento;
+    }
+    
+    public LocalDateTime getFechaEnvio() {
+        return fechaEnvio;
+    }
+    
+    public void setFechaEnvio(LocalDateTime fechaEnvio) {
+        this.fechaEnvio = fechaEnvio;
+    }
+    
+    public String getUltimoError() {
+        return ultimoError;
+    }
+    
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+    
+    @Override
+    public String toString() {
+        return "EventoOutbox{" +
+                "id=" + id +
+                ", empleadoId=" + empleadoId +
+                ", tipo=" + tipo +
+                ", intentos=" + intentos +
+                ", fechaEnvio=" + fechaEnvio +
+                '}';
+    }
+}
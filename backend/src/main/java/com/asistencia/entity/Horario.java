@@ -4,8 +4,10 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
+import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
@@ -13,8 +15,12 @@ import java.time.LocalTime;
 @Table(name = "horarios")
 public class Horario {
     
+    /** Máscara de diasSemana: bit 0 = lunes ... bit 6 = domingo */
+    public static final int TODOS_LOS_DIAS = 0b1111111;
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "horarios_seq")
+    @SequenceGenerator(name = "horarios_seq", sequenceName = "horarios_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "nombre", nullable = false, length = 50)
@@ -35,6 +41,15 @@ public class Horario {
     @NotNull(message = "El tipo de horario es obligatorio")
     private TipoMarcacion tipo;
     
+    // Nulo en el horario general
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "turno_id")
+    private Turno turno;
+    
+    @Column(name = "dias_semana", nullable = false)
+    @ColumnDefault("127")
+    private Integer diasSemana = TODOS_LOS_DIAS;
+    
     @Column(name = "activo")
     private Boolean activo = true;
     
@@ -93,6 +108,22 @@ public class Horario {
         this.tipo = tipo;
     }
     
+    public Turno getTurno() {
+        return turno;
+    }
+    
+    public void setTurno(Turno turno) {
+        this.turno = turno;
+    }
+    
+    public Integer getDiasSemana() {
+        return diasSemana;
+    }
+    
+    public void setDiasSemana(Integer diasSemana) {
+        this.diasSemana = diasSemana;
+    }
+    
     public Boolean getActivo() {
         return activo;
     }
@@ -111,9 +142,27 @@ public class Horario {
     
     // Helper methods
     public boolean estaEnRango(LocalTime hora) {
+        if (cruzaMedianoche()) {
+            return !hora.isBefore(horaInicio) || !hora.isAfter(horaFin);
+        }
         return !hora.isBefore(horaInicio) && !hora.isAfter(horaFin);
     }
     
+    /**
+     * Ventana nocturna (por ejemplo 22:00 - 06:00): termina al día siguiente del que empieza
+     */
+    public boolean cruzaMedianoche() {
+        return horaFin.isBefore(horaInicio);
+    }
+    
+    /**
+     * Indica si la ventana empieza el día indicado
+     */
+    public boolean aplicaEl(DayOfWeek dia) {
+        int dias = diasSemana != null ? diasSemana : TODOS_LOS_DIAS;
+        return (dias & (1 << (dia.getValue() - 1))) != 0;
+    }
+    
     public String getRangoHorario() {
         return horaInicio + " - " + horaFin;
     }
@@ -126,6 +175,7 @@ public class Horario {
                 ", horaInicio=" + horaInicio +
                 ", horaFin=" + horaFin +
                 ", tipo=" + tipo +
+                ", diasSemana=" + diasSemana +
                 ", activo=" + activo +
                 '}';
     }
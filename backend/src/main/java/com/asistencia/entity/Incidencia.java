@@ -0,0 +1,88 @@
+package com.asistencia.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ausencia o marcación faltante de un empleado en un día laborable, calculada por el proceso diario
+ */
+@Entity
+@Table(name = "incidencias",
+       uniqueConstraints = @UniqueConstraint(name = "uk_incidencias_empleado_fecha_tipo",
+                                             columnNames = {"empleado_id", "fecha", "tipo"}),
+       indexes = @Index(name = "idx_incidencias_fecha", columnList = "fecha"))
+public class Incidencia {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "incidencias_seq")
+    @SequenceGenerator(name = "incidencias_seq", sequenceName = "incidencias_id_seq", allocationSize = 50)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empleado_id", nullable = false)
+    private Empleado empleado;
+    
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30)
+    private TipoIncidencia tipo;
+    
+    @CreationTimestamp
+    @Column(name = "fecha_creacion", updatable = false)
+    private LocalDateTime fechaCreacion;
+    
+    // Constructors
+    public Incidencia() {}
+    
+    public Incidencia(Empleado empleado, LocalDate fecha, TipoIncidencia tipo) {
+        this.empleado = empleado;
+        this.fecha = fecha;
+        this.tipo = tipo;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Empleado getEmpleado() {
+        return empleado;
+    }
+    
+    public void setEmpleado(Empleado empleado) {
+        this.empleado = empleado;
+    }
+    
+    public LocalDate getFecha() {
+        return fecha;
+    }
+    
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+    
+    public TipoIncidencia getTipo() {
+        return tipo;
+    }
+    
+    public void setTipo(TipoIncidencia tipo) {
+        this.tipo = tipo;
+    }
+    
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+    
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+}
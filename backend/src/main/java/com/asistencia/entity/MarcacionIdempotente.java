@@ -0,0 +1,77 @@
+package com.asistencia.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta original de una marcación enviada con Idempotency-Key, para devolverla a los reintentos del lector.
+ * La escribe y lee IdempotenciaMarcacionService con JDBC; la entidad mantiene la tabla con ddl-auto.
+ */
+@Entity
+@Table(name = "marcaciones_idempotentes",
+       indexes = @Index(name = "idx_marcaciones_idempotentes_fecha", columnList = "fecha_creacion"))
+public class MarcacionIdempotente {
+
+    @Id
+    @Column(name = "clave", length = 100)
+    private String clave;
+
+    @Column(name = "dni", nullable = false, length = 8)
+    private String dni;
+
+    // Código HTTP de la respuesta original
+    @Column(name = "status", nullable = false)
+    private Integer status;
+
+    // MarcacionResponseDTO en JSON
+    @Column(name = "respuesta", nullable = false, columnDefinition = "TEXT")
+    private String respuesta;
+
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    // Constructors
+    public MarcacionIdempotente() {}
+
+    // Getters and Setters
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public String getDni() {
+        return dni;
+    }
+
+    public void setDni(String dni) {
+        this.dni = dni;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getRespuesta() {
+        return respuesta;
+    }
+
+    public void setRespuesta(String respuesta) {
+        this.respuesta = respuesta;
+    }
+
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+}
@@ -0,0 +1,22 @@
+package com.asistencia.entity;
+
+public enum TipoEventoOutbox {
+    ASISTENCIA_REGISTRADA("Asistencia registrada"),
+    ASISTENCIA_ACTUALIZADA("Asistencia actualizada"),
+    ASISTENCIA_ELIMINADA("Asistencia eliminada");
+    
+    private final String descripcion;
+    
+    TipoEventoOutbox(String descripcion) {
+        this.descripcion = descripcion;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
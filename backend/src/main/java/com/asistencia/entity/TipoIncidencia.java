@@ -0,0 +1,22 @@
+package com.asistencia.entity;
+
+public enum TipoIncidencia {
+    AUSENCIA("Ausencia"),
+    SIN_RETORNO_ALMUERZO("Sin retorno de almuerzo"),
+    SIN_SALIDA("Sin marcación de salida");
+    
+    private final String descripcion;
+    
+    TipoIncidencia(String descripcion) {
+        this.descripcion = descripcion;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
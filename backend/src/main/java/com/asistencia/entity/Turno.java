@@ -0,0 +1,83 @@
+package com.asistencia.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Turno de trabajo (mañana, tarde, noche...): agrupa sus propios horarios de marcación.
+ * Los horarios sin turno forman el horario general.
+ */
+@Entity
+@Table(name = "turnos")
+public class Turno {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "turnos_seq")
+    @SequenceGenerator(name = "turnos_seq", sequenceName = "turnos_id_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "nombre", nullable = false, unique = true, length = 50)
+    @NotBlank(message = "El nombre del turno es obligatorio")
+    @Size(max = 50, message = "El nombre no puede exceder 50 caracteres")
+    private String nombre;
+    
+    @Column(name = "activo")
+    private Boolean activo = true;
+    
+    @CreationTimestamp
+    @Column(name = "fecha_creacion", updatable = false)
+    private LocalDateTime fechaCreacion;
+    
+    // Constructors
+    public Turno() {}
+    
+    public Turno(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    public Boolean getActivo() {
+        return activo;
+    }
+    
+    public void setActivo(Boolean activo) {
+        this.activo = activo;
+    }
+    
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+    
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+    
+    @Override
+    public String toString() {
+        return "Turno{" +
+                "id=" + id +
+                ", nombre='" + nombre + '\'' +
+                ", activo=" + activo +
+                '}';
+    }
+}
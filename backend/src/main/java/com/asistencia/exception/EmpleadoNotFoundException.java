@@ -13,7 +13,14 @@ public class EmpleadoNotFoundException extends RuntimeException {
         super(message, cause);
     }
     
+    /**
+     * Sin traza de pila: un DNI desconocido es un caso esperado del lector y la traza solo cuesta CPU
+     */
     public static EmpleadoNotFoundException porDni(String dni) {
-        return new EmpleadoNotFoundException("Empleado no encontrado con DNI: " + dni);
+        return new EmpleadoNotFoundException("Empleado no encontrado con DNI: " + dni, false);
+    }
+    
+    private EmpleadoNotFoundException(String message, boolean conTraza) {
+        super(message, null, false, conTraza);
     }
 }
\ No newline at end of file
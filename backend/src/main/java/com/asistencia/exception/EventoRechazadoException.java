@@ -0,0 +1,14 @@
+package com.asistencia.exception;
+
+import java.io.IOException;
+
+/**
+ * Excepción lanzada cuando el destino del outbox recibió el lote pero rechazó su contenido;
+ * a diferencia de un fallo de conexión, reenviar el mismo lote no sirve
+ */
+public class EventoRechazadoException extends IOException {
+
+    public EventoRechazadoException(String message) {
+        super(message);
+    }
+}
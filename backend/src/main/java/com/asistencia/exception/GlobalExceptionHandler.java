@@ -4,6 +4,7 @@ import com.asistencia.dto.MarcacionResponseDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -106,6 +107,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
     
+    /**
+     * Maneja reportes rechazados por falta de capacidad
+     */
+    @ExceptionHandler(ReporteSaturadoException.class)
+    public ResponseEntity<Map<String, Object>> handleReporteSaturado(ReporteSaturadoException ex, HttpServletRequest request) {
+        logger.warn("Reporte no atendido en {}: {}", request.getRequestURI(), ex.getMessage());
+        Map<String, Object> response = createErrorResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(response);
+    }
+    
     /**
      * Maneja errores de autenticación
      */
@@ -13,7 +13,11 @@ public class MarcacionDuplicadaException extends RuntimeException {
         super(message, cause);
     }
     
+    /**
+     * Sin traza de pila: un doble pase por el lector es un caso esperado y la traza solo cuesta CPU
+     */
     public MarcacionDuplicadaException(String dni, String tipoMarcacion) {
-        super("Ya existe una marcación reciente de tipo " + tipoMarcacion + " para el empleado con DNI: " + dni);
+        super("Ya existe una marcación reciente de tipo " + tipoMarcacion + " para el empleado con DNI: " + dni,
+                null, false, false);
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.asistencia.exception;
+
+/**
+ * Excepción lanzada cuando no hay capacidad para generar más reportes a la vez
+ */
+public class ReporteSaturadoException extends RuntimeException {
+    
+    public ReporteSaturadoException(String message) {
+        super(message);
+    }
+}
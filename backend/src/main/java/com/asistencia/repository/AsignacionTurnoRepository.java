@@ -0,0 +1,34 @@
+package com.asistencia.repository;
+
+import com.asistencia.entity.AsignacionTurno;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AsignacionTurnoRepository extends JpaRepository<AsignacionTurno, Long> {
+    
+    /**
+     * Asignaciones vigentes de turnos activos, con el turno cargado (índice de horarios)
+     */
+    @Query("SELECT a FROM AsignacionTurno a JOIN FETCH a.turno t WHERE a.activo = true AND t.activo = true")
+    List<AsignacionTurno> findVigentes();
+    
+    /**
+     * Asignaciones vigentes de un turno
+     */
+    List<AsignacionTurno> findByTurnoIdAndActivoTrue(Long turnoId);
+    
+    /**
+     * Asignación vigente de un empleado
+     */
+    Optional<AsignacionTurno> findByEmpleadoIdAndActivoTrue(Long empleadoId);
+    
+    /**
+     * Asignación vigente de un área
+     */
+    Optional<AsignacionTurno> findByAreaAndActivoTrue(String area);
+}
@@ -40,6 +40,14 @@ public interface AsistenciaRepository extends JpaRepository<Asistencia, Long>, J
             @Param("fechaInicio") LocalDateTime fechaInicio,
             @Param("fechaFin") LocalDateTime fechaFin);
     
+    /**
+     * Marcaciones desde una fecha con los datos del empleado, en orden cronológico
+     * Devuelve [empleadoId, dni, nombres, apellidos, area, tipo, fechaHora] sin cargar entidades
+     */
+    @Query("SELECT e.id, e.dni, e.nombres, e.apellidos, e.area, a.tipo, a.fechaHora " +
+           "FROM Asistencia a JOIN a.empleado e WHERE a.fechaHora >= :desde ORDER BY a.fechaHora")
+    List<Object[]> findMarcacionesDesde(@Param("desde") LocalDateTime desde);
+    
     /**
      * Busca asistencias por tipo de marcación
      */
@@ -63,10 +71,10 @@ public interface AsistenciaRepository extends JpaRepository<Asistencia, Long>, J
     /**
      * Verifica si existe una marcación reciente del mismo tipo (para evitar duplicados)
      */
-    @Query("SELECT COUNT(a) > 0 FROM Asistencia a WHERE a.empleado = :empleado AND " +
+    @Query("SELECT COUNT(a) > 0 FROM Asistencia a WHERE a.empleado.id = :empleadoId AND " +
            "a.tipo = :tipo AND a.fechaHora BETWEEN :fechaInicio AND :fechaFin")
     boolean existsRecentMarcacion(
-            @Param("empleado") Empleado empleado,
+            @Param("empleadoId") Long empleadoId,
             @Param("tipo") TipoMarcacion tipo,
             @Param("fechaInicio") LocalDateTime fechaInicio,
             @Param("fechaFin") LocalDateTime fechaFin);
@@ -104,4 +112,17 @@ public interface AsistenciaRepository extends JpaRepository<Asistencia, Long>, J
             @Param("tipo") TipoMarcacion tipo,
             @Param("fechaInicio") LocalDateTime fechaInicio,
             @Param("fechaFin") LocalDateTime fechaFin);
+    
+    /**
+     * Áreas de los empleados con marcaciones en el rango (incluye null si alguno no tiene área)
+     */
+    @Query("SELECT DISTINCT e.area FROM Asistencia a JOIN a.empleado e WHERE " +
+           "(:empleadoId IS NULL OR e.id = :empleadoId) AND " +
+           "(:tipo IS NULL OR a.tipo = :tipo) AND " +
+           "a.fechaHora BETWEEN :fechaInicio AND :fechaFin")
+    List<String> findAreasConMarcaciones(
+            @Param("empleadoId") Long empleadoId,
+            @Param("tipo") TipoMarcacion tipo,
+            @Param("fechaInicio") LocalDateTime fechaInicio,
+            @Param("fechaFin") LocalDateTime fechaFin);
 }
\ No newline at end of file
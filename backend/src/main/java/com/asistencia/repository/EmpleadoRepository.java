@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +33,18 @@ public interface EmpleadoRepository extends JpaRepository<Empleado, Long> {
      */
     boolean existsByCodigoUnico(String codigoUnico);
     
+    /**
+     * Devuelve los DNIs del conjunto que ya están registrados
+     */
+    @Query("SELECT e.dni FROM Empleado e WHERE e.dni IN :dnis")
+    List<String> findDnisExistentes(@Param("dnis") Collection<String> dnis);
+    
+    /**
+     * DNIs de todos los empleados, activos o no (filtro de DNIs)
+     */
+    @Query("SELECT e.dni FROM Empleado e")
+    List<String> findAllDnis();
+    
     /**
      * Busca empleados activos
      */
@@ -47,14 +60,6 @@ public interface EmpleadoRepository extends JpaRepository<Empleado, Long> {
      */
     List<Empleado> findByCargoAndActivoTrue(String cargo);
     
-    /**
-     * Busca empleados por nombre o apellido (búsqueda parcial)
-     */
-    @Query("SELECT e FROM Empleado e WHERE e.activo = true AND " +
-           "(LOWER(e.nombres) LIKE LOWER(CONCAT('%', :termino, '%')) OR " +
-           "LOWER(e.apellidos) LIKE LOWER(CONCAT('%', :termino, '%')))")
-    List<Empleado> findByNombreOrApellidoContainingIgnoreCase(@Param("termino") String termino);
-    
     /**
      * Cuenta empleados activos
      */
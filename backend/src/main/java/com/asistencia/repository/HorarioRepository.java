@@ -20,9 +20,10 @@ public interface HorarioRepository extends JpaRepository<Horario, Long> {
     List<Horario> findByActivoTrueOrderByHoraInicio();
     
     /**
-     * Busca horario por tipo de marcación
+     * Busca el horario general (sin turno) de un tipo de marcación
      */
-    Optional<Horario> findByTipoAndActivoTrue(TipoMarcacion tipo);
+    @Query("SELECT h FROM Horario h WHERE h.tipo = :tipo AND h.activo = true AND h.turno IS NULL")
+    Optional<Horario> findByTipoAndActivoTrue(@Param("tipo") TipoMarcacion tipo);
     
     /**
      * Busca todos los horarios por tipo
@@ -30,33 +31,34 @@ public interface HorarioRepository extends JpaRepository<Horario, Long> {
     List<Horario> findByTipoOrderByHoraInicio(TipoMarcacion tipo);
     
     /**
-     * Busca horarios que contengan una hora específica
+     * Busca horarios generales que contengan una hora específica
      */
-    @Query("SELECT h FROM Horario h WHERE h.activo = true AND " +
+    @Query("SELECT h FROM Horario h WHERE h.activo = true AND h.turno IS NULL AND " +
            "h.horaInicio <= :hora AND h.horaFin >= :hora")
     List<Horario> findByHoraEnRango(@Param("hora") LocalTime hora);
     
     /**
-     * Busca el horario más apropiado para una hora específica
+     * Busca el horario general más apropiado para una hora específica
      */
-    @Query("SELECT h FROM Horario h WHERE h.activo = true AND " +
+    @Query("SELECT h FROM Horario h WHERE h.activo = true AND h.turno IS NULL AND " +
            "h.horaInicio <= :hora AND h.horaFin >= :hora " +
            "ORDER BY h.horaInicio ASC")
     Optional<Horario> findBestMatchForTime(@Param("hora") LocalTime hora);
     
     /**
-     * Verifica si existe solapamiento de horarios para un tipo específico
+     * Horarios activos del horario general de un tipo, para validar solapamientos
      */
-    @Query("SELECT COUNT(h) > 0 FROM Horario h WHERE h.activo = true AND " +
-           "h.tipo = :tipo AND h.id != :excludeId AND " +
-           "((h.horaInicio <= :horaInicio AND h.horaFin >= :horaInicio) OR " +
-           "(h.horaInicio <= :horaFin AND h.horaFin >= :horaFin) OR " +
-           "(h.horaInicio >= :horaInicio AND h.horaFin <= :horaFin))")
-    boolean existsOverlappingHorario(
-            @Param("tipo") TipoMarcacion tipo,
-            @Param("horaInicio") LocalTime horaInicio,
-            @Param("horaFin") LocalTime horaFin,
-            @Param("excludeId") Long excludeId);
+    List<Horario> findByTurnoIsNullAndTipoAndActivoTrue(TipoMarcacion tipo);
+    
+    /**
+     * Horarios activos de un turno y tipo, para validar solapamientos
+     */
+    List<Horario> findByTurnoIdAndTipoAndActivoTrue(Long turnoId, TipoMarcacion tipo);
+    
+    /**
+     * Horarios de un turno
+     */
+    List<Horario> findByTurnoIdOrderByHoraInicio(Long turnoId);
     
     /**
      * Busca horarios ordenados por hora de inicio
@@ -67,11 +69,4 @@ public interface HorarioRepository extends JpaRepository<Horario, Long> {
      * Cuenta horarios activos
      */
     long countByActivoTrue();
-    
-    /**
-     * Busca horarios por nombre (búsqueda parcial)
-     */
-    @Query("SELECT h FROM Horario h WHERE h.activo = true AND " +
-           "LOWER(h.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))")
-    List<Horario> findByNombreContainingIgnoreCase(@Param("nombre") String nombre);
 }
\ No newline at end of file
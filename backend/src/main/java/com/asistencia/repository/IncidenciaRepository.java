@@ -0,0 +1,36 @@
+package com.asistencia.repository;
+
+import com.asistencia.dto.ReporteIncidenciaDTO;
+import com.asistencia.entity.Incidencia;
+import com.asistencia.entity.TipoIncidencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface IncidenciaRepository extends JpaRepository<Incidencia, Long> {
+    
+    /**
+     * Incidencias con los datos del empleado para reportes, en una sola consulta
+     */
+    @Query("SELECT new com.asistencia.dto.ReporteIncidenciaDTO(i.id, e.id, e.dni, e.nombres, e.apellidos, " +
+           "e.area, i.fecha, i.tipo) FROM Incidencia i JOIN i.empleado e WHERE " +
+           "i.fecha BETWEEN :fechaInicio AND :fechaFin AND " +
+           "(:empleadoId IS NULL OR e.id = :empleadoId) AND " +
+           "(:tipo IS NULL OR i.tipo = :tipo) " +
+           "ORDER BY i.fecha DESC, e.apellidos, e.nombres")
+    List<ReporteIncidenciaDTO> findReporte(
+            @Param("fechaInicio") LocalDate fechaInicio,
+            @Param("fechaFin") LocalDate fechaFin,
+            @Param("empleadoId") Long empleadoId,
+            @Param("tipo") TipoIncidencia tipo);
+    
+    /**
+     * Cuenta incidencias de un día
+     */
+    long countByFecha(LocalDate fecha);
+}
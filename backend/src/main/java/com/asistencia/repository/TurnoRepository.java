@@ -0,0 +1,21 @@
+package com.asistencia.repository;
+
+import com.asistencia.entity.Turno;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TurnoRepository extends JpaRepository<Turno, Long> {
+    
+    /**
+     * Busca todos los turnos ordenados por nombre
+     */
+    List<Turno> findAllByOrderByNombre();
+    
+    /**
+     * Verifica si existe un turno con el nombre
+     */
+    boolean existsByNombreIgnoreCase(String nombre);
+}
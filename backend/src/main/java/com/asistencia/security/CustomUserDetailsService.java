@@ -1,8 +1,10 @@
 package com.asistencia.security;
 
-import com.asistencia.entity.Usuario;
+import com.asistencia.config.CacheConfig;
 import com.asistencia.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -21,19 +23,40 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UsuarioRepository usuarioRepository;
     
+    @Autowired
+    private CacheManager cacheManager;
+    
+    /**
+     * Lo que se guarda en caché por username: un registro inmutable en lugar de la entidad o del UserDetails,
+     * porque Spring Security borra la contraseña del UserDetails después de autenticar
+     */
+    record Credenciales(String username, String password, boolean activo) {
+    }
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Usuario usuario = usuarioRepository.findByUsernameAndActivoTrue(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+        Credenciales credenciales = buscarCredenciales(username);
         
         return User.builder()
-                .username(usuario.getUsername())
-                .password(usuario.getPassword())
+                .username(credenciales.username())
+                .password(credenciales.password())
                 .authorities(new ArrayList<>()) // Por ahora sin roles específicos
                 .accountExpired(false)
                 .accountLocked(false)
                 .credentialsExpired(false)
-                .disabled(!usuario.getActivo())
+                .disabled(!credenciales.activo())
                 .build();
     }
+    
+    private Credenciales buscarCredenciales(String username) {
+        Cache cache = cacheManager.getCache(CacheConfig.USUARIOS_POR_USERNAME);
+        Credenciales credenciales = cache.get(username, Credenciales.class);
+        if (credenciales == null) {
+            credenciales = usuarioRepository.findByUsernameAndActivoTrue(username)
+                    .map(usuario -> new Credenciales(usuario.getUsername(), usuario.getPassword(), usuario.getActivo()))
+                    .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+            cache.put(username, credenciales);
+        }
+        return credenciales;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,400 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.ParteArchivoDTO;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Archivo de marcaciones antiguas. Cada mes cerrado fuera del período de retención se copia a un archivo
+ * columnar comprimido en disco, registrado en un manifiesto, y luego se borra de la tabla en lotes pequeños
+ * para no bloquearla. Las consultas de ReporteService leen estos archivos cuando el rango los abarca.
+ * El directorio puede ser un volumen compartido por varias réplicas: el manifiesto se vuelve a leer cuando
+ * cambia en disco y el archivado se serializa con un bloqueo consultivo de PostgreSQL.
+ */
+@Service
+public class ArchivoAsistenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivoAsistenciaService.class);
+
+    private static final String MANIFIESTO = "manifiesto.json";
+
+    // Clave de pg_advisory_xact_lock(int, int) del archivado; el espacio 0 no es el de ninguna migración
+    // (ver OutboxService.ESPACIO_BLOQUEOS)
+    private static final String BLOQUEO_SQL = "SELECT pg_advisory_xact_lock(0, 1)";
+
+    private static final String SELECT_SQL =
+            "SELECT id, empleado_id, fecha_hora, tipo, estado, observaciones, fecha_creacion FROM asistencias " +
+            "WHERE fecha_hora >= ? AND fecha_hora < ? ORDER BY fecha_hora, id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${asistencia.archivo.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${asistencia.archivo.directorio:data/archivo}")
+    private String directorio = "data/archivo";
+
+    @Value("${asistencia.archivo.meses-retencion:24}")
+    private int mesesRetencion = 24;
+
+    @Value("${asistencia.archivo.tamano-lote-borrado:1000}")
+    private int tamanoLoteBorrado = 1000;
+
+    @Value("${asistencia.archivo.fetch-size:5000}")
+    private int fetchSize = 5000;
+
+    // Última lectura del manifiesto, con la versión del archivo en disco de la que salió
+    private volatile Manifiesto manifiesto = new Manifiesto(null, List.of());
+
+    @PostConstruct
+    void cargarManifiesto() {
+        List<ParteArchivoDTO> partes = partes();
+        if (!partes.isEmpty()) {
+            logger.info("Manifiesto de archivo cargado: {} archivos", partes.size());
+        }
+    }
+
+    /**
+     * Proceso mensual: archiva los meses que salieron del período de retención
+     * y termina los borrados que quedaron a medias. Ocupa uno de los hilos del scheduler (SchedulingConfig)
+     * y los procesos periódicos siguen en los demás.
+     */
+    @Scheduled(cron = "${asistencia.archivo.cron:0 0 3 2 * *}")
+    public void archivarPendientes() {
+        if (!enabled) {
+            return;
+        }
+        conBloqueo(partes -> {
+            for (ParteArchivoDTO parte : partes) {
+                if (parte.getEstado() == ParteArchivoDTO.Estado.BORRANDO) {
+                    borrarArchivadas(partes, parte);
+                }
+            }
+            return null;
+        });
+
+        YearMonth limite = mesLimite();
+        Timestamp masAntigua = jdbcTemplate.queryForObject(
+                "SELECT MIN(fecha_hora) FROM asistencias WHERE fecha_hora < ?", Timestamp.class,
+                limite.atDay(1).atStartOfDay());
+        if (masAntigua == null) {
+            return;
+        }
+        for (YearMonth mes = YearMonth.from(masAntigua.toLocalDateTime()); mes.isBefore(limite); mes = mes.plusMonths(1)) {
+            archivarMes(mes);
+        }
+    }
+
+    /**
+     * Archiva las marcaciones de un mes fuera del período de retención; devuelve null si no tenía marcaciones
+     */
+    public ParteArchivoDTO archivarMes(YearMonth mes) {
+        if (!mes.isBefore(mesLimite())) {
+            throw new IllegalArgumentException("Solo se archivan meses anteriores a " + mesLimite());
+        }
+        return conBloqueo(partes -> archivarMes(mes, partes));
+    }
+
+    private ParteArchivoDTO archivarMes(YearMonth mes, List<ParteArchivoDTO> partes) {
+        try {
+            Path dir = Files.createDirectories(Paths.get(directorio));
+            long previas = partes.stream().filter(parte -> parte.getMes().equals(mes.toString())).count();
+            String nombre = "asistencias-" + mes + (previas > 0 ? "-p" + (previas + 1) : "") + ".col.gz";
+            Path temporal = dir.resolve(nombre + ".tmp");
+
+            long inicio = System.currentTimeMillis();
+            LocalDateTime[] rango = new LocalDateTime[2];
+            long filas;
+            String sha256;
+            Path destino = dir.resolve(nombre);
+            try {
+                try (OutputStream out = Files.newOutputStream(temporal);
+                     ArchivoColumnar.Escritor escritor = new ArchivoColumnar.Escritor(out)) {
+                    recorrerMes(mes, fila -> {
+                        if (rango[0] == null) {
+                            rango[0] = fila.fechaHora();
+                        }
+                        rango[1] = fila.fechaHora();
+                        escritor.escribir(fila);
+                    });
+                    filas = escritor.getFilas();
+                }
+                if (filas == 0) {
+                    return null;
+                }
+
+                // El archivo queda en disco y verificado antes de borrar una sola fila
+                try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+                    canal.force(true);
+                }
+                long leidas = leer(temporal, fila -> { });
+                if (leidas != filas) {
+                    throw new IOException("El archivo " + nombre + " tiene " + leidas + " filas de " + filas);
+                }
+                sha256 = sha256(temporal);
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+
+            ParteArchivoDTO parte = new ParteArchivoDTO(mes.toString(), nombre, filas, rango[0], rango[1],
+                    Files.size(destino), sha256, ParteArchivoDTO.Estado.BORRANDO, LocalDateTime.now());
+            partes.add(parte);
+            guardarManifiesto(partes);
+
+            borrarArchivadas(partes, parte);
+            logger.info("Mes {} archivado en {}: {} marcaciones, {} bytes, {} ms", mes, nombre, filas,
+                    parte.getBytes(), System.currentTimeMillis() - inicio);
+            return parte;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al archivar el mes " + mes, e);
+        }
+    }
+
+    /**
+     * Marcaciones archivadas en el rango (fechas inclusive), con filtros opcionales, ordenadas por fecha/hora
+     */
+    List<ArchivoColumnar.Fila> buscar(LocalDate fechaInicio, LocalDate fechaFin, Long empleadoId, TipoMarcacion tipo) {
+        LocalDateTime desde = fechaInicio != null ? fechaInicio.atStartOfDay() : LocalDateTime.MIN;
+        LocalDateTime hasta = fechaFin != null ? fechaFin.plusDays(1).atStartOfDay() : LocalDateTime.MAX;
+        List<ArchivoColumnar.Fila> filas = new ArrayList<>();
+
+        for (ParteArchivoDTO parte : partes()) {
+            YearMonth mes = YearMonth.parse(parte.getMes());
+            if (!mes.atDay(1).atStartOfDay().isBefore(hasta) || !mes.plusMonths(1).atDay(1).atStartOfDay().isAfter(desde)) {
+                continue;
+            }
+            try {
+                leer(Paths.get(directorio, parte.getArchivo()), fila -> {
+                    if (!fila.fechaHora().isBefore(desde) && fila.fechaHora().isBefore(hasta)
+                            && (empleadoId == null || fila.empleadoId() == empleadoId)
+                            && (tipo == null || fila.tipo() == tipo)) {
+                        filas.add(fila);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el archivo " + parte.getArchivo(), e);
+            }
+        }
+        filas.sort((a, b) -> a.fechaHora().compareTo(b.fechaHora()));
+        return filas;
+    }
+
+    /**
+     * Indica si alguna parte del rango ya fue archivada
+     */
+    public boolean incluyeArchivo(LocalDate fechaInicio, LocalDate fechaFin) {
+        return finArchivo(fechaInicio, fechaFin) != null;
+    }
+
+    /**
+     * Inicio del mes siguiente al último mes archivado del rango (null si no incluye ninguno):
+     * toda marcación archivada del rango es anterior
+     */
+    public LocalDateTime finArchivo(LocalDate fechaInicio, LocalDate fechaFin) {
+        YearMonth desde = fechaInicio != null ? YearMonth.from(fechaInicio) : null;
+        YearMonth hasta = fechaFin != null ? YearMonth.from(fechaFin) : null;
+        return partes().stream()
+                .map(parte -> YearMonth.parse(parte.getMes()))
+                .filter(mes -> (desde == null || !mes.isBefore(desde)) && (hasta == null || !mes.isAfter(hasta)))
+                .max(Comparator.naturalOrder())
+                .map(mes -> mes.plusMonths(1).atDay(1).atStartOfDay())
+                .orElse(null);
+    }
+
+    public List<ParteArchivoDTO> getManifiesto() {
+        return partes();
+    }
+
+    /**
+     * Partes del manifiesto; se vuelve a leer solo si el archivo cambió en disco (otra réplica archivó)
+     */
+    private List<ParteArchivoDTO> partes() {
+        Manifiesto actual = manifiesto;
+        try {
+            Version version = version(Paths.get(directorio, MANIFIESTO));
+            if (!Objects.equals(version, actual.version())) {
+                actual = new Manifiesto(version, version != null ? List.copyOf(leerManifiesto()) : List.of());
+                manifiesto = actual;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el manifiesto de archivo", e);
+        }
+        return actual.partes();
+    }
+
+    /**
+     * Ejecuta la acción con el bloqueo de archivado tomado, sobre una copia del manifiesto leída ya con el bloqueo.
+     * El bloqueo dura lo que la transacción; los borrados usan transacciones propias.
+     */
+    private <T> T conBloqueo(Function<List<ParteArchivoDTO>, T> accion) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.query(BLOQUEO_SQL, rs -> { });
+            try {
+                Path ruta = Paths.get(directorio, MANIFIESTO);
+                return accion.apply(Files.exists(ruta) ? new ArrayList<>(leerManifiesto()) : new ArrayList<>());
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el manifiesto de archivo", e);
+            }
+        });
+    }
+
+    private YearMonth mesLimite() {
+        return YearMonth.now().minusMonths(mesesRetencion);
+    }
+
+    private void recorrerMes(YearMonth mes, FilaConsumer consumidor) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, mes.atDay(1).atStartOfDay());
+            ps.setObject(2, mes.plusMonths(1).atDay(1).atStartOfDay());
+            return ps;
+        }, rs -> {
+            String estado = rs.getString(5);
+            try {
+                consumidor.aceptar(new ArchivoColumnar.Fila(rs.getLong(1), rs.getLong(2),
+                        rs.getObject(3, LocalDateTime.class), TipoMarcacion.valueOf(rs.getString(4)),
+                        estado != null ? EstadoMarcacion.valueOf(estado) : null, rs.getString(6),
+                        rs.getObject(7, LocalDateTime.class)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Borra de la tabla las marcaciones de un archivo, por id y en lotes de una transacción corta cada uno
+     */
+    private void borrarArchivadas(List<ParteArchivoDTO> partes, ParteArchivoDTO parte) {
+        List<Long> lote = new ArrayList<>(tamanoLoteBorrado);
+        long[] borradas = {0};
+        try {
+            leer(Paths.get(directorio, parte.getArchivo()), fila -> {
+                lote.add(fila.id());
+                if (lote.size() == tamanoLoteBorrado) {
+                    borradas[0] += borrarLote(lote);
+                }
+            });
+            if (!lote.isEmpty()) {
+                borradas[0] += borrarLote(lote);
+            }
+            parte.setEstado(ParteArchivoDTO.Estado.COMPLETO);
+            guardarManifiesto(partes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo completar el borrado de " + parte.getArchivo(), e);
+        }
+        logger.info("Borradas {} marcaciones archivadas en {}", borradas[0], parte.getArchivo());
+    }
+
+    private int borrarLote(List<Long> ids) {
+        // Fuera de la transacción del bloqueo, para que cada lote confirme enseguida
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        String marcadores = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Integer borradas = transaccion.execute(status ->
+                jdbcTemplate.update("DELETE FROM asistencias WHERE id IN (" + marcadores + ")", ids.toArray()));
+        ids.clear();
+        return borradas;
+    }
+
+    private List<ParteArchivoDTO> leerManifiesto() throws IOException {
+        return objectMapper.readValue(Paths.get(directorio, MANIFIESTO).toFile(), new TypeReference<List<ParteArchivoDTO>>() {});
+    }
+
+    private void guardarManifiesto(List<ParteArchivoDTO> partes) throws IOException {
+        Path dir = Paths.get(directorio);
+        Path temporal = dir.resolve(MANIFIESTO + ".tmp");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(temporal.toFile(), partes);
+        Files.move(temporal, dir.resolve(MANIFIESTO), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Identidad del archivo en disco: cada guardado lo reemplaza con un move, así que cambia al menos el fileKey
+     */
+    private static Version version(Path ruta) throws IOException {
+        try {
+            BasicFileAttributes atributos = Files.readAttributes(ruta, BasicFileAttributes.class);
+            return new Version(atributos.fileKey(), atributos.lastModifiedTime(), atributos.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private long leer(Path archivo, Consumer<ArchivoColumnar.Fila> consumidor) throws IOException {
+        try (InputStream in = Files.newInputStream(archivo)) {
+            return ArchivoColumnar.leer(in, consumidor);
+        }
+    }
+
+    private String sha256(Path archivo) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(archivo), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Version(Object fileKey, FileTime modificado, long bytes) {
+    }
+
+    private record Manifiesto(Version version, List<ParteArchivoDTO> partes) {
+    }
+
+    @FunctionalInterface
+    private interface FilaConsumer {
+        void aceptar(ArchivoColumnar.Fila fila) throws IOException;
+    }
+}
@@ -0,0 +1,211 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato columnar comprimido de los archivos de marcaciones archivadas.
+ * Las filas se agrupan en bloques; dentro de cada bloque se escribe columna por columna
+ * (ids y fechas como diferencias con la fila anterior, tipo y estado como códigos de diccionario)
+ * para que GZIP comprima valores parecidos que quedan juntos.
+ */
+class ArchivoColumnar {
+
+    private static final int MAGIC = 0x41534931; // "ASI1"
+    static final int FILAS_POR_BLOQUE = 8192;
+
+    /**
+     * Marcación archivada; las fechas se guardan con precisión de microsegundos, como en PostgreSQL
+     */
+    record Fila(long id, long empleadoId, LocalDateTime fechaHora, TipoMarcacion tipo, EstadoMarcacion estado,
+                String observaciones, LocalDateTime fechaCreacion) {
+    }
+
+    private ArchivoColumnar() {
+    }
+
+    /**
+     * Escribe las filas recibidas en bloques; cerrar el escritor completa el archivo
+     */
+    static class Escritor implements Closeable {
+
+        private final DataOutputStream out;
+        private final List<Fila> bloque = new ArrayList<>(FILAS_POR_BLOQUE);
+        private long filas;
+
+        Escritor(OutputStream destino) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(destino, 64 * 1024)));
+            out.writeInt(MAGIC);
+            // Diccionarios: los códigos no dependen del orden de los enums en versiones futuras
+            escribirDiccionario(TipoMarcacion.values());
+            escribirDiccionario(EstadoMarcacion.values());
+        }
+
+        private void escribirDiccionario(Enum<?>[] valores) throws IOException {
+            out.writeByte(valores.length);
+            for (Enum<?> valor : valores) {
+                out.writeUTF(valor.name());
+            }
+        }
+
+        void escribir(Fila fila) throws IOException {
+            bloque.add(fila);
+            filas++;
+            if (bloque.size() == FILAS_POR_BLOQUE) {
+                escribirBloque();
+            }
+        }
+
+        long getFilas() {
+            return filas;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!bloque.isEmpty()) {
+                escribirBloque();
+            }
+            out.writeInt(0);
+            out.close();
+        }
+
+        private void escribirBloque() throws IOException {
+            out.writeInt(bloque.size());
+
+            long anterior = 0;
+            for (Fila fila : bloque) {
+                out.writeLong(fila.id() - anterior);
+                anterior = fila.id();
+            }
+            for (Fila fila : bloque) {
+                out.writeLong(fila.empleadoId());
+            }
+            anterior = 0;
+            for (Fila fila : bloque) {
+                long micros = micros(fila.fechaHora());
+                out.writeLong(micros - anterior);
+                anterior = micros;
+            }
+            for (Fila fila : bloque) {
+                out.writeByte(fila.tipo().ordinal());
+            }
+            for (Fila fila : bloque) {
+                out.writeByte(fila.estado() != null ? fila.estado().ordinal() : -1);
+            }
+            for (Fila fila : bloque) {
+                // Fecha de creación relativa a la marcación: casi siempre unos pocos segundos
+                out.writeBoolean(fila.fechaCreacion() != null);
+                if (fila.fechaCreacion() != null) {
+                    out.writeLong(micros(fila.fechaCreacion()) - micros(fila.fechaHora()));
+                }
+            }
+            for (Fila fila : bloque) {
+                escribirTexto(fila.observaciones());
+            }
+            bloque.clear();
+        }
+
+        private void escribirTexto(String texto) throws IOException {
+            if (texto == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Lee todas las filas de un archivo en el orden en que se escribieron
+     */
+    static long leer(InputStream origen, Consumer<Fila> consumidor) throws IOException {
+        long total = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(origen, 64 * 1024)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("El archivo no es un archivo de marcaciones");
+            }
+            TipoMarcacion[] tipos = new TipoMarcacion[in.readUnsignedByte()];
+            for (int i = 0; i < tipos.length; i++) {
+                tipos[i] = TipoMarcacion.valueOf(in.readUTF());
+            }
+            EstadoMarcacion[] estados = new EstadoMarcacion[in.readUnsignedByte()];
+            for (int i = 0; i < estados.length; i++) {
+                estados[i] = EstadoMarcacion.valueOf(in.readUTF());
+            }
+            for (int n = in.readInt(); n > 0; n = in.readInt()) {
+                long[] ids = new long[n];
+                long[] empleados = new long[n];
+                long[] fechas = new long[n];
+                byte[] tiposBloque = new byte[n];
+                byte[] estadosBloque = new byte[n];
+                LocalDateTime[] creaciones = new LocalDateTime[n];
+
+                long anterior = 0;
+                for (int i = 0; i < n; i++) {
+                    anterior += in.readLong();
+                    ids[i] = anterior;
+                }
+                for (int i = 0; i < n; i++) {
+                    empleados[i] = in.readLong();
+                }
+                anterior = 0;
+                for (int i = 0; i < n; i++) {
+                    anterior += in.readLong();
+                    fechas[i] = anterior;
+                }
+                in.readFully(tiposBloque);
+                in.readFully(estadosBloque);
+                for (int i = 0; i < n; i++) {
+                    creaciones[i] = in.readBoolean() ? fecha(fechas[i] + in.readLong()) : null;
+                }
+                for (int i = 0; i < n; i++) {
+                    consumidor.accept(new Fila(ids[i], empleados[i], fecha(fechas[i]), tipos[tiposBloque[i]],
+                            estadosBloque[i] >= 0 ? estados[estadosBloque[i]] : null, leerTexto(in), creaciones[i]));
+                }
+                total += n;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Archivo de marcaciones incompleto", e);
+        }
+        return total;
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        int longitud = in.readInt();
+        if (longitud < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[longitud];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long micros(LocalDateTime fecha) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), fecha);
+    }
+
+    private static LocalDateTime fecha(long micros) {
+        return LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC).plus(micros, ChronoUnit.MICROS);
+    }
+}
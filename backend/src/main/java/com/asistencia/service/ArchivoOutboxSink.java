@@ -0,0 +1,56 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.EventoOutbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Agrega los eventos a un archivo JSON Lines, uno por línea, con fsync por lote
+ * Hace de cola de mensajes local: el consumidor lo lee en orden y guarda el último id procesado
+ */
+@Component
+@ConditionalOnProperty(prefix = "asistencia.outbox", name = "sink", havingValue = "archivo")
+public class ArchivoOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path ruta;
+
+    public ArchivoOutboxSink(ObjectMapper objectMapper,
+                             @Value("${asistencia.outbox.archivo.ruta:data/outbox/eventos.jsonl}") String ruta) {
+        this.objectMapper = objectMapper;
+        this.ruta = Paths.get(ruta);
+    }
+
+    @Override
+    public synchronized void enviar(List<EventoOutbox> lote) throws IOException {
+        StringBuilder lineas = new StringBuilder();
+        for (EventoOutbox evento : lote) {
+            lineas.append(objectMapper.writeValueAsString(OutboxSink.sobre(objectMapper, evento))).append('\n');
+        }
+
+        Path directorio = ruta.toAbsolutePath().getParent();
+        if (directorio != null) {
+            Files.createDirectories(directorio);
+        }
+        try (FileChannel archivo = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lineas.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                archivo.write(buffer);
+            }
+            archivo.force(false);
+        }
+    }
+}
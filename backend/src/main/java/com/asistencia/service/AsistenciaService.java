@@ -2,21 +2,29 @@ package com.asistencia.service;
 
 import com.asistencia.dto.AsistenciaDTO;
 import com.asistencia.dto.EmpleadoDTO;
+import com.asistencia.dto.EmpleadoResumenDTO;
 import com.asistencia.dto.MarcacionResponseDTO;
 import com.asistencia.entity.Asistencia;
 import com.asistencia.entity.Empleado;
 import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoEventoOutbox;
 import com.asistencia.entity.TipoMarcacion;
 import com.asistencia.exception.EmpleadoNotFoundException;
 import com.asistencia.exception.MarcacionDuplicadaException;
 import com.asistencia.repository.AsistenciaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -33,6 +41,39 @@ public class AsistenciaService {
     @Autowired
     private HorarioService horarioService;
     
+    @Autowired
+    private MotorHorarios motorHorarios;
+
+    // Solo presente con asistencia.write-behind.enabled=true
+    @Autowired(required = false)
+    private MarcacionWriteBehindService writeBehindService;
+
+    // Solo presente con asistencia.outbox.enabled=true
+    @Autowired(required = false)
+    private OutboxService outboxService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired(required = false)
+    private FiltroDniService filtroDni;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Rechazos de marcación por motivo (reemplazan un WARN por evento)
+    private final Map<ResultadoMarcacion.Rechazo, Counter> rechazos = new EnumMap<>(ResultadoMarcacion.Rechazo.class);
+    
+    @PostConstruct
+    void registrarMetricas() {
+        for (ResultadoMarcacion.Rechazo rechazo : ResultadoMarcacion.Rechazo.values()) {
+            rechazos.put(rechazo, Counter.builder("asistencia.marcaciones.rechazadas")
+                    .description("Marcaciones rechazadas por DNI desconocido o duplicadas")
+                    .tag("motivo", rechazo.name())
+                    .register(meterRegistry));
+        }
+    }
+
     /**
      * Obtiene todas las asistencias
      */
@@ -176,7 +217,10 @@ public class AsistenciaService {
         }
         
         Asistencia savedAsistencia = asistenciaRepository.save(asistencia);
-        return convertToDTO(savedAsistencia);
+        AsistenciaDTO creada = convertToDTO(savedAsistencia);
+        registrarEnOutbox(TipoEventoOutbox.ASISTENCIA_REGISTRADA, creada);
+        eventPublisher.publishEvent(new MarcacionRegistradaEvent(creada, empleado.getArea(), empleado.getCargo()));
+        return creada;
     }
     
     /**
@@ -204,33 +248,32 @@ public class AsistenciaService {
         }
         
         Asistencia updatedAsistencia = asistenciaRepository.save(asistenciaExistente);
-        return convertToDTO(updatedAsistencia);
+        AsistenciaDTO actualizada = convertToDTO(updatedAsistencia);
+        registrarEnOutbox(TipoEventoOutbox.ASISTENCIA_ACTUALIZADA, actualizada);
+        return actualizada;
     }
     
     /**
      * Elimina una asistencia
      */
     public void delete(Long id) {
-        if (!asistenciaRepository.existsById(id)) {
-            throw new IllegalArgumentException("Asistencia no encontrada con ID: " + id);
-        }
-        asistenciaRepository.deleteById(id);
+        Asistencia asistencia = asistenciaRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Asistencia no encontrada con ID: " + id));
+        asistenciaRepository.delete(asistencia);
+        registrarEnOutbox(TipoEventoOutbox.ASISTENCIA_ELIMINADA, convertToDTO(asistencia));
     }
     
     /**
-     * Verifica si existe una marcación reciente del mismo tipo
+     * Verifica si existe una marcación reciente del mismo tipo (filtra por la columna empleado_id,
+     * sin cargar el empleado)
      */
     @Transactional(readOnly = true)
     public boolean existsRecentMarcacion(Long empleadoId, TipoMarcacion tipo, int minutosRango) {
-        Optional<Empleado> empleado = empleadoService.findEntityById(empleadoId);
-        if (empleado.isPresent()) {
-            LocalDateTime ahora = LocalDateTime.now();
-            LocalDateTime fechaInicio = ahora.minusMinutes(minutosRango);
-            LocalDateTime fechaFin = ahora.plusMinutes(minutosRango);
-            
-            return asistenciaRepository.existsRecentMarcacion(empleado.get(), tipo, fechaInicio, fechaFin);
-        }
-        return false;
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime fechaInicio = ahora.minusMinutes(minutosRango);
+        LocalDateTime fechaFin = ahora.plusMinutes(minutosRango);
+
+        return asistenciaRepository.existsRecentMarcacion(empleadoId, tipo, fechaInicio, fechaFin);
     }
     
     /**
@@ -247,67 +290,128 @@ public class AsistenciaService {
     
     /**
      * Registra una marcación automática basada en el DNI del empleado
-     * Determina automáticamente el tipo de marcación y estado según la hora actual
+     * Lanza EmpleadoNotFoundException o MarcacionDuplicadaException (sin traza) si se rechaza; el lector usa marcar
      */
     public MarcacionResponseDTO registrarMarcacion(String dni) {
-        // Buscar empleado por DNI
-        Optional<Empleado> empleadoOpt = empleadoService.findEntityByDni(dni);
-        if (empleadoOpt.isEmpty()) {
+        ResultadoMarcacion resultado = marcar(dni);
+        if (resultado.isRegistrada()) {
+            return resultado.respuesta();
+        }
+        if (resultado.rechazo() == ResultadoMarcacion.Rechazo.EMPLEADO_NO_ENCONTRADO) {
             throw EmpleadoNotFoundException.porDni(dni);
         }
+        throw new MarcacionDuplicadaException(dni, resultado.tipo().getDescripcion());
+    }
+    
+    /**
+     * Registra una marcación automática basada en el DNI del empleado
+     * Determina automáticamente el tipo de marcación y estado según la hora actual y el turno del empleado.
+     * Un DNI desconocido o una marcación duplicada se devuelven como rechazo (sin excepciones ni logs por evento)
+     * y se cuentan en asistencia.marcaciones.rechazadas
+     */
+    public ResultadoMarcacion marcar(String dni) {
+        // Un DNI que no pasa el filtro no es de ningún empleado: se rechaza sin consultar la base de datos
+        if (filtroDni != null && !filtroDni.puedeExistir(dni)) {
+            return rechazar(ResultadoMarcacion.noEncontrado());
+        }
+        
+        // Buscar empleado por DNI (en caché)
+        Optional<EmpleadoResumenDTO> empleadoOpt = empleadoService.findResumenByDni(dni);
+        if (empleadoOpt.isEmpty()) {
+            if (filtroDni != null) {
+                filtroDni.registrarFalsoPositivo();
+            }
+            return rechazar(ResultadoMarcacion.noEncontrado());
+        }
         
-        Empleado empleado = empleadoOpt.get();
+        EmpleadoResumenDTO empleado = empleadoOpt.get();
         LocalDateTime ahora = LocalDateTime.now();
         
-        // Determinar tipo de marcación basado en la hora actual
-        TipoMarcacion tipoMarcacion = horarioService.determinarTipoMarcacion(ahora.toLocalTime());
+        // Clasificar con el horario del empleado (su turno, el de su área o el general), sin consultas
+        MotorHorarios.Clasificacion clasificacion = motorHorarios.clasificar(empleado.id(), empleado.area(), ahora);
+        TipoMarcacion tipoMarcacion = clasificacion.tipo();
         
-        // Verificar marcación duplicada (5 minutos de rango)
-        if (existsRecentMarcacion(empleado.getId(), tipoMarcacion, 5)) {
-            throw new MarcacionDuplicadaException(dni, tipoMarcacion.getDescripcion());
+        // Verificar marcación duplicada (5 minutos de rango), incluyendo las pendientes de escritura
+        if (existsRecentMarcacion(empleado.id(), tipoMarcacion, 5) ||
+                (writeBehindService != null && writeBehindService.existePendienteReciente(
+                        empleado.id(), tipoMarcacion, ahora.minusMinutes(5), ahora.plusMinutes(5)))) {
+            return rechazar(ResultadoMarcacion.duplicada(tipoMarcacion));
         }
         
-        // Calcular estado de la marcación
-        EstadoMarcacion estadoMarcacion = horarioService.calcularEstadoMarcacion(ahora.toLocalTime(), tipoMarcacion);
+        EstadoMarcacion estadoMarcacion = clasificacion.estado();
         
         // Generar mensaje contextual
-        String mensaje = horarioService.generarMensajeMarcacion(ahora.toLocalTime(), tipoMarcacion, estadoMarcacion);
+        String mensaje = horarioService.generarMensajeMarcacion(ahora.toLocalTime(), tipoMarcacion, estadoMarcacion,
+                clasificacion.minutosDiferencia());
         
         // Crear y guardar la asistencia
         Asistencia asistencia = new Asistencia();
-        asistencia.setEmpleado(empleado);
+        asistencia.setEmpleado(empleadoService.getReferencia(empleado.id()));
         asistencia.setFechaHora(ahora);
         asistencia.setTipo(tipoMarcacion);
         asistencia.setEstado(estadoMarcacion);
         
         // Agregar observaciones si es necesario
-        if (estadoMarcacion == EstadoMarcacion.TARDANZA) {
-            int minutosTarde = horarioService.calcularMinutosDiferencia(ahora.toLocalTime(), tipoMarcacion);
-            if (minutosTarde > 0) {
-                asistencia.setObservaciones("Tardanza de " + minutosTarde + " minutos");
-            }
-        } else if (estadoMarcacion == EstadoMarcacion.FUERA_HORARIO) {
-            asistencia.setObservaciones("Marcación fuera de horario laboral");
-        }
-        
-        asistenciaRepository.save(asistencia);
+        asistencia.setObservaciones(observaciones(clasificacion));
         
+        // Con write-behind la inserción se difiere (y su evento de outbox va en el mismo lote);
+        // si la cola está llena se inserta de inmediato
+        boolean diferida = writeBehindService != null && writeBehindService.encolar(asistencia);
+        if (!diferida) {
+            asistenciaRepository.save(asistencia);
+        }
+        AsistenciaDTO registrada = convertToDTO(asistencia, empleado);
+        if (!diferida) {
+            registrarEnOutbox(TipoEventoOutbox.ASISTENCIA_REGISTRADA, registrada);
+        }
+        // Los suscriptores del feed lo reciben cuando la transacción se confirma
+        eventPublisher.publishEvent(new MarcacionRegistradaEvent(registrada, empleado.area(), empleado.cargo()));
+
         // Crear DTO del empleado para la respuesta
         EmpleadoDTO empleadoDTO = new EmpleadoDTO();
-        empleadoDTO.setId(empleado.getId());
-        empleadoDTO.setNombres(empleado.getNombres());
-        empleadoDTO.setApellidos(empleado.getApellidos());
-        empleadoDTO.setDni(empleado.getDni());
+        empleadoDTO.setId(empleado.id());
+        empleadoDTO.setNombres(empleado.nombres());
+        empleadoDTO.setApellidos(empleado.apellidos());
+        empleadoDTO.setDni(empleado.dni());
         
         // Crear respuesta exitosa
         MarcacionResponseDTO response = MarcacionResponseDTO.success(mensaje, empleadoDTO, tipoMarcacion, estadoMarcacion, ahora);
         response.setObservaciones(asistencia.getObservaciones());
         
-        return response;
+        return ResultadoMarcacion.registrada(response);
+    }
+    
+    /**
+     * Observación de la marcación según su clasificación (tardanza o fuera de horario), o null
+     */
+    static String observaciones(MotorHorarios.Clasificacion clasificacion) {
+        if (clasificacion.estado() == EstadoMarcacion.TARDANZA) {
+            int minutosTarde = clasificacion.minutosDiferencia();
+            if (minutosTarde > 0) {
+                return "Tardanza de " + minutosTarde + " minutos";
+            }
+        } else if (clasificacion.estado() == EstadoMarcacion.FUERA_HORARIO) {
+            return "Marcación fuera de horario laboral";
+        }
+        return null;
+    }
+    
+    private ResultadoMarcacion rechazar(ResultadoMarcacion resultado) {
+        rechazos.get(resultado.rechazo()).increment();
+        return resultado;
     }
     
 
     
+    /**
+     * Registra el evento para los sistemas externos en la transacción actual, si el outbox está activo
+     */
+    private void registrarEnOutbox(TipoEventoOutbox tipo, AsistenciaDTO asistencia) {
+        if (outboxService != null) {
+            outboxService.registrar(tipo, asistencia);
+        }
+    }
+    
     // Métodos de conversión
     private AsistenciaDTO convertToDTO(Asistencia asistencia) {
         AsistenciaDTO dto = new AsistenciaDTO();
@@ -323,6 +427,23 @@ public class AsistenciaService {
         return dto;
     }
     
+    /**
+     * Como convertToDTO, con los datos del empleado de la caché (la marcación solo tiene su referencia)
+     */
+    private AsistenciaDTO convertToDTO(Asistencia asistencia, EmpleadoResumenDTO empleado) {
+        AsistenciaDTO dto = new AsistenciaDTO();
+        dto.setId(asistencia.getId());
+        dto.setEmpleadoId(empleado.id());
+        dto.setEmpleadoNombre(empleado.nombreCompleto());
+        dto.setEmpleadoDni(empleado.dni());
+        dto.setFechaHora(asistencia.getFechaHora());
+        dto.setTipo(asistencia.getTipo());
+        dto.setEstado(asistencia.getEstado());
+        dto.setObservaciones(asistencia.getObservaciones());
+        dto.setFechaCreacion(asistencia.getFechaCreacion());
+        return dto;
+    }
+    
     private Asistencia convertToEntity(AsistenciaDTO dto) {
         Asistencia asistencia = new Asistencia();
         asistencia.setId(dto.getId());
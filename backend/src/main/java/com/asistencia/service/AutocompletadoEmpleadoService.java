@@ -0,0 +1,279 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.EmpleadoDTO;
+import com.asistencia.dto.SugerenciaEmpleadoDTO;
+import com.asistencia.entity.Empleado;
+import com.asistencia.repository.EmpleadoRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Autocompletado de empleados activos por prefijo de DNI, nombres o apellidos, sin consultar la base de datos.
+ * Las claves (palabras normalizadas) viven en arreglos ordenados que se recorren con búsqueda binaria;
+ * cada cambio de un empleado reemplaza solo sus claves en una copia nueva de los arreglos,
+ * así las consultas leen sin bloqueos.
+ */
+@Service
+public class AutocompletadoEmpleadoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompletadoEmpleadoService.class);
+
+    static final int LIMITE_MAXIMO = 50;
+
+    @Autowired
+    private EmpleadoRepository empleadoRepository;
+
+    @Autowired
+    private EmpleadoService empleadoService;
+
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+
+    private volatile Claves claves = new Claves(new String[0], new long[0]);
+    private final Map<Long, Entrada> porId = new ConcurrentHashMap<>();
+    private final Map<String, Long> idPorDni = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void suscribir() {
+        invalidacionCacheService.suscribir(this::onInvalidacion);
+    }
+
+    /**
+     * Carga todos los empleados activos y reemplaza el índice
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruir() {
+        List<Empleado> empleados = empleadoRepository.findByActivoTrue();
+        List<Entrada> entradas = new ArrayList<>(empleados.size());
+        for (Empleado empleado : empleados) {
+            entradas.add(entrada(empleado.getId(), empleado.getDni(), empleado.getCodigoUnico(),
+                    empleado.getNombres(), empleado.getApellidos(), empleado.getArea()));
+        }
+
+        int total = entradas.stream().mapToInt(entrada -> entrada.tokens().length).sum();
+        Par[] pares = new Par[total];
+        int i = 0;
+        for (Entrada entrada : entradas) {
+            for (String token : entrada.tokens()) {
+                pares[i++] = new Par(token, entrada.sugerencia().getEmpleadoId());
+            }
+        }
+        Arrays.sort(pares);
+        String[] nuevasClaves = new String[total];
+        long[] nuevosIds = new long[total];
+        for (i = 0; i < total; i++) {
+            nuevasClaves[i] = pares[i].clave();
+            nuevosIds[i] = pares[i].id();
+        }
+
+        // Se reemplazan las entradas sin vaciar los mapas, para que las consultas en curso sigan respondiendo
+        Map<Long, Entrada> nuevasEntradas = new HashMap<>();
+        Map<String, Long> nuevosDnis = new HashMap<>();
+        for (Entrada entrada : entradas) {
+            nuevasEntradas.put(entrada.sugerencia().getEmpleadoId(), entrada);
+            nuevosDnis.put(entrada.sugerencia().getDni(), entrada.sugerencia().getEmpleadoId());
+        }
+        porId.putAll(nuevasEntradas);
+        porId.keySet().retainAll(nuevasEntradas.keySet());
+        idPorDni.putAll(nuevosDnis);
+        idPorDni.keySet().retainAll(nuevosDnis.keySet());
+        claves = new Claves(nuevasClaves, nuevosIds);
+        logger.info("Índice de autocompletado reconstruido: {} empleados, {} claves", entradas.size(), total);
+    }
+
+    /**
+     * Hasta 'limite' empleados en los que cada palabra del texto es prefijo de su DNI, nombres o apellidos,
+     * en orden alfabético de la clave que coincide con la primera palabra
+     */
+    public List<SugerenciaEmpleadoDTO> sugerir(String texto, int limite) {
+        String normalizado = texto != null ? IndiceNgramas.normalizar(texto) : "";
+        if (normalizado.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        String[] palabras = normalizado.split(" ");
+        String primera = palabras[0];
+        int maximo = Math.min(limite, LIMITE_MAXIMO);
+
+        Claves actuales = claves;
+        List<SugerenciaEmpleadoDTO> sugerencias = new ArrayList<>(maximo);
+        Set<Long> vistos = new HashSet<>();
+        for (int i = actuales.primeraMayorOIgual(primera);
+             i < actuales.claves.length && actuales.claves[i].startsWith(primera) && sugerencias.size() < maximo;
+             i++) {
+            long id = actuales.ids[i];
+            if (!vistos.add(id)) {
+                continue;
+            }
+            Entrada entrada = porId.get(id);
+            if (entrada != null && coincidenTodas(entrada.tokens(), palabras)) {
+                sugerencias.add(entrada.sugerencia());
+            }
+        }
+        return sugerencias;
+    }
+
+    int size() {
+        return porId.size();
+    }
+
+    private void onInvalidacion(EventoInvalidacion evento) {
+        if (evento.entidad() != EventoInvalidacion.Entidad.EMPLEADO) {
+            return;
+        }
+        if (evento.clave() == null) {
+            reconstruir();
+        } else {
+            refrescar(evento.clave());
+        }
+    }
+
+    /**
+     * Vuelve a leer el empleado del DNI (ya sin caché) y actualiza solo sus claves
+     */
+    private synchronized void refrescar(String dni) {
+        EmpleadoDTO empleado = empleadoService.findByDni(dni)
+                .filter(dto -> Boolean.TRUE.equals(dto.getActivo()))
+                .orElse(null);
+        if (empleado == null) {
+            Long id = idPorDni.get(dni);
+            if (id != null) {
+                quitar(id);
+            }
+            return;
+        }
+
+        Entrada nueva = entrada(empleado.getId(), empleado.getDni(), empleado.getCodigoUnico(),
+                empleado.getNombres(), empleado.getApellidos(), empleado.getArea());
+        Entrada anterior = porId.put(empleado.getId(), nueva);
+        if (anterior != null && !anterior.sugerencia().getDni().equals(empleado.getDni())) {
+            idPorDni.remove(anterior.sugerencia().getDni(), empleado.getId());
+        }
+        idPorDni.put(empleado.getDni(), empleado.getId());
+        claves = claves.reemplazar(empleado.getId(), nueva.tokens());
+    }
+
+    private void quitar(long id) {
+        Entrada anterior = porId.remove(id);
+        if (anterior != null) {
+            idPorDni.remove(anterior.sugerencia().getDni(), id);
+            claves = claves.reemplazar(id, new String[0]);
+        }
+    }
+
+    private static boolean coincidenTodas(String[] tokens, String[] palabras) {
+        for (int p = 1; p < palabras.length; p++) {
+            boolean coincide = false;
+            for (String token : tokens) {
+                if (token.startsWith(palabras[p])) {
+                    coincide = true;
+                    break;
+                }
+            }
+            if (!coincide) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Entrada entrada(Long id, String dni, String codigoUnico, String nombres, String apellidos, String area) {
+        Set<String> tokens = new HashSet<>();
+        tokens.add(dni);
+        for (String palabra : IndiceNgramas.normalizar(nombres + " " + apellidos).split(" ")) {
+            if (!palabra.isEmpty()) {
+                tokens.add(palabra);
+            }
+        }
+        String[] ordenados = tokens.toArray(new String[0]);
+        Arrays.sort(ordenados);
+        return new Entrada(new SugerenciaEmpleadoDTO(id, dni, codigoUnico, nombres + " " + apellidos, area), ordenados);
+    }
+
+    /**
+     * Sugerencia de un empleado y sus claves ordenadas, para filtrar las demás palabras del texto
+     */
+    private record Entrada(SugerenciaEmpleadoDTO sugerencia, String[] tokens) {
+    }
+
+    private record Par(String clave, long id) implements Comparable<Par> {
+        @Override
+        public int compareTo(Par otro) {
+            int porClave = clave.compareTo(otro.clave);
+            return porClave != 0 ? porClave : Long.compare(id, otro.id);
+        }
+    }
+
+    /**
+     * Pares (clave, id) ordenados por clave y luego por id, en dos arreglos paralelos inmutables
+     */
+    private static final class Claves {
+        private final String[] claves;
+        private final long[] ids;
+
+        Claves(String[] claves, long[] ids) {
+            this.claves = claves;
+            this.ids = ids;
+        }
+
+        int primeraMayorOIgual(String prefijo) {
+            int desde = 0;
+            int hasta = claves.length;
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (claves[medio].compareTo(prefijo) < 0) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio;
+                }
+            }
+            return desde;
+        }
+
+        /**
+         * Copia sin las claves actuales del id y con las nuevas (ordenadas), en una sola pasada
+         */
+        Claves reemplazar(long id, String[] nuevas) {
+            int quitadas = 0;
+            for (long actual : ids) {
+                if (actual == id) {
+                    quitadas++;
+                }
+            }
+            int total = claves.length - quitadas + nuevas.length;
+            String[] clavesNuevas = new String[total];
+            long[] idsNuevos = new long[total];
+
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < total; k++) {
+                while (i < claves.length && ids[i] == id) {
+                    i++;
+                }
+                boolean tomarNueva = j < nuevas.length && (i >= claves.length
+                        || new Par(nuevas[j], id).compareTo(new Par(claves[i], ids[i])) < 0);
+                if (tomarNueva) {
+                    clavesNuevas[k] = nuevas[j++];
+                    idsNuevos[k] = id;
+                } else {
+                    clavesNuevas[k] = claves[i];
+                    idsNuevos[k] = ids[i++];
+                }
+            }
+            return new Claves(clavesNuevas, idsNuevos);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.asistencia.service;
+
+import java.util.List;
+
+/**
+ * Búsqueda por subcadena en nombres de empleados y horarios, sin distinguir mayúsculas ni tildes.
+ * La implementación se elige con asistencia.busqueda.indice (postgres o memoria).
+ */
+public interface BusquedaNombres {
+
+    /**
+     * IDs de los empleados activos cuyo nombre completo contiene el término, de mejor a peor coincidencia
+     */
+    List<Long> buscarEmpleados(String termino, int limite);
+
+    /**
+     * IDs de los horarios activos cuyo nombre contiene el término, de mejor a peor coincidencia
+     */
+    List<Long> buscarHorarios(String termino, int limite);
+}
@@ -0,0 +1,344 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.ConsultaCuboDTO;
+import com.asistencia.dto.ConsultaCuboDTO.Dimension;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Marcaciones de un mes en columnas de tipos primitivos, una por dimensión (7 bytes por marcación).
+ * Área y cargo se guardan como códigos de diccionario; día, tipo y estado como su posición.
+ * Solo admite agregar filas: las ediciones y borrados se reflejan al reconstruirlo.
+ * Las consultas recorren las columnas con filtros precalculados por código y cuentan por grupo.
+ */
+final class CuboAsistencia {
+
+    static final String SIN_AREA = "Sin área";
+    static final String SIN_CARGO = "Sin cargo";
+
+    /** Combinaciones máximas de una agrupación (un contador int por combinación) */
+    static final int MAX_GRUPOS = 1 << 20;
+
+    private static final int BYTES_POR_FILA = Byte.BYTES * 3 + Short.BYTES * 2;
+    private static final int CAPACIDAD_INICIAL = 1 << 14;
+
+    private static final TipoMarcacion[] TIPOS = TipoMarcacion.values();
+    // Posición 0 = sin estado
+    private static final EstadoMarcacion[] ESTADOS = EstadoMarcacion.values();
+
+    private final YearMonth periodo;
+    private final int maxFilas;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Diccionario areasDic = new Diccionario();
+    private final Diccionario cargosDic = new Diccionario();
+
+    private byte[] dias;
+    private short[] areas;
+    private short[] cargos;
+    private byte[] tipos;
+    private byte[] estados;
+    private int filas;
+    private boolean saturado;
+
+    CuboAsistencia(YearMonth periodo, int maxFilas) {
+        this.periodo = periodo;
+        this.maxFilas = maxFilas;
+        redimensionar(Math.min(CAPACIDAD_INICIAL, maxFilas));
+    }
+
+    YearMonth periodo() {
+        return periodo;
+    }
+
+    /**
+     * Agrega una marcación del período; devuelve false si es de otro mes o el cubo llegó a su límite
+     */
+    boolean agregar(String area, String cargo, LocalDateTime fechaHora, TipoMarcacion tipo, EstadoMarcacion estado) {
+        if (!YearMonth.from(fechaHora).equals(periodo)) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (filas == maxFilas) {
+                saturado = true;
+                return false;
+            }
+            int codigoArea = areasDic.codigo(area != null ? area : SIN_AREA);
+            int codigoCargo = cargosDic.codigo(cargo != null ? cargo : SIN_CARGO);
+            if (codigoArea < 0 || codigoCargo < 0) {
+                saturado = true;
+                return false;
+            }
+            if (filas == dias.length) {
+                redimensionar((int) Math.min((long) dias.length * 2, maxFilas));
+            }
+            dias[filas] = (byte) (fechaHora.getDayOfMonth() - 1);
+            areas[filas] = (short) codigoArea;
+            cargos[filas] = (short) codigoCargo;
+            tipos[filas] = (byte) tipo.ordinal();
+            estados[filas] = (byte) (estado != null ? estado.ordinal() + 1 : 0);
+            filas++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cuenta las marcaciones que cumplen los filtros, agrupadas por las dimensiones pedidas
+     * Cada fila del resultado tiene el valor de cada dimensión agrupada y "cantidad", ordenadas por esos valores
+     */
+    List<Map<String, Object>> consultar(ConsultaCuboDTO consulta) {
+        List<Dimension> agrupar = consulta.getAgrupar() != null ? consulta.getAgrupar() : List.of();
+        if (agrupar.size() != agrupar.stream().distinct().count()) {
+            throw new IllegalArgumentException("Una dimensión no puede repetirse en la agrupación");
+        }
+
+        lock.readLock().lock();
+        try {
+            boolean[] filtroArea = filtroTexto(consulta.getAreas(), areasDic);
+            boolean[] filtroCargo = filtroTexto(consulta.getCargos(), cargosDic);
+            boolean[] filtroDia = filtroDia(consulta.getDiaDesde(), consulta.getDiaHasta());
+            boolean[] filtroTipo = null;
+            if (consulta.getTipos() != null && !consulta.getTipos().isEmpty()) {
+                filtroTipo = new boolean[TIPOS.length];
+                for (TipoMarcacion tipo : consulta.getTipos()) {
+                    filtroTipo[tipo.ordinal()] = true;
+                }
+            }
+            boolean[] filtroEstado = null;
+            if (consulta.getEstados() != null && !consulta.getEstados().isEmpty()) {
+                filtroEstado = new boolean[ESTADOS.length + 1];
+                for (EstadoMarcacion estado : consulta.getEstados()) {
+                    filtroEstado[estado.ordinal() + 1] = true;
+                }
+            }
+
+            int[] cardinalidades = new int[agrupar.size()];
+            long combinaciones = 1;
+            for (int d = 0; d < cardinalidades.length; d++) {
+                cardinalidades[d] = Math.max(1, cardinalidad(agrupar.get(d)));
+                combinaciones *= cardinalidades[d];
+            }
+            if (combinaciones > MAX_GRUPOS) {
+                throw new IllegalArgumentException("La agrupación tiene demasiadas combinaciones (" + combinaciones +
+                        "); agrupe por menos dimensiones o agregue filtros");
+            }
+
+            int[] conteos = new int[(int) combinaciones];
+            Dimension[] grupos = agrupar.toArray(new Dimension[0]);
+            for (int i = 0; i < filas; i++) {
+                if ((filtroArea != null && !filtroArea[areas[i]])
+                        || (filtroCargo != null && !filtroCargo[cargos[i]])
+                        || (filtroDia != null && !filtroDia[dias[i]])
+                        || (filtroTipo != null && !filtroTipo[tipos[i]])
+                        || (filtroEstado != null && !filtroEstado[estados[i]])) {
+                    continue;
+                }
+                int clave = 0;
+                for (int d = 0; d < grupos.length; d++) {
+                    clave = clave * cardinalidades[d] + codigo(grupos[d], i);
+                }
+                conteos[clave]++;
+            }
+
+            List<Map<String, Object>> resultado = new ArrayList<>();
+            for (int clave = 0; clave < conteos.length; clave++) {
+                if (conteos[clave] == 0) {
+                    continue;
+                }
+                Object[] valores = new Object[grupos.length];
+                int resto = clave;
+                for (int d = grupos.length - 1; d >= 0; d--) {
+                    valores[d] = valor(grupos[d], resto % cardinalidades[d]);
+                    resto /= cardinalidades[d];
+                }
+                Map<String, Object> fila = new LinkedHashMap<>();
+                for (int d = 0; d < grupos.length; d++) {
+                    fila.put(grupos[d].name().toLowerCase(), valores[d]);
+                }
+                fila.put("cantidad", conteos[clave]);
+                resultado.add(fila);
+            }
+            // Los diccionarios están en orden de llegada: se ordena por los valores para una salida estable
+            resultado.sort((una, otra) -> {
+                for (Dimension dimension : grupos) {
+                    String clave = dimension.name().toLowerCase();
+                    int comparacion = comparar(una.get(clave), otra.get(clave));
+                    if (comparacion != 0) {
+                        return comparacion;
+                    }
+                }
+                return 0;
+            });
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int filas() {
+        lock.readLock().lock();
+        try {
+            return filas;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean saturado() {
+        lock.readLock().lock();
+        try {
+            return saturado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Memoria reservada por las columnas y una estimación de los diccionarios
+     */
+    long memoriaBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) dias.length * BYTES_POR_FILA + areasDic.memoriaBytes() + cargosDic.memoriaBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Memoria de las columnas con el cubo lleno (límite superior sin contar los diccionarios)
+     */
+    long memoriaMaximaBytes() {
+        return (long) maxFilas * BYTES_POR_FILA;
+    }
+
+    private void redimensionar(int capacidad) {
+        dias = dias == null ? new byte[capacidad] : Arrays.copyOf(dias, capacidad);
+        areas = areas == null ? new short[capacidad] : Arrays.copyOf(areas, capacidad);
+        cargos = cargos == null ? new short[capacidad] : Arrays.copyOf(cargos, capacidad);
+        tipos = tipos == null ? new byte[capacidad] : Arrays.copyOf(tipos, capacidad);
+        estados = estados == null ? new byte[capacidad] : Arrays.copyOf(estados, capacidad);
+    }
+
+    private int cardinalidad(Dimension dimension) {
+        return switch (dimension) {
+            case AREA -> areasDic.size();
+            case CARGO -> cargosDic.size();
+            case DIA -> periodo.lengthOfMonth();
+            case TIPO -> TIPOS.length;
+            case ESTADO -> ESTADOS.length + 1;
+        };
+    }
+
+    private int codigo(Dimension dimension, int fila) {
+        return switch (dimension) {
+            case AREA -> areas[fila];
+            case CARGO -> cargos[fila];
+            case DIA -> dias[fila];
+            case TIPO -> tipos[fila];
+            case ESTADO -> estados[fila];
+        };
+    }
+
+    private Object valor(Dimension dimension, int codigo) {
+        return switch (dimension) {
+            case AREA -> areasDic.valor(codigo);
+            case CARGO -> cargosDic.valor(codigo);
+            case DIA -> codigo + 1;
+            case TIPO -> TIPOS[codigo];
+            case ESTADO -> codigo == 0 ? null : ESTADOS[codigo - 1];
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int comparar(Object uno, Object otro) {
+        if (uno == null || otro == null) {
+            return uno == otro ? 0 : (uno == null ? -1 : 1);
+        }
+        return ((Comparable) uno).compareTo(otro);
+    }
+
+    private static boolean[] filtroTexto(Collection<String> valores, Diccionario diccionario) {
+        if (valores == null || valores.isEmpty()) {
+            return null;
+        }
+        // Los valores que no están en el diccionario no coinciden con ninguna fila
+        boolean[] filtro = new boolean[Math.max(1, diccionario.size())];
+        for (String valor : valores) {
+            int codigo = diccionario.buscar(valor);
+            if (codigo >= 0) {
+                filtro[codigo] = true;
+            }
+        }
+        return filtro;
+    }
+
+    private boolean[] filtroDia(Integer desde, Integer hasta) {
+        if (desde == null && hasta == null) {
+            return null;
+        }
+        int primero = desde != null ? desde : 1;
+        int ultimo = hasta != null ? Math.min(hasta, periodo.lengthOfMonth()) : periodo.lengthOfMonth();
+        if (ultimo < primero) {
+            throw new IllegalArgumentException("El día final no puede ser anterior al día inicial");
+        }
+        boolean[] filtro = new boolean[31];
+        Arrays.fill(filtro, primero - 1, ultimo, true);
+        return filtro;
+    }
+
+    /**
+     * Códigos de área o cargo en orden de llegada; como mucho Short.MAX_VALUE valores
+     */
+    private static final class Diccionario {
+
+        private final Map<String, Integer> codigos = new HashMap<>();
+        private final List<String> valores = new ArrayList<>();
+        private long caracteres;
+
+        int codigo(String valor) {
+            Integer codigo = codigos.get(valor);
+            if (codigo != null) {
+                return codigo;
+            }
+            if (valores.size() > Short.MAX_VALUE) {
+                return -1;
+            }
+            codigos.put(valor, valores.size());
+            valores.add(valor);
+            caracteres += valor.length();
+            return valores.size() - 1;
+        }
+
+        int buscar(String valor) {
+            return codigos.getOrDefault(valor, -1);
+        }
+
+        String valor(int codigo) {
+            return valores.get(codigo);
+        }
+
+        int size() {
+            return valores.size();
+        }
+
+        long memoriaBytes() {
+            // Texto más una entrada de mapa y de lista por valor, aproximado
+            return caracteres * 2 + valores.size() * 96L;
+        }
+    }
+}
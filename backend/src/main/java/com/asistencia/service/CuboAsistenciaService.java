@@ -0,0 +1,237 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.dto.ConsultaCuboDTO;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Analítica del mes en curso sin consultar la base de datos: mantiene un CuboAsistencia con las marcaciones
+ * del mes, cargado en segundo plano al arrancar y cada madrugada, y le agrega cada marcación confirmada en
+ * esta instancia. Las marcaciones de otras réplicas y las ediciones o borrados aparecen al reconstruirlo.
+ */
+@Service
+public class CuboAsistenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CuboAsistenciaService.class);
+
+    /** Margen al releer las creadas durante la carga, para transacciones que se confirmaron tarde */
+    private static final long MARGEN_MINUTOS = 10;
+
+    private static final String SELECT_SQL =
+            "SELECT e.area, e.cargo, a.fecha_hora, a.tipo, a.estado, a.id, a.fecha_creacion " +
+            "FROM asistencias a JOIN empleados e ON e.id = a.empleado_id " +
+            "WHERE a.fecha_hora >= ? AND a.fecha_hora < ?";
+
+    private static final String CREADAS_DESDE_SQL = SELECT_SQL + " AND a.fecha_creacion >= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${asistencia.cubo.max-filas:2000000}")
+    private int maxFilas = 2_000_000;
+
+    @Value("${asistencia.cubo.fetch-size:5000}")
+    private int fetchSize = 5000;
+
+    private volatile CuboAsistencia cubo;
+    private volatile LocalDateTime ultimaReconstruccion;
+
+    // Marcaciones recibidas mientras se carga un cubo nuevo; se le aplican al publicarlo
+    private final Object aplicacion = new Object();
+    private List<Marca> durante;
+
+    /**
+     * Carga el cubo en otro hilo para no demorar el arranque; las consultas que llegan antes esperan la carga
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        Thread carga = new Thread(() -> {
+            try {
+                reconstruir();
+            } catch (RuntimeException e) {
+                logger.warn("No se pudo cargar el cubo de asistencia al arrancar, se cargará en la primera consulta", e);
+            }
+        }, "cubo-asistencia-carga");
+        carga.setDaemon(true);
+        carga.start();
+    }
+
+    /**
+     * Carga las marcaciones del mes hasta ahora y reemplaza el cubo
+     */
+    @Scheduled(cron = "${asistencia.cubo.cron:0 0 1 * * *}")
+    public synchronized void reconstruir() {
+        YearMonth periodo = YearMonth.now();
+        LocalDateTime corte = LocalDateTime.now();
+        LocalDateTime recientes = corte.minusMinutes(MARGEN_MINUTOS);
+        CuboAsistencia nuevo = new CuboAsistencia(periodo, maxFilas);
+        // Ids de las creadas desde "recientes" ya agregadas, para no contarlas dos veces al releerlas
+        Set<Long> leidas = new HashSet<>();
+        synchronized (aplicacion) {
+            durante = new ArrayList<>();
+        }
+        long inicio = System.currentTimeMillis();
+        try {
+            LocalDateTime desde = periodo.atDay(1).atStartOfDay();
+            cargar(nuevo, recientes, leidas, SELECT_SQL, desde, corte);
+            // Las anteriores al corte confirmadas después de empezar la consulta no estaban en ella
+            cargar(nuevo, recientes, leidas, CREADAS_DESDE_SQL, desde, corte, recientes);
+
+            synchronized (aplicacion) {
+                // Las anteriores al corte ya se leyeron, salvo las confirmadas después de la segunda lectura.
+                // Sin id (write-behind aún sin insertar) no se pueden distinguir: llegan con la próxima reconstrucción.
+                for (Marca marca : durante) {
+                    if (!marca.fechaHora().isBefore(corte) || marca.id() != null && leidas.add(marca.id())) {
+                        marca.agregarA(nuevo);
+                    }
+                }
+                cubo = nuevo;
+            }
+            ultimaReconstruccion = corte;
+            logger.info("Cubo de asistencia de {} cargado: {} marcaciones, {} KB en {} ms{}", periodo, nuevo.filas(),
+                    nuevo.memoriaBytes() / 1024, System.currentTimeMillis() - inicio,
+                    nuevo.saturado() ? " (límite de filas alcanzado)" : "");
+        } finally {
+            synchronized (aplicacion) {
+                durante = null;
+            }
+        }
+    }
+
+    /**
+     * Agrega al cubo las marcaciones que trae la consulta; de las creadas desde "recientes",
+     * solo las que no se leyeron antes
+     */
+    private void cargar(CuboAsistencia destino, LocalDateTime recientes, Set<Long> leidas, String sql,
+                        Object... parametros) {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        lectura.executeWithoutResult(status ->
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    for (int i = 0; i < parametros.length; i++) {
+                        ps.setObject(i + 1, parametros[i]);
+                    }
+                    return ps;
+                }, rs -> {
+                    LocalDateTime creada = rs.getObject(7, LocalDateTime.class);
+                    if (creada != null && !creada.isBefore(recientes) && !leidas.add(rs.getLong(6))) {
+                        return;
+                    }
+                    String estado = rs.getString(5);
+                    destino.agregar(rs.getString(1), rs.getString(2), rs.getObject(3, LocalDateTime.class),
+                            TipoMarcacion.valueOf(rs.getString(4)), estado != null ? EstadoMarcacion.valueOf(estado) : null);
+                }));
+    }
+
+    /**
+     * Agrega una marcación local confirmada con los datos del evento
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMarcacionRegistrada(MarcacionRegistradaEvent evento) {
+        AsistenciaDTO asistencia = evento.asistencia();
+        Marca marca = new Marca(asistencia.getId(), evento.empleadoArea(), evento.empleadoCargo(),
+                asistencia.getFechaHora(), asistencia.getTipo(), asistencia.getEstado());
+        synchronized (aplicacion) {
+            if (durante != null) {
+                durante.add(marca);
+            }
+            CuboAsistencia actual = cubo;
+            if (actual == null) {
+                return;
+            }
+            // Primera marcación de un mes nuevo: el período anterior queda cerrado
+            if (YearMonth.from(marca.fechaHora()).isAfter(actual.periodo())) {
+                actual = new CuboAsistencia(YearMonth.from(marca.fechaHora()), maxFilas);
+                cubo = actual;
+            }
+            marca.agregarA(actual);
+        }
+    }
+
+    /**
+     * Cantidad de marcaciones del mes en curso agrupadas y filtradas según la consulta
+     */
+    public Map<String, Object> consultar(ConsultaCuboDTO consulta) {
+        CuboAsistencia actual = cuboDelMes();
+        long inicio = System.nanoTime();
+        List<Map<String, Object>> grupos = actual.consultar(consulta);
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("periodo", actual.periodo().toString());
+        resultado.put("grupos", grupos);
+        resultado.put("filasRecorridas", actual.filas());
+        resultado.put("microsegundos", (System.nanoTime() - inicio) / 1000);
+        // Con el límite alcanzado faltan marcaciones: usar los reportes por SQL
+        resultado.put("completo", !actual.saturado());
+        return resultado;
+    }
+
+    /**
+     * Período, filas y memoria usada y máxima del cubo
+     */
+    public Map<String, Object> getEstado() {
+        CuboAsistencia actual = cuboDelMes();
+        Map<String, Object> estado = new HashMap<>();
+        estado.put("periodo", actual.periodo().toString());
+        estado.put("filas", actual.filas());
+        estado.put("maxFilas", maxFilas);
+        estado.put("memoriaBytes", actual.memoriaBytes());
+        estado.put("memoriaMaximaBytes", actual.memoriaMaximaBytes());
+        estado.put("completo", !actual.saturado());
+        estado.put("ultimaReconstruccion", ultimaReconstruccion);
+        return estado;
+    }
+
+    private CuboAsistencia cuboDelMes() {
+        CuboAsistencia actual = cubo;
+        if (actual == null || actual.periodo().isBefore(YearMonth.now())) {
+            // Si la carga inicial está en curso se espera a que termine en vez de repetirla
+            synchronized (this) {
+                actual = cubo;
+                if (actual == null || actual.periodo().isBefore(YearMonth.now())) {
+                    reconstruir();
+                    actual = cubo;
+                }
+            }
+        }
+        return actual;
+    }
+
+    private record Marca(Long id, String area, String cargo, LocalDateTime fechaHora, TipoMarcacion tipo,
+                         EstadoMarcacion estado) {
+        void agregarA(CuboAsistencia cubo) {
+            cubo.agregar(area, cargo, fechaHora, tipo, estado);
+        }
+    }
+}
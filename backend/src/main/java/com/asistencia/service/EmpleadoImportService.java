@@ -0,0 +1,388 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.EmpleadoDTO;
+import com.asistencia.dto.ImportacionResultadoDTO;
+import com.asistencia.entity.Empleado;
+import com.asistencia.exception.EmpleadoValidationException;
+import com.asistencia.repository.EmpleadoRepository;
+import com.asistencia.util.CodigoUnicoGenerator;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación masiva de empleados desde CSV o XLSX.
+ * Los archivos se leen en streaming y se procesan por lotes: una consulta de DNIs
+ * existentes por lote, códigos únicos tomados de la secuencia e inserción en batch.
+ */
+@Service
+public class EmpleadoImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmpleadoImportService.class);
+
+    private static final String[] COLUMNAS = {"dni", "nombres", "apellidos", "cargo", "area"};
+
+    @Autowired
+    private EmpleadoRepository empleadoRepository;
+
+    @Autowired
+    private EmpleadoService empleadoService;
+
+    @Autowired
+    private CodigoUnicoGenerator codigoUnicoGenerator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+
+    @Value("${asistencia.importacion.tamano-lote:1000}")
+    private int tamanoLote = 1000;
+
+    /**
+     * Importa empleados según la extensión del archivo (.csv o .xlsx)
+     */
+    public ImportacionResultadoDTO importar(MultipartFile archivo) throws IOException {
+        String nombre = archivo.getOriginalFilename() != null
+                ? archivo.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        try (InputStream entrada = archivo.getInputStream()) {
+            if (nombre.endsWith(".csv")) {
+                return importarCsv(entrada);
+            }
+            if (nombre.endsWith(".xlsx")) {
+                return importarXlsx(entrada);
+            }
+        }
+        throw new EmpleadoValidationException("Formato no soportado, use un archivo .csv o .xlsx");
+    }
+
+    /**
+     * Importa empleados desde un CSV con cabecera (separador ',' o ';')
+     */
+    public ImportacionResultadoDTO importarCsv(InputStream entrada) throws IOException {
+        Importacion importacion = new Importacion(false);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String linea;
+        char separador = 0;
+        int numeroFila = 0;
+        try {
+            while ((linea = reader.readLine()) != null) {
+                numeroFila++;
+                if (numeroFila == 1) {
+                    if (linea.startsWith("\uFEFF")) {
+                        linea = linea.substring(1);
+                    }
+                    separador = linea.indexOf(';') >= 0 && linea.indexOf(',') < 0 ? ';' : ',';
+                }
+                if (linea.isBlank()) {
+                    continue;
+                }
+                importacion.procesarFila(numeroFila, dividirLineaCsv(linea, separador));
+            }
+            return importacion.finalizar();
+        } finally {
+            importacion.avisarCambios();
+        }
+    }
+
+    /**
+     * Importa empleados desde la primera hoja de un XLSX usando la API de eventos (SAX) de POI
+     */
+    public ImportacionResultadoDTO importarXlsx(InputStream entrada) throws IOException {
+        Path temporal = Files.createTempFile("importacion-empleados", ".xlsx");
+        Importacion importacion = null;
+        try {
+            Files.copy(entrada, temporal, StandardCopyOption.REPLACE_EXISTING);
+            importacion = new Importacion(true);
+            try (OPCPackage paquete = OPCPackage.open(temporal.toFile(), PackageAccess.READ)) {
+                XSSFReader xssfReader = new XSSFReader(paquete);
+                ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(paquete);
+                Iterator<InputStream> hojas = xssfReader.getSheetsData();
+                if (hojas.hasNext()) {
+                    try (InputStream hoja = hojas.next()) {
+                        XMLReader parser = XMLHelper.newXMLReader();
+                        parser.setContentHandler(new XSSFSheetXMLHandler(xssfReader.getStylesTable(),
+                                sharedStrings, new ManejadorHoja(importacion), false));
+                        parser.parse(new InputSource(hoja));
+                    }
+                }
+            } catch (EmpleadoValidationException e) {
+                throw e;
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new EmpleadoValidationException("No se pudo leer el archivo Excel: " + e.getMessage(), e);
+            }
+            return importacion.finalizar();
+        } finally {
+            if (importacion != null) {
+                importacion.avisarCambios();
+            }
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Divide una línea CSV respetando campos entre comillas
+     */
+    static String[] dividirLineaCsv(String linea, char separador) {
+        List<String> campos = new ArrayList<>(COLUMNAS.length);
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                if (entreComillas && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else {
+                    entreComillas = !entreComillas;
+                }
+            } else if (c == separador && !entreComillas) {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos.toArray(new String[0]);
+    }
+
+    private static String normalizarCabecera(String cabecera) {
+        String sinTildes = Normalizer.normalize(cabecera.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return sinTildes.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Estado de una importación en curso
+     */
+    private class Importacion {
+
+        private final long inicio = System.currentTimeMillis();
+        private final ImportacionResultadoDTO resultado = new ImportacionResultadoDTO();
+        private final Set<String> dnisEnArchivo = new HashSet<>();
+        private final List<FilaEmpleado> lote = new ArrayList<>(tamanoLote);
+        private final boolean completarCerosDni;
+        private int[] indices;
+
+        Importacion(boolean completarCerosDni) {
+            this.completarCerosDni = completarCerosDni;
+        }
+
+        void procesarFila(int numeroFila, String[] valores) {
+            if (indices == null) {
+                leerCabecera(valores);
+                return;
+            }
+
+            resultado.setTotalFilas(resultado.getTotalFilas() + 1);
+            EmpleadoDTO dto = new EmpleadoDTO();
+            dto.setDni(normalizarDni(valor(valores, 0)));
+            dto.setNombres(valor(valores, 1));
+            dto.setApellidos(valor(valores, 2));
+            dto.setCargo(valor(valores, 3));
+            dto.setArea(valor(valores, 4));
+
+            try {
+                empleadoService.validateEmpleadoData(dto);
+            } catch (EmpleadoValidationException e) {
+                resultado.agregarError(numeroFila, dto.getDni(), e.getMessage());
+                return;
+            }
+
+            if (!dnisEnArchivo.add(dto.getDni())) {
+                resultado.agregarError(numeroFila, dto.getDni(), "DNI repetido en el archivo");
+                return;
+            }
+
+            lote.add(new FilaEmpleado(numeroFila, dto));
+            if (lote.size() >= tamanoLote) {
+                guardarLote();
+            }
+        }
+
+        ImportacionResultadoDTO finalizar() {
+            if (indices == null) {
+                throw new EmpleadoValidationException("El archivo está vacío");
+            }
+            guardarLote();
+            resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+            logger.info("Importación de empleados: {} filas, {} importados, {} rechazados en {} ms",
+                    resultado.getTotalFilas(), resultado.getImportados(), resultado.getRechazados(),
+                    resultado.getDuracionMs());
+            return resultado;
+        }
+
+        /**
+         * Un solo aviso para toda la entidad cuando termina la importación (también si falla a mitad,
+         * porque los lotes ya confirmados quedan guardados): cada nodo reconstruye sus índices en memoria
+         * una vez por archivo y no una vez por lote
+         */
+        void avisarCambios() {
+            if (resultado.getImportados() > 0) {
+                invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO);
+            }
+        }
+
+        private void leerCabecera(String[] valores) {
+            Map<String, Integer> posiciones = new HashMap<>();
+            for (int i = 0; i < valores.length; i++) {
+                if (valores[i] != null) {
+                    posiciones.putIfAbsent(normalizarCabecera(valores[i]), i);
+                }
+            }
+            List<String> faltantes = new ArrayList<>();
+            indices = new int[COLUMNAS.length];
+            for (int i = 0; i < COLUMNAS.length; i++) {
+                Integer posicion = posiciones.get(COLUMNAS[i]);
+                if (posicion == null) {
+                    faltantes.add(COLUMNAS[i]);
+                } else {
+                    indices[i] = posicion;
+                }
+            }
+            if (!faltantes.isEmpty()) {
+                throw new EmpleadoValidationException("Faltan columnas en la cabecera: " + String.join(", ", faltantes));
+            }
+        }
+
+        private String valor(String[] valores, int columna) {
+            int indice = indices[columna];
+            if (indice >= valores.length || valores[indice] == null) {
+                return null;
+            }
+            String valor = valores[indice].trim();
+            return valor.isEmpty() ? null : valor;
+        }
+
+        // Excel guarda los DNIs numéricos sin ceros a la izquierda
+        private String normalizarDni(String dni) {
+            if (completarCerosDni && dni != null && dni.length() < 8 && dni.chars().allMatch(Character::isDigit)) {
+                return "0".repeat(8 - dni.length()) + dni;
+            }
+            return dni;
+        }
+
+        private void guardarLote() {
+            if (lote.isEmpty()) {
+                return;
+            }
+
+            List<String> dnis = new ArrayList<>(lote.size());
+            for (FilaEmpleado fila : lote) {
+                dnis.add(fila.dto().getDni());
+            }
+            Set<String> existentes = new HashSet<>(empleadoRepository.findDnisExistentes(dnis));
+
+            List<FilaEmpleado> nuevas = new ArrayList<>(lote.size());
+            for (FilaEmpleado fila : lote) {
+                if (existentes.contains(fila.dto().getDni())) {
+                    resultado.agregarError(fila.numero(), fila.dto().getDni(),
+                            "Ya existe un empleado con el DNI: " + fila.dto().getDni());
+                } else {
+                    nuevas.add(fila);
+                }
+            }
+
+            if (!nuevas.isEmpty()) {
+                List<String> codigos = codigoUnicoGenerator.reservarBloque(nuevas.size());
+                List<Empleado> empleados = new ArrayList<>(nuevas.size());
+                for (int i = 0; i < nuevas.size(); i++) {
+                    EmpleadoDTO dto = nuevas.get(i).dto();
+                    Empleado empleado = new Empleado(dto.getDni(), dto.getNombres(), dto.getApellidos(),
+                            dto.getCargo(), dto.getArea());
+                    empleado.setCodigoUnico(codigos.get(i));
+                    empleado.setActivo(true);
+                    empleados.add(empleado);
+                }
+
+                try {
+                    new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                            empleadoRepository.saveAll(empleados));
+                    resultado.setImportados(resultado.getImportados() + empleados.size());
+                } catch (DataAccessException e) {
+                    logger.warn("Error al guardar lote de {} empleados: {}", empleados.size(), e.getMessage());
+                    for (FilaEmpleado fila : nuevas) {
+                        resultado.agregarError(fila.numero(), fila.dto().getDni(), "No se pudo guardar el lote de la fila");
+                    }
+                }
+            }
+            lote.clear();
+        }
+    }
+
+    private record FilaEmpleado(int numero, EmpleadoDTO dto) {
+    }
+
+    /**
+     * Convierte los eventos SAX de la hoja en filas de valores
+     */
+    private static class ManejadorHoja implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final Importacion importacion;
+        private final List<String> valores = new ArrayList<>();
+
+        ManejadorHoja(Importacion importacion) {
+            this.importacion = importacion;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            valores.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            boolean vacia = valores.stream().allMatch(v -> v == null || v.isBlank());
+            if (!vacia) {
+                importacion.procesarFila(rowNum + 1, valores.toArray(new String[0]));
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int columna = cellReference != null ? new CellReference(cellReference).getCol() : valores.size();
+            while (valores.size() < columna) {
+                valores.add(null);
+            }
+            valores.add(formattedValue);
+        }
+    }
+}
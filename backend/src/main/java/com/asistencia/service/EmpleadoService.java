@@ -1,17 +1,24 @@
 package com.asistencia.service;
 
+import com.asistencia.config.CacheConfig;
 import com.asistencia.dto.EmpleadoDTO;
+import com.asistencia.dto.EmpleadoResumenDTO;
 import com.asistencia.entity.Empleado;
 import com.asistencia.exception.EmpleadoNotFoundException;
 import com.asistencia.exception.EmpleadoValidationException;
 import com.asistencia.repository.EmpleadoRepository;
 import com.asistencia.util.CodigoUnicoGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,7 +28,17 @@ public class EmpleadoService {
     @Autowired
     private EmpleadoRepository empleadoRepository;
     
-    // CodigoUnicoGenerator uses static methods, no need for injection
+    @Autowired
+    private CodigoUnicoGenerator codigoUnicoGenerator;
+    
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+    
+    @Autowired
+    private BusquedaNombres busquedaNombres;
+    
+    @Value("${asistencia.busqueda.limite:20}")
+    private int limiteBusqueda = 20;
     
     /**
      * Obtiene todos los empleados activos
@@ -95,12 +112,16 @@ public class EmpleadoService {
     }
     
     /**
-     * Busca empleados por nombre o apellido
+     * Busca empleados activos por nombre o apellido (sin tildes), ordenados por relevancia
      */
     @Transactional(readOnly = true)
     public List<EmpleadoDTO> findByNombreOrApellido(String termino) {
-        return empleadoRepository.findByNombreOrApellidoContainingIgnoreCase(termino)
-                .stream()
+        List<Long> ids = busquedaNombres.buscarEmpleados(termino, limiteBusqueda);
+        Map<Long, Empleado> porId = empleadoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Empleado::getId, Function.identity()));
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -125,6 +146,7 @@ public class EmpleadoService {
         empleado.setActivo(true);
         
         Empleado savedEmpleado = empleadoRepository.save(empleado);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO, savedEmpleado.getDni());
         return convertToDTO(savedEmpleado);
     }
     
@@ -145,6 +167,7 @@ public class EmpleadoService {
         }
         
         // Actualizar campos (no se permite cambiar el código único)
+        String dniAnterior = empleadoExistente.getDni();
         empleadoExistente.setDni(empleadoDTO.getDni());
         empleadoExistente.setNombres(empleadoDTO.getNombres());
         empleadoExistente.setApellidos(empleadoDTO.getApellidos());
@@ -156,6 +179,7 @@ public class EmpleadoService {
         }
         
         Empleado updatedEmpleado = empleadoRepository.save(empleadoExistente);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO, dniAnterior, updatedEmpleado.getDni());
         return convertToDTO(updatedEmpleado);
     }
     
@@ -170,6 +194,7 @@ public class EmpleadoService {
         // Soft delete - solo marca como inactivo para mantener registros históricos
         empleado.setActivo(false);
         empleadoRepository.save(empleado);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO, empleado.getDni());
     }
     
     /**
@@ -180,6 +205,7 @@ public class EmpleadoService {
             throw new IllegalArgumentException("Empleado no encontrado con ID: " + id);
         }
         empleadoRepository.deleteById(id);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO);
     }
     
     /**
@@ -251,10 +277,29 @@ public class EmpleadoService {
         return empleadoRepository.findByDni(dni);
     }
     
+    /**
+     * Datos del empleado para registrar una marcación, en caché por DNI.
+     * Se guarda un registro inmutable, no la entidad: cada llamada es independiente de la sesión JPA.
+     */
+    @Cacheable(cacheNames = CacheConfig.EMPLEADOS_POR_DNI, key = "#p0", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public Optional<EmpleadoResumenDTO> findResumenByDni(String dni) {
+        return empleadoRepository.findByDni(dni)
+                .map(empleado -> new EmpleadoResumenDTO(empleado.getId(), empleado.getDni(), empleado.getNombres(),
+                        empleado.getApellidos(), empleado.getArea(), empleado.getCargo()));
+    }
+    
+    /**
+     * Referencia al empleado para asociarla a una marcación, sin consultarlo
+     */
+    public Empleado getReferencia(Long id) {
+        return empleadoRepository.getReferenceById(id);
+    }
+    
     /**
      * Valida los datos del empleado
      */
-    private void validateEmpleadoData(EmpleadoDTO empleadoDTO) {
+    void validateEmpleadoData(EmpleadoDTO empleadoDTO) {
         if (empleadoDTO == null) {
             throw new EmpleadoValidationException("Los datos del empleado son obligatorios");
         }
@@ -305,19 +350,7 @@ public class EmpleadoService {
      * Genera un código único para el empleado
      */
     private String generateUniqueCode() {
-        String codigoUnico;
-        int intentos = 0;
-        int maxIntentos = 10;
-        
-        do {
-            codigoUnico = CodigoUnicoGenerator.generarCodigoEmpleado();
-            intentos++;
-            
-            if (intentos > maxIntentos) {
-                throw new EmpleadoValidationException("No se pudo generar un código único después de " + maxIntentos + " intentos");
-            }
-        } while (empleadoRepository.existsByCodigoUnico(codigoUnico));
-        
-        return codigoUnico;
+        // La secuencia garantiza que el código no se repite entre instancias
+        return codigoUnicoGenerator.generarCodigoEmpleado();
     }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.asistencia.service;
+
+import com.asistencia.config.CacheConfig;
+
+import java.util.List;
+
+/**
+ * Cambio de una entidad que obliga a descartar entradas de caché en todas las instancias.
+ * Una clave nula invalida todas las entradas de la entidad.
+ */
+public record EventoInvalidacion(Entidad entidad, String clave, String nodoOrigen) {
+    
+    public enum Entidad {
+        EMPLEADO(CacheConfig.EMPLEADOS_POR_DNI),
+        // Los horarios no usan cachés de Spring: MotorHorarios se reconstruye al recibir el evento
+        HORARIO(),
+        USUARIO(CacheConfig.USUARIOS_POR_USERNAME);
+        
+        private final List<String> caches;
+        
+        Entidad(String... caches) {
+            this.caches = List.of(caches);
+        }
+        
+        public List<String> getCaches() {
+            return caches;
+        }
+    }
+    
+    /**
+     * Serializa el evento como "ENTIDAD:nodo:clave" para el canal de notificaciones
+     */
+    public String toPayload() {
+        return entidad.name() + ":" + nodoOrigen + ":" + (clave != null ? clave : "");
+    }
+    
+    /**
+     * Reconstruye un evento serializado con toPayload
+     */
+    public static EventoInvalidacion fromPayload(String payload) {
+        String[] partes = payload.split(":", 3);
+        if (partes.length < 3) {
+            throw new IllegalArgumentException("Evento de invalidación inválido: " + payload);
+        }
+        String clave = partes[2].isEmpty() ? null : partes[2];
+        return new EventoInvalidacion(Entidad.valueOf(partes[0]), clave, partes[1]);
+    }
+}
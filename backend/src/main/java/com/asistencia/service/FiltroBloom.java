@@ -0,0 +1,118 @@
+package com.asistencia.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de cadenas: responde "seguro que no está" o "puede estar" con una tasa de falsos positivos
+ * fijada al crearlo para una capacidad dada. Con más elementos que la capacidad la tasa real sube.
+ * Las k posiciones salen de dos mitades de un hash de 64 bits (h1 + i·h2). Admite agregar y consultar
+ * desde varios hilos a la vez; no admite quitar elementos.
+ */
+final class FiltroBloom {
+
+    private final AtomicLongArray palabras;
+    private final long bits;
+    private final int funciones;
+    private final int capacidad;
+    private final double tasaObjetivo;
+    private final AtomicLong agregados = new AtomicLong();
+
+    FiltroBloom(int capacidad, double tasaFalsosPositivos) {
+        if (capacidad <= 0 || tasaFalsosPositivos <= 0 || tasaFalsosPositivos >= 1) {
+            throw new IllegalArgumentException("Capacidad o tasa de falsos positivos inválida");
+        }
+        // m = -n·ln(p) / ln(2)², k = m/n·ln(2)
+        long m = (long) Math.ceil(-capacidad * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        int cantidadPalabras = (int) Math.max(1, (m + 63) / 64);
+        this.palabras = new AtomicLongArray(cantidadPalabras);
+        this.bits = cantidadPalabras * 64L;
+        this.funciones = Math.max(1, (int) Math.round((double) bits / capacidad * Math.log(2)));
+        this.capacidad = capacidad;
+        this.tasaObjetivo = tasaFalsosPositivos;
+    }
+
+    void agregar(String valor) {
+        long hash = hash(valor);
+        long h1 = hash >>> 32;
+        long h2 = (hash & 0xFFFFFFFFL) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            long mascara = 1L << bit;
+            int palabra = (int) (bit >>> 6);
+            if ((palabras.get(palabra) & mascara) == 0) {
+                palabras.accumulateAndGet(palabra, mascara, (actual, nuevo) -> actual | nuevo);
+            }
+        }
+        agregados.incrementAndGet();
+    }
+
+    boolean puedeContener(String valor) {
+        long hash = hash(valor);
+        long h1 = hash >>> 32;
+        long h2 = (hash & 0xFFFFFFFFL) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Elementos agregados (los repetidos cuentan cada vez)
+     */
+    long agregados() {
+        return agregados.get();
+    }
+
+    int capacidad() {
+        return capacidad;
+    }
+
+    long bits() {
+        return bits;
+    }
+
+    int funciones() {
+        return funciones;
+    }
+
+    double tasaObjetivo() {
+        return tasaObjetivo;
+    }
+
+    /**
+     * Tasa de falsos positivos esperada con los bits encendidos: (encendidos / m)^k
+     */
+    double tasaEstimada() {
+        long encendidos = 0;
+        for (int i = 0; i < palabras.length(); i++) {
+            encendidos += Long.bitCount(palabras.get(i));
+        }
+        return Math.pow((double) encendidos / bits, funciones);
+    }
+
+    long memoriaBytes() {
+        return palabras.length() * 8L;
+    }
+
+    /**
+     * FNV-1a de 64 bits con el mezclado final de MurmurHash3: los DNIs difieren en pocos dígitos
+     * y sin mezclar las dos mitades quedarían correlacionadas
+     */
+    static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
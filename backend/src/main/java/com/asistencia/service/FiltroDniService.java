@@ -0,0 +1,162 @@
+package com.asistencia.service;
+
+import com.asistencia.repository.EmpleadoRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom con los DNIs de todos los empleados para descartar en memoria las lecturas de DNIs
+ * desconocidos (tarjetas ajenas, lecturas erradas) antes de buscarlos en la base de datos.
+ * Se carga al arrancar y agrega los DNIs de cada empleado creado o modificado, también en otras instancias.
+ * Un DNI que deja de existir sigue pasando el filtro hasta reconstruirlo: solo cuesta la consulta.
+ * Solo se activa con el bus de invalidación de PostgreSQL: con el bus local, una réplica rechazaría
+ * como desconocidos a los empleados creados en otra hasta reiniciarse.
+ */
+@Service
+@ConditionalOnExpression("${asistencia.filtro-dni.enabled:true} and '${asistencia.cache.bus:local}' == 'postgres'")
+public class FiltroDniService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FiltroDniService.class);
+
+    @Autowired
+    private EmpleadoRepository empleadoRepository;
+
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+
+    @Value("${asistencia.filtro-dni.tasa-falsos-positivos:0.01}")
+    private double tasaFalsosPositivos = 0.01;
+
+    @Value("${asistencia.filtro-dni.capacidad-minima:10000}")
+    private int capacidadMinima = 10_000;
+
+    // null hasta la primera carga: mientras tanto todos los DNIs pasan
+    private volatile FiltroBloom filtro;
+    // Filtro que se está cargando; recibe también los DNIs agregados durante la carga
+    private volatile FiltroBloom enConstruccion;
+    private volatile LocalDateTime ultimaReconstruccion;
+
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder falsosPositivos = new LongAdder();
+
+    @PostConstruct
+    void suscribir() {
+        invalidacionCacheService.suscribir(this::onInvalidacion);
+    }
+
+    /**
+     * Carga todos los DNIs en un filtro nuevo, con capacidad para el doble de los empleados actuales
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        int capacidad = (int) Math.min(Integer.MAX_VALUE, Math.max(capacidadMinima, empleadoRepository.count() * 2));
+        FiltroBloom nuevo = new FiltroBloom(capacidad, tasaFalsosPositivos);
+        enConstruccion = nuevo;
+        try {
+            List<String> dnis = empleadoRepository.findAllDnis();
+            for (String dni : dnis) {
+                nuevo.agregar(dni);
+            }
+            filtro = nuevo;
+            ultimaReconstruccion = LocalDateTime.now();
+            logger.info("Filtro de DNIs cargado: {} DNIs, {} KB, {} funciones hash en {} ms", dnis.size(),
+                    nuevo.memoriaBytes() / 1024, nuevo.funciones(), System.currentTimeMillis() - inicio);
+        } finally {
+            enConstruccion = null;
+        }
+    }
+
+    /**
+     * false si el DNI seguro no pertenece a ningún empleado; true si puede pertenecer (hay que consultarlo)
+     */
+    public boolean puedeExistir(String dni) {
+        FiltroBloom actual = filtro;
+        if (actual == null || dni == null) {
+            return true;
+        }
+        consultas.increment();
+        if (actual.puedeContener(dni)) {
+            return true;
+        }
+        descartados.increment();
+        return false;
+    }
+
+    /**
+     * Registra un DNI que pasó el filtro pero no existe en la base de datos
+     */
+    public void registrarFalsoPositivo() {
+        falsosPositivos.increment();
+    }
+
+    /**
+     * Dimensiones del filtro, tasa de falsos positivos configurada, estimada y observada, y contadores
+     */
+    public Map<String, Object> getEstado() {
+        FiltroBloom actual = filtro;
+        Map<String, Object> estado = new HashMap<>();
+        estado.put("cargado", actual != null);
+        estado.put("consultas", consultas.sum());
+        estado.put("descartados", descartados.sum());
+        estado.put("falsosPositivos", falsosPositivos.sum());
+        estado.put("ultimaReconstruccion", ultimaReconstruccion);
+        if (actual != null) {
+            estado.put("dnis", actual.agregados());
+            estado.put("capacidad", actual.capacidad());
+            estado.put("bits", actual.bits());
+            estado.put("funcionesHash", actual.funciones());
+            estado.put("memoriaBytes", actual.memoriaBytes());
+            estado.put("tasaFalsosPositivosObjetivo", actual.tasaObjetivo());
+            estado.put("tasaFalsosPositivosEstimada", actual.tasaEstimada());
+        }
+        // Entre los DNIs desconocidos, proporción que pasó el filtro
+        long desconocidos = descartados.sum() + falsosPositivos.sum();
+        estado.put("tasaFalsosPositivosObservada", desconocidos > 0 ? (double) falsosPositivos.sum() / desconocidos : 0.0);
+        return estado;
+    }
+
+    private void onInvalidacion(EventoInvalidacion evento) {
+        if (evento.entidad() != EventoInvalidacion.Entidad.EMPLEADO) {
+            return;
+        }
+        // Sin clave (borrado físico): se reconstruye para quitar los DNIs que ya no existen
+        if (evento.clave() == null) {
+            reconstruir();
+            return;
+        }
+        agregar(evento.clave());
+    }
+
+    /**
+     * Agrega el DNI de un empleado creado o modificado; al superar la capacidad se reconstruye más grande
+     */
+    void agregar(String dni) {
+        FiltroBloom cargando = enConstruccion;
+        if (cargando != null) {
+            cargando.agregar(dni);
+        }
+        FiltroBloom actual = filtro;
+        if (actual == null) {
+            return;
+        }
+        actual.agregar(dni);
+        if (actual.agregados() > actual.capacidad()) {
+            reconstruir();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.HojaTiempoDTO;
+import com.asistencia.entity.TipoMarcacion;
+
+import java.util.function.Consumer;
+
+/**
+ * Empareja las marcaciones de una sola pasada. Requiere recibirlas ordenadas por empleado y fecha/hora;
+ * solo guarda los minutos de la jornada en curso y los acumulados del empleado actual.
+ * Los minutos se cuentan desde las 00:00 del día de la jornada: una salida nocturna pasa de 1440
+ * y una entrada anticipada antes de la medianoche es negativa.
+ */
+class HojaTiempoCalculador {
+
+    static final int SIN_MARCA = Integer.MIN_VALUE;
+
+    private final Consumer<HojaTiempoDTO> consumidor;
+
+    // Empleado actual
+    private long empleadoId = Long.MIN_VALUE;
+    private String dni;
+    private String nombres;
+    private String apellidos;
+    private String area;
+    private int diasTrabajados;
+    private int diasIncompletos;
+    private long minutosTrabajados;
+    private long minutosAlmuerzo;
+    private long minutosExtra;
+    private long minutosTardanza;
+
+    // Día actual
+    private long dia = Long.MIN_VALUE;
+    private int entrada;
+    private int salidaAlmuerzo;
+    private int retornoAlmuerzo;
+    private int salida;
+    // Fin de la ventana de entrada y de salida de la jornada (SIN_MARCA si no hay horario)
+    private int limiteEntrada;
+    private int limiteSalida;
+
+    HojaTiempoCalculador(Consumer<HojaTiempoDTO> consumidor) {
+        this.consumidor = consumidor;
+    }
+
+    boolean esEmpleadoActual(long id) {
+        return id == empleadoId;
+    }
+
+    /**
+     * Cierra el empleado anterior y empieza a acumular el siguiente
+     */
+    void iniciarEmpleado(long id, String dni, String nombres, String apellidos, String area) {
+        finalizar();
+        this.empleadoId = id;
+        this.dni = dni;
+        this.nombres = nombres;
+        this.apellidos = apellidos;
+        this.area = area;
+        diasTrabajados = 0;
+        diasIncompletos = 0;
+        minutosTrabajados = 0;
+        minutosAlmuerzo = 0;
+        minutosExtra = 0;
+        minutosTardanza = 0;
+    }
+
+    /**
+     * Agrega una marcación del empleado actual; el día es el epochDay de su jornada y los límites son
+     * los de esa jornada, todo en minutos desde las 00:00 de ese día
+     */
+    void agregar(long epochDay, int minuto, TipoMarcacion tipo, int limiteEntrada, int limiteSalida) {
+        if (epochDay != dia) {
+            cerrarDia();
+            dia = epochDay;
+            this.limiteEntrada = limiteEntrada;
+            this.limiteSalida = limiteSalida;
+        }
+        switch (tipo) {
+            case ENTRADA -> {
+                if (entrada == SIN_MARCA) {
+                    entrada = minuto;
+                }
+            }
+            case SALIDA_ALMUERZO -> {
+                if (salidaAlmuerzo == SIN_MARCA) {
+                    salidaAlmuerzo = minuto;
+                }
+            }
+            case RETORNO_ALMUERZO -> retornoAlmuerzo = minuto;
+            case SALIDA -> salida = minuto;
+            // Fuera de horario: la primera del día abre la jornada y las siguientes la cierran
+            case FUERA_HORARIO -> {
+                if (entrada == SIN_MARCA) {
+                    entrada = minuto;
+                } else {
+                    salida = minuto;
+                }
+            }
+        }
+    }
+
+    /**
+     * Emite los totales del empleado actual, si hay uno
+     */
+    void finalizar() {
+        cerrarDia();
+        if (empleadoId != Long.MIN_VALUE) {
+            consumidor.accept(new HojaTiempoDTO(empleadoId, dni, nombres, apellidos, area, diasTrabajados,
+                    diasIncompletos, minutosTrabajados, minutosAlmuerzo, minutosExtra, minutosTardanza));
+            empleadoId = Long.MIN_VALUE;
+        }
+    }
+
+    private void cerrarDia() {
+        if (dia != Long.MIN_VALUE) {
+            acumularDia();
+        }
+        dia = Long.MIN_VALUE;
+        entrada = SIN_MARCA;
+        salidaAlmuerzo = SIN_MARCA;
+        retornoAlmuerzo = SIN_MARCA;
+        salida = SIN_MARCA;
+    }
+
+    private void acumularDia() {
+        boolean almuerzoCompleto = salidaAlmuerzo > entrada && retornoAlmuerzo > salidaAlmuerzo;
+        boolean almuerzoParcial = !almuerzoCompleto && (salidaAlmuerzo != SIN_MARCA || retornoAlmuerzo != SIN_MARCA);
+
+        if (entrada != SIN_MARCA && salida > entrada) {
+            int trabajado = salida - entrada;
+            if (almuerzoCompleto && retornoAlmuerzo <= salida) {
+                int almuerzo = retornoAlmuerzo - salidaAlmuerzo;
+                trabajado -= almuerzo;
+                minutosAlmuerzo += almuerzo;
+            }
+            minutosTrabajados += trabajado;
+            diasTrabajados++;
+            if (almuerzoParcial) {
+                diasIncompletos++;
+            }
+        } else {
+            // Sin salida: solo se cuenta la mañana si se marcó la salida a almorzar
+            diasIncompletos++;
+            if (entrada != SIN_MARCA && salidaAlmuerzo > entrada) {
+                minutosTrabajados += salidaAlmuerzo - entrada;
+                diasTrabajados++;
+            }
+        }
+
+        if (entrada != SIN_MARCA && limiteEntrada != SIN_MARCA && entrada > limiteEntrada) {
+            minutosTardanza += entrada - limiteEntrada;
+        }
+        if (salida != SIN_MARCA && limiteSalida != SIN_MARCA && salida > limiteSalida) {
+            minutosExtra += salida - limiteSalida;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.HojaTiempoDTO;
+import com.asistencia.entity.TipoMarcacion;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hoja de tiempo para planillas: horas trabajadas, almuerzo, horas extra y tardanza por empleado.
+ * Recorre las marcaciones del período con un cursor ordenado por empleado y fecha/hora,
+ * sin cargarlas en memoria, y las empareja en una sola pasada.
+ * Cada marcación se imputa a su jornada según el turno del empleado (MotorHorarios), así una salida nocturna
+ * cuenta en el día en que empezó el turno y la tardanza y las horas extra usan las ventanas de ese turno.
+ */
+@Service
+public class HojaTiempoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HojaTiempoService.class);
+
+    private static final String SELECT_SQL =
+            "SELECT a.empleado_id, a.fecha_hora, a.tipo, e.dni, e.nombres, e.apellidos, e.area " +
+            "FROM asistencias a JOIN empleados e ON e.id = a.empleado_id " +
+            "WHERE a.fecha_hora >= ? AND a.fecha_hora < ?";
+
+    private static final String ORDER_SQL = " ORDER BY a.empleado_id, a.fecha_hora";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MotorHorarios motorHorarios;
+
+    @Value("${asistencia.hoja-tiempo.fetch-size:5000}")
+    private int fetchSize = 5000;
+
+    /**
+     * Calcula la hoja de tiempo y la devuelve como lista (una fila por empleado con marcaciones)
+     */
+    @Transactional(readOnly = true, timeoutString = "${asistencia.reportes.timeout-segundos:120}")
+    public List<HojaTiempoDTO> calcular(LocalDate fechaInicio, LocalDate fechaFin, Long empleadoId) {
+        List<HojaTiempoDTO> resultado = new ArrayList<>();
+        recorrer(fechaInicio, fechaFin, empleadoId, resultado::add);
+        return resultado;
+    }
+
+    /**
+     * Exporta la hoja de tiempo a Excel escribiendo cada fila a medida que sale del cursor
+     */
+    @Transactional(readOnly = true, timeoutString = "${asistencia.reportes.timeout-segundos:120}")
+    public byte[] generarExcel(LocalDate fechaInicio, LocalDate fechaFin, Long empleadoId) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(500);
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet("Hoja de Tiempo");
+
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            Row headerRow = sheet.createRow(0);
+            String[] headers = {"DNI", "Apellidos", "Nombres", "Área", "Días trabajados", "Días incompletos",
+                    "Horas trabajadas", "Minutos trabajados", "Minutos de almuerzo", "Minutos extra",
+                    "Minutos de tardanza"};
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+
+            int[] rowNum = {1};
+            recorrer(fechaInicio, fechaFin, empleadoId, dto -> {
+                Row row = sheet.createRow(rowNum[0]++);
+                row.createCell(0).setCellValue(dto.getEmpleadoDni());
+                row.createCell(1).setCellValue(dto.getEmpleadoApellidos());
+                row.createCell(2).setCellValue(dto.getEmpleadoNombres());
+                row.createCell(3).setCellValue(dto.getEmpleadoArea());
+                row.createCell(4).setCellValue(dto.getDiasTrabajados());
+                row.createCell(5).setCellValue(dto.getDiasIncompletos());
+                row.createCell(6).setCellValue(dto.getHorasTrabajadas());
+                row.createCell(7).setCellValue(dto.getMinutosTrabajados());
+                row.createCell(8).setCellValue(dto.getMinutosAlmuerzo());
+                row.createCell(9).setCellValue(dto.getMinutosExtra());
+                row.createCell(10).setCellValue(dto.getMinutosTardanza());
+            });
+
+            workbook.write(outputStream);
+            return outputStream.toByteArray();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Recorre el cursor y entrega los totales de cada empleado al terminar sus marcaciones
+     */
+    void recorrer(LocalDate fechaInicio, LocalDate fechaFin, Long empleadoId, Consumer<HojaTiempoDTO> consumidor) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio");
+        }
+        HojaTiempoCalculador calculador = new HojaTiempoCalculador(consumidor);
+        String sql = SELECT_SQL + (empleadoId != null ? " AND a.empleado_id = ?" : "") + ORDER_SQL;
+        AtomicLong filas = new AtomicLong();
+        long inicio = System.currentTimeMillis();
+
+        jdbcTemplate.query(con -> {
+            // Cursor de solo avance: PostgreSQL lo respeta dentro de la transacción de solo lectura
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            // Un día más a cada lado: las jornadas nocturnas empiezan o terminan fuera del período
+            ps.setObject(1, fechaInicio.minusDays(1).atStartOfDay());
+            ps.setObject(2, fechaFin.plusDays(2).atStartOfDay());
+            if (empleadoId != null) {
+                ps.setLong(3, empleadoId);
+            }
+            return ps;
+        }, rs -> {
+            long id = rs.getLong(1);
+            String area = rs.getString(7);
+            LocalDateTime fechaHora = rs.getObject(2, LocalDateTime.class);
+            MotorHorarios.Jornada jornada = motorHorarios.jornada(id, area, fechaHora);
+            if (jornada.fecha().isBefore(fechaInicio) || jornada.fecha().isAfter(fechaFin)) {
+                return;
+            }
+            if (!calculador.esEmpleadoActual(id)) {
+                calculador.iniciarEmpleado(id, rs.getString(4), rs.getString(5), rs.getString(6), area);
+            }
+            LocalDateTime inicioDelDia = jornada.fecha().atStartOfDay();
+            calculador.agregar(jornada.fecha().toEpochDay(), minutos(inicioDelDia, fechaHora),
+                    TipoMarcacion.valueOf(rs.getString(3)),
+                    minutos(inicioDelDia, jornada.limiteEntrada()), minutos(inicioDelDia, jornada.limiteSalida()));
+            filas.incrementAndGet();
+        });
+        calculador.finalizar();
+
+        logger.info("Hoja de tiempo del {} al {}: {} marcaciones en {} ms", fechaInicio, fechaFin,
+                filas.get(), System.currentTimeMillis() - inicio);
+    }
+
+    private static int minutos(LocalDateTime inicioDelDia, LocalDateTime momento) {
+        return momento != null ? (int) Duration.between(inicioDelDia, momento).toMinutes() : HojaTiempoCalculador.SIN_MARCA;
+    }
+}
@@ -4,14 +4,20 @@ import com.asistencia.dto.HorarioDTO;
 import com.asistencia.entity.EstadoMarcacion;
 import com.asistencia.entity.Horario;
 import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.entity.Turno;
 import com.asistencia.repository.HorarioRepository;
+import com.asistencia.repository.TurnoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,6 +27,18 @@ public class HorarioService {
     @Autowired
     private HorarioRepository horarioRepository;
     
+    @Autowired
+    private TurnoRepository turnoRepository;
+    
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+    
+    @Autowired
+    private BusquedaNombres busquedaNombres;
+    
+    @Value("${asistencia.busqueda.limite:20}")
+    private int limiteBusqueda = 20;
+    
     /**
      * Obtiene todos los horarios
      */
@@ -53,7 +71,18 @@ public class HorarioService {
     }
     
     /**
-     * Busca horario por tipo de marcación
+     * Horarios de un turno
+     */
+    @Transactional(readOnly = true)
+    public List<HorarioDTO> findByTurno(Long turnoId) {
+        return horarioRepository.findByTurnoIdOrderByHoraInicio(turnoId)
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Busca el horario general de un tipo de marcación
      */
     @Transactional(readOnly = true)
     public Optional<HorarioDTO> findByTipo(TipoMarcacion tipo) {
@@ -82,12 +111,16 @@ public class HorarioService {
     }
     
     /**
-     * Busca horarios por nombre
+     * Busca horarios activos por nombre (sin tildes), ordenados por relevancia
      */
     @Transactional(readOnly = true)
     public List<HorarioDTO> findByNombre(String nombre) {
-        return horarioRepository.findByNombreContainingIgnoreCase(nombre)
-                .stream()
+        List<Long> ids = busquedaNombres.buscarHorarios(nombre, limiteBusqueda);
+        Map<Long, Horario> porId = horarioRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Horario::getId, Function.identity()));
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -96,21 +129,19 @@ public class HorarioService {
      * Crea un nuevo horario
      */
     public HorarioDTO create(HorarioDTO horarioDTO) {
-        // Validar que no haya solapamientos
-        if (existsOverlappingHorario(horarioDTO.getTipo(), horarioDTO.getHoraInicio(), 
-                                   horarioDTO.getHoraFin(), null)) {
+        // Validar que no haya solapamientos dentro del mismo turno
+        if (existsOverlappingHorario(horarioDTO.getTurnoId(), horarioDTO.getDiasSemana(), horarioDTO.getTipo(),
+                                   horarioDTO.getHoraInicio(), horarioDTO.getHoraFin(), null)) {
             throw new IllegalArgumentException("Ya existe un horario que se solapa con el rango especificado para el tipo: " + horarioDTO.getTipo());
         }
         
-        // Validar que la hora de inicio sea menor que la hora de fin
-        if (horarioDTO.getHoraInicio().isAfter(horarioDTO.getHoraFin())) {
-            throw new IllegalArgumentException("La hora de inicio debe ser menor que la hora de fin");
-        }
+        validarRango(horarioDTO);
         
         Horario horario = convertToEntity(horarioDTO);
         horario.setActivo(true);
         
         Horario savedHorario = horarioRepository.save(horario);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.HORARIO);
         return convertToDTO(savedHorario);
     }
     
@@ -121,28 +152,28 @@ public class HorarioService {
         Horario horarioExistente = horarioRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Horario no encontrado con ID: " + id));
         
-        // Validar que no haya solapamientos (excluyendo el horario actual)
-        if (existsOverlappingHorario(horarioDTO.getTipo(), horarioDTO.getHoraInicio(), 
-                                   horarioDTO.getHoraFin(), id)) {
+        // Validar que no haya solapamientos dentro del mismo turno (excluyendo el horario actual)
+        if (existsOverlappingHorario(horarioDTO.getTurnoId(), horarioDTO.getDiasSemana(), horarioDTO.getTipo(),
+                                   horarioDTO.getHoraInicio(), horarioDTO.getHoraFin(), id)) {
             throw new IllegalArgumentException("Ya existe un horario que se solapa con el rango especificado para el tipo: " + horarioDTO.getTipo());
         }
         
-        // Validar que la hora de inicio sea menor que la hora de fin
-        if (horarioDTO.getHoraInicio().isAfter(horarioDTO.getHoraFin())) {
-            throw new IllegalArgumentException("La hora de inicio debe ser menor que la hora de fin");
-        }
+        validarRango(horarioDTO);
         
         // Actualizar campos
         horarioExistente.setNombre(horarioDTO.getNombre());
         horarioExistente.setHoraInicio(horarioDTO.getHoraInicio());
         horarioExistente.setHoraFin(horarioDTO.getHoraFin());
         horarioExistente.setTipo(horarioDTO.getTipo());
+        horarioExistente.setTurno(buscarTurno(horarioDTO.getTurnoId()));
+        horarioExistente.setDiasSemana(diasSemana(horarioDTO));
         
         if (horarioDTO.getActivo() != null) {
             horarioExistente.setActivo(horarioDTO.getActivo());
         }
         
         Horario updatedHorario = horarioRepository.save(horarioExistente);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.HORARIO);
         return convertToDTO(updatedHorario);
     }
     
@@ -155,6 +186,7 @@ public class HorarioService {
         
         horario.setActivo(false);
         horarioRepository.save(horario);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.HORARIO);
     }
     
     /**
@@ -165,16 +197,34 @@ public class HorarioService {
             throw new IllegalArgumentException("Horario no encontrado con ID: " + id);
         }
         horarioRepository.deleteById(id);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.HORARIO);
     }
     
     /**
-     * Verifica si existe solapamiento de horarios
+     * Verifica si otro horario activo del mismo tipo y turno (o del horario general si turnoId es nulo)
+     * comparte algún instante de la semana con el rango, teniendo en cuenta días y ventanas nocturnas
      */
     @Transactional(readOnly = true)
-    public boolean existsOverlappingHorario(TipoMarcacion tipo, LocalTime horaInicio, 
-                                          LocalTime horaFin, Long excludeId) {
-        Long excludeIdValue = excludeId != null ? excludeId : -1L;
-        return horarioRepository.existsOverlappingHorario(tipo, horaInicio, horaFin, excludeIdValue);
+    public boolean existsOverlappingHorario(Long turnoId, Integer diasSemana, TipoMarcacion tipo,
+                                          LocalTime horaInicio, LocalTime horaFin, Long excludeId) {
+        List<Horario> mismoTurno = turnoId != null
+                ? horarioRepository.findByTurnoIdAndTipoAndActivoTrue(turnoId, tipo)
+                : horarioRepository.findByTurnoIsNullAndTipoAndActivoTrue(tipo);
+        Horario candidato = new Horario(null, horaInicio, horaFin, tipo);
+        candidato.setDiasSemana(diasSemana != null ? diasSemana : Horario.TODOS_LOS_DIAS);
+        return mismoTurno.stream()
+                .filter(horario -> !horario.getId().equals(excludeId))
+                .anyMatch(horario -> IntervalosHorario.seSolapan(horario, candidato));
+    }
+    
+    /**
+     * Solo los horarios de un turno pueden cruzar la medianoche: el general se sigue consultando por hora del día
+     */
+    private void validarRango(HorarioDTO horarioDTO) {
+        if (horarioDTO.getTurnoId() == null && horarioDTO.getHoraInicio().isAfter(horarioDTO.getHoraFin())) {
+            throw new IllegalArgumentException("La hora de inicio debe ser menor que la hora de fin " +
+                    "(solo los horarios de un turno pueden terminar al día siguiente)");
+        }
     }
     
     /**
@@ -186,7 +236,8 @@ public class HorarioService {
     }
     
     /**
-     * Determina el tipo de marcación basado en la hora actual
+     * Determina el tipo de marcación basado en la hora actual, según el horario general.
+     * Las marcaciones se clasifican con MotorHorarios, que tiene en cuenta el turno del empleado.
      */
     @Transactional(readOnly = true)
     public TipoMarcacion determinarTipoMarcacion(LocalTime horaActual) {
@@ -239,7 +290,9 @@ public class HorarioService {
      */
     @Transactional(readOnly = true)
     public Optional<Horario> encontrarHorarioMasCercano(LocalTime horaActual) {
-        List<Horario> horariosActivos = horarioRepository.findByActivoTrueOrderByHoraInicio();
+        List<Horario> horariosActivos = horarioRepository.findByActivoTrueOrderByHoraInicio().stream()
+                .filter(horario -> horario.getTurno() == null)
+                .collect(Collectors.toList());
         
         if (horariosActivos.isEmpty()) {
             return Optional.empty();
@@ -316,6 +369,15 @@ public class HorarioService {
      */
     @Transactional(readOnly = true)
     public String generarMensajeMarcacion(LocalTime horaActual, TipoMarcacion tipoMarcacion, EstadoMarcacion estadoMarcacion) {
+        int minutosTarde = estadoMarcacion == EstadoMarcacion.TARDANZA ? calcularMinutosDiferencia(horaActual, tipoMarcacion) : 0;
+        return generarMensajeMarcacion(horaActual, tipoMarcacion, estadoMarcacion, minutosTarde);
+    }
+    
+    /**
+     * Genera el mensaje con los minutos de diferencia ya calculados (sin consultar horarios)
+     */
+    public String generarMensajeMarcacion(LocalTime horaActual, TipoMarcacion tipoMarcacion, EstadoMarcacion estadoMarcacion,
+                                          int minutosTarde) {
         String tipoDescripcion = tipoMarcacion.getDescripcion().toLowerCase();
         String horaFormateada = horaActual.toString();
         
@@ -325,7 +387,6 @@ public class HorarioService {
                     capitalize(tipoDescripcion), horaFormateada);
                 
             case TARDANZA:
-                int minutosTarde = calcularMinutosDiferencia(horaActual, tipoMarcacion);
                 if (minutosTarde > 0) {
                     return String.format("%s registrada, llegaste tarde por %d min ⏰", 
                         capitalize(tipoDescripcion), minutosTarde);
@@ -382,6 +443,8 @@ public class HorarioService {
         dto.setHoraInicio(horario.getHoraInicio());
         dto.setHoraFin(horario.getHoraFin());
         dto.setTipo(horario.getTipo());
+        dto.setTurnoId(horario.getTurno() != null ? horario.getTurno().getId() : null);
+        dto.setDiasSemana(horario.getDiasSemana());
         dto.setActivo(horario.getActivo());
         dto.setFechaCreacion(horario.getFechaCreacion());
         return dto;
@@ -394,7 +457,21 @@ public class HorarioService {
         horario.setHoraInicio(dto.getHoraInicio());
         horario.setHoraFin(dto.getHoraFin());
         horario.setTipo(dto.getTipo());
+        horario.setTurno(buscarTurno(dto.getTurnoId()));
+        horario.setDiasSemana(diasSemana(dto));
         horario.setActivo(dto.getActivo());
         return horario;
     }
+    
+    private Turno buscarTurno(Long turnoId) {
+        if (turnoId == null) {
+            return null;
+        }
+        return turnoRepository.findById(turnoId)
+                .orElseThrow(() -> new IllegalArgumentException("Turno no encontrado con ID: " + turnoId));
+    }
+    
+    private static int diasSemana(HorarioDTO dto) {
+        return dto.getDiasSemana() != null ? dto.getDiasSemana() : Horario.TODOS_LOS_DIAS;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.EventoOutbox;
+import com.asistencia.exception.EventoRechazadoException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Envía cada lote como un arreglo JSON en un POST; cualquier respuesta que no sea 2xx es un fallo.
+ * Un 4xx (salvo 408 y 429) es un rechazo del contenido; los demás fallos son del destino o de la conexión.
+ */
+@Component
+@ConditionalOnProperty(prefix = "asistencia.outbox", name = "sink", havingValue = "http")
+public class HttpOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+    private final URI url;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    public HttpOutboxSink(ObjectMapper objectMapper,
+                          @Value("${asistencia.outbox.http.url}") String url,
+                          @Value("${asistencia.outbox.http.timeout-ms:10000}") long timeoutMs) {
+        this.objectMapper = objectMapper;
+        this.url = URI.create(url);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void enviar(List<EventoOutbox> lote) throws IOException {
+        ArrayNode eventos = objectMapper.createArrayNode();
+        for (EventoOutbox evento : lote) {
+            eventos.add(OutboxSink.sobre(objectMapper, evento));
+        }
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(eventos)))
+                .build();
+        HttpResponse<Void> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Envío del outbox interrumpido");
+        }
+        int estado = response.statusCode();
+        if (estado / 100 == 4 && estado != 408 && estado != 429) {
+            throw new EventoRechazadoException("El destino del outbox rechazó el lote: " + estado);
+        }
+        if (estado / 100 != 2) {
+            throw new IOException("El destino del outbox respondió " + estado);
+        }
+    }
+}
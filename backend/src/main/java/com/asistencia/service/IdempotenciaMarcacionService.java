@@ -0,0 +1,200 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.MarcacionResponseDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Marcaciones con Idempotency-Key: la primera petición con una clave se procesa y su respuesta se guarda
+ * en memoria (con vencimiento) y en la tabla marcaciones_idempotentes; los reintentos con la misma clave
+ * reciben esa respuesta sin clasificar ni insertar de nuevo. La tabla cubre los reintentos que llegan
+ * a otra réplica o después de reiniciar. Solo se guardan las marcaciones registradas y las duplicadas (409):
+ * un DNI desconocido o un error interno no ocupan la tabla y el reintento vuelve a procesarse.
+ * Los DNIs que el filtro descarta no llegan a consultar la tabla.
+ */
+@Service
+public class IdempotenciaMarcacionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaMarcacionService.class);
+
+    public static final int LARGO_MAXIMO_CLAVE = 100;
+
+    static final String SELECT_SQL =
+            "SELECT dni, status, respuesta FROM marcaciones_idempotentes WHERE clave = ? AND fecha_creacion >= ?";
+    static final String INSERT_SQL =
+            "INSERT INTO marcaciones_idempotentes (clave, dni, status, respuesta, fecha_creacion) VALUES (?, ?, ?, ?, ?)";
+    static final String PURGA_SQL = "DELETE FROM marcaciones_idempotentes WHERE fecha_creacion < ?";
+
+    /**
+     * Respuesta de una marcación; repetida indica que se devolvió la de una petición anterior
+     */
+    public record Respuesta(int status, MarcacionResponseDTO cuerpo, boolean repetida) {
+
+        public Respuesta(int status, MarcacionResponseDTO cuerpo) {
+            this(status, cuerpo, false);
+        }
+
+        Respuesta comoRepetida() {
+            return repetida ? this : new Respuesta(status, cuerpo, true);
+        }
+    }
+
+    // La respuesta se completa al terminar la primera petición; los reintentos concurrentes la esperan
+    private record Entrada(String dni, CompletableFuture<Respuesta> respuesta, long venceEn) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    private FiltroDniService filtroDni;
+
+    @Value("${asistencia.idempotencia.ttl-memoria-minutos:15}")
+    private long ttlMemoriaMinutos = 15;
+
+    @Value("${asistencia.idempotencia.ttl-horas:24}")
+    private long ttlHoras = 24;
+
+    @Value("${asistencia.idempotencia.espera-ms:5000}")
+    private long esperaMs = 5000;
+
+    public IdempotenciaMarcacionService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Devuelve la respuesta guardada para la clave o ejecuta la marcación y guarda su respuesta.
+     * Una clave ya usada con otro DNI recibe 422.
+     */
+    public Respuesta ejecutar(String clave, String dni, Supplier<Respuesta> marcacion) {
+        // Un DNI que no es de nadie se rechaza igual de barato que sin clave
+        if (filtroDni != null && !filtroDni.puedeExistir(dni)) {
+            return marcacion.get();
+        }
+        long ahora = System.currentTimeMillis();
+        Entrada nueva = new Entrada(dni, new CompletableFuture<>(), ahora + TimeUnit.MINUTES.toMillis(ttlMemoriaMinutos));
+        Entrada actual = entradas.compute(clave, (k, existente) ->
+                existente == null || existente.venceEn() < ahora ? nueva : existente);
+        if (actual != nueva) {
+            return actual.dni().equals(dni) ? esperar(actual) : claveDeOtroDni();
+        }
+
+        try {
+            Respuesta respuesta = buscarGuardada(clave, dni);
+            if (respuesta == null) {
+                respuesta = marcacion.get();
+                if (guardable(respuesta.status())) {
+                    guardar(clave, dni, respuesta);
+                } else {
+                    entradas.remove(clave, nueva);
+                }
+            }
+            nueva.respuesta().complete(respuesta);
+            return respuesta;
+        } catch (RuntimeException e) {
+            entradas.remove(clave, nueva);
+            nueva.respuesta().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Quita de memoria las claves vencidas y borra de la tabla las de más de ttl-horas
+     */
+    @Scheduled(fixedDelayString = "${asistencia.idempotencia.limpieza-ms:300000}")
+    public void purgar() {
+        long ahora = System.currentTimeMillis();
+        entradas.values().removeIf(entrada -> entrada.venceEn() < ahora && entrada.respuesta().isDone());
+        try {
+            int borradas = jdbcTemplate.update(PURGA_SQL, Timestamp.valueOf(LocalDateTime.now().minusHours(ttlHoras)));
+            if (borradas > 0) {
+                logger.debug("Claves de idempotencia vencidas borradas: {}", borradas);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("No se pudieron purgar las claves de idempotencia: {}", e.getMessage());
+        }
+    }
+
+    int size() {
+        return entradas.size();
+    }
+
+    private static boolean guardable(int status) {
+        return status == 200 || status == 409;
+    }
+
+    private Respuesta esperar(Entrada entrada) {
+        try {
+            return entrada.respuesta().get(esperaMs, TimeUnit.MILLISECONDS).comoRepetida();
+        } catch (TimeoutException e) {
+            return new Respuesta(409, MarcacionResponseDTO.error("La marcación con esta clave aún se está procesando"));
+        } catch (ExecutionException e) {
+            return new Respuesta(500, MarcacionResponseDTO.error("Error interno del servidor"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Respuesta(500, MarcacionResponseDTO.error("Error interno del servidor"));
+        }
+    }
+
+    private static Respuesta claveDeOtroDni() {
+        return new Respuesta(422, MarcacionResponseDTO.error("La Idempotency-Key ya se usó con otro DNI"));
+    }
+
+    private Respuesta buscarGuardada(String clave, String dni) {
+        LocalDateTime desde = LocalDateTime.now().minusHours(ttlHoras);
+        List<Respuesta> filas;
+        try {
+            filas = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> dni.equals(rs.getString(1))
+                            ? leer(rs.getInt(2), rs.getString(3)).comoRepetida() : claveDeOtroDni(),
+                    clave, Timestamp.valueOf(desde));
+        } catch (DataAccessException e) {
+            // Sin la tabla la clave solo se recuerda en esta instancia
+            logger.warn("No se pudo consultar la clave de idempotencia {}: {}", clave, e.getMessage());
+            return null;
+        }
+        return filas.isEmpty() ? null : filas.get(0);
+    }
+
+    private void guardar(String clave, String dni, Respuesta respuesta) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, clave, dni, respuesta.status(),
+                    objectMapper.writeValueAsString(respuesta.cuerpo()), Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DuplicateKeyException e) {
+            // Otra réplica procesó la misma clave a la vez; queda su respuesta
+            logger.debug("Clave de idempotencia {} ya guardada por otra instancia", clave);
+        } catch (DataAccessException | JsonProcessingException e) {
+            // La marcación ya se registró: la respuesta se devuelve igual y la clave queda solo en memoria
+            logger.warn("No se pudo guardar la clave de idempotencia {}: {}", clave, e.getMessage());
+        }
+    }
+
+    private Respuesta leer(int status, String json) {
+        try {
+            return new Respuesta(status, objectMapper.readValue(json, MarcacionResponseDTO.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta de idempotencia ilegible", e);
+        }
+    }
+}
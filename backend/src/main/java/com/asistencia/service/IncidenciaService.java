@@ -0,0 +1,222 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.ReporteIncidenciaDTO;
+import com.asistencia.entity.TipoIncidencia;
+import com.asistencia.repository.IncidenciaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calcula ausencias y marcaciones faltantes de cada jornada laborable.
+ * Cada día se resuelve con una sola sentencia INSERT ... SELECT sobre todos los empleados activos,
+ * sin recorrer empleados desde Java; recalcular un día reemplaza sus incidencias.
+ * Las jornadas del día vienen de MotorHorarios, una por turno: solo cuentan los turnos cuya entrada aplica
+ * ese día (dias_semana) y las marcaciones se buscan en la ventana de la jornada, que en un turno nocturno
+ * termina al día siguiente. El horario general además se limita a dias-laborables.
+ */
+@Service
+public class IncidenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncidenciaService.class);
+
+    private static final String DELETE_SQL = "DELETE FROM incidencias WHERE fecha = ?";
+
+    // Turno vigente de cada empleado y de cada área, como en MotorHorarios (asignaciones activas de turnos activos)
+    private static final String VIGENTES_SQL =
+            "(SELECT s.empleado_id, s.area, s.turno_id FROM asignaciones_turno s JOIN turnos tu ON tu.id = s.turno_id " +
+            "WHERE s.activo = TRUE AND tu.activo = TRUE)";
+
+    // Resuelve el turno de cada empleado (propio, de su área o general), lo cruza con la jornada de ese turno,
+    // agrega las marcaciones de la jornada (LEFT JOIN: sin filas = ausencia) y cruza cada resumen con los tipos
+    // de incidencia que le aplican. El marcador %s es la lista VALUES (turno, desde, hasta) de las jornadas.
+    private static final String INSERT_SQL =
+            "INSERT INTO incidencias (id, empleado_id, fecha, tipo, fecha_creacion) " +
+            "SELECT nextval('incidencias_id_seq'), d.empleado_id, ?, t.tipo, CURRENT_TIMESTAMP FROM (" +
+            "  SELECT e.id AS empleado_id, COUNT(a.id) AS marcas, " +
+            "    COALESCE(SUM(CASE WHEN a.tipo = 'SALIDA_ALMUERZO' THEN 1 ELSE 0 END), 0) AS salidas_almuerzo, " +
+            "    COALESCE(SUM(CASE WHEN a.tipo = 'RETORNO_ALMUERZO' THEN 1 ELSE 0 END), 0) AS retornos_almuerzo, " +
+            "    COALESCE(SUM(CASE WHEN a.tipo = 'SALIDA' THEN 1 ELSE 0 END), 0) AS salidas " +
+            "  FROM empleados e " +
+            "  LEFT JOIN " + VIGENTES_SQL + " pe ON pe.empleado_id = e.id " +
+            "  LEFT JOIN " + VIGENTES_SQL + " pa ON pa.area = e.area " +
+            "  JOIN (VALUES %s) AS j(turno_id, desde, hasta) " +
+            "    ON j.turno_id = COALESCE(pe.turno_id, pa.turno_id, " + MotorHorarios.GENERAL + ") " +
+            "  LEFT JOIN asistencias a ON a.empleado_id = e.id AND a.fecha_hora >= j.desde AND a.fecha_hora < j.hasta " +
+            "  WHERE e.activo = TRUE AND (e.fecha_creacion IS NULL OR e.fecha_creacion < j.hasta) " +
+            "  GROUP BY e.id" +
+            ") d JOIN (VALUES ('AUSENCIA'), ('SIN_RETORNO_ALMUERZO'), ('SIN_SALIDA')) AS t(tipo) ON " +
+            "  (t.tipo = 'AUSENCIA' AND d.marcas = 0) OR " +
+            "  (t.tipo = 'SIN_RETORNO_ALMUERZO' AND d.salidas_almuerzo > 0 AND d.retornos_almuerzo = 0) OR " +
+            "  (t.tipo = 'SIN_SALIDA' AND d.marcas > 0 AND d.salidas = 0)";
+
+    private static final String JORNADA_SQL = "(CAST(? AS BIGINT), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private IncidenciaRepository incidenciaRepository;
+
+    @Autowired
+    private MotorHorarios motorHorarios;
+
+    @Value("${asistencia.incidencias.dias-laborables:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}")
+    private Set<DayOfWeek> diasLaborables = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+
+    @Value("${asistencia.incidencias.paralelismo:4}")
+    private int paralelismo = 4;
+
+    @Value("${asistencia.incidencias.max-dias-recalculo:366}")
+    private int maxDiasRecalculo = 366;
+
+    // Compartido por todos los recálculos en curso: como máximo "paralelismo" días (y conexiones) a la vez
+    private ExecutorService recalculo;
+
+    @PostConstruct
+    void iniciar() {
+        AtomicInteger contador = new AtomicInteger();
+        recalculo = Executors.newFixedThreadPool(paralelismo, tarea -> {
+            Thread hilo = new Thread(tarea, "incidencias-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    void detener() {
+        recalculo.shutdownNow();
+    }
+
+    /**
+     * Proceso de fin de día: calcula las incidencias del día anterior
+     * Las jornadas nocturnas de ayer aún no terminan, así que también recalcula anteayer, ya cerrado del todo
+     */
+    @Scheduled(cron = "${asistencia.incidencias.cron:0 30 0 * * *}")
+    public void procesarDiaAnterior() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        for (LocalDate dia : List.of(ayer.minusDays(1), ayer)) {
+            try {
+                int incidencias = procesarDia(dia);
+                logger.info("Incidencias del {}: {}", dia, incidencias);
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia procesó el mismo día a la vez; sus resultados ya están guardados
+                logger.warn("Las incidencias del {} ya fueron calculadas por otra instancia", dia);
+            }
+        }
+    }
+
+    /**
+     * Recalcula las incidencias de un día en su propia transacción y devuelve cuántas se generaron
+     * Las jornadas que aún no terminan se omiten hasta el siguiente recálculo
+     */
+    public int procesarDia(LocalDate fecha) {
+        if (!fecha.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Solo se pueden calcular incidencias de días ya terminados: " + fecha);
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(fecha);
+        List<String> jornadas = new ArrayList<>();
+        motorHorarios.jornadasDel(fecha).forEach((turnoId, jornada) -> {
+            boolean laborable = turnoId != MotorHorarios.GENERAL || diasLaborables.contains(fecha.getDayOfWeek());
+            if (laborable && !jornada.hasta().isAfter(ahora)) {
+                jornadas.add(JORNADA_SQL);
+                parametros.addAll(List.of(turnoId, jornada.desde(), jornada.hasta()));
+            }
+        });
+
+        Integer generadas = new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.update(DELETE_SQL, fecha);
+            if (jornadas.isEmpty()) {
+                return 0;
+            }
+            return jdbcTemplate.update(INSERT_SQL.formatted(String.join(", ", jornadas)), parametros.toArray());
+        });
+        return generadas != null ? generadas : 0;
+    }
+
+    /**
+     * Recalcula un rango de días procesando varios días en paralelo en el pool compartido de incidencias
+     */
+    public Map<LocalDate, Integer> recalcular(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio");
+        }
+        if (!fechaFin.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Solo se pueden calcular incidencias de días ya terminados");
+        }
+        long dias = ChronoUnit.DAYS.between(fechaInicio, fechaFin) + 1;
+        if (dias > maxDiasRecalculo) {
+            throw new IllegalArgumentException("El rango no puede superar " + maxDiasRecalculo + " días");
+        }
+
+        long inicio = System.currentTimeMillis();
+        List<Future<Integer>> resultados = new ArrayList<>();
+        try {
+            List<LocalDate> fechas = new ArrayList<>();
+            for (LocalDate fecha = fechaInicio; !fecha.isAfter(fechaFin); fecha = fecha.plusDays(1)) {
+                LocalDate dia = fecha;
+                fechas.add(dia);
+                resultados.add(recalculo.submit(() -> procesarDia(dia)));
+            }
+
+            Map<LocalDate, Integer> porDia = new TreeMap<>();
+            for (int i = 0; i < fechas.size(); i++) {
+                porDia.put(fechas.get(i), resultados.get(i).get());
+            }
+            logger.info("Incidencias recalculadas del {} al {} en {} ms", fechaInicio, fechaFin,
+                    System.currentTimeMillis() - inicio);
+            return porDia;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recálculo de incidencias interrumpido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Error al recalcular incidencias", e.getCause());
+        } finally {
+            // Tras un error o una interrupción los días pendientes no se procesan
+            resultados.forEach(resultado -> resultado.cancel(true));
+        }
+    }
+
+    /**
+     * Incidencias para reportes con filtros opcionales por empleado y tipo
+     */
+    @Transactional(readOnly = true)
+    public List<ReporteIncidenciaDTO> findReporte(LocalDate fechaInicio, LocalDate fechaFin,
+                                                  Long empleadoId, TipoIncidencia tipo) {
+        return incidenciaRepository.findReporte(fechaInicio, fechaFin, empleadoId, tipo);
+    }
+}
@@ -0,0 +1,541 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.dto.ExpresionIndiceDTO;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de marcaciones por día: un mapa de bits comprimido por (día, tipo) y por (día, estado) sobre
+ * ordinales densos de empleados. Responde preguntas de conjuntos ("ausentes algún lunes del trimestre",
+ * "con tres o más tardanzas en el mes") sin recorrer la tabla de asistencias.
+ * Se guarda en un archivo local; al arrancar se lee y se completa con las asistencias creadas desde el
+ * último guardado. Cada marcación local se agrega al momento y las de otras réplicas al replicarse. Las ediciones y borrados
+ * de asistencias solo se reflejan al reconstruirlo.
+ */
+@Service
+public class IndiceMarcacionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceMarcacionesService.class);
+
+    private static final int VERSION_ARCHIVO = 1;
+
+    private static final TipoMarcacion[] TIPOS = TipoMarcacion.values();
+    private static final EstadoMarcacion[] ESTADOS = EstadoMarcacion.values();
+    // Mapas por día: uno por tipo y luego uno por estado
+    private static final int CLAVES = TIPOS.length + ESTADOS.length;
+
+    /** Margen al completar desde el último guardado, para transacciones que se confirmaron tarde */
+    private static final long MARGEN_MINUTOS = 10;
+
+    private static final String SELECT_SQL = "SELECT empleado_id, fecha_hora, tipo, estado FROM asistencias " +
+            "WHERE fecha_hora >= ?";
+
+    private static final String CREADAS_DESDE_SQL = SELECT_SQL + " AND fecha_creacion >= ?";
+
+    private static final String ACTIVOS_SQL = "SELECT id FROM empleados WHERE activo = true";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+
+    // Solo con varias réplicas (asistencia.cache.bus=postgres)
+    @Autowired(required = false)
+    private ReplicacionMarcacionesService replicacionMarcaciones;
+
+    @Value("${asistencia.indice-marcaciones.archivo:data/indice-marcaciones.bin}")
+    private String archivo = "data/indice-marcaciones.bin";
+
+    @Value("${asistencia.indice-marcaciones.dias-retencion:400}")
+    private int diasRetencion = 400;
+
+    @Value("${asistencia.indice-marcaciones.fetch-size:5000}")
+    private int fetchSize = 5000;
+
+    @Value("${asistencia.indice-marcaciones.max-dias-consulta:400}")
+    private int maxDiasConsulta = 400;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Indice indice = new Indice();
+    // Índice que se está reconstruyendo; recibe también las marcaciones en vivo hasta reemplazar al actual
+    private Indice enConstruccion;
+    // Empleados activos (universo de las ausencias); null obliga a recalcularlo
+    private volatile MapaBitsComprimido activos;
+
+    @PostConstruct
+    void suscribir() {
+        invalidacionCacheService.suscribir(this::onInvalidacion);
+        if (replicacionMarcaciones != null) {
+            replicacionMarcaciones.suscribir(this::onMarcacionRegistrada);
+        }
+    }
+
+    /**
+     * Lee el archivo (o construye el índice si no existe) y agrega lo registrado desde el último guardado
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        Path ruta = Paths.get(archivo);
+        if (Files.exists(ruta)) {
+            try {
+                Indice leido = leer(ruta);
+                LocalDateTime desde = leido.guardadoEn.minusMinutes(MARGEN_MINUTOS);
+                lock.writeLock().lock();
+                try {
+                    indice = leido;
+                    activos = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                int agregadas = cargar(null, CREADAS_DESDE_SQL, desde);
+                logger.info("Índice de marcaciones leído de {}: {} días, {} empleados, {} marcaciones nuevas desde {}",
+                        ruta, leido.porDia.size(), leido.totalOrdinales, agregadas, desde);
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("No se pudo leer el índice de marcaciones de {}, se reconstruirá: {}", ruta, e.getMessage());
+            }
+        }
+        reconstruir();
+    }
+
+    /**
+     * Vuelve a cargar el índice desde la tabla de asistencias dentro del período de retención
+     */
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        LocalDateTime comienzo = LocalDateTime.now();
+        // Se carga aparte: hasta el reemplazo las consultas siguen viendo el índice anterior completo
+        Indice nuevo = new Indice();
+        lock.writeLock().lock();
+        try {
+            enConstruccion = nuevo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            int filas = cargar(nuevo, SELECT_SQL, null);
+            // Las creadas durante la carga pudieron quedar fuera de la consulta; agregar es idempotente
+            cargar(nuevo, CREADAS_DESDE_SQL, comienzo.minusMinutes(MARGEN_MINUTOS));
+            lock.writeLock().lock();
+            try {
+                nuevo.modificado = true;
+                indice = nuevo;
+                // Los ordinales cambian con el índice
+                activos = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Índice de marcaciones reconstruido: {} marcaciones en {} ms", filas,
+                    System.currentTimeMillis() - inicio);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                enConstruccion = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Agrega una marcación local confirmada, o de otra réplica vía ReplicacionMarcacionesService
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMarcacionRegistrada(MarcacionRegistradaEvent evento) {
+        AsistenciaDTO asistencia = evento.asistencia();
+        agregar(asistencia.getEmpleadoId(), asistencia.getFechaHora(), asistencia.getTipo(), asistencia.getEstado());
+    }
+
+    /**
+     * Empleados que cumplen la expresión
+     */
+    public Map<String, Object> consultar(ExpresionIndiceDTO expresion) {
+        MapaBitsComprimido universo = activos();
+        long inicio = System.nanoTime();
+        List<Long> empleados;
+        lock.readLock().lock();
+        try {
+            MapaBitsComprimido resultado = evaluar(expresion, universo);
+            int[] ordinales = resultado.valores();
+            empleados = new ArrayList<>(ordinales.length);
+            for (int ordinal : ordinales) {
+                empleados.add(indice.empleados[ordinal]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("empleados", empleados);
+        respuesta.put("total", empleados.size());
+        respuesta.put("microsegundos", (System.nanoTime() - inicio) / 1000);
+        return respuesta;
+    }
+
+    /**
+     * Empleados que cumplen la condición de una hoja en al menos "minimo" de sus días, con la cantidad de días
+     */
+    public List<Map<String, Object>> frecuencia(ExpresionIndiceDTO hoja, int minimo) {
+        if (!hoja.esHoja()) {
+            throw new IllegalArgumentException("La frecuencia se calcula sobre una condición por día, sin subexpresiones");
+        }
+        if (minimo < 1) {
+            throw new IllegalArgumentException("El mínimo de días debe ser al menos 1");
+        }
+        MapaBitsComprimido universo = activos();
+        List<Map<String, Object>> porEmpleado = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int[] contadores = new int[indice.totalOrdinales];
+            for (LocalDate dia : dias(hoja)) {
+                mapaDelDia(dia, hoja, universo).sumarEn(contadores);
+            }
+            for (int ordinal = 0; ordinal < contadores.length; ordinal++) {
+                if (contadores[ordinal] >= minimo) {
+                    Map<String, Object> fila = new LinkedHashMap<>();
+                    fila.put("empleadoId", indice.empleados[ordinal]);
+                    fila.put("dias", contadores[ordinal]);
+                    porEmpleado.add(fila);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        porEmpleado.sort(Comparator.comparing((Map<String, Object> fila) -> (Integer) fila.get("dias")).reversed());
+        return porEmpleado;
+    }
+
+    /**
+     * Días, empleados, memoria y último guardado del índice
+     */
+    public Map<String, Object> getEstado() {
+        lock.readLock().lock();
+        try {
+            long memoria = 0;
+            for (MapaBitsComprimido[] mapas : indice.porDia.values()) {
+                for (MapaBitsComprimido mapa : mapas) {
+                    memoria += mapa.memoriaBytes();
+                }
+            }
+            Map<String, Object> estado = new LinkedHashMap<>();
+            estado.put("dias", indice.porDia.size());
+            estado.put("empleados", indice.totalOrdinales);
+            estado.put("memoriaBytes", memoria + (long) indice.empleados.length * Long.BYTES);
+            estado.put("archivo", Paths.get(archivo).toAbsolutePath().toString());
+            estado.put("guardadoEn", indice.guardadoEn);
+            return estado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda el índice si cambió desde el último guardado (archivo temporal y reemplazo atómico)
+     */
+    @Scheduled(fixedDelayString = "${asistencia.indice-marcaciones.guardado-ms:60000}")
+    @PreDestroy
+    public void guardar() {
+        Path ruta = Paths.get(archivo);
+        // La escritura bloquea las marcaciones: el archivo ocupa pocos KB por día
+        lock.writeLock().lock();
+        try {
+            if (!indice.modificado) {
+                return;
+            }
+            LocalDate limite = LocalDate.now().minusDays(diasRetencion);
+            indice.porDia.keySet().removeIf(dia -> dia.isBefore(limite));
+            LocalDateTime guardadoEn = LocalDateTime.now();
+
+            Path directorio = ruta.toAbsolutePath().getParent();
+            if (directorio != null) {
+                Files.createDirectories(directorio);
+            }
+            Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+            try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+                salida.writeInt(VERSION_ARCHIVO);
+                salida.writeUTF(guardadoEn.toString());
+                salida.writeInt(indice.totalOrdinales);
+                for (int ordinal = 0; ordinal < indice.totalOrdinales; ordinal++) {
+                    salida.writeLong(indice.empleados[ordinal]);
+                }
+                salida.writeInt(indice.porDia.size());
+                for (Map.Entry<LocalDate, MapaBitsComprimido[]> dia : indice.porDia.entrySet()) {
+                    salida.writeLong(dia.getKey().toEpochDay());
+                    for (MapaBitsComprimido mapa : dia.getValue()) {
+                        mapa.escribir(salida);
+                    }
+                }
+            }
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            indice.guardadoEn = guardadoEn;
+            indice.modificado = false;
+        } catch (IOException e) {
+            logger.warn("No se pudo guardar el índice de marcaciones en {}: {}", ruta, e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void agregar(Long empleadoId, LocalDateTime fechaHora, TipoMarcacion tipo, EstadoMarcacion estado) {
+        if (fechaHora.toLocalDate().isBefore(LocalDate.now().minusDays(diasRetencion))) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            indice.agregar(empleadoId, fechaHora.toLocalDate(), tipo, estado);
+            if (enConstruccion != null) {
+                enConstruccion.agregar(empleadoId, fechaHora.toLocalDate(), tipo, estado);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void onInvalidacion(EventoInvalidacion evento) {
+        if (evento.entidad() == EventoInvalidacion.Entidad.EMPLEADO) {
+            activos = null;
+        }
+    }
+
+    /**
+     * Agrega al índice en construcción (o al actual si es null) las asistencias de la consulta
+     * (todas las del período de retención, o las creadas desde "creadasDesde") y devuelve cuántas leyó
+     */
+    private int cargar(Indice destino, String sql, LocalDateTime creadasDesde) {
+        LocalDateTime retencion = LocalDate.now().minusDays(diasRetencion).atStartOfDay();
+        int[] filas = new int[1];
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        lectura.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, retencion);
+            if (creadasDesde != null) {
+                ps.setObject(2, creadasDesde);
+            }
+            return ps;
+        }, rs -> {
+            String estado = rs.getString(4);
+            long empleadoId = rs.getLong(1);
+            LocalDateTime fechaHora = rs.getObject(2, LocalDateTime.class);
+            TipoMarcacion tipo = TipoMarcacion.valueOf(rs.getString(3));
+            EstadoMarcacion estadoMarcacion = estado != null ? EstadoMarcacion.valueOf(estado) : null;
+            if (destino == null) {
+                agregar(empleadoId, fechaHora, tipo, estadoMarcacion);
+            } else {
+                // Las marcaciones en vivo también escriben en el índice en construcción
+                lock.writeLock().lock();
+                try {
+                    destino.agregar(empleadoId, fechaHora.toLocalDate(), tipo, estadoMarcacion);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            filas[0]++;
+        }));
+        return filas[0];
+    }
+
+    private MapaBitsComprimido activos() {
+        MapaBitsComprimido actuales = activos;
+        if (actuales != null) {
+            return actuales;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(ACTIVOS_SQL, Long.class);
+        lock.writeLock().lock();
+        try {
+            MapaBitsComprimido nuevos = new MapaBitsComprimido();
+            for (Long id : ids) {
+                nuevos.agregar(indice.ordinal(id));
+            }
+            activos = nuevos;
+            return nuevos;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private MapaBitsComprimido evaluar(ExpresionIndiceDTO expresion, MapaBitsComprimido universo) {
+        if (!expresion.esHoja()) {
+            ExpresionIndiceDTO.Operacion operacion = expresion.getOperacion() != null
+                    ? expresion.getOperacion() : ExpresionIndiceDTO.Operacion.AND;
+            List<ExpresionIndiceDTO> args = expresion.getArgs();
+            MapaBitsComprimido resultado = evaluar(args.get(0), universo);
+            for (int i = 1; i < args.size(); i++) {
+                MapaBitsComprimido siguiente = evaluar(args.get(i), universo);
+                resultado = switch (operacion) {
+                    case AND -> resultado.and(siguiente);
+                    case OR -> resultado.or(siguiente);
+                    case ANDNOT -> resultado.andNot(siguiente);
+                };
+            }
+            return resultado;
+        }
+
+        ExpresionIndiceDTO.Operacion operacion = expresion.getOperacion() != null
+                ? expresion.getOperacion() : ExpresionIndiceDTO.Operacion.OR;
+        if (operacion == ExpresionIndiceDTO.Operacion.ANDNOT) {
+            throw new IllegalArgumentException("ANDNOT combina subexpresiones; los días de una condición se combinan con AND u OR");
+        }
+        MapaBitsComprimido resultado = null;
+        for (LocalDate dia : dias(expresion)) {
+            MapaBitsComprimido delDia = mapaDelDia(dia, expresion, universo);
+            resultado = resultado == null ? delDia
+                    : operacion == ExpresionIndiceDTO.Operacion.AND ? resultado.and(delDia) : resultado.or(delDia);
+        }
+        return resultado != null ? resultado : MapaBitsComprimido.VACIO;
+    }
+
+    private List<LocalDate> dias(ExpresionIndiceDTO hoja) {
+        if (hoja.getDesde() == null) {
+            throw new IllegalArgumentException("Cada condición necesita la fecha \"desde\"");
+        }
+        LocalDate hasta = hoja.getHasta() != null ? hoja.getHasta() : hoja.getDesde();
+        if (hasta.isBefore(hoja.getDesde())) {
+            throw new IllegalArgumentException("La fecha \"hasta\" no puede ser anterior a \"desde\"");
+        }
+        if (ChronoUnit.DAYS.between(hoja.getDesde(), hasta) >= maxDiasConsulta) {
+            throw new IllegalArgumentException("Una condición no puede abarcar más de " + maxDiasConsulta + " días");
+        }
+        List<LocalDate> dias = new ArrayList<>();
+        for (LocalDate dia = hoja.getDesde(); !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            if (hoja.getDiasSemana() == null || hoja.getDiasSemana().isEmpty()
+                    || hoja.getDiasSemana().contains(dia.getDayOfWeek())) {
+                dias.add(dia);
+            }
+        }
+        return dias;
+    }
+
+    /**
+     * Empleados que cumplen la condición de la hoja en un día (o los activos que no, si es de ausencia)
+     */
+    private MapaBitsComprimido mapaDelDia(LocalDate dia, ExpresionIndiceDTO hoja, MapaBitsComprimido universo) {
+        MapaBitsComprimido[] mapas = indice.porDia.get(dia);
+        MapaBitsComprimido cumplen;
+        if (mapas == null) {
+            cumplen = MapaBitsComprimido.VACIO;
+        } else if (hoja.getTipo() != null && hoja.getEstado() != null) {
+            cumplen = mapas[hoja.getTipo().ordinal()].and(mapas[TIPOS.length + hoja.getEstado().ordinal()]);
+        } else if (hoja.getTipo() != null) {
+            cumplen = mapas[hoja.getTipo().ordinal()];
+        } else if (hoja.getEstado() != null) {
+            cumplen = mapas[TIPOS.length + hoja.getEstado().ordinal()];
+        } else {
+            cumplen = MapaBitsComprimido.VACIO;
+            for (int tipo = 0; tipo < TIPOS.length; tipo++) {
+                cumplen = cumplen.or(mapas[tipo]);
+            }
+        }
+        return hoja.isAusente() ? universo.andNot(cumplen) : cumplen;
+    }
+
+    private static Indice leer(Path ruta) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(ruta)))) {
+            int version = entrada.readInt();
+            if (version != VERSION_ARCHIVO) {
+                throw new IOException("Versión de archivo no soportada: " + version);
+            }
+            Indice leido = new Indice();
+            leido.guardadoEn = LocalDateTime.parse(entrada.readUTF());
+            int ordinales = entrada.readInt();
+            for (int ordinal = 0; ordinal < ordinales; ordinal++) {
+                leido.ordinal(entrada.readLong());
+            }
+            int dias = entrada.readInt();
+            for (int i = 0; i < dias; i++) {
+                MapaBitsComprimido[] mapas = new MapaBitsComprimido[CLAVES];
+                LocalDate dia = LocalDate.ofEpochDay(entrada.readLong());
+                for (int clave = 0; clave < CLAVES; clave++) {
+                    mapas[clave] = MapaBitsComprimido.leer(entrada);
+                }
+                leido.porDia.put(dia, mapas);
+            }
+            return leido;
+        }
+    }
+
+    /**
+     * Mapas por día y ordinales de empleados; se accede bajo el lock del servicio
+     */
+    private static final class Indice {
+        private final Map<LocalDate, MapaBitsComprimido[]> porDia = new HashMap<>();
+        private final Map<Long, Integer> ordinales = new HashMap<>();
+        private long[] empleados = new long[1024];
+        private int totalOrdinales;
+        private LocalDateTime guardadoEn;
+        private boolean modificado;
+
+        int ordinal(long empleadoId) {
+            Integer ordinal = ordinales.get(empleadoId);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            if (totalOrdinales == empleados.length) {
+                empleados = Arrays.copyOf(empleados, empleados.length * 2);
+            }
+            empleados[totalOrdinales] = empleadoId;
+            ordinales.put(empleadoId, totalOrdinales);
+            return totalOrdinales++;
+        }
+
+        void agregar(long empleadoId, LocalDate dia, TipoMarcacion tipo, EstadoMarcacion estado) {
+            MapaBitsComprimido[] mapas = porDia.computeIfAbsent(dia, d -> {
+                MapaBitsComprimido[] nuevos = new MapaBitsComprimido[CLAVES];
+                for (int clave = 0; clave < CLAVES; clave++) {
+                    nuevos[clave] = new MapaBitsComprimido();
+                }
+                return nuevos;
+            });
+            int ordinal = ordinal(empleadoId);
+            boolean nuevo = mapas[tipo.ordinal()].agregar(ordinal);
+            if (estado != null) {
+                nuevo |= mapas[TIPOS.length + estado.ordinal()].agregar(ordinal);
+            }
+            modificado |= nuevo;
+        }
+    }
+}
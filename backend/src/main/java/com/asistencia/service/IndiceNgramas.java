@@ -0,0 +1,121 @@
+package com.asistencia.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Índice inmutable de trigramas para buscar subcadenas en textos cortos (nombres).
+ * Los textos se normalizan sin tildes ni mayúsculas; los candidatos salen de la lista
+ * del trigrama menos frecuente del término y se confirman con contains.
+ */
+class IndiceNgramas {
+
+    private static final int N = 3;
+    private static final long[] VACIO = new long[0];
+
+    private final Map<Long, String> textos;
+    private final Map<String, long[]> posiciones = new HashMap<>();
+
+    IndiceNgramas(Map<Long, String> textosPorId) {
+        textos = new HashMap<>(textosPorId.size() * 2);
+        Map<String, List<Long>> listas = new HashMap<>();
+        textosPorId.forEach((id, texto) -> {
+            String normalizado = normalizar(texto);
+            textos.put(id, normalizado);
+            for (String ngrama : ngramas(normalizado)) {
+                List<Long> ids = listas.computeIfAbsent(ngrama, clave -> new ArrayList<>());
+                if (ids.isEmpty() || !ids.get(ids.size() - 1).equals(id)) {
+                    ids.add(id);
+                }
+            }
+        });
+        listas.forEach((ngrama, ids) -> posiciones.put(ngrama, ids.stream().mapToLong(Long::longValue).toArray()));
+    }
+
+    /**
+     * IDs cuyo texto contiene el término. Primero las coincidencias al inicio de una palabra,
+     * luego las más cercanas al comienzo y, a igualdad, los textos más cortos.
+     */
+    List<Long> buscar(String termino, int limite) {
+        String normalizado = termino != null ? normalizar(termino) : "";
+        if (normalizado.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        if (normalizado.length() < N) {
+            // Términos de una o dos letras: no hay trigramas, se recorre todo (pocos registros)
+            textos.forEach((id, texto) -> agregarSiContiene(coincidencias, id, texto, normalizado));
+        } else {
+            for (long id : candidatos(normalizado)) {
+                agregarSiContiene(coincidencias, id, textos.get(id), normalizado);
+            }
+        }
+
+        return coincidencias.stream()
+                .sorted(Comparator.comparing(Coincidencia::inicioDePalabra).reversed()
+                        .thenComparingInt(Coincidencia::posicion)
+                        .thenComparingInt(coincidencia -> coincidencia.texto().length())
+                        .thenComparing(Coincidencia::texto))
+                .limit(limite)
+                .map(Coincidencia::id)
+                .toList();
+    }
+
+    int size() {
+        return textos.size();
+    }
+
+    /**
+     * Minúsculas, sin tildes ni diéresis y con espacios simples (ñ se trata como n, igual que unaccent)
+     */
+    static String normalizar(String texto) {
+        return Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .trim()
+                .replaceAll("\\s+", " ");
+    }
+
+    private long[] candidatos(String termino) {
+        long[] menor = null;
+        for (String ngrama : ngramas(termino)) {
+            long[] ids = posiciones.getOrDefault(ngrama, VACIO);
+            if (menor == null || ids.length < menor.length) {
+                menor = ids;
+            }
+            if (menor.length == 0) {
+                break;
+            }
+        }
+        return menor;
+    }
+
+    private static List<String> ngramas(String texto) {
+        List<String> ngramas = new ArrayList<>(Math.max(0, texto.length() - N + 1));
+        for (int i = 0; i + N <= texto.length(); i++) {
+            ngramas.add(texto.substring(i, i + N));
+        }
+        return ngramas;
+    }
+
+    private static void agregarSiContiene(List<Coincidencia> coincidencias, long id, String texto, String termino) {
+        int enPalabra = texto.startsWith(termino) ? 0 : texto.indexOf(" " + termino);
+        if (enPalabra >= 0) {
+            coincidencias.add(new Coincidencia(id, texto, enPalabra, true));
+            return;
+        }
+        int posicion = texto.indexOf(termino);
+        if (posicion >= 0) {
+            coincidencias.add(new Coincidencia(id, texto, posicion, false));
+        }
+    }
+
+    private record Coincidencia(long id, String texto, int posicion, boolean inicioDePalabra) {
+    }
+}
@@ -0,0 +1,337 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.entity.TipoEventoOutbox;
+import com.asistencia.entity.TipoMarcacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Recibe las marcaciones que los lectores ZKTeco suben por el protocolo push (ADMS, /iclock/cdata),
+ * sin pasar por el JSON de la marcación pública una a una.
+ * Cada lote ATTLOG se lee en su lugar (LectorAttlog) y se procesa con pocas consultas:
+ * - resuelve los PIN (DNI) de todo el lote en una consulta por bloque;
+ * - clasifica cada marcación con su propia hora (el lector pudo acumularlas sin red);
+ * - descarta las duplicadas (mismo tipo a 5 minutos o menos) frente a la base de datos y al propio lote,
+ *   así un lote reenviado no duplica nada;
+ * - inserta las nuevas con un JDBC batch en la misma transacción que el Stamp del lector,
+ *   con la fila del lector bloqueada para que dos lotes del mismo lector no se crucen.
+ * El Stamp guardado se devuelve al lector al conectarse para que suba solo los registros posteriores.
+ */
+@Service
+@ConditionalOnProperty(prefix = "asistencia.iclock", name = "enabled", havingValue = "true")
+public class IngestaIclockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestaIclockService.class);
+
+    private static final int MINUTOS_DUPLICADO = 5;
+
+    private static final String EMPLEADOS_SQL =
+            "SELECT id, dni, nombres, apellidos, area, cargo FROM empleados WHERE dni IN (%s)";
+    private static final String EXISTENTES_SQL = "SELECT empleado_id, tipo, fecha_hora FROM asistencias " +
+            "WHERE empleado_id IN (%s) AND fecha_hora BETWEEN ? AND ?";
+    private static final String STAMP_SQL = "SELECT attlog_stamp FROM dispositivos_iclock WHERE sn = ?";
+    private static final String CONEXION_SQL =
+            "UPDATE dispositivos_iclock SET ultima_conexion = ?, ultima_ip = ? WHERE sn = ?";
+    private static final String BLOQUEO_SQL = "SELECT attlog_stamp FROM dispositivos_iclock WHERE sn = ? FOR UPDATE";
+    // Un lote tardío o reintentado no hace retroceder el Stamp
+    private static final String LOTE_SQL = "UPDATE dispositivos_iclock SET " +
+            "attlog_stamp = GREATEST(attlog_stamp, COALESCE(?, attlog_stamp)), " +
+            "registros_recibidos = registros_recibidos + ?, ultima_conexion = ? WHERE sn = ?";
+    private static final String ALTA_SQL =
+            "INSERT INTO dispositivos_iclock (sn, attlog_stamp, registros_recibidos, ultima_conexion, ultima_ip) " +
+            "VALUES (?, 0, 0, ?, ?)";
+
+    /**
+     * Registros de un lote: leídos, registrados, duplicados, de PIN desconocido y líneas mal formadas
+     */
+    public record ResultadoIngesta(int leidos, int registrados, int duplicados, int desconocidos, int malformados) {
+    }
+
+    private record Registro(String pin, LocalDateTime fechaHora) {
+    }
+
+    private record Empleado(long id, String dni, String nombreCompleto, String area, String cargo) {
+    }
+
+    private record Marca(Empleado empleado, LocalDateTime fechaHora, MotorHorarios.Clasificacion clasificacion) {
+    }
+
+    private record Existente(TipoMarcacion tipo, LocalDateTime fechaHora) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MotorHorarios motorHorarios;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired(required = false)
+    private FiltroDniService filtroDni;
+
+    // Solo presente con asistencia.outbox.enabled=true
+    @Autowired(required = false)
+    private OutboxService outboxService;
+
+    @Autowired(required = false)
+    private MarcacionWriteBehindService writeBehindService;
+
+    @Value("${asistencia.iclock.dispositivos:}")
+    private Set<String> dispositivos = Set.of();
+
+    @Value("${asistencia.iclock.delay-segundos:10}")
+    private int delaySegundos = 10;
+
+    @Value("${asistencia.iclock.tamano-bloque:500}")
+    private int tamanoBloque = 500;
+
+    @Value("${asistencia.iclock.max-cuerpo-bytes:1048576}")
+    private int maxCuerpoBytes = 1_048_576;
+
+    public IngestaIclockService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                MotorHorarios motorHorarios,
+                                ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.motorHorarios = motorHorarios;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Solo se aceptan los números de serie configurados en asistencia.iclock.dispositivos
+     */
+    public boolean autorizado(String sn) {
+        return sn != null && dispositivos.contains(sn);
+    }
+
+    /**
+     * Respuesta al saludo del lector (GET /iclock/cdata?SN=...&options=all): el Stamp desde el que debe
+     * subir las marcaciones y cada cuánto consultar. Los registros de operación y fotos no se piden.
+     */
+    public String opciones(String sn, String ip) {
+        long stamp = registrarConexion(sn, ip);
+        return "GET OPTION FROM: " + sn + "\n" +
+                "ATTLOGStamp=" + stamp + "\n" +
+                "OPERLOGStamp=9999\n" +
+                "ATTPHOTOStamp=None\n" +
+                "ErrorDelay=30\n" +
+                "Delay=" + delaySegundos + "\n" +
+                "TransTimes=00:00;14:05\n" +
+                "TransInterval=1\n" +
+                "TransFlag=TransData AttLog\n" +
+                "Realtime=1\n" +
+                "Encrypt=None\n";
+    }
+
+    /**
+     * Registra las marcaciones de un lote ATTLOG y guarda su Stamp (null si el lector no lo envía)
+     */
+    public ResultadoIngesta ingerirAttlog(String sn, Long stamp, byte[] cuerpo) {
+        long inicio = System.currentTimeMillis();
+        List<Registro> registros = new ArrayList<>();
+        int malformados = LectorAttlog.leer(cuerpo, (pin, fechaHora, estado, verificacion) ->
+                registros.add(new Registro(pin, fechaHora)));
+
+        // El filtro de DNIs descarta sin consultar los PIN que no son de ningún empleado
+        Set<String> pines = new HashSet<>();
+        registros.forEach(registro -> pines.add(registro.pin()));
+        if (filtroDni != null) {
+            pines.removeIf(pin -> !filtroDni.puedeExistir(pin));
+        }
+        Map<String, Empleado> empleados = buscarEmpleados(pines);
+
+        List<Marca> marcas = new ArrayList<>(registros.size());
+        for (Registro registro : registros) {
+            Empleado empleado = empleados.get(registro.pin());
+            if (empleado != null) {
+                marcas.add(new Marca(empleado, registro.fechaHora(),
+                        motorHorarios.clasificar(empleado.id(), empleado.area(), registro.fechaHora())));
+            }
+        }
+        int desconocidos = registros.size() - marcas.size();
+        // En orden por empleado y hora: de dos duplicadas se conserva la primera
+        marcas.sort(Comparator.comparingLong((Marca marca) -> marca.empleado().id()).thenComparing(Marca::fechaHora));
+
+        // Fuera de la transacción: en PostgreSQL un alta duplicada la dejaría abortada
+        asegurarDispositivo(sn, null);
+        List<Marca> nuevas = transactionTemplate.execute(status -> {
+            // Serializa los lotes del mismo lector: un reintento espera al lote en curso y ve sus filas
+            jdbcTemplate.queryForList(BLOQUEO_SQL, Long.class, sn);
+            List<Marca> sinDuplicados = descartarDuplicadas(marcas);
+            insertar(sinDuplicados);
+            jdbcTemplate.update(LOTE_SQL, stamp, sinDuplicados.size(), Timestamp.valueOf(LocalDateTime.now()), sn);
+            return sinDuplicados;
+        });
+
+        ResultadoIngesta resultado = new ResultadoIngesta(registros.size(), nuevas.size(),
+                marcas.size() - nuevas.size(), desconocidos, malformados);
+        logger.info("Lote ATTLOG de {} (Stamp {}): {} en {} ms", sn, stamp, resultado, System.currentTimeMillis() - inicio);
+        return resultado;
+    }
+
+    /**
+     * Tamaño máximo de un lote ATTLOG; el controlador rechaza los mayores sin leerlos completos
+     */
+    public int getMaxCuerpoBytes() {
+        return maxCuerpoBytes;
+    }
+
+    /**
+     * Último Stamp de ATTLOG recibido del lector (0 si nunca subió marcaciones)
+     */
+    public long getStamp(String sn) {
+        List<Long> stamps = jdbcTemplate.queryForList(STAMP_SQL, Long.class, sn);
+        return stamps.isEmpty() ? 0 : stamps.get(0);
+    }
+
+    private long registrarConexion(String sn, String ip) {
+        asegurarDispositivo(sn, ip);
+        jdbcTemplate.update(CONEXION_SQL, Timestamp.valueOf(LocalDateTime.now()), ip, sn);
+        return getStamp(sn);
+    }
+
+    private void asegurarDispositivo(String sn, String ip) {
+        if (!jdbcTemplate.queryForList(STAMP_SQL, Long.class, sn).isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(ALTA_SQL, sn, Timestamp.valueOf(LocalDateTime.now()), ip);
+            logger.info("Lector ZKTeco {} registrado", sn);
+        } catch (DuplicateKeyException e) {
+            // Otra petición del mismo lector lo registró a la vez
+        }
+    }
+
+    private Map<String, Empleado> buscarEmpleados(Collection<String> pines) {
+        Map<String, Empleado> empleados = new HashMap<>();
+        for (List<String> bloque : bloques(pines)) {
+            jdbcTemplate.query(String.format(EMPLEADOS_SQL, marcadores(bloque.size())), rs -> {
+                Empleado empleado = new Empleado(rs.getLong(1), rs.getString(2),
+                        rs.getString(3) + " " + rs.getString(4), rs.getString(5), rs.getString(6));
+                empleados.put(empleado.dni(), empleado);
+            }, bloque.toArray());
+        }
+        return empleados;
+    }
+
+    /**
+     * Quita las marcaciones con otra del mismo tipo y empleado a MINUTOS_DUPLICADO o menos,
+     * ya registrada, pendiente de escritura o anterior en el lote
+     */
+    private List<Marca> descartarDuplicadas(List<Marca> marcas) {
+        if (marcas.isEmpty()) {
+            return marcas;
+        }
+        LocalDateTime desde = marcas.stream().map(Marca::fechaHora).min(Comparator.naturalOrder()).orElseThrow()
+                .minusMinutes(MINUTOS_DUPLICADO);
+        LocalDateTime hasta = marcas.stream().map(Marca::fechaHora).max(Comparator.naturalOrder()).orElseThrow()
+                .plusMinutes(MINUTOS_DUPLICADO);
+        Set<Long> ids = new HashSet<>();
+        marcas.forEach(marca -> ids.add(marca.empleado().id()));
+
+        Map<Long, List<Existente>> existentes = new HashMap<>();
+        for (List<Long> bloque : bloques(ids)) {
+            List<Object> parametros = new ArrayList<>(bloque);
+            parametros.add(Timestamp.valueOf(desde));
+            parametros.add(Timestamp.valueOf(hasta));
+            jdbcTemplate.query(String.format(EXISTENTES_SQL, marcadores(bloque.size())), rs -> {
+                existentes.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(new Existente(
+                        TipoMarcacion.valueOf(rs.getString(2)), rs.getTimestamp(3).toLocalDateTime()));
+            }, parametros.toArray());
+        }
+
+        List<Marca> nuevas = new ArrayList<>(marcas.size());
+        for (Marca marca : marcas) {
+            TipoMarcacion tipo = marca.clasificacion().tipo();
+            List<Existente> delEmpleado = existentes.computeIfAbsent(marca.empleado().id(), id -> new ArrayList<>());
+            boolean duplicada = delEmpleado.stream().anyMatch(existente -> existente.tipo() == tipo
+                    && Math.abs(Duration.between(existente.fechaHora(), marca.fechaHora()).toMinutes())
+                    <= MINUTOS_DUPLICADO);
+            if (!duplicada && writeBehindService != null) {
+                duplicada = writeBehindService.existePendienteReciente(marca.empleado().id(), tipo,
+                        marca.fechaHora().minusMinutes(MINUTOS_DUPLICADO), marca.fechaHora().plusMinutes(MINUTOS_DUPLICADO));
+            }
+            if (!duplicada) {
+                nuevas.add(marca);
+                delEmpleado.add(new Existente(tipo, marca.fechaHora()));
+            }
+        }
+        return nuevas;
+    }
+
+    /**
+     * Inserta las marcaciones con un JDBC batch, registra sus eventos de outbox y publica
+     * MarcacionRegistradaEvent (los listeners lo reciben tras el commit)
+     */
+    private void insertar(List<Marca> marcas) {
+        if (marcas.isEmpty()) {
+            return;
+        }
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<AsistenciaDTO> asistencias = new ArrayList<>(marcas.size());
+        for (Marca marca : marcas) {
+            AsistenciaDTO asistencia = new AsistenciaDTO(marca.empleado().id(), marca.fechaHora(),
+                    marca.clasificacion().tipo(), marca.clasificacion().estado());
+            asistencia.setEmpleadoDni(marca.empleado().dni());
+            asistencia.setEmpleadoNombre(marca.empleado().nombreCompleto());
+            asistencia.setObservaciones(AsistenciaService.observaciones(marca.clasificacion()));
+            asistencia.setFechaCreacion(ahora.toLocalDateTime());
+            asistencias.add(asistencia);
+        }
+        for (List<AsistenciaDTO> bloque : bloques(asistencias)) {
+            List<Long> ids = MarcacionWriteBehindService.insertarConIds(jdbcTemplate, bloque, (ps, asistencia) -> {
+                ps.setLong(1, asistencia.getEmpleadoId());
+                ps.setTimestamp(2, Timestamp.valueOf(asistencia.getFechaHora()));
+                ps.setString(3, asistencia.getTipo().name());
+                ps.setString(4, asistencia.getEstado() != null ? asistencia.getEstado().name() : null);
+                ps.setString(5, asistencia.getObservaciones());
+                ps.setTimestamp(6, ahora);
+            });
+            for (int i = 0; i < bloque.size(); i++) {
+                bloque.get(i).setId(ids.get(i));
+            }
+        }
+        if (outboxService != null) {
+            outboxService.registrarLote(TipoEventoOutbox.ASISTENCIA_REGISTRADA, asistencias);
+        }
+        for (int i = 0; i < marcas.size(); i++) {
+            Empleado empleado = marcas.get(i).empleado();
+            eventPublisher.publishEvent(new MarcacionRegistradaEvent(asistencias.get(i), empleado.area(), empleado.cargo()));
+        }
+    }
+
+    private <T> List<List<T>> bloques(Collection<T> valores) {
+        List<T> lista = new ArrayList<>(valores);
+        List<List<T>> bloques = new ArrayList<>();
+        for (int i = 0; i < lista.size(); i += tamanoBloque) {
+            bloques.add(lista.subList(i, Math.min(lista.size(), i + tamanoBloque)));
+        }
+        return bloques;
+    }
+
+    private static String marcadores(int cantidad) {
+        return String.join(",", Collections.nCopies(cantidad, "?"));
+    }
+}
@@ -0,0 +1,272 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.Horario;
+import com.asistencia.entity.TipoMarcacion;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ventanas de marcación de un turno (o del horario general) sobre la semana, en segundos desde el lunes 00:00.
+ * Cada horario aporta una ventana por día en que aplica; las nocturnas terminan al día siguiente.
+ * Las ventanas se repiten una semana antes y una después, así una marcación del lunes temprano
+ * ve la ventana nocturna que empezó el domingo sin casos especiales.
+ * Las jornadas se cuentan desde las ventanas de entrada: cada una abre la jornada de su día,
+ * que dura hasta la siguiente (como máximo un día) e incluye la salida nocturna del día siguiente.
+ */
+final class IntervalosHorario {
+
+    static final int DIA = 24 * 60 * 60;
+    static final int SEMANA = 7 * DIA;
+
+    /** Distancia máxima al centro de una ventana para asignar su tipo a una marcación fuera de rango */
+    static final int DISTANCIA_MAXIMA = 2 * 60 * 60;
+
+    static final IntervalosHorario VACIO = new IntervalosHorario(List.of());
+
+    // Ordenados por inicio; finMaximo[i] es el mayor fin entre 0..i, para cortar la búsqueda hacia atrás
+    private final int[] inicios;
+    private final int[] fines;
+    private final int[] finMaximo;
+    private final TipoMarcacion[] tipos;
+
+    // Centros de las mismas ventanas, ordenados, con la posición de su ventana
+    private final int[] centros;
+    private final int[] ventanaDelCentro;
+
+    // Ventanas de entrada y de salida por separado, ordenadas por inicio, para ubicar las jornadas
+    private final int[] entradasInicio;
+    private final int[] entradasFin;
+    private final int[] salidasInicio;
+    private final int[] salidasFin;
+
+    IntervalosHorario(Collection<Horario> horarios) {
+        List<Ventana> ventanas = new ArrayList<>();
+        for (Horario horario : horarios) {
+            for (Ventana ventana : ventanas(horario)) {
+                ventanas.add(ventana.desplazada(-SEMANA));
+                ventanas.add(ventana);
+                ventanas.add(ventana.desplazada(SEMANA));
+            }
+        }
+        ventanas.sort(Comparator.comparingInt(Ventana::inicio).thenComparingInt(Ventana::fin));
+
+        int total = ventanas.size();
+        inicios = new int[total];
+        fines = new int[total];
+        finMaximo = new int[total];
+        tipos = new TipoMarcacion[total];
+        for (int i = 0; i < total; i++) {
+            Ventana ventana = ventanas.get(i);
+            inicios[i] = ventana.inicio();
+            fines[i] = ventana.fin();
+            finMaximo[i] = i == 0 ? ventana.fin() : Math.max(finMaximo[i - 1], ventana.fin());
+            tipos[i] = ventana.tipo();
+        }
+
+        Integer[] porCentro = new Integer[total];
+        for (int i = 0; i < total; i++) {
+            porCentro[i] = i;
+        }
+        Arrays.sort(porCentro, Comparator.comparingInt(this::centro).thenComparingInt(i -> i));
+        centros = new int[total];
+        ventanaDelCentro = new int[total];
+        for (int i = 0; i < total; i++) {
+            centros[i] = centro(porCentro[i]);
+            ventanaDelCentro[i] = porCentro[i];
+        }
+
+        List<Ventana> entradas = ventanas.stream().filter(ventana -> ventana.tipo() == TipoMarcacion.ENTRADA).toList();
+        List<Ventana> salidas = ventanas.stream().filter(ventana -> ventana.tipo() == TipoMarcacion.SALIDA).toList();
+        entradasInicio = entradas.stream().mapToInt(Ventana::inicio).toArray();
+        entradasFin = entradas.stream().mapToInt(Ventana::fin).toArray();
+        salidasInicio = salidas.stream().mapToInt(Ventana::inicio).toArray();
+        salidasFin = salidas.stream().mapToInt(Ventana::fin).toArray();
+    }
+
+    /**
+     * Tipo y estado de una marcación: puntual dentro de una ventana (la que empezó más tarde si hay varias),
+     * tardanza si está a menos de dos horas del centro de una ventana y fuera de horario en otro caso
+     */
+    MotorHorarios.Clasificacion clasificar(LocalDateTime momento) {
+        int segundo = segundoDeLaSemana(momento);
+
+        for (int i = ultimoHasta(inicios, segundo); i >= 0 && finMaximo[i] >= segundo; i--) {
+            if (fines[i] >= segundo) {
+                return new MotorHorarios.Clasificacion(tipos[i], EstadoMarcacion.PUNTUAL, 0);
+            }
+        }
+
+        int cercana = masCercana(segundo);
+        if (cercana < 0) {
+            return MotorHorarios.Clasificacion.FUERA_DE_HORARIO;
+        }
+        int diferencia = segundo < inicios[cercana] ? inicios[cercana] - segundo : segundo - fines[cercana];
+        return new MotorHorarios.Clasificacion(tipos[cercana], EstadoMarcacion.TARDANZA, diferencia / 60);
+    }
+
+    /**
+     * Jornada de una marcación: la de la última entrada que empieza a lo sumo DISTANCIA_MAXIMA después,
+     * si empezó hace menos de un día; si no hay ninguna, el día calendario de la marcación
+     */
+    MotorHorarios.Jornada jornada(LocalDateTime momento) {
+        int segundo = segundoDeLaSemana(momento);
+        int entrada = ultimoHasta(entradasInicio, segundo + DISTANCIA_MAXIMA);
+        if (entrada < 0 || segundo - entradasInicio[entrada] >= DIA) {
+            return MotorHorarios.Jornada.calendario(momento.toLocalDate());
+        }
+        // En un turno partido la primera entrada del día abre la jornada
+        while (entrada > 0 && mismoDia(entradasInicio[entrada - 1], entradasInicio[entrada])) {
+            entrada--;
+        }
+        return jornadaDesde(lunesDe(momento.toLocalDate()), entrada);
+    }
+
+    /**
+     * Jornada que empieza el día indicado, o null si ninguna entrada aplica ese día
+     * Sin ventanas de entrada no hay horario que seguir y la jornada es el día calendario
+     */
+    MotorHorarios.Jornada jornadaDel(LocalDate fecha) {
+        if (entradasInicio.length == 0) {
+            return MotorHorarios.Jornada.calendario(fecha);
+        }
+        int inicioDelDia = (fecha.getDayOfWeek().getValue() - 1) * DIA;
+        int entrada = ultimoHasta(entradasInicio, inicioDelDia - 1) + 1;
+        if (entrada >= entradasInicio.length || entradasInicio[entrada] >= inicioDelDia + DIA) {
+            return null;
+        }
+        return jornadaDesde(lunesDe(fecha), entrada);
+    }
+
+    /**
+     * Jornada abierta por la entrada indicada: desde DISTANCIA_MAXIMA antes de esa entrada hasta
+     * DISTANCIA_MAXIMA antes de la entrada del siguiente día con jornada, como máximo un día.
+     * El límite de salida es el fin de la última ventana de salida que empieza dentro de ella.
+     */
+    private MotorHorarios.Jornada jornadaDesde(LocalDateTime lunes, int entrada) {
+        int inicio = entradasInicio[entrada];
+        int siguiente = entrada;
+        while (siguiente < entradasInicio.length && mismoDia(entradasInicio[siguiente], inicio)) {
+            siguiente++;
+        }
+        int hasta = inicio + DIA;
+        if (siguiente < entradasInicio.length) {
+            hasta = Math.min(hasta, entradasInicio[siguiente] - DISTANCIA_MAXIMA);
+        }
+        int salida = ultimoHasta(salidasInicio, hasta - 1);
+        LocalDateTime limiteSalida = salida >= 0 && salidasInicio[salida] >= inicio
+                ? lunes.plusSeconds(salidasFin[salida]) : null;
+        LocalDateTime apertura = lunes.plusSeconds(inicio);
+        return new MotorHorarios.Jornada(apertura.toLocalDate(), apertura.minusSeconds(DISTANCIA_MAXIMA),
+                lunes.plusSeconds(hasta), lunes.plusSeconds(entradasFin[entrada]), limiteSalida);
+    }
+
+    private static boolean mismoDia(int unSegundo, int otroSegundo) {
+        return Math.floorDiv(unSegundo, DIA) == Math.floorDiv(otroSegundo, DIA);
+    }
+
+    private static LocalDateTime lunesDe(LocalDate fecha) {
+        return fecha.minusDays(fecha.getDayOfWeek().getValue() - 1).atStartOfDay();
+    }
+
+    int size() {
+        return inicios.length / 3;
+    }
+
+    /**
+     * Indica si dos horarios comparten algún instante de la semana (los extremos cuentan)
+     */
+    static boolean seSolapan(Horario uno, Horario otro) {
+        List<Ventana> otras = ventanas(otro);
+        for (Ventana ventana : ventanas(uno)) {
+            for (Ventana candidata : otras) {
+                for (int desplazamiento = -SEMANA; desplazamiento <= SEMANA; desplazamiento += SEMANA) {
+                    if (ventana.inicio() <= candidata.fin() + desplazamiento
+                            && candidata.inicio() + desplazamiento <= ventana.fin()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    static int segundoDeLaSemana(LocalDateTime momento) {
+        return (momento.getDayOfWeek().getValue() - 1) * DIA + momento.toLocalTime().toSecondOfDay();
+    }
+
+    private static List<Ventana> ventanas(Horario horario) {
+        int inicio = horario.getHoraInicio().toSecondOfDay();
+        int duracion = horario.getHoraFin().toSecondOfDay() - inicio;
+        if (horario.cruzaMedianoche()) {
+            duracion += DIA;
+        }
+        List<Ventana> ventanas = new ArrayList<>(7);
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            if (horario.aplicaEl(dia)) {
+                int desde = (dia.getValue() - 1) * DIA + inicio;
+                ventanas.add(new Ventana(desde, desde + duracion, horario.getTipo()));
+            }
+        }
+        return ventanas;
+    }
+
+    private int centro(int ventana) {
+        return inicios[ventana] + (fines[ventana] - inicios[ventana]) / 2;
+    }
+
+    /**
+     * Posición de la última ventana que empieza en o antes del segundo (-1 si no hay)
+     */
+    private static int ultimoHasta(int[] inicios, int segundo) {
+        int desde = 0;
+        int hasta = inicios.length;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (inicios[medio] <= segundo) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        return desde - 1;
+    }
+
+    /**
+     * Ventana con el centro más cercano dentro de DISTANCIA_MAXIMA (-1 si no hay); en empate, la más temprana
+     */
+    private int masCercana(int segundo) {
+        int desde = 0;
+        int hasta = centros.length;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (centros[medio] < segundo) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        int mejor = -1;
+        long menorDistancia = Long.MAX_VALUE;
+        for (int i = desde - 1; i <= desde; i++) {
+            if (i >= 0 && i < centros.length && Math.abs(centros[i] - segundo) < menorDistancia) {
+                menorDistancia = Math.abs(centros[i] - segundo);
+                mejor = i;
+            }
+        }
+        return mejor >= 0 && menorDistancia <= DISTANCIA_MAXIMA ? ventanaDelCentro[mejor] : -1;
+    }
+
+    private record Ventana(int inicio, int fin, TipoMarcacion tipo) {
+        Ventana desplazada(int segundos) {
+            return new Ventana(inicio + segundos, fin + segundos, tipo);
+        }
+    }
+}
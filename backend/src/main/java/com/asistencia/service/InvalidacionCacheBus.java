@@ -0,0 +1,20 @@
+package com.asistencia.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal que difunde eventos de invalidación de caché entre instancias del backend.
+ * La implementación se elige con asistencia.cache.bus (local o postgres).
+ */
+public interface InvalidacionCacheBus {
+    
+    /**
+     * Envía el evento a las demás instancias
+     */
+    void publicar(EventoInvalidacion evento);
+    
+    /**
+     * Registra quién procesa los eventos recibidos de otras instancias
+     */
+    void setReceptor(Consumer<EventoInvalidacion> receptor);
+}
@@ -0,0 +1,114 @@
+package com.asistencia.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Invalida las cachés locales y difunde el cambio al resto de instancias.
+ * Otros componentes con estado en memoria pueden suscribirse para reaccionar a los cambios.
+ */
+@Service
+public class InvalidacionCacheService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InvalidacionCacheService.class);
+    
+    private final CacheManager cacheManager;
+    private final InvalidacionCacheBus bus;
+    private final String nodoId = UUID.randomUUID().toString();
+    private final List<Consumer<EventoInvalidacion>> suscriptores = new CopyOnWriteArrayList<>();
+    
+    public InvalidacionCacheService(CacheManager cacheManager, InvalidacionCacheBus bus) {
+        this.cacheManager = cacheManager;
+        this.bus = bus;
+        bus.setReceptor(this::recibir);
+    }
+    
+    /**
+     * Invalida las claves indicadas (o toda la entidad si no se indican) tras el commit
+     */
+    public void invalidar(EventoInvalidacion.Entidad entidad, String... claves) {
+        List<EventoInvalidacion> eventos = new ArrayList<>();
+        if (claves.length == 0) {
+            eventos.add(new EventoInvalidacion(entidad, null, nodoId));
+        } else {
+            Arrays.stream(claves)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(clave -> eventos.add(new EventoInvalidacion(entidad, clave, nodoId)));
+        }
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Antes del commit otra lectura podría volver a cargar el valor anterior
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventos.forEach(InvalidacionCacheService.this::aplicarYPublicar);
+                }
+            });
+        } else {
+            eventos.forEach(this::aplicarYPublicar);
+        }
+    }
+    
+    /**
+     * Registra un componente que debe descartar su estado en memoria ante cambios
+     */
+    public void suscribir(Consumer<EventoInvalidacion> suscriptor) {
+        suscriptores.add(suscriptor);
+    }
+    
+    public String getNodoId() {
+        return nodoId;
+    }
+    
+    private void aplicarYPublicar(EventoInvalidacion evento) {
+        aplicar(evento);
+        try {
+            bus.publicar(evento);
+        } catch (RuntimeException e) {
+            logger.error("No se pudo difundir la invalidación {} a las demás instancias", evento.toPayload(), e);
+        }
+    }
+    
+    private void recibir(EventoInvalidacion evento) {
+        if (nodoId.equals(evento.nodoOrigen())) {
+            return;
+        }
+        logger.debug("Invalidación recibida de otra instancia: {}", evento.toPayload());
+        aplicar(evento);
+    }
+    
+    private void aplicar(EventoInvalidacion evento) {
+        for (String nombre : evento.entidad().getCaches()) {
+            Cache cache = cacheManager.getCache(nombre);
+            if (cache == null) {
+                continue;
+            }
+            if (evento.clave() == null) {
+                cache.clear();
+            } else {
+                cache.evict(evento.clave());
+            }
+        }
+        for (Consumer<EventoInvalidacion> suscriptor : suscriptores) {
+            try {
+                suscriptor.accept(evento);
+            } catch (RuntimeException e) {
+                logger.warn("Error en suscriptor de invalidación: {}", e.getMessage());
+            }
+        }
+    }
+}
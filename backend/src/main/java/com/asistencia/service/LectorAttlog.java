@@ -0,0 +1,135 @@
+package com.asistencia.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * Lee los registros de asistencia (tabla ATTLOG) que sube un lector ZKTeco por el protocolo push (ADMS):
+ * una línea por marcación "PIN\tyyyy-MM-dd HH:mm:ss\testado\tverificación\t...", separadas por \n o \r\n.
+ * Recorre el cuerpo recibido en su lugar, sin copiarlo a un String ni partirlo en líneas: solo crea el PIN
+ * y la fecha de cada registro. Las líneas vacías se saltan y las mal formadas se cuentan.
+ */
+final class LectorAttlog {
+
+    private static final byte TAB = '\t';
+    private static final byte FIN_LINEA = '\n';
+    private static final int LARGO_FECHA = 19;
+    private static final int LARGO_MAXIMO_PIN = 24;
+
+    @FunctionalInterface
+    interface Receptor {
+        void registro(String pin, LocalDateTime fechaHora, int estado, int verificacion);
+    }
+
+    private LectorAttlog() {
+    }
+
+    /**
+     * Entrega cada registro válido al receptor en el orden del cuerpo y devuelve las líneas mal formadas
+     */
+    static int leer(byte[] datos, int desde, int hasta, Receptor receptor) {
+        int malformadas = 0;
+        int inicio = desde;
+        while (inicio < hasta) {
+            int fin = indice(datos, inicio, hasta, FIN_LINEA);
+            int finLinea = fin > inicio && datos[fin - 1] == '\r' ? fin - 1 : fin;
+            if (finLinea > inicio && !leerLinea(datos, inicio, finLinea, receptor)) {
+                malformadas++;
+            }
+            inicio = fin + 1;
+        }
+        return malformadas;
+    }
+
+    static int leer(byte[] datos, Receptor receptor) {
+        return leer(datos, 0, datos.length, receptor);
+    }
+
+    private static boolean leerLinea(byte[] datos, int inicio, int fin, Receptor receptor) {
+        int finPin = indice(datos, inicio, fin, TAB);
+        int largoPin = finPin - inicio;
+        if (finPin == fin || largoPin == 0 || largoPin > LARGO_MAXIMO_PIN) {
+            return false;
+        }
+        int inicioFecha = finPin + 1;
+        int finFecha = indice(datos, inicioFecha, fin, TAB);
+        if (finFecha - inicioFecha != LARGO_FECHA) {
+            return false;
+        }
+        LocalDateTime fechaHora = fecha(datos, inicioFecha);
+        if (fechaHora == null) {
+            return false;
+        }
+        // Estado (0 entrada, 1 salida, ...) y modo de verificación (huella, tarjeta, ...) son opcionales
+        int estado = 0;
+        int verificacion = 0;
+        if (finFecha < fin) {
+            int finEstado = indice(datos, finFecha + 1, fin, TAB);
+            estado = opcional(datos, finFecha + 1, finEstado);
+            if (finEstado < fin) {
+                verificacion = opcional(datos, finEstado + 1, indice(datos, finEstado + 1, fin, TAB));
+            }
+        }
+        if (estado < 0 || verificacion < 0) {
+            return false;
+        }
+        receptor.registro(new String(datos, inicio, largoPin, StandardCharsets.US_ASCII), fechaHora, estado, verificacion);
+        return true;
+    }
+
+    /**
+     * "yyyy-MM-dd HH:mm:ss" desde la posición indicada; null si no es una fecha válida
+     */
+    private static LocalDateTime fecha(byte[] datos, int p) {
+        if (datos[p + 4] != '-' || datos[p + 7] != '-' || datos[p + 10] != ' '
+                || datos[p + 13] != ':' || datos[p + 16] != ':') {
+            return null;
+        }
+        int anio = entero(datos, p, p + 4);
+        int mes = entero(datos, p + 5, p + 7);
+        int dia = entero(datos, p + 8, p + 10);
+        int hora = entero(datos, p + 11, p + 13);
+        int minuto = entero(datos, p + 14, p + 16);
+        int segundo = entero(datos, p + 17, p + 19);
+        if (anio < 0 || mes < 0 || dia < 0 || hora < 0 || minuto < 0 || segundo < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(anio, mes, dia, hora, minuto, segundo);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Entero no negativo de dígitos ASCII; -1 si el campo está vacío o tiene otro carácter
+     */
+    private static int entero(byte[] datos, int desde, int hasta) {
+        if (desde >= hasta || hasta - desde > 9) {
+            return -1;
+        }
+        int valor = 0;
+        for (int i = desde; i < hasta; i++) {
+            int digito = datos[i] - '0';
+            if (digito < 0 || digito > 9) {
+                return -1;
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    private static int opcional(byte[] datos, int desde, int hasta) {
+        return desde == hasta ? 0 : entero(datos, desde, hasta);
+    }
+
+    private static int indice(byte[] datos, int desde, int hasta, byte buscado) {
+        for (int i = desde; i < hasta; i++) {
+            if (datos[i] == buscado) {
+                return i;
+            }
+        }
+        return hasta;
+    }
+}
@@ -0,0 +1,24 @@
+package com.asistencia.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Consumer;
+
+/**
+ * Bus para una sola instancia: la invalidación local basta y no hay nada que difundir
+ */
+@Service
+@ConditionalOnProperty(prefix = "asistencia.cache", name = "bus", havingValue = "local", matchIfMissing = true)
+public class LocalInvalidacionCacheBus implements InvalidacionCacheBus {
+    
+    @Override
+    public void publicar(EventoInvalidacion evento) {
+        // Sin otras instancias
+    }
+    
+    @Override
+    public void setReceptor(Consumer<EventoInvalidacion> receptor) {
+        // Nunca se reciben eventos remotos
+    }
+}
@@ -0,0 +1,397 @@
+package com.asistencia.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Conjunto de enteros no negativos comprimido al estilo Roaring: los valores se agrupan por sus 16 bits altos
+ * y cada grupo se guarda como arreglo ordenado (hasta 4096 valores, 2 bytes cada uno) o como mapa de 65536 bits
+ * (8 KB) cuando es más denso. Las operaciones de conjuntos trabajan grupo a grupo y devuelven mapas nuevos.
+ * No es seguro para hilos: quien lo modifica debe sincronizar.
+ */
+final class MapaBitsComprimido {
+
+    static final MapaBitsComprimido VACIO = new MapaBitsComprimido();
+
+    private static final int MAX_ARREGLO = 4096;
+    private static final int PALABRAS = 1 << 10;
+
+    // Claves (16 bits altos) ordenadas y su contenedor en la misma posición
+    private char[] claves = new char[0];
+    private Contenedor[] contenedores = new Contenedor[0];
+    private int tamano;
+
+    boolean agregar(int valor) {
+        char alto = (char) (valor >>> 16);
+        int posicion = buscar(alto);
+        if (posicion < 0) {
+            posicion = -posicion - 1;
+            insertar(posicion, alto, new Contenedor());
+        }
+        return contenedores[posicion].agregar((char) valor);
+    }
+
+    boolean contiene(int valor) {
+        int posicion = buscar((char) (valor >>> 16));
+        return posicion >= 0 && contenedores[posicion].contiene((char) valor);
+    }
+
+    int cardinalidad() {
+        int total = 0;
+        for (int i = 0; i < tamano; i++) {
+            total += contenedores[i].cardinalidad;
+        }
+        return total;
+    }
+
+    boolean estaVacio() {
+        return tamano == 0;
+    }
+
+    MapaBitsComprimido and(MapaBitsComprimido otro) {
+        MapaBitsComprimido resultado = new MapaBitsComprimido();
+        int i = 0;
+        int j = 0;
+        while (i < tamano && j < otro.tamano) {
+            if (claves[i] < otro.claves[j]) {
+                i++;
+            } else if (claves[i] > otro.claves[j]) {
+                j++;
+            } else {
+                resultado.agregarContenedor(claves[i], contenedores[i].and(otro.contenedores[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    MapaBitsComprimido or(MapaBitsComprimido otro) {
+        MapaBitsComprimido resultado = new MapaBitsComprimido();
+        int i = 0;
+        int j = 0;
+        while (i < tamano || j < otro.tamano) {
+            if (j == otro.tamano || (i < tamano && claves[i] < otro.claves[j])) {
+                resultado.agregarContenedor(claves[i], contenedores[i].copia());
+                i++;
+            } else if (i == tamano || claves[i] > otro.claves[j]) {
+                resultado.agregarContenedor(otro.claves[j], otro.contenedores[j].copia());
+                j++;
+            } else {
+                resultado.agregarContenedor(claves[i], contenedores[i].or(otro.contenedores[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    MapaBitsComprimido andNot(MapaBitsComprimido otro) {
+        MapaBitsComprimido resultado = new MapaBitsComprimido();
+        int j = 0;
+        for (int i = 0; i < tamano; i++) {
+            while (j < otro.tamano && otro.claves[j] < claves[i]) {
+                j++;
+            }
+            if (j < otro.tamano && otro.claves[j] == claves[i]) {
+                resultado.agregarContenedor(claves[i], contenedores[i].andNot(otro.contenedores[j]));
+            } else {
+                resultado.agregarContenedor(claves[i], contenedores[i].copia());
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Valores en orden ascendente
+     */
+    int[] valores() {
+        int[] valores = new int[cardinalidad()];
+        int k = 0;
+        for (int i = 0; i < tamano; i++) {
+            k = contenedores[i].copiarEn(valores, k, claves[i] << 16);
+        }
+        return valores;
+    }
+
+    /**
+     * Suma uno en contadores[v] por cada valor v del mapa (los valores deben caber en el arreglo)
+     */
+    void sumarEn(int[] contadores) {
+        for (int valor : valores()) {
+            contadores[valor]++;
+        }
+    }
+
+    /**
+     * Bytes en memoria de los contenedores (sin cabeceras de objetos)
+     */
+    long memoriaBytes() {
+        long bytes = (long) claves.length * Character.BYTES;
+        for (int i = 0; i < tamano; i++) {
+            bytes += contenedores[i].bits != null ? PALABRAS * Long.BYTES : contenedores[i].valores.length * Character.BYTES;
+        }
+        return bytes;
+    }
+
+    void escribir(DataOutputStream salida) throws IOException {
+        salida.writeInt(tamano);
+        for (int i = 0; i < tamano; i++) {
+            Contenedor contenedor = contenedores[i];
+            salida.writeChar(claves[i]);
+            salida.writeInt(contenedor.cardinalidad);
+            if (contenedor.bits != null) {
+                for (long palabra : contenedor.bits) {
+                    salida.writeLong(palabra);
+                }
+            } else {
+                for (int k = 0; k < contenedor.cardinalidad; k++) {
+                    salida.writeChar(contenedor.valores[k]);
+                }
+            }
+        }
+    }
+
+    static MapaBitsComprimido leer(DataInputStream entrada) throws IOException {
+        MapaBitsComprimido mapa = new MapaBitsComprimido();
+        int tamano = entrada.readInt();
+        for (int i = 0; i < tamano; i++) {
+            char clave = entrada.readChar();
+            Contenedor contenedor = new Contenedor();
+            contenedor.cardinalidad = entrada.readInt();
+            if (contenedor.cardinalidad > MAX_ARREGLO) {
+                contenedor.valores = null;
+                contenedor.bits = new long[PALABRAS];
+                for (int k = 0; k < PALABRAS; k++) {
+                    contenedor.bits[k] = entrada.readLong();
+                }
+            } else {
+                contenedor.valores = new char[contenedor.cardinalidad];
+                for (int k = 0; k < contenedor.cardinalidad; k++) {
+                    contenedor.valores[k] = entrada.readChar();
+                }
+            }
+            mapa.agregarContenedor(clave, contenedor);
+        }
+        return mapa;
+    }
+
+    static MapaBitsComprimido de(int... valores) {
+        MapaBitsComprimido mapa = new MapaBitsComprimido();
+        for (int valor : valores) {
+            mapa.agregar(valor);
+        }
+        return mapa;
+    }
+
+    private int buscar(char alto) {
+        return Arrays.binarySearch(claves, 0, tamano, alto);
+    }
+
+    private void insertar(int posicion, char alto, Contenedor contenedor) {
+        if (tamano == claves.length) {
+            int capacidad = Math.max(4, tamano * 2);
+            claves = Arrays.copyOf(claves, capacidad);
+            contenedores = Arrays.copyOf(contenedores, capacidad);
+        }
+        System.arraycopy(claves, posicion, claves, posicion + 1, tamano - posicion);
+        System.arraycopy(contenedores, posicion, contenedores, posicion + 1, tamano - posicion);
+        claves[posicion] = alto;
+        contenedores[posicion] = contenedor;
+        tamano++;
+    }
+
+    /**
+     * Agrega al final un contenedor de clave mayor que las existentes; descarta los vacíos
+     */
+    private void agregarContenedor(char alto, Contenedor contenedor) {
+        if (contenedor.cardinalidad > 0) {
+            insertar(tamano, alto, contenedor);
+        }
+    }
+
+    /**
+     * Valores de un grupo de 16 bits bajos: arreglo ordenado mientras haya pocos, mapa de bits cuando hay muchos
+     */
+    private static final class Contenedor {
+
+        private char[] valores = new char[4];
+        private long[] bits;
+        private int cardinalidad;
+
+        boolean agregar(char valor) {
+            if (bits != null) {
+                long antes = bits[valor >>> 6];
+                bits[valor >>> 6] |= 1L << valor;
+                if (antes == bits[valor >>> 6]) {
+                    return false;
+                }
+                cardinalidad++;
+                return true;
+            }
+            int posicion = Arrays.binarySearch(valores, 0, cardinalidad, valor);
+            if (posicion >= 0) {
+                return false;
+            }
+            if (cardinalidad == MAX_ARREGLO) {
+                convertirABits();
+                return agregar(valor);
+            }
+            posicion = -posicion - 1;
+            if (cardinalidad == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(MAX_ARREGLO, Math.max(4, cardinalidad * 2)));
+            }
+            System.arraycopy(valores, posicion, valores, posicion + 1, cardinalidad - posicion);
+            valores[posicion] = valor;
+            cardinalidad++;
+            return true;
+        }
+
+        boolean contiene(char valor) {
+            if (bits != null) {
+                return (bits[valor >>> 6] & (1L << valor)) != 0;
+            }
+            return Arrays.binarySearch(valores, 0, cardinalidad, valor) >= 0;
+        }
+
+        Contenedor and(Contenedor otro) {
+            if (bits == null || otro.bits == null) {
+                // Con un arreglo el resultado no es mayor que él: se filtran sus valores
+                Contenedor arreglo = bits == null ? this : otro;
+                Contenedor filtro = arreglo == this ? otro : this;
+                Contenedor resultado = new Contenedor();
+                resultado.valores = new char[Math.max(1, arreglo.cardinalidad)];
+                for (int k = 0; k < arreglo.cardinalidad; k++) {
+                    if (filtro.contiene(arreglo.valores[k])) {
+                        resultado.valores[resultado.cardinalidad++] = arreglo.valores[k];
+                    }
+                }
+                return resultado;
+            }
+            long[] palabras = new long[PALABRAS];
+            for (int k = 0; k < PALABRAS; k++) {
+                palabras[k] = bits[k] & otro.bits[k];
+            }
+            return deBits(palabras);
+        }
+
+        Contenedor or(Contenedor otro) {
+            if (bits == null && otro.bits == null && cardinalidad + otro.cardinalidad <= MAX_ARREGLO) {
+                Contenedor resultado = new Contenedor();
+                resultado.valores = new char[Math.max(1, cardinalidad + otro.cardinalidad)];
+                int i = 0;
+                int j = 0;
+                while (i < cardinalidad || j < otro.cardinalidad) {
+                    char siguiente;
+                    if (j == otro.cardinalidad || (i < cardinalidad && valores[i] < otro.valores[j])) {
+                        siguiente = valores[i++];
+                    } else if (i == cardinalidad || valores[i] > otro.valores[j]) {
+                        siguiente = otro.valores[j++];
+                    } else {
+                        siguiente = valores[i++];
+                        j++;
+                    }
+                    resultado.valores[resultado.cardinalidad++] = siguiente;
+                }
+                return resultado;
+            }
+            long[] palabras = aBits();
+            long[] otras = otro.aBits();
+            for (int k = 0; k < PALABRAS; k++) {
+                palabras[k] |= otras[k];
+            }
+            return deBits(palabras);
+        }
+
+        Contenedor andNot(Contenedor otro) {
+            if (bits == null) {
+                Contenedor resultado = new Contenedor();
+                resultado.valores = new char[Math.max(1, cardinalidad)];
+                for (int k = 0; k < cardinalidad; k++) {
+                    if (!otro.contiene(valores[k])) {
+                        resultado.valores[resultado.cardinalidad++] = valores[k];
+                    }
+                }
+                return resultado;
+            }
+            long[] palabras = aBits();
+            long[] otras = otro.aBits();
+            for (int k = 0; k < PALABRAS; k++) {
+                palabras[k] &= ~otras[k];
+            }
+            return deBits(palabras);
+        }
+
+        Contenedor copia() {
+            Contenedor copia = new Contenedor();
+            copia.cardinalidad = cardinalidad;
+            if (bits != null) {
+                copia.bits = bits.clone();
+            } else {
+                copia.valores = Arrays.copyOf(valores, Math.max(1, cardinalidad));
+            }
+            return copia;
+        }
+
+        int copiarEn(int[] destino, int desde, int alto) {
+            if (bits == null) {
+                for (int k = 0; k < cardinalidad; k++) {
+                    destino[desde++] = alto | valores[k];
+                }
+                return desde;
+            }
+            for (int k = 0; k < PALABRAS; k++) {
+                long palabra = bits[k];
+                while (palabra != 0) {
+                    destino[desde++] = alto | (k << 6) | Long.numberOfTrailingZeros(palabra);
+                    palabra &= palabra - 1;
+                }
+            }
+            return desde;
+        }
+
+        private long[] aBits() {
+            if (bits != null) {
+                return bits.clone();
+            }
+            long[] palabras = new long[PALABRAS];
+            for (int k = 0; k < cardinalidad; k++) {
+                palabras[valores[k] >>> 6] |= 1L << valores[k];
+            }
+            return palabras;
+        }
+
+        private void convertirABits() {
+            bits = aBits();
+            valores = null;
+        }
+
+        /**
+         * Contenedor a partir de palabras de bits, como arreglo si quedan pocos valores
+         */
+        private static Contenedor deBits(long[] palabras) {
+            Contenedor resultado = new Contenedor();
+            int cardinalidad = 0;
+            for (long palabra : palabras) {
+                cardinalidad += Long.bitCount(palabra);
+            }
+            resultado.cardinalidad = cardinalidad;
+            if (cardinalidad > MAX_ARREGLO) {
+                resultado.bits = palabras;
+                return resultado;
+            }
+            resultado.valores = new char[Math.max(1, cardinalidad)];
+            int k = 0;
+            for (int w = 0; w < PALABRAS; w++) {
+                long palabra = palabras[w];
+                while (palabra != 0) {
+                    resultado.valores[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.asistencia.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difunde las marcaciones confirmadas a los paneles de supervisión mediante Server-Sent Events.
+ * Cada suscriptor tiene un buffer acotado; si se llena, el suscriptor se desconecta para no
+ * frenar al resto. El evento se serializa una sola vez y no se consulta la base de datos.
+ */
+@Service
+public class MarcacionFeedService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MarcacionFeedService.class);
+    
+    private static final String EVENTO_MARCACION = "marcacion";
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${asistencia.feed.buffer:256}")
+    private int tamanoBuffer = 256;
+    
+    @Value("${asistencia.feed.timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+    
+    @Value("${asistencia.feed.heartbeat-segundos:15}")
+    private long heartbeatSegundos = 15;
+    
+    @Value("${asistencia.feed.hilos-envio:4}")
+    private int hilosEnvio = 4;
+    
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final AtomicLong secuencia = new AtomicLong();
+    private ExecutorService envios;
+    private ScheduledExecutorService heartbeat;
+    
+    @PostConstruct
+    void iniciar() {
+        AtomicInteger contador = new AtomicInteger();
+        envios = Executors.newFixedThreadPool(hilosEnvio, tarea -> {
+            Thread hilo = new Thread(tarea, "marcacion-feed-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "marcacion-feed-heartbeat");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        heartbeat.scheduleAtFixedRate(this::enviarHeartbeat, heartbeatSegundos, heartbeatSegundos, TimeUnit.SECONDS);
+    }
+    
+    @PreDestroy
+    void detener() {
+        heartbeat.shutdownNow();
+        envios.shutdownNow();
+        suscriptores.forEach(suscriptor -> suscriptor.emitter.complete());
+        suscriptores.clear();
+    }
+    
+    /**
+     * Registra un nuevo suscriptor del feed
+     */
+    public SseEmitter suscribir() {
+        return suscribir(new SseEmitter(timeoutMs));
+    }
+    
+    SseEmitter suscribir(SseEmitter emitter) {
+        Suscriptor suscriptor = new Suscriptor(emitter, tamanoBuffer);
+        emitter.onCompletion(() -> suscriptores.remove(suscriptor));
+        emitter.onTimeout(() -> suscriptores.remove(suscriptor));
+        emitter.onError(error -> suscriptores.remove(suscriptor));
+        suscriptores.add(suscriptor);
+        // Comentario inicial para que el cliente y los proxies vean la conexión abierta
+        encolar(suscriptor, SseEmitter.event().comment("conectado"));
+        logger.info("Nuevo suscriptor del feed de marcaciones ({} activos)", suscriptores.size());
+        return emitter;
+    }
+    
+    /**
+     * Recibe cada marcación confirmada y la reparte sin bloquear al hilo que hizo el commit
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMarcacionRegistrada(MarcacionRegistradaEvent evento) {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        String datos;
+        try {
+            datos = objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            logger.error("No se pudo serializar la marcación para el feed", e);
+            return;
+        }
+        SseEmitter.SseEventBuilder mensaje = SseEmitter.event()
+                .id(String.valueOf(secuencia.incrementAndGet()))
+                .name(EVENTO_MARCACION)
+                .data(datos);
+        for (Suscriptor suscriptor : suscriptores) {
+            encolar(suscriptor, mensaje);
+        }
+    }
+    
+    /**
+     * Cantidad de suscriptores conectados
+     */
+    public int getSuscriptores() {
+        return suscriptores.size();
+    }
+    
+    private void enviarHeartbeat() {
+        for (Suscriptor suscriptor : suscriptores) {
+            encolar(suscriptor, SseEmitter.event().comment("ping"));
+        }
+    }
+    
+    private void encolar(Suscriptor suscriptor, SseEmitter.SseEventBuilder mensaje) {
+        if (!suscriptor.pendientes.offer(mensaje)) {
+            logger.warn("Suscriptor del feed desconectado por no consumir a tiempo ({} eventos pendientes)",
+                    suscriptor.pendientes.size());
+            desconectar(suscriptor);
+            return;
+        }
+        if (suscriptor.enviando.compareAndSet(false, true)) {
+            envios.execute(() -> vaciar(suscriptor));
+        }
+    }
+    
+    /**
+     * Envía los eventos pendientes de un suscriptor; solo un hilo a la vez por suscriptor
+     */
+    private void vaciar(Suscriptor suscriptor) {
+        do {
+            SseEmitter.SseEventBuilder mensaje;
+            while ((mensaje = suscriptor.pendientes.poll()) != null) {
+                try {
+                    suscriptor.emitter.send(mensaje);
+                } catch (IOException | IllegalStateException e) {
+                    desconectar(suscriptor);
+                    return;
+                }
+            }
+            suscriptor.enviando.set(false);
+            // Un evento encolado justo después del último poll debe tener quien lo envíe
+        } while (!suscriptor.pendientes.isEmpty() && suscriptor.enviando.compareAndSet(false, true));
+    }
+    
+    private void desconectar(Suscriptor suscriptor) {
+        if (suscriptores.remove(suscriptor)) {
+            suscriptor.pendientes.clear();
+            suscriptor.emitter.complete();
+        }
+    }
+    
+    private static final class Suscriptor {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pendientes;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        
+        Suscriptor(SseEmitter emitter, int tamanoBuffer) {
+            this.emitter = emitter;
+            this.pendientes = new ArrayBlockingQueue<>(tamanoBuffer);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+
+/**
+ * Evento publicado al registrar una marcación; los listeners lo reciben tras el commit.
+ * Lleva todos los datos necesarios para que los consumidores no consulten la base de datos.
+ */
+public record MarcacionRegistradaEvent(AsistenciaDTO asistencia, String empleadoArea, String empleadoCargo) {
+
+    public MarcacionRegistradaEvent(AsistenciaDTO asistencia, String empleadoArea) {
+        this(asistencia, empleadoArea, null);
+    }
+}
@@ -0,0 +1,512 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.entity.Asistencia;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoEventoOutbox;
+import com.asistencia.entity.TipoMarcacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Escritura diferida (write-behind) de marcaciones
+ * Las marcaciones aceptadas se registran en un journal local y en una cola acotada,
+ * y un hilo dedicado las inserta en lotes cada N milisegundos o M filas.
+ * El journal se divide en segmentos: al llenarse, el activo se cierra y se renombra con un número,
+ * y cada segmento se borra en cuanto se confirman todas sus marcaciones (por número de secuencia),
+ * aunque la cola nunca llegue a vaciarse
+ */
+@Service
+@ConditionalOnProperty(prefix = "asistencia.write-behind", name = "enabled", havingValue = "true")
+public class MarcacionWriteBehindService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarcacionWriteBehindService.class);
+
+    static final String INSERT_SQL = "INSERT INTO asistencias " +
+            "(id, empleado_id, fecha_hora, tipo, estado, observaciones, fecha_creacion) " +
+            "VALUES (nextval('asistencias_id_seq'), ?, ?, ?, ?, ?, ?)";
+
+    private static final String EXISTE_SQL = "SELECT COUNT(*) FROM asistencias " +
+            "WHERE empleado_id = ? AND fecha_hora = ? AND tipo = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<MarcacionPendiente> cola;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Path journalPath;
+    private final boolean journalFsync;
+
+    @Value("${asistencia.write-behind.journal-segmento-bytes:4194304}")
+    private long tamanoSegmento = 4 * 1024 * 1024;
+
+    // Protegen el journal, la secuencia y los segmentos; encolar escribe y añade a la cola bajo el mismo lock
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private FileChannel journal;
+    private long secuencia;
+    private long bytesSegmentoActivo;
+    // Última secuencia escrita en el segmento activo
+    private long ultimaSecuenciaActivo;
+    private int numeroSegmento;
+    // Segmentos cerrados con la última secuencia que contienen, del más antiguo al más reciente
+    private final Deque<Segmento> segmentosCerrados = new ArrayDeque<>();
+
+    // Lote extraído de la cola que aún no se ha confirmado en la base de datos
+    private volatile List<MarcacionPendiente> enVuelo = List.of();
+
+    // Aceptadas y aún no confirmadas, para la detección de duplicados sin huecos entre cola y lote
+    private final Set<MarcacionPendiente> noConfirmadas = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running = false;
+    private Thread flusher;
+
+    // Solo presente con asistencia.outbox.enabled=true
+    @Autowired(required = false)
+    private OutboxService outboxService;
+
+    public MarcacionWriteBehindService(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${asistencia.write-behind.capacidad:10000}") int capacidad,
+                                       @Value("${asistencia.write-behind.batch-size:200}") int batchSize,
+                                       @Value("${asistencia.write-behind.flush-interval-ms:500}") long flushIntervalMs,
+                                       @Value("${asistencia.write-behind.journal-path:data/marcaciones-pendientes.journal}") String journalPath,
+                                       @Value("${asistencia.write-behind.journal-fsync:true}") boolean journalFsync) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.journalPath = Paths.get(journalPath);
+        this.journalFsync = journalFsync;
+    }
+
+    /**
+     * Acepta una marcación para inserción diferida
+     * Retorna false si la cola está llena, en cuyo caso el llamador debe insertar de forma síncrona
+     */
+    public boolean encolar(Asistencia asistencia) {
+        journalLock.lock();
+        try {
+            if (cola.remainingCapacity() == 0) {
+                return false;
+            }
+            // La secuencia sigue el orden de la cola, que es el orden de inserción
+            MarcacionPendiente pendiente = new MarcacionPendiente(
+                    secuencia + 1,
+                    asistencia.getEmpleado().getId(),
+                    asistencia.getFechaHora(),
+                    asistencia.getTipo(),
+                    asistencia.getEstado(),
+                    asistencia.getObservaciones());
+            escribirJournal(pendiente);
+            secuencia = pendiente.secuencia();
+            noConfirmadas.add(pendiente);
+            cola.add(pendiente);
+            return true;
+        } catch (IOException e) {
+            logger.error("No se pudo escribir la marcación en el journal, se insertará de forma síncrona", e);
+            return false;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Verifica si hay una marcación pendiente (aún no insertada) del mismo tipo en el rango indicado
+     */
+    public boolean existePendienteReciente(Long empleadoId, TipoMarcacion tipo,
+                                           LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        for (MarcacionPendiente pendiente : noConfirmadas) {
+            if (pendiente.coincide(empleadoId, tipo, fechaInicio, fechaFin)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cantidad de marcaciones aceptadas pendientes de inserción
+     */
+    public int getPendientes() {
+        return cola.size() + enVuelo.size();
+    }
+
+    @Override
+    public void start() {
+        try {
+            Path directorio = journalPath.toAbsolutePath().getParent();
+            if (directorio != null) {
+                Files.createDirectories(directorio);
+            }
+            recuperarJournal();
+            abrirSegmentoActivo();
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo abrir el journal de marcaciones: " + journalPath, e);
+        }
+
+        running = true;
+        flusher = new Thread(this::cicloFlush, "marcacion-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Write-behind de marcaciones activo (lote: {}, intervalo: {} ms, journal: {})",
+                   batchSize, flushIntervalMs, journalPath);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Vaciar lo que quede antes de cerrar
+        List<MarcacionPendiente> restantes = new ArrayList<>(enVuelo);
+        cola.drainTo(restantes);
+        if (!restantes.isEmpty()) {
+            try {
+                insertarLote(restantes);
+                noConfirmadas.removeAll(restantes);
+                enVuelo = List.of();
+                liberarJournal(restantes.get(restantes.size() - 1).secuencia());
+            } catch (RuntimeException e) {
+                logger.error("No se pudieron insertar {} marcaciones al detener; permanecen en el journal",
+                            restantes.size(), e);
+            }
+        }
+
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Error al cerrar el journal de marcaciones: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Arranca antes y se detiene después del servidor web, para no aceptar marcaciones sin journal
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Bucle del hilo de escritura: junta hasta batchSize filas o espera flushIntervalMs
+     */
+    private void cicloFlush() {
+        List<MarcacionPendiente> lote = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                if (lote.isEmpty()) {
+                    long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                    while (lote.size() < batchSize) {
+                        long restante = limite - System.nanoTime();
+                        if (restante <= 0) {
+                            break;
+                        }
+                        MarcacionPendiente primera = cola.poll(restante, TimeUnit.NANOSECONDS);
+                        if (primera == null) {
+                            break;
+                        }
+                        lote.add(primera);
+                        cola.drainTo(lote, batchSize - lote.size());
+                        // Visible para la detección de duplicados y para stop() mientras se completa el lote
+                        enVuelo = List.copyOf(lote);
+                    }
+                }
+
+                if (lote.isEmpty()) {
+                    continue;
+                }
+
+                insertarLote(lote);
+                noConfirmadas.removeAll(lote);
+                enVuelo = List.of();
+                liberarJournal(lote.get(lote.size() - 1).secuencia());
+                lote.clear();
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                // El lote se conserva y se reintenta; el journal sigue intacto
+                logger.error("Error al insertar lote de {} marcaciones, se reintentará", lote.size(), e);
+                try {
+                    Thread.sleep(flushIntervalMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserta un lote de marcaciones en una sola transacción mediante JDBC batch
+     */
+    void insertarLote(List<MarcacionPendiente> lote) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = insertarConIds(jdbcTemplate, lote, (ps, pendiente) -> {
+                ps.setLong(1, pendiente.empleadoId());
+                ps.setTimestamp(2, Timestamp.valueOf(pendiente.fechaHora()));
+                ps.setString(3, pendiente.tipo().name());
+                ps.setString(4, pendiente.estado() != null ? pendiente.estado().name() : null);
+                ps.setString(5, pendiente.observaciones());
+                ps.setTimestamp(6, ahora);
+            });
+            // Los eventos del outbox se confirman junto con las marcaciones del lote
+            if (outboxService != null) {
+                List<AsistenciaDTO> asistencias = new ArrayList<>(lote.size());
+                for (int i = 0; i < lote.size(); i++) {
+                    asistencias.add(lote.get(i).toDTO(ids.get(i), ahora.toLocalDateTime()));
+                }
+                outboxService.registrarLote(TipoEventoOutbox.ASISTENCIA_REGISTRADA, asistencias);
+            }
+        });
+        logger.debug("Insertado lote de {} marcaciones", lote.size());
+    }
+
+    /**
+     * Ejecuta INSERT_SQL como un único JDBC batch y devuelve los ids asignados, en el orden de las filas
+     */
+    static <T> List<Long> insertarConIds(JdbcTemplate jdbcTemplate, List<T> filas,
+                                         ParameterizedPreparedStatementSetter<T> setter) {
+        KeyHolder ids = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setter.setValues(ps, filas.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return filas.size();
+                    }
+                }, ids);
+        return ids.getKeyList().stream().map(fila -> ((Number) fila.get("id")).longValue()).toList();
+    }
+
+    private void escribirJournal(MarcacionPendiente pendiente) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(pendiente.toJournalLine().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            bytesSegmentoActivo += journal.write(buffer);
+        }
+        if (journalFsync) {
+            journal.force(false);
+        }
+        ultimaSecuenciaActivo = pendiente.secuencia();
+        if (bytesSegmentoActivo >= tamanoSegmento) {
+            rotarSegmento();
+        }
+    }
+
+    private void abrirSegmentoActivo() throws IOException {
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        bytesSegmentoActivo = journal.size();
+    }
+
+    /**
+     * Cierra el segmento activo con el siguiente número y abre uno vacío (bajo journalLock)
+     */
+    private void rotarSegmento() throws IOException {
+        journal.close();
+        Path cerrado = segmento(++numeroSegmento);
+        Files.move(journalPath, cerrado, StandardCopyOption.ATOMIC_MOVE);
+        segmentosCerrados.addLast(new Segmento(cerrado, ultimaSecuenciaActivo));
+        abrirSegmentoActivo();
+    }
+
+    /**
+     * Descarta del journal las marcaciones confirmadas hasta la secuencia indicada: borra los segmentos cerrados
+     * que ya no tienen pendientes y trunca el activo si todo lo escrito en él está confirmado.
+     * Se hace bajo el mismo lock que encolar para no perder entradas escritas entre medio
+     */
+    private void liberarJournal(long confirmadaHasta) {
+        journalLock.lock();
+        try {
+            while (!segmentosCerrados.isEmpty() && segmentosCerrados.peekFirst().ultimaSecuencia() <= confirmadaHasta) {
+                Files.deleteIfExists(segmentosCerrados.pollFirst().path());
+            }
+            if (segmentosCerrados.isEmpty() && ultimaSecuenciaActivo <= confirmadaHasta && bytesSegmentoActivo > 0) {
+                journal.truncate(0);
+                bytesSegmentoActivo = 0;
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudo liberar el journal de marcaciones: {}", e.getMessage());
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private Path segmento(int numero) {
+        return journalPath.resolveSibling(journalPath.getFileName() + "." + numero);
+    }
+
+    /**
+     * Segmentos cerrados que quedaron en disco, del más antiguo al más reciente, seguidos del activo
+     */
+    private List<Path> segmentosEnDisco() throws IOException {
+        String prefijo = journalPath.getFileName() + ".";
+        List<Path> segmentos = new ArrayList<>();
+        Path directorio = journalPath.toAbsolutePath().getParent();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.filter(archivo -> {
+                        String nombre = archivo.getFileName().toString();
+                        return nombre.startsWith(prefijo) && nombre.substring(prefijo.length()).matches("\\d+");
+                    })
+                    .sorted(Comparator.comparingLong(archivo ->
+                            Long.parseLong(archivo.getFileName().toString().substring(prefijo.length()))))
+                    .forEach(segmentos::add);
+        }
+        if (Files.exists(journalPath)) {
+            segmentos.add(journalPath);
+        }
+        return segmentos;
+    }
+
+    /**
+     * Reinserta las marcaciones que quedaron en los segmentos del journal tras una caída, en orden
+     * Omite las que ya estén en la base de datos (caída entre el commit y la liberación del segmento)
+     */
+    private void recuperarJournal() throws IOException {
+        List<Path> segmentos = segmentosEnDisco();
+        List<MarcacionPendiente> recuperadas = new ArrayList<>();
+        for (Path segmento : segmentos) {
+            try (BufferedReader reader = Files.newBufferedReader(segmento, StandardCharsets.UTF_8)) {
+                String linea;
+                while ((linea = reader.readLine()) != null) {
+                    if (linea.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        MarcacionPendiente pendiente = MarcacionPendiente.fromJournalLine(linea);
+                        Integer existentes = jdbcTemplate.queryForObject(EXISTE_SQL, Integer.class,
+                                pendiente.empleadoId(), Timestamp.valueOf(pendiente.fechaHora()), pendiente.tipo().name());
+                        if (existentes == null || existentes == 0) {
+                            recuperadas.add(pendiente);
+                        }
+                    } catch (RuntimeException e) {
+                        // Última línea incompleta por una caída durante la escritura
+                        logger.warn("Línea de journal descartada: {}", linea);
+                    }
+                }
+            }
+        }
+        if (segmentos.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < recuperadas.size(); i += batchSize) {
+            insertarLote(recuperadas.subList(i, Math.min(i + batchSize, recuperadas.size())));
+        }
+        for (Path segmento : segmentos) {
+            Files.delete(segmento);
+        }
+        logger.info("Recuperadas {} marcaciones pendientes desde {} segmentos del journal",
+                   recuperadas.size(), segmentos.size());
+    }
+
+    /**
+     * Segmento cerrado del journal y la última secuencia escrita en él
+     */
+    private record Segmento(Path path, long ultimaSecuencia) {
+    }
+
+    /**
+     * Marcación aceptada pendiente de inserción
+     */
+    record MarcacionPendiente(long secuencia, Long empleadoId, LocalDateTime fechaHora, TipoMarcacion tipo,
+                              EstadoMarcacion estado, String observaciones) {
+
+        boolean coincide(Long otroEmpleadoId, TipoMarcacion otroTipo, LocalDateTime desde, LocalDateTime hasta) {
+            return empleadoId.equals(otroEmpleadoId) && tipo == otroTipo &&
+                   !fechaHora.isBefore(desde) && !fechaHora.isAfter(hasta);
+        }
+
+        /**
+         * Datos de la marcación para el outbox con el id que le asignó el INSERT del lote
+         */
+        AsistenciaDTO toDTO(Long id, LocalDateTime fechaCreacion) {
+            AsistenciaDTO dto = new AsistenciaDTO(empleadoId, fechaHora, tipo, estado);
+            dto.setId(id);
+            dto.setObservaciones(observaciones);
+            dto.setFechaCreacion(fechaCreacion);
+            return dto;
+        }
+
+        String toJournalLine() {
+            String obs = observaciones != null ? observaciones.replace('\t', ' ').replace('\n', ' ') : "";
+            return empleadoId + "\t" + fechaHora + "\t" + tipo.name() + "\t" +
+                   (estado != null ? estado.name() : "") + "\t" + obs + "\n";
+        }
+
+        static MarcacionPendiente fromJournalLine(String linea) {
+            String[] partes = linea.split("\t", -1);
+            if (partes.length != 5) {
+                throw new IllegalArgumentException("Línea de journal inválida");
+            }
+            // La secuencia solo ordena la liberación del journal; las recuperadas se insertan directamente
+            return new MarcacionPendiente(
+                    0,
+                    Long.parseLong(partes[0]),
+                    LocalDateTime.parse(partes[1]),
+                    TipoMarcacion.valueOf(partes[2]),
+                    partes[3].isEmpty() ? null : EstadoMarcacion.valueOf(partes[3]),
+                    partes[4].isEmpty() ? null : partes[4]);
+        }
+    }
+}
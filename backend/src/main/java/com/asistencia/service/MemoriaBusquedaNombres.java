@@ -0,0 +1,111 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.Empleado;
+import com.asistencia.entity.Horario;
+import com.asistencia.repository.EmpleadoRepository;
+import com.asistencia.repository.HorarioRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Búsqueda con índices de trigramas en memoria, para H2 y pruebas donde no existe pg_trgm.
+ * Cada índice se construye en la primera búsqueda y se descarta con los eventos de invalidación
+ * de empleados u horarios, así que los cambios hechos en otras instancias también se ven.
+ */
+@Service
+@ConditionalOnProperty(prefix = "asistencia.busqueda", name = "indice", havingValue = "memoria", matchIfMissing = true)
+public class MemoriaBusquedaNombres implements BusquedaNombres {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoriaBusquedaNombres.class);
+
+    @Autowired
+    private EmpleadoRepository empleadoRepository;
+
+    @Autowired
+    private HorarioRepository horarioRepository;
+
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+
+    private final IndiceCacheado empleados = new IndiceCacheado("empleados", () -> {
+        Map<Long, String> textos = new HashMap<>();
+        for (Empleado empleado : empleadoRepository.findByActivoTrue()) {
+            textos.put(empleado.getId(), empleado.getNombres() + " " + empleado.getApellidos());
+        }
+        return textos;
+    });
+
+    private final IndiceCacheado horarios = new IndiceCacheado("horarios", () -> {
+        Map<Long, String> textos = new HashMap<>();
+        for (Horario horario : horarioRepository.findByActivoTrueOrderByHoraInicio()) {
+            textos.put(horario.getId(), horario.getNombre());
+        }
+        return textos;
+    });
+
+    @PostConstruct
+    void suscribir() {
+        invalidacionCacheService.suscribir(evento -> {
+            switch (evento.entidad()) {
+                case EMPLEADO -> empleados.invalidar();
+                case HORARIO -> horarios.invalidar();
+                default -> { }
+            }
+        });
+    }
+
+    @Override
+    public List<Long> buscarEmpleados(String termino, int limite) {
+        return empleados.get().buscar(termino, limite);
+    }
+
+    @Override
+    public List<Long> buscarHorarios(String termino, int limite) {
+        return horarios.get().buscar(termino, limite);
+    }
+
+    /**
+     * Índice construido a demanda. Cada invalidación deja un estado vacío nuevo, así que un índice
+     * que se estaba construyendo durante una invalidación se usa una vez pero no se guarda.
+     */
+    private static class IndiceCacheado {
+
+        private final String nombre;
+        private final Supplier<Map<Long, String>> cargar;
+        private final AtomicReference<Estado> estado = new AtomicReference<>(new Estado(null));
+
+        IndiceCacheado(String nombre, Supplier<Map<Long, String>> cargar) {
+            this.nombre = nombre;
+            this.cargar = cargar;
+        }
+
+        IndiceNgramas get() {
+            Estado actual = estado.get();
+            if (actual.indice() != null) {
+                return actual.indice();
+            }
+            IndiceNgramas indice = new IndiceNgramas(cargar.get());
+            if (estado.compareAndSet(actual, new Estado(indice))) {
+                logger.debug("Índice de búsqueda de {} construido: {} registros", nombre, indice.size());
+            }
+            return indice;
+        }
+
+        void invalidar() {
+            estado.set(new Estado(null));
+        }
+    }
+
+    private record Estado(IndiceNgramas indice) {
+    }
+}
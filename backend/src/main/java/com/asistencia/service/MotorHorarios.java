@@ -0,0 +1,190 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.AsignacionTurno;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.Horario;
+import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.repository.AsignacionTurnoRepository;
+import com.asistencia.repository.HorarioRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resuelve el horario de cada empleado (turno propio, turno de su área u horario general) y clasifica
+ * sus marcaciones sin consultar la base de datos. Los horarios y asignaciones se cargan una vez en un
+ * índice de intervalos por turno, que se descarta con cada invalidación de horarios (también de turnos
+ * y asignaciones) y se vuelve a construir en la siguiente marcación. Con las mismas ventanas ubica la jornada
+ * de cada marcación (hoja de tiempo) y las jornadas de cada turno en un día (incidencias).
+ */
+@Service
+public class MotorHorarios {
+
+    private static final Logger logger = LoggerFactory.getLogger(MotorHorarios.class);
+
+    /** Clave del horario general en jornadasDel */
+    public static final long GENERAL = 0L;
+
+    @Autowired
+    private HorarioRepository horarioRepository;
+
+    @Autowired
+    private AsignacionTurnoRepository asignacionTurnoRepository;
+
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+
+    private final AtomicReference<Estado> estado = new AtomicReference<>(new Estado(null));
+
+    @PostConstruct
+    void suscribir() {
+        invalidacionCacheService.suscribir(evento -> {
+            if (evento.entidad() == EventoInvalidacion.Entidad.HORARIO) {
+                invalidar();
+            }
+        });
+    }
+
+    /**
+     * Construye el índice al arrancar para que la primera marcación no lo pague
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        indice();
+    }
+
+    /**
+     * Tipo, estado y minutos de diferencia de una marcación del empleado en el momento indicado
+     */
+    public Clasificacion clasificar(Long empleadoId, String area, LocalDateTime momento) {
+        return indice().intervalosDe(empleadoId, area).clasificar(momento);
+    }
+
+    /**
+     * Jornada a la que pertenece una marcación del empleado, según su turno o el horario general
+     */
+    public Jornada jornada(Long empleadoId, String area, LocalDateTime momento) {
+        return indice().intervalosDe(empleadoId, area).jornada(momento);
+    }
+
+    /**
+     * Jornadas que empiezan el día indicado, por turno (GENERAL para el horario general)
+     * Los turnos cuyas entradas no aplican ese día no aparecen
+     */
+    public Map<Long, Jornada> jornadasDel(LocalDate fecha) {
+        Indice indice = indice();
+        Map<Long, Jornada> jornadas = new HashMap<>();
+        Jornada general = indice.general().jornadaDel(fecha);
+        if (general != null) {
+            jornadas.put(GENERAL, general);
+        }
+        Set<Long> turnos = new HashSet<>(indice.porTurno().keySet());
+        turnos.addAll(indice.turnoPorEmpleado().values());
+        turnos.addAll(indice.turnoPorArea().values());
+        for (Long turnoId : turnos) {
+            Jornada jornada = indice.porTurno().getOrDefault(turnoId, IntervalosHorario.VACIO).jornadaDel(fecha);
+            if (jornada != null) {
+                jornadas.put(turnoId, jornada);
+            }
+        }
+        return jornadas;
+    }
+
+    public void invalidar() {
+        estado.set(new Estado(null));
+    }
+
+    private Indice indice() {
+        Estado actual = estado.get();
+        if (actual.indice() != null) {
+            return actual.indice();
+        }
+        Indice indice = cargar();
+        // Si hubo una invalidación mientras se cargaba, el índice se usa esta vez pero no se guarda
+        if (estado.compareAndSet(actual, new Estado(indice))) {
+            logger.debug("Índice de horarios construido: {} turnos, {} asignaciones por empleado, {} por área",
+                    indice.porTurno().size(), indice.turnoPorEmpleado().size(), indice.turnoPorArea().size());
+        }
+        return indice;
+    }
+
+    private Indice cargar() {
+        List<Horario> generales = new ArrayList<>();
+        Map<Long, List<Horario>> horariosPorTurno = new HashMap<>();
+        for (Horario horario : horarioRepository.findByActivoTrueOrderByHoraInicio()) {
+            if (horario.getTurno() == null) {
+                generales.add(horario);
+            } else {
+                horariosPorTurno.computeIfAbsent(horario.getTurno().getId(), id -> new ArrayList<>()).add(horario);
+            }
+        }
+        Map<Long, IntervalosHorario> porTurno = new HashMap<>();
+        horariosPorTurno.forEach((turnoId, horarios) -> porTurno.put(turnoId, new IntervalosHorario(horarios)));
+
+        Map<Long, Long> turnoPorEmpleado = new HashMap<>();
+        Map<String, Long> turnoPorArea = new HashMap<>();
+        for (AsignacionTurno asignacion : asignacionTurnoRepository.findVigentes()) {
+            if (asignacion.getEmpleado() != null) {
+                turnoPorEmpleado.put(asignacion.getEmpleado().getId(), asignacion.getTurno().getId());
+            } else if (asignacion.getArea() != null) {
+                turnoPorArea.put(asignacion.getArea(), asignacion.getTurno().getId());
+            }
+        }
+        return new Indice(new IntervalosHorario(generales), porTurno, turnoPorEmpleado, turnoPorArea);
+    }
+
+    /**
+     * Resultado de clasificar una marcación
+     */
+    public record Clasificacion(TipoMarcacion tipo, EstadoMarcacion estado, int minutosDiferencia) {
+        static final Clasificacion FUERA_DE_HORARIO =
+                new Clasificacion(TipoMarcacion.FUERA_HORARIO, EstadoMarcacion.FUERA_HORARIO, 0);
+    }
+
+    /**
+     * Jornada laboral: día al que se imputan sus marcaciones, rango [desde, hasta) que las contiene y fin de
+     * las ventanas de entrada y de salida. Sin horario es el día calendario y los límites son null.
+     */
+    public record Jornada(LocalDate fecha, LocalDateTime desde, LocalDateTime hasta,
+                          LocalDateTime limiteEntrada, LocalDateTime limiteSalida) {
+        static Jornada calendario(LocalDate fecha) {
+            return new Jornada(fecha, fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay(), null, null);
+        }
+    }
+
+    /**
+     * Mapas de solo lectura una vez publicado el índice
+     */
+    private record Indice(IntervalosHorario general, Map<Long, IntervalosHorario> porTurno,
+                          Map<Long, Long> turnoPorEmpleado, Map<String, Long> turnoPorArea) {
+
+        IntervalosHorario intervalosDe(Long empleadoId, String area) {
+            Long turnoId = turnoPorEmpleado.get(empleadoId);
+            if (turnoId == null && area != null) {
+                turnoId = turnoPorArea.get(area);
+            }
+            if (turnoId == null) {
+                return general;
+            }
+            // Un turno sin horarios activos no tiene ventanas: todo es fuera de horario
+            return porTurno.getOrDefault(turnoId, IntervalosHorario.VACIO);
+        }
+    }
+
+    private record Estado(Indice indice) {
+    }
+}
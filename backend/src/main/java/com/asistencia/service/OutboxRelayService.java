@@ -0,0 +1,264 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.EventoOutbox;
+import com.asistencia.entity.TipoEventoOutbox;
+import com.asistencia.exception.EventoRechazadoException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entrega los eventos del outbox al destino configurado, en lotes y al menos una vez
+ * Cada lote se toma con FOR UPDATE SKIP LOCKED y se confirma tras enviarlo, así varias réplicas pueden
+ * drenar a la vez. Solo se toma el evento pendiente más antiguo de cada empleado: el siguiente no sale
+ * hasta que el anterior se entregue, aunque esté esperando un reintento o lo tenga otra réplica.
+ * El orden por id es el de commit porque OutboxService serializa por empleado las transacciones que registran eventos.
+ * Los fallos se reintentan con espera exponencial y acotada: si el destino no está disponible se pausa todo
+ * el relay y el lote se reintenta entero; si rechaza eventos, solo esos esperan.
+ */
+@Service
+@ConditionalOnProperty(prefix = "asistencia.outbox", name = "enabled", havingValue = "true")
+public class OutboxRelayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelayService.class);
+
+    static final String SELECT_SQL = "SELECT o.id, o.empleado_id, o.tipo, o.payload, o.fecha_creacion, o.intentos " +
+            "FROM outbox_eventos o " +
+            "WHERE o.fecha_envio IS NULL AND o.proximo_intento <= ? " +
+            "AND NOT EXISTS (SELECT 1 FROM outbox_eventos p " +
+            "  WHERE p.empleado_id = o.empleado_id AND p.fecha_envio IS NULL AND p.id < o.id) " +
+            "ORDER BY o.id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String ENVIADO_SQL = "UPDATE outbox_eventos " +
+            "SET fecha_envio = ?, intentos = intentos + 1, ultimo_error = NULL WHERE id = ?";
+
+    private static final String FALLIDO_SQL = "UPDATE outbox_eventos " +
+            "SET intentos = intentos + 1, proximo_intento = ?, ultimo_error = ? WHERE id = ?";
+
+    private static final String PENDIENTES_SQL = "SELECT COUNT(*), MIN(fecha_creacion) " +
+            "FROM outbox_eventos WHERE fecha_envio IS NULL";
+
+    private static final String PURGA_SQL = "DELETE FROM outbox_eventos WHERE fecha_envio < ?";
+
+    private static final RowMapper<EventoOutbox> MAPPER = (rs, rowNum) -> new EventoOutbox(
+            rs.getLong("id"),
+            rs.getLong("empleado_id"),
+            TipoEventoOutbox.valueOf(rs.getString("tipo")),
+            rs.getString("payload"),
+            rs.getTimestamp("fecha_creacion").toLocalDateTime(),
+            rs.getInt("intentos"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxSink sink;
+    private final int tamanoLote;
+    private final long backoffInicialMs;
+    private final long backoffMaximoMs;
+    private final int retencionDias;
+    private final int maxLotesPorCiclo;
+
+    // Pausa del relay mientras el destino no está disponible (protegida por drenar, que es synchronized)
+    private int fallosDestino;
+    private long pausaHastaMs;
+
+    private final AtomicLong pendientes = new AtomicLong();
+    private final AtomicLong lagSegundos = new AtomicLong();
+    private final Counter enviados;
+    private final Counter fallidos;
+    private final Timer latencia;
+
+    public OutboxRelayService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              OutboxSink sink,
+                              MeterRegistry meterRegistry,
+                              @Value("${asistencia.outbox.tamano-lote:100}") int tamanoLote,
+                              @Value("${asistencia.outbox.backoff-inicial-ms:1000}") long backoffInicialMs,
+                              @Value("${asistencia.outbox.backoff-maximo-ms:300000}") long backoffMaximoMs,
+                              @Value("${asistencia.outbox.retencion-dias:7}") int retencionDias,
+                              @Value("${asistencia.outbox.max-lotes-por-ciclo:50}") int maxLotesPorCiclo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sink = sink;
+        this.tamanoLote = tamanoLote;
+        this.backoffInicialMs = backoffInicialMs;
+        this.backoffMaximoMs = backoffMaximoMs;
+        this.retencionDias = retencionDias;
+        this.maxLotesPorCiclo = maxLotesPorCiclo;
+
+        Gauge.builder("asistencia.outbox.pendientes", pendientes, AtomicLong::get)
+                .description("Eventos del outbox aún no entregados")
+                .register(meterRegistry);
+        Gauge.builder("asistencia.outbox.lag", lagSegundos, AtomicLong::get)
+                .description("Antigüedad del evento pendiente más antiguo")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.enviados = Counter.builder("asistencia.outbox.enviados").register(meterRegistry);
+        this.fallidos = Counter.builder("asistencia.outbox.fallidos").register(meterRegistry);
+        this.latencia = Timer.builder("asistencia.outbox.latencia")
+                .description("Tiempo entre el registro del evento y su entrega")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${asistencia.outbox.intervalo-ms:1000}")
+    public void drenarProgramado() {
+        try {
+            drenar();
+        } catch (RuntimeException e) {
+            logger.error("Error al drenar el outbox, se reintentará", e);
+        }
+    }
+
+    /**
+     * Entrega lotes mientras haya eventos listos y devuelve cuántos se entregaron
+     * Cada entrega puede liberar el siguiente evento del mismo empleado, así que se sigue hasta un lote sin entregas,
+     * como máximo max-lotes-por-ciclo para no retener el hilo del scheduler mientras siguen llegando eventos
+     */
+    public synchronized int drenar() {
+        int entregados = 0;
+        for (int lotes = 0; lotes < maxLotesPorCiclo && System.currentTimeMillis() >= pausaHastaMs; lotes++) {
+            int entregadosLote = transactionTemplate.execute(status -> procesarLote());
+            entregados += entregadosLote;
+            if (entregadosLote == 0) {
+                break;
+            }
+        }
+        actualizarPendientes();
+        return entregados;
+    }
+
+    /**
+     * Borra los eventos entregados hace más de retencion-dias
+     */
+    @Scheduled(cron = "${asistencia.outbox.purga-cron:0 15 4 * * *}")
+    public void purgar() {
+        int borrados = jdbcTemplate.update(PURGA_SQL, Timestamp.valueOf(LocalDateTime.now().minusDays(retencionDias)));
+        logger.info("Eventos del outbox purgados: {}", borrados);
+    }
+
+    private int procesarLote() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<EventoOutbox> lote = jdbcTemplate.query(SELECT_SQL, MAPPER, Timestamp.valueOf(ahora), tamanoLote);
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            sink.enviar(lote);
+            marcarEnviados(lote);
+            fallosDestino = 0;
+            return lote.size();
+        } catch (IOException | RuntimeException e) {
+            if (!esRechazo(e)) {
+                pausar(lote.size(), e);
+                return 0;
+            }
+            if (lote.size() == 1) {
+                marcarFallido(lote.get(0), e);
+                return 0;
+            }
+            logger.warn("El destino rechazó un lote de {} eventos, se reintentan uno por uno: {}", lote.size(), e.getMessage());
+        }
+
+        // Cada evento es de un empleado distinto: enviarlos por separado no altera el orden por empleado
+        // y evita que un evento rechazado retenga a los demás
+        List<EventoOutbox> entregados = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            EventoOutbox evento = lote.get(i);
+            try {
+                sink.enviar(List.of(evento));
+                entregados.add(evento);
+            } catch (IOException | RuntimeException e) {
+                if (!esRechazo(e)) {
+                    // Los que faltan se reintentan con el próximo lote, cuando el destino vuelva
+                    pausar(lote.size() - i, e);
+                    marcarEnviados(entregados);
+                    return entregados.size();
+                }
+                marcarFallido(evento, e);
+            }
+        }
+        marcarEnviados(entregados);
+        fallosDestino = 0;
+        return entregados.size();
+    }
+
+    /**
+     * Rechazo del contenido (reintentar evento por evento) frente a un destino no disponible (reintentar el lote)
+     */
+    private static boolean esRechazo(Exception error) {
+        return error instanceof EventoRechazadoException || error instanceof JsonProcessingException
+                || error instanceof RuntimeException;
+    }
+
+    /**
+     * Detiene el relay con espera exponencial; los eventos del lote no cambian y se toman de nuevo al reanudar
+     */
+    private void pausar(int eventos, Exception error) {
+        long espera = espera(fallosDestino++);
+        pausaHastaMs = System.currentTimeMillis() + espera;
+        fallidos.increment(eventos);
+        logger.warn("Destino del outbox no disponible ({} eventos sin entregar), se reintenta en {} ms: {}",
+                eventos, espera, error.getMessage());
+    }
+
+    private void marcarEnviados(List<EventoOutbox> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        Timestamp envio = Timestamp.valueOf(ahora);
+        List<Object[]> parametros = new ArrayList<>(eventos.size());
+        for (EventoOutbox evento : eventos) {
+            parametros.add(new Object[] {envio, evento.getId()});
+            latencia.record(Duration.between(evento.getFechaCreacion(), ahora));
+        }
+        jdbcTemplate.batchUpdate(ENVIADO_SQL, parametros);
+        enviados.increment(eventos.size());
+    }
+
+    private void marcarFallido(EventoOutbox evento, Exception error) {
+        LocalDateTime proximoIntento = LocalDateTime.now().plus(Duration.ofMillis(espera(evento.getIntentos())));
+        String mensaje = String.valueOf(error.getMessage());
+        jdbcTemplate.update(FALLIDO_SQL, Timestamp.valueOf(proximoIntento),
+                mensaje.length() > 500 ? mensaje.substring(0, 500) : mensaje, evento.getId());
+        fallidos.increment();
+        logger.warn("No se pudo entregar el evento {} del outbox (intento {}), próximo intento {}: {}",
+                evento.getId(), evento.getIntentos() + 1, proximoIntento, mensaje);
+    }
+
+    /**
+     * Espera antes del siguiente intento: backoff-inicial-ms duplicado por cada intento previo, hasta backoff-maximo-ms
+     */
+    long espera(int intentosPrevios) {
+        return Math.min(backoffMaximoMs, backoffInicialMs << Math.min(intentosPrevios, 30));
+    }
+
+    private void actualizarPendientes() {
+        jdbcTemplate.query(PENDIENTES_SQL, rs -> {
+            pendientes.set(rs.getLong(1));
+            Timestamp masAntiguo = rs.getTimestamp(2);
+            lagSegundos.set(masAntiguo == null ? 0
+                    : Math.max(0, Duration.between(masAntiguo.toLocalDateTime(), LocalDateTime.now()).toSeconds()));
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.entity.TipoEventoOutbox;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Escribe los eventos de asistencia en la tabla outbox_eventos dentro de la transacción que modifica la
+ * asistencia: si la transacción se revierte el evento tampoco existe, y si se confirma OutboxRelayService
+ * lo entregará aunque la aplicación caiga justo después.
+ * Antes de insertar toma un bloqueo transaccional por empleado: la siguiente transacción del mismo empleado
+ * espera al commit de la anterior, así el id (BIGSERIAL) de sus eventos sigue el orden de commit y el relay
+ * puede ordenarlos por id
+ */
+@Service
+@ConditionalOnProperty(prefix = "asistencia.outbox", name = "enabled", havingValue = "true")
+public class OutboxService {
+
+    static final String INSERT_SQL = "INSERT INTO outbox_eventos " +
+            "(empleado_id, tipo, payload, fecha_creacion, intentos, proximo_intento) VALUES (?, ?, ?, ?, 0, ?)";
+
+    // Primera clave de pg_advisory_xact_lock(int, int) para el outbox (el número de su migración); la segunda es el empleado
+    static final int ESPACIO_BLOQUEOS = 6;
+
+    private static final String BLOQUEO_SQL =
+            "SELECT pg_advisory_xact_lock(" + ESPACIO_BLOQUEOS + ", CAST(? AS INTEGER))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Registra un evento de la asistencia; exige una transacción en curso
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEventoOutbox tipo, AsistenciaDTO asistencia) {
+        bloquear(asistencia.getEmpleadoId());
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(INSERT_SQL, asistencia.getEmpleadoId(), tipo.name(), aJson(asistencia), ahora, ahora);
+    }
+
+    /**
+     * Registra un evento por asistencia con un único batch JDBC (lotes del write-behind)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarLote(TipoEventoOutbox tipo, List<AsistenciaDTO> asistencias) {
+        // En orden de id para que dos lotes con empleados en común no se bloqueen mutuamente
+        asistencias.stream().map(AsistenciaDTO::getEmpleadoId).filter(Objects::nonNull)
+                .distinct().sorted().forEach(this::bloquear);
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, asistencias, asistencias.size(), (ps, asistencia) -> {
+            ps.setLong(1, asistencia.getEmpleadoId());
+            ps.setString(2, tipo.name());
+            ps.setString(3, aJson(asistencia));
+            ps.setTimestamp(4, ahora);
+            ps.setTimestamp(5, ahora);
+        });
+    }
+
+    /**
+     * Bloqueo hasta el fin de la transacción sobre los eventos del empleado
+     */
+    private void bloquear(Long empleadoId) {
+        jdbcTemplate.query(BLOQUEO_SQL, rs -> { }, empleadoId);
+    }
+
+    private String aJson(AsistenciaDTO asistencia) {
+        try {
+            return objectMapper.writeValueAsString(asistencia);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la asistencia para el outbox", e);
+        }
+    }
+}
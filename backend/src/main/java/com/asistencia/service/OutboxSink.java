@@ -0,0 +1,37 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.EventoOutbox;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destino de los eventos del outbox (asistencia.outbox.sink)
+ * La entrega es al menos una vez: un lote puede repetirse si falla la confirmación después de enviarlo,
+ * así que los consumidores deben descartar los ids ya recibidos
+ */
+public interface OutboxSink {
+
+    /**
+     * Entrega un lote en orden de id. EventoRechazadoException indica que el destino rechazó el contenido
+     * y el lote se reintenta evento por evento; cualquier otra excepción, que el destino no está disponible
+     * y todo el lote se reintenta más tarde
+     */
+    void enviar(List<EventoOutbox> lote) throws IOException;
+
+    /**
+     * Representación JSON común de un evento: id, tipo, empleado, fecha y la asistencia
+     */
+    static ObjectNode sobre(ObjectMapper objectMapper, EventoOutbox evento) throws JsonProcessingException {
+        ObjectNode sobre = objectMapper.createObjectNode();
+        sobre.put("id", evento.getId());
+        sobre.put("tipo", evento.getTipo().name());
+        sobre.put("empleadoId", evento.getEmpleadoId());
+        sobre.put("fechaCreacion", evento.getFechaCreacion().toString());
+        sobre.set("asistencia", objectMapper.readTree(evento.getPayload()));
+        return sobre;
+    }
+}
@@ -0,0 +1,66 @@
+package com.asistencia.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Búsqueda con el índice GIN pg_trgm sobre la columna normalizada nombre_busqueda
+ * (ver database/migrations/004_busqueda_trigram.sql). El LIKE '%...%' usa el índice
+ * y el orden lo da la similitud de trigramas con el término.
+ * Al arrancar comprueba que la migración esté aplicada; si falta, la aplicación no inicia.
+ */
+@Service
+@ConditionalOnProperty(prefix = "asistencia.busqueda", name = "indice", havingValue = "postgres")
+public class PostgresBusquedaNombres implements BusquedaNombres {
+
+    private static final String EMPLEADOS_SQL =
+            "SELECT id FROM empleados WHERE activo = true AND nombre_busqueda LIKE '%' || f_normalizar(?) || '%' " +
+            "ORDER BY word_similarity(f_normalizar(?), nombre_busqueda) DESC, apellidos, nombres LIMIT ?";
+
+    private static final String HORARIOS_SQL =
+            "SELECT id FROM horarios WHERE activo = true AND nombre_busqueda LIKE '%' || f_normalizar(?) || '%' " +
+            "ORDER BY word_similarity(f_normalizar(?), nombre_busqueda) DESC, nombre LIMIT ?";
+
+    // Objetos que crea la migración 004
+    private static final String MIGRACION_SQL = "SELECT (SELECT COUNT(*) FROM pg_extension WHERE extname = 'pg_trgm') " +
+            "+ (CASE WHEN to_regprocedure('f_normalizar(text)') IS NULL THEN 0 ELSE 1 END) " +
+            "+ (SELECT COUNT(*) FROM pg_indexes WHERE indexname IN ('idx_empleados_nombre_trgm', 'idx_horarios_nombre_trgm'))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void verificarMigracion() {
+        Integer presentes = jdbcTemplate.queryForObject(MIGRACION_SQL, Integer.class);
+        if (presentes == null || presentes < 4) {
+            throw new IllegalStateException("asistencia.busqueda.indice=postgres requiere la migración " +
+                    "database/migrations/004_busqueda_trigram.sql (pg_trgm, f_normalizar e índices GIN); " +
+                    "aplíquela o use asistencia.busqueda.indice=memoria");
+        }
+    }
+
+    @Override
+    public List<Long> buscarEmpleados(String termino, int limite) {
+        return buscar(EMPLEADOS_SQL, termino, limite);
+    }
+
+    @Override
+    public List<Long> buscarHorarios(String termino, int limite) {
+        return buscar(HORARIOS_SQL, termino, limite);
+    }
+
+    private List<Long> buscar(String sql, String termino, int limite) {
+        if (termino == null || termino.isBlank()) {
+            return List.of();
+        }
+        String texto = termino.trim().replaceAll("\\s+", " ");
+        // Los comodines del usuario se buscan literalmente (\ es el escape por defecto de LIKE)
+        String patron = texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return jdbcTemplate.queryForList(sql, Long.class, patron, texto, limite);
+    }
+}
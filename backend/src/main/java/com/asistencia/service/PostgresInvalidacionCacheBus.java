@@ -0,0 +1,145 @@
+package com.asistencia.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * Difunde eventos de invalidación con LISTEN/NOTIFY de PostgreSQL.
+ * Cada instancia mantiene una conexión dedicada (fuera del pool) escuchando el canal.
+ */
+@Service
+@ConditionalOnProperty(prefix = "asistencia.cache", name = "bus", havingValue = "postgres")
+public class PostgresInvalidacionCacheBus implements InvalidacionCacheBus, SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresInvalidacionCacheBus.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final String canal;
+    private final int esperaMs;
+
+    private volatile Consumer<EventoInvalidacion> receptor = evento -> { };
+    private volatile boolean running;
+    private Thread escucha;
+
+    public PostgresInvalidacionCacheBus(JdbcTemplate jdbcTemplate,
+                                        DataSourceProperties dataSourceProperties,
+                                        @Value("${asistencia.cache.canal:asistencia_cache}") String canal,
+                                        @Value("${asistencia.cache.espera-ms:500}") int esperaMs) {
+        if (!canal.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Nombre de canal inválido: " + canal);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.canal = canal;
+        this.esperaMs = esperaMs;
+    }
+
+    @Override
+    public void publicar(EventoInvalidacion evento) {
+        // Dentro de una transacción NOTIFY se entrega al confirmar; aquí se llama tras el commit
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, canal, evento.toPayload());
+    }
+
+    @Override
+    public void setReceptor(Consumer<EventoInvalidacion> receptor) {
+        this.receptor = receptor;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        escucha = new Thread(this::escuchar, "cache-invalidacion-listener");
+        escucha.setDaemon(true);
+        escucha.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (escucha != null) {
+            escucha.interrupt();
+            try {
+                escucha.join(esperaMs * 4L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void escuchar() {
+        long reintentoMs = esperaMs;
+        boolean primeraConexion = true;
+        while (running) {
+            try (Connection conexion = abrirConexion()) {
+                try (Statement statement = conexion.createStatement()) {
+                    statement.execute("LISTEN " + canal);
+                }
+                if (!primeraConexion) {
+                    // Pudieron perderse eventos mientras no había conexión
+                    for (EventoInvalidacion.Entidad entidad : EventoInvalidacion.Entidad.values()) {
+                        receptor.accept(new EventoInvalidacion(entidad, null, "reconexion"));
+                    }
+                }
+                primeraConexion = false;
+                reintentoMs = esperaMs;
+                logger.info("Escuchando invalidaciones de caché en el canal {}", canal);
+
+                PGConnection pgConexion = conexion.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notificaciones = pgConexion.getNotifications(esperaMs);
+                    if (notificaciones == null) {
+                        continue;
+                    }
+                    for (PGNotification notificacion : notificaciones) {
+                        procesar(notificacion.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Conexión de invalidación de caché perdida, reintentando en {} ms: {}",
+                        reintentoMs, e.getMessage());
+                try {
+                    Thread.sleep(reintentoMs);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+                reintentoMs = Math.min(reintentoMs * 2, 30_000);
+            }
+        }
+    }
+
+    private void procesar(String payload) {
+        try {
+            receptor.accept(EventoInvalidacion.fromPayload(payload));
+        } catch (RuntimeException e) {
+            logger.warn("Evento de invalidación descartado '{}': {}", payload, e.getMessage());
+        }
+    }
+
+    private Connection abrirConexion() throws SQLException {
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+    }
+}
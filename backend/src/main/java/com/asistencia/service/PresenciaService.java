@@ -0,0 +1,244 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.dto.PresenciaDTO;
+import com.asistencia.entity.Empleado;
+import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.repository.AsistenciaRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Índice en memoria de quién está en las instalaciones hoy: última marcación por empleado
+ * y contadores de ocupación por área. Se reconstruye al arrancar con las marcaciones del día
+ * y se actualiza con cada marcación confirmada, por lo que las consultas no tocan la base de datos.
+ */
+@Service
+public class PresenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenciaService.class);
+
+    static final String SIN_AREA = "Sin área";
+
+    @Autowired
+    private AsistenciaRepository asistenciaRepository;
+
+    @Autowired
+    private EmpleadoService empleadoService;
+
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+
+    // Solo con varias réplicas (asistencia.cache.bus=postgres)
+    @Autowired(required = false)
+    private ReplicacionMarcacionesService replicacionMarcaciones;
+
+    private volatile Indice actual = new Indice(LocalDate.now());
+    // Durante una reconstrucción las marcaciones en vivo se aplican también al índice nuevo
+    private volatile Indice enConstruccion;
+
+    @PostConstruct
+    void suscribir() {
+        invalidacionCacheService.suscribir(this::onInvalidacion);
+        if (replicacionMarcaciones != null) {
+            replicacionMarcaciones.suscribir(this::onMarcacionRegistrada);
+        }
+    }
+
+    /**
+     * Carga las marcaciones de hoy y reemplaza el índice
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruir() {
+        LocalDate hoy = LocalDate.now();
+        Indice nuevo = new Indice(hoy);
+        enConstruccion = nuevo;
+        try {
+            List<Object[]> marcaciones = asistenciaRepository.findMarcacionesDesde(hoy.atStartOfDay());
+            for (Object[] fila : marcaciones) {
+                nuevo.aplicar((Long) fila[0], (String) fila[1], fila[2] + " " + fila[3], (String) fila[4],
+                        (TipoMarcacion) fila[5], (LocalDateTime) fila[6]);
+            }
+            actual = nuevo;
+            logger.info("Índice de presencia reconstruido: {} marcaciones, {} presentes",
+                    marcaciones.size(), nuevo.totalPresentes.get());
+        } finally {
+            enConstruccion = null;
+        }
+    }
+
+    /**
+     * Aplica una marcación local confirmada, o de otra réplica vía ReplicacionMarcacionesService
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMarcacionRegistrada(MarcacionRegistradaEvent evento) {
+        AsistenciaDTO asistencia = evento.asistencia();
+        aplicar(asistencia.getEmpleadoId(), asistencia.getEmpleadoDni(), asistencia.getEmpleadoNombre(),
+                evento.empleadoArea(), asistencia.getTipo(), asistencia.getFechaHora());
+    }
+
+    /**
+     * Resumen de ocupación: total de presentes y conteo por área
+     */
+    public Map<String, Object> getOcupacion() {
+        Indice indice = indiceDeHoy();
+        Map<String, Integer> porArea = new HashMap<>();
+        indice.ocupacionPorArea.forEach((area, contador) -> {
+            int presentes = contador.get();
+            if (presentes > 0) {
+                porArea.put(area, presentes);
+            }
+        });
+        Map<String, Object> ocupacion = new HashMap<>();
+        ocupacion.put("fecha", indice.dia);
+        ocupacion.put("presentes", indice.totalPresentes.get());
+        ocupacion.put("conMarcacion", indice.porEmpleado.size());
+        ocupacion.put("porArea", porArea);
+        return ocupacion;
+    }
+
+    /**
+     * Empleados presentes, opcionalmente filtrados por área (para el conteo de evacuación)
+     */
+    public List<PresenciaDTO> findPresentes(String area) {
+        List<PresenciaDTO> presentes = new ArrayList<>();
+        for (PresenciaDTO presencia : indiceDeHoy().porEmpleado.values()) {
+            if (presencia.isPresente() && (area == null || area.equalsIgnoreCase(presencia.getArea()))) {
+                presentes.add(presencia);
+            }
+        }
+        return presentes;
+    }
+
+    /**
+     * Estado de un empleado hoy
+     */
+    public Optional<PresenciaDTO> findByEmpleadoId(Long empleadoId) {
+        return Optional.ofNullable(indiceDeHoy().porEmpleado.get(empleadoId));
+    }
+
+    private void aplicar(Long empleadoId, String dni, String nombre, String area,
+                         TipoMarcacion tipo, LocalDateTime fechaHora) {
+        indiceDeHoy().aplicar(empleadoId, dni, nombre, area, tipo, fechaHora);
+        Indice siguiente = enConstruccion;
+        if (siguiente != null) {
+            siguiente.aplicar(empleadoId, dni, nombre, area, tipo, fechaHora);
+        }
+    }
+
+    private void onInvalidacion(EventoInvalidacion evento) {
+        if (evento.entidad() == EventoInvalidacion.Entidad.EMPLEADO && evento.clave() != null) {
+            refrescarEmpleado(evento.clave());
+        }
+    }
+
+    /**
+     * Actualiza nombre y área de un empleado ya presente en el índice (la clave es el DNI)
+     */
+    private void refrescarEmpleado(String dni) {
+        Indice indice = indiceDeHoy();
+        for (PresenciaDTO presencia : indice.porEmpleado.values()) {
+            if (dni.equals(presencia.getEmpleadoDni())) {
+                Optional<Empleado> empleado = empleadoService.findEntityById(presencia.getEmpleadoId());
+                empleado.ifPresent(e -> indice.actualizarEmpleado(e.getId(), e.getDni(), e.getNombreCompleto(), e.getArea()));
+            }
+        }
+    }
+
+    private Indice indiceDeHoy() {
+        Indice indice = actual;
+        LocalDate hoy = LocalDate.now();
+        if (!indice.dia.equals(hoy)) {
+            synchronized (this) {
+                if (!actual.dia.equals(hoy)) {
+                    actual = new Indice(hoy);
+                }
+                indice = actual;
+            }
+        }
+        return indice;
+    }
+
+    /**
+     * Entra (o retorna) suma; sale resta. Una marcación fuera de horario alterna el estado anterior,
+     * así la primera del día cuenta como ingreso.
+     */
+    static boolean calcularPresencia(PresenciaDTO anterior, TipoMarcacion tipo) {
+        return switch (tipo) {
+            case ENTRADA, RETORNO_ALMUERZO -> true;
+            case SALIDA_ALMUERZO, SALIDA -> false;
+            case FUERA_HORARIO -> anterior == null || !anterior.isPresente();
+        };
+    }
+
+    /**
+     * Estado de presencia de un día; los contadores se ajustan dentro del compute de cada empleado
+     */
+    private static final class Indice {
+        private final LocalDate dia;
+        private final ConcurrentHashMap<Long, PresenciaDTO> porEmpleado = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, AtomicInteger> ocupacionPorArea = new ConcurrentHashMap<>();
+        private final AtomicInteger totalPresentes = new AtomicInteger();
+
+        Indice(LocalDate dia) {
+            this.dia = dia;
+        }
+
+        void aplicar(Long empleadoId, String dni, String nombre, String area,
+                     TipoMarcacion tipo, LocalDateTime fechaHora) {
+            if (!fechaHora.toLocalDate().equals(dia)) {
+                return;
+            }
+            porEmpleado.compute(empleadoId, (id, anterior) -> {
+                // Ignora marcaciones repetidas o que llegan fuera de orden
+                if (anterior != null && !fechaHora.isAfter(anterior.getFechaHora())) {
+                    return anterior;
+                }
+                PresenciaDTO nueva = new PresenciaDTO(id, dni, nombre, normalizarArea(area), tipo, fechaHora,
+                        calcularPresencia(anterior, tipo));
+                ajustarContadores(anterior, nueva);
+                return nueva;
+            });
+        }
+
+        void actualizarEmpleado(Long empleadoId, String dni, String nombre, String area) {
+            porEmpleado.computeIfPresent(empleadoId, (id, anterior) -> {
+                PresenciaDTO nueva = anterior.conEmpleado(dni, nombre, normalizarArea(area));
+                ajustarContadores(anterior, nueva);
+                return nueva;
+            });
+        }
+
+        private void ajustarContadores(PresenciaDTO anterior, PresenciaDTO nueva) {
+            if (anterior != null && anterior.isPresente()) {
+                ocupacionPorArea.get(anterior.getArea()).decrementAndGet();
+                totalPresentes.decrementAndGet();
+            }
+            if (nueva.isPresente()) {
+                ocupacionPorArea.computeIfAbsent(nueva.getArea(), a -> new AtomicInteger()).incrementAndGet();
+                totalPresentes.incrementAndGet();
+            }
+        }
+
+        private static String normalizarArea(String area) {
+            return area == null || area.isBlank() ? SIN_AREA : area;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Entrega a los índices en memoria (presencia, mapas de bits) las marcaciones registradas en otras réplicas.
+ * En vez de un aviso por marcación en el bus de invalidación, cada réplica consulta periódicamente las
+ * asistencias creadas desde la última consulta: un lote de miles de marcaciones cuesta una consulta.
+ * La ventana se solapa un margen para las transacciones que se confirman tarde; las ya entregadas se recuerdan
+ * por id mientras siguen dentro del margen. También llegan las marcaciones propias: aplicarlas es idempotente.
+ * Solo hace falta con varias réplicas, es decir con el bus de PostgreSQL.
+ */
+@Service
+@ConditionalOnProperty(prefix = "asistencia.cache", name = "bus", havingValue = "postgres")
+public class ReplicacionMarcacionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicacionMarcacionesService.class);
+
+    static final String CREADAS_DESDE_SQL = "SELECT a.id, a.empleado_id, a.fecha_hora, a.tipo, a.estado, " +
+            "a.fecha_creacion, e.dni, e.nombres, e.apellidos, e.area, e.cargo " +
+            "FROM asistencias a JOIN empleados e ON e.id = a.empleado_id " +
+            "WHERE a.fecha_creacion >= ? ORDER BY a.fecha_creacion";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<Consumer<MarcacionRegistradaEvent>> suscriptores = new CopyOnWriteArrayList<>();
+
+    @Value("${asistencia.replicacion-marcaciones.margen-segundos:60}")
+    private long margenSegundos = 60;
+
+    // Mayor fecha_creacion vista; la siguiente consulta empieza un margen antes
+    private LocalDateTime ultimaCreacion = LocalDateTime.now();
+    // Ids entregados dentro del margen, con su fecha_creacion
+    private final Map<Long, LocalDateTime> entregadas = new HashMap<>();
+
+    public ReplicacionMarcacionesService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registra un índice que debe recibir las marcaciones de todas las réplicas
+     */
+    public void suscribir(Consumer<MarcacionRegistradaEvent> suscriptor) {
+        suscriptores.add(suscriptor);
+    }
+
+    /**
+     * Lee las marcaciones creadas desde la última consulta y las entrega a los suscriptores; devuelve cuántas entregó
+     */
+    @Scheduled(fixedDelayString = "${asistencia.replicacion-marcaciones.intervalo-ms:1000}")
+    public synchronized int sondear() {
+        LocalDateTime desde = ultimaCreacion.minusSeconds(margenSegundos);
+        List<MarcacionRegistradaEvent> nuevas = new ArrayList<>();
+        try {
+            jdbcTemplate.query(CREADAS_DESDE_SQL, rs -> {
+                long id = rs.getLong(1);
+                LocalDateTime creacion = rs.getTimestamp(6).toLocalDateTime();
+                if (creacion.isAfter(ultimaCreacion)) {
+                    ultimaCreacion = creacion;
+                }
+                if (entregadas.putIfAbsent(id, creacion) != null) {
+                    return;
+                }
+                String estado = rs.getString(5);
+                AsistenciaDTO asistencia = new AsistenciaDTO(rs.getLong(2), rs.getTimestamp(3).toLocalDateTime(),
+                        TipoMarcacion.valueOf(rs.getString(4)), estado != null ? EstadoMarcacion.valueOf(estado) : null);
+                asistencia.setId(id);
+                asistencia.setEmpleadoDni(rs.getString(7));
+                asistencia.setEmpleadoNombre(rs.getString(8) + " " + rs.getString(9));
+                nuevas.add(new MarcacionRegistradaEvent(asistencia, rs.getString(10), rs.getString(11)));
+            }, Timestamp.valueOf(desde));
+        } catch (DataAccessException e) {
+            // La ventana no avanza: la siguiente consulta recupera lo pendiente
+            logger.warn("No se pudieron leer las marcaciones de otras réplicas: {}", e.getMessage());
+            return 0;
+        }
+        LocalDateTime olvidarAntes = ultimaCreacion.minusSeconds(margenSegundos);
+        entregadas.values().removeIf(creacion -> creacion.isBefore(olvidarAntes));
+
+        for (MarcacionRegistradaEvent evento : nuevas) {
+            for (Consumer<MarcacionRegistradaEvent> suscriptor : suscriptores) {
+                try {
+                    suscriptor.accept(evento);
+                } catch (RuntimeException e) {
+                    logger.warn("Error al aplicar una marcación replicada: {}", e.getMessage());
+                }
+            }
+        }
+        return nuevas.size();
+    }
+}
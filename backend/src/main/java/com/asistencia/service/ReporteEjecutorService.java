@@ -0,0 +1,127 @@
+package com.asistencia.service;
+
+import com.asistencia.config.CompartimentoReportesDataSource;
+import com.asistencia.exception.ReporteSaturadoException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compartimento aislado para reportes y exportaciones. Se ejecutan en un pool propio y acotado,
+ * fuera de los hilos de Tomcat, para que una exportación grande no retrase el registro de marcaciones.
+ * Si el pool y su cola están llenos, el reporte se rechaza en lugar de esperar.
+ * Los reportes por área reparten sus consultas en un segundo pool compartido y acotado.
+ * Las lecturas de ambos pools usan las conexiones del pool de reportes (CompartimentoReportesDataSource).
+ */
+@Service
+public class ReporteEjecutorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReporteEjecutorService.class);
+
+    @Value("${asistencia.reportes.bulkhead.hilos:4}")
+    private int hilos = 4;
+
+    @Value("${asistencia.reportes.bulkhead.cola:4}")
+    private int cola = 4;
+
+    @Value("${asistencia.reportes.bulkhead.timeout-ms:300000}")
+    private long timeoutMs = 300_000;
+
+    @Value("${asistencia.reportes.paralelismo:4}")
+    private int paralelismo = 4;
+
+    private final AtomicLong rechazados = new AtomicLong();
+    private ThreadPoolExecutor executor;
+    // Consultas por área de todos los reportes en curso; la cola la acotan los reportes admitidos
+    private ThreadPoolExecutor areas;
+
+    @PostConstruct
+    void iniciar() {
+        executor = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                cola > 0 ? new ArrayBlockingQueue<>(cola) : new SynchronousQueue<>(),
+                fabricaDeHilos("reportes-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        areas = new ThreadPoolExecutor(paralelismo, paralelismo, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), fabricaDeHilos("reportes-area-"));
+    }
+
+    private static ThreadFactory fabricaDeHilos(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(CompartimentoReportesDataSource.enHiloDeReportes(tarea),
+                    prefijo + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+    @PreDestroy
+    void detener() {
+        executor.shutdownNow();
+        areas.shutdownNow();
+    }
+
+    /**
+     * Ejecuta el reporte en el pool de reportes y libera el hilo de la petición.
+     * Si el cliente se desconecta o se agota el tiempo, se interrumpe la tarea.
+     */
+    public <T> DeferredResult<T> ejecutar(Callable<T> tarea) {
+        DeferredResult<T> resultado = new DeferredResult<>(timeoutMs);
+        Future<?> futuro;
+        try {
+            futuro = executor.submit(() -> {
+                try {
+                    resultado.setResult(tarea.call());
+                } catch (Exception e) {
+                    resultado.setErrorResult(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Reporte rechazado: {} en curso y {} en espera ({} rechazados)",
+                    executor.getActiveCount(), executor.getQueue().size(), rechazados.incrementAndGet());
+            throw new ReporteSaturadoException("Hay demasiados reportes en curso, intente nuevamente en unos minutos");
+        }
+
+        resultado.onTimeout(() -> {
+            futuro.cancel(true);
+            resultado.setErrorResult(new ReporteSaturadoException("El reporte superó el tiempo máximo de generación"));
+        });
+        resultado.onError(error -> futuro.cancel(true));
+        return resultado;
+    }
+
+    /**
+     * Envía la consulta de un área al pool compartido de áreas
+     */
+    public <T> Future<T> enviarPorArea(Callable<T> tarea) {
+        return areas.submit(tarea);
+    }
+
+    public int getEnCurso() {
+        return executor.getActiveCount();
+    }
+
+    public int getEnEspera() {
+        return executor.getQueue().size();
+    }
+
+    public long getRechazados() {
+        return rechazados.get();
+    }
+}
@@ -3,8 +3,10 @@ package com.asistencia.service;
 import com.asistencia.dto.ReporteAsistenciaDTO;
 import com.asistencia.dto.ReporteRequestDTO;
 import com.asistencia.entity.Asistencia;
+import com.asistencia.entity.Empleado;
 import com.asistencia.entity.TipoMarcacion;
 import com.asistencia.repository.AsistenciaRepository;
+import com.asistencia.repository.EmpleadoRepository;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
@@ -13,43 +15,176 @@ import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.persistence.criteria.Predicate;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
+@Transactional(readOnly = true, timeoutString = "${asistencia.reportes.timeout-segundos:120}")
 public class ReporteService {
     
+    private static final Logger logger = LoggerFactory.getLogger(ReporteService.class);
+    
+    // Nombre de la hoja o el archivo de los empleados sin área; un área real con este nombre se reporta aparte
+    private static final String SIN_AREA = "Sin área";
+    
+    private static final String[] EXCEL_HEADERS =
+            {"ID", "Empleado", "DNI", "Cargo", "Área", "Fecha y Hora", "Tipo", "Estado", "Observaciones"};
+    
     @Autowired
     private AsistenciaRepository asistenciaRepository;
     
+    @Autowired
+    private EmpleadoRepository empleadoRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ArchivoAsistenciaService archivoService;
+    
+    @Autowired
+    private ReporteEjecutorService reporteEjecutor;
+    
+    @Value("${asistencia.reportes.timeout-segundos:120}")
+    private int timeoutSegundos = 120;
+    
     public Page<Asistencia> obtenerReporteAsistencias(ReporteRequestDTO request, Pageable pageable) {
         Specification<Asistencia> spec = createSpecificationWithFetch(request);
-        return asistenciaRepository.findAll(spec, pageable);
+        LocalDateTime corte = archivoService.finArchivo(request.getFechaInicio(), request.getFechaFin());
+        if (corte == null) {
+            return asistenciaRepository.findAll(spec, pageable);
+        }
+        
+        // El rango incluye meses archivados y todo lo archivado es anterior al corte: lo posterior va primero
+        // (orden descendente) y se pagina en SQL; solo lo anterior se combina con el archivo en memoria
+        Page<Asistencia> recientes = asistenciaRepository.findAll(spec.and(desdeCorte(corte)), pageable);
+        List<Asistencia> anteriores = combinarConArchivo(
+                asistenciaRepository.findAll(spec.and(antesDelCorte(corte))), request, empleado -> true);
+        List<Asistencia> contenido = new ArrayList<>(recientes.getContent());
+        int desde = (int) Math.min(Math.max(0, pageable.getOffset() - recientes.getTotalElements()), anteriores.size());
+        int hasta = Math.min(desde + pageable.getPageSize() - contenido.size(), anteriores.size());
+        contenido.addAll(anteriores.subList(desde, Math.max(desde, hasta)));
+        return new PageImpl<>(contenido, pageable, recientes.getTotalElements() + anteriores.size());
+    }
+    
+    private static Specification<Asistencia> desdeCorte(LocalDateTime corte) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("fechaHora"), corte);
+    }
+    
+    private static Specification<Asistencia> antesDelCorte(LocalDateTime corte) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThan(root.get("fechaHora"), corte);
     }
     
     public List<ReporteAsistenciaDTO> obtenerReporteAsistenciasDTO(ReporteRequestDTO request) {
         Specification<Asistencia> spec = createSpecificationWithFetch(request);
-        List<Asistencia> asistencias = asistenciaRepository.findAll(spec);
+        List<Asistencia> asistencias = combinarConArchivo(asistenciaRepository.findAll(spec), request, empleado -> true);
         
         return asistencias.stream()
                 .map(this::convertToReporteDTO)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Agrega las marcaciones archivadas del rango de los empleados incluidos (si las hay) y ordena por fecha descendente
+     */
+    private List<Asistencia> combinarConArchivo(List<Asistencia> asistencias, ReporteRequestDTO request,
+                                                java.util.function.Predicate<Empleado> incluir) {
+        if (!archivoService.incluyeArchivo(request.getFechaInicio(), request.getFechaFin())) {
+            return asistencias;
+        }
+        List<ArchivoColumnar.Fila> filas = buscarArchivadas(request);
+        Map<Long, Empleado> empleados = empleadosArchivados(filas);
+        
+        List<Asistencia> combinadas = new ArrayList<>(asistencias);
+        for (ArchivoColumnar.Fila fila : filas) {
+            Empleado empleado = empleados.get(fila.empleadoId());
+            if (!incluir.test(empleado)) {
+                continue;
+            }
+            Asistencia asistencia = new Asistencia();
+            asistencia.setId(fila.id());
+            asistencia.setEmpleado(empleado);
+            asistencia.setFechaHora(fila.fechaHora());
+            asistencia.setTipo(fila.tipo());
+            asistencia.setEstado(fila.estado());
+            asistencia.setObservaciones(fila.observaciones());
+            asistencia.setFechaCreacion(fila.fechaCreacion());
+            combinadas.add(asistencia);
+        }
+        combinadas.sort(Comparator.comparing(Asistencia::getFechaHora).reversed());
+        return combinadas;
+    }
+    
+    private List<ArchivoColumnar.Fila> buscarArchivadas(ReporteRequestDTO request) {
+        return archivoService.buscar(request.getFechaInicio(), request.getFechaFin(), request.getEmpleadoId(),
+                tipoMarcacion(request));
+    }
+    
+    /**
+     * Empleados de las filas archivadas; los eliminados después de archivar se conservan sin datos para auditoría
+     */
+    private Map<Long, Empleado> empleadosArchivados(List<ArchivoColumnar.Fila> filas) {
+        Set<Long> ids = filas.stream().map(ArchivoColumnar.Fila::empleadoId).collect(Collectors.toSet());
+        Map<Long, Empleado> empleados = empleadoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Empleado::getId, Function.identity()));
+        for (Long id : ids) {
+            empleados.computeIfAbsent(id, eliminado -> {
+                Empleado empleado = new Empleado();
+                empleado.setId(eliminado);
+                return empleado;
+            });
+        }
+        return empleados;
+    }
+    
+    private TipoMarcacion tipoMarcacion(ReporteRequestDTO request) {
+        if (request.getTipoMarcacion() != null && !request.getTipoMarcacion().isEmpty()) {
+            try {
+                return TipoMarcacion.valueOf(request.getTipoMarcacion());
+            } catch (IllegalArgumentException e) {
+                // Ignorar tipo inválido
+            }
+        }
+        return null;
+    }
+    
     private Specification<Asistencia> createSpecification(ReporteRequestDTO request) {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -152,63 +287,120 @@ public class ReporteService {
              ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
             
             Sheet sheet = workbook.createSheet("Reporte de Asistencias");
+            escribirHoja(sheet, crearEstiloEncabezado(workbook), datos);
             
-            // Crear estilo para encabezados
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            
-            // Crear encabezados
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"ID", "Empleado", "DNI", "Cargo", "Área", "Fecha y Hora", "Tipo", "Estado", "Observaciones"};
-            
-            for (int i = 0; i < headers.length; i++) {
-                org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            
-            // Llenar datos
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
-            int rowNum = 1;
-            
-            for (ReporteAsistenciaDTO dto : datos) {
-                Row row = sheet.createRow(rowNum++);
-                
-                row.createCell(0).setCellValue(dto.getId());
-                row.createCell(1).setCellValue(dto.getNombreCompleto());
-                row.createCell(2).setCellValue(dto.getEmpleadoDni());
-                row.createCell(3).setCellValue(dto.getEmpleadoCargo());
-                row.createCell(4).setCellValue(dto.getEmpleadoArea());
-                row.createCell(5).setCellValue(dto.getFechaHora().format(formatter));
-                row.createCell(6).setCellValue(dto.getTipo().toString());
-                row.createCell(7).setCellValue(dto.getEstado().toString());
-                row.createCell(8).setCellValue(dto.getObservaciones() != null ? dto.getObservaciones() : "");
-            }
+            workbook.write(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+    
+    /**
+     * Un libro con una hoja por área. Las áreas se consultan en paralelo, cada una con su propia conexión;
+     * las hojas se escriben después en orden porque un libro de POI no admite escritura concurrente.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] generarReporteExcelPorArea(ReporteRequestDTO request) throws IOException {
+        List<String> areas = obtenerAreas(request);
+        List<List<ReporteAsistenciaDTO>> particiones = ejecutarPorArea(areas,
+                area -> () -> obtenerReporteAsistenciasDTO(request, area));
+        
+        SXSSFWorkbook workbook = new SXSSFWorkbook(500);
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            CellStyle headerStyle = crearEstiloEncabezado(workbook);
+            Set<String> nombres = new HashSet<>();
             
-            // Ajustar ancho de columnas
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+            for (int i = 0; i < areas.size(); i++) {
+                SXSSFSheet sheet = workbook.createSheet(nombreHoja(etiqueta(areas.get(i)), nombres));
+                sheet.trackAllColumnsForAutoSizing();
+                escribirHoja(sheet, headerStyle, particiones.get(i));
             }
             
             workbook.write(outputStream);
             return outputStream.toByteArray();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+    
+    private CellStyle crearEstiloEncabezado(Workbook workbook) {
+        CellStyle headerStyle = workbook.createCellStyle();
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerStyle.setFont(headerFont);
+        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        return headerStyle;
+    }
+    
+    private void escribirHoja(Sheet sheet, CellStyle headerStyle, List<ReporteAsistenciaDTO> datos) {
+        // Crear encabezados
+        Row headerRow = sheet.createRow(0);
+        
+        for (int i = 0; i < EXCEL_HEADERS.length; i++) {
+            org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
+            cell.setCellValue(EXCEL_HEADERS[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        
+        // Llenar datos
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+        int rowNum = 1;
+        
+        for (ReporteAsistenciaDTO dto : datos) {
+            Row row = sheet.createRow(rowNum++);
+            
+            row.createCell(0).setCellValue(dto.getId());
+            row.createCell(1).setCellValue(dto.getNombreCompleto());
+            row.createCell(2).setCellValue(dto.getEmpleadoDni());
+            row.createCell(3).setCellValue(dto.getEmpleadoCargo());
+            row.createCell(4).setCellValue(dto.getEmpleadoArea());
+            row.createCell(5).setCellValue(dto.getFechaHora().format(formatter));
+            row.createCell(6).setCellValue(dto.getTipo().toString());
+            row.createCell(7).setCellValue(dto.getEstado().toString());
+            row.createCell(8).setCellValue(dto.getObservaciones() != null ? dto.getObservaciones() : "");
+        }
+        
+        // Ajustar ancho de columnas
+        for (int i = 0; i < EXCEL_HEADERS.length; i++) {
+            sheet.autoSizeColumn(i);
         }
     }
     
     public byte[] generarReportePDF(ReporteRequestDTO request) throws IOException {
-        List<ReporteAsistenciaDTO> datos = obtenerReporteAsistenciasDTO(request);
+        return escribirPDF("Reporte de Asistencias", request, obtenerReporteAsistenciasDTO(request));
+    }
+    
+    /**
+     * ZIP con un PDF por área; cada área se consulta y se renderiza en paralelo
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] generarReportePDFPorArea(ReporteRequestDTO request) throws IOException {
+        List<String> areas = obtenerAreas(request);
+        List<byte[]> pdfs = ejecutarPorArea(areas, area -> () -> escribirPDF("Reporte de Asistencias - " + etiqueta(area),
+                request, obtenerReporteAsistenciasDTO(request, area)));
         
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+             ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            Set<String> nombres = new HashSet<>();
+            for (int i = 0; i < areas.size(); i++) {
+                zip.putNextEntry(new ZipEntry(nombreArchivo(etiqueta(areas.get(i)), nombres) + ".pdf"));
+                zip.write(pdfs.get(i));
+                zip.closeEntry();
+            }
+            zip.finish();
+            return outputStream.toByteArray();
+        }
+    }
+    
+    private byte[] escribirPDF(String titulo, ReporteRequestDTO request, List<ReporteAsistenciaDTO> datos) throws IOException {
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
             PdfWriter writer = new PdfWriter(outputStream);
             PdfDocument pdfDoc = new PdfDocument(writer);
             Document document = new Document(pdfDoc);
             
             // Título del reporte
-            document.add(new Paragraph("Reporte de Asistencias")
+            document.add(new Paragraph(titulo)
                     .setTextAlignment(TextAlignment.CENTER)
                     .setFontSize(18)
                     .setBold());
@@ -265,4 +457,107 @@ public class ReporteService {
             return outputStream.toByteArray();
         }
     }
+    
+    /**
+     * Reporte de un área (null = empleados sin área)
+     */
+    private List<ReporteAsistenciaDTO> obtenerReporteAsistenciasDTO(ReporteRequestDTO request, String area) {
+        Specification<Asistencia> porArea = (root, query, criteriaBuilder) -> area == null
+                ? criteriaBuilder.isNull(root.get("empleado").get("area"))
+                : criteriaBuilder.equal(root.get("empleado").get("area"), area);
+        
+        List<Asistencia> asistencias = asistenciaRepository.findAll(createSpecificationWithFetch(request).and(porArea));
+        return combinarConArchivo(asistencias, request, empleado -> Objects.equals(empleado.getArea(), area)).stream()
+                .map(this::convertToReporteDTO)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Áreas con marcaciones en el rango, incluidas las archivadas, ordenadas por nombre (null = sin área)
+     */
+    private List<String> obtenerAreas(ReporteRequestDTO request) {
+        Set<String> areas = new HashSet<>(asistenciaRepository.findAreasConMarcaciones(request.getEmpleadoId(),
+                tipoMarcacion(request), request.getFechaInicio().atStartOfDay(), request.getFechaFin().atTime(23, 59, 59)));
+        if (archivoService.incluyeArchivo(request.getFechaInicio(), request.getFechaFin())) {
+            empleadosArchivados(buscarArchivadas(request)).values().forEach(empleado -> areas.add(empleado.getArea()));
+        }
+        return areas.stream()
+                .sorted(Comparator.comparing(this::etiqueta).thenComparing(Objects::isNull))
+                .collect(Collectors.toList());
+    }
+    
+    private String etiqueta(String area) {
+        return area != null ? area : SIN_AREA;
+    }
+    
+    /**
+     * Ejecuta una tarea por área en el pool compartido de áreas, cada una en su propia transacción de solo lectura,
+     * y devuelve los resultados en el orden de las áreas
+     */
+    private <T> List<T> ejecutarPorArea(List<String> areas, Function<String, Callable<T>> tarea) throws IOException {
+        if (areas.isEmpty()) {
+            return List.of();
+        }
+        long inicio = System.currentTimeMillis();
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        lectura.setTimeout(timeoutSegundos);
+        List<Future<T>> futuros = new ArrayList<>();
+        try {
+            for (String area : areas) {
+                Callable<T> callable = tarea.apply(area);
+                futuros.add(reporteEjecutor.enviarPorArea(() -> lectura.execute(status -> {
+                    try {
+                        return callable.call();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } catch (Exception e) {
+                        throw e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e);
+                    }
+                })));
+            }
+            List<T> resultados = new ArrayList<>();
+            for (Future<T> futuro : futuros) {
+                resultados.add(futuro.get());
+            }
+            logger.info("Reporte por área: {} áreas en {} ms", areas.size(), System.currentTimeMillis() - inicio);
+            return resultados;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generación del reporte por área interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Error al generar el reporte por área", e.getCause());
+        } finally {
+            // Si el reporte se cancela o falla un área, las demás dejan de ocupar el pool compartido
+            futuros.forEach(futuro -> futuro.cancel(true));
+        }
+    }
+    
+    /**
+     * Nombre de hoja válido para Excel (máximo 31 caracteres) y sin repetir
+     */
+    private String nombreHoja(String area, Set<String> usados) {
+        String base = WorkbookUtil.createSafeSheetName(area);
+        String nombre = base;
+        for (int i = 2; !usados.add(nombre.toLowerCase()); i++) {
+            String sufijo = " (" + i + ")";
+            nombre = base.substring(0, Math.min(base.length(), 31 - sufijo.length())) + sufijo;
+        }
+        return nombre;
+    }
+    
+    private String nombreArchivo(String area, Set<String> usados) {
+        String base = area.replaceAll("[\\\\/:*?\"<>|]", "_");
+        String nombre = base;
+        for (int i = 2; !usados.add(nombre.toLowerCase()); i++) {
+            nombre = base + "_" + i;
+        }
+        return nombre;
+    }
 }
\ No newline at end of file
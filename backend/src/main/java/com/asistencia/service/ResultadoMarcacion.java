@@ -0,0 +1,49 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.MarcacionResponseDTO;
+import com.asistencia.entity.TipoMarcacion;
+
+/**
+ * Resultado de una marcación: la respuesta si se registró o el motivo del rechazo, con el tipo de marcación
+ * (null si no se llegó a clasificar). Los rechazos son tráfico normal del lector (DNI desconocido, doble pase),
+ * por eso no se lanzan excepciones.
+ */
+public record ResultadoMarcacion(MarcacionResponseDTO respuesta, Rechazo rechazo, TipoMarcacion tipo) {
+
+    public enum Rechazo {
+        EMPLEADO_NO_ENCONTRADO("Empleado no encontrado"),
+        MARCACION_DUPLICADA("Ya existe una marcación reciente");
+
+        private final String mensaje;
+
+        Rechazo(String mensaje) {
+            this.mensaje = mensaje;
+        }
+
+        /**
+         * Mensaje para el lector (sin el DNI)
+         */
+        public String getMensaje() {
+            return mensaje;
+        }
+    }
+
+    private static final ResultadoMarcacion NO_ENCONTRADO =
+            new ResultadoMarcacion(null, Rechazo.EMPLEADO_NO_ENCONTRADO, null);
+
+    public static ResultadoMarcacion registrada(MarcacionResponseDTO respuesta) {
+        return new ResultadoMarcacion(respuesta, null, respuesta.getTipo());
+    }
+
+    public static ResultadoMarcacion noEncontrado() {
+        return NO_ENCONTRADO;
+    }
+
+    public static ResultadoMarcacion duplicada(TipoMarcacion tipo) {
+        return new ResultadoMarcacion(null, Rechazo.MARCACION_DUPLICADA, tipo);
+    }
+
+    public boolean isRegistrada() {
+        return rechazo == null;
+    }
+}
@@ -0,0 +1,177 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsignacionTurnoDTO;
+import com.asistencia.dto.TurnoDTO;
+import com.asistencia.entity.AsignacionTurno;
+import com.asistencia.entity.Empleado;
+import com.asistencia.entity.Turno;
+import com.asistencia.repository.AsignacionTurnoRepository;
+import com.asistencia.repository.EmpleadoRepository;
+import com.asistencia.repository.TurnoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Turnos y su asignación a empleados o áreas. Cada cambio se publica como invalidación de horarios
+ * para que MotorHorarios reconstruya su índice en todas las instancias.
+ */
+@Service
+@Transactional
+public class TurnoService {
+    
+    @Autowired
+    private TurnoRepository turnoRepository;
+    
+    @Autowired
+    private AsignacionTurnoRepository asignacionTurnoRepository;
+    
+    @Autowired
+    private EmpleadoRepository empleadoRepository;
+    
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+    
+    /**
+     * Obtiene todos los turnos
+     */
+    @Transactional(readOnly = true)
+    public List<TurnoDTO> findAll() {
+        return turnoRepository.findAllByOrderByNombre()
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Crea un nuevo turno
+     */
+    public TurnoDTO create(TurnoDTO turnoDTO) {
+        if (turnoRepository.existsByNombreIgnoreCase(turnoDTO.getNombre())) {
+            throw new IllegalArgumentException("Ya existe un turno con el nombre: " + turnoDTO.getNombre());
+        }
+        Turno turno = new Turno(turnoDTO.getNombre());
+        Turno savedTurno = turnoRepository.save(turno);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.HORARIO);
+        return convertToDTO(savedTurno);
+    }
+    
+    /**
+     * Actualiza el nombre o el estado de un turno
+     */
+    public TurnoDTO update(Long id, TurnoDTO turnoDTO) {
+        Turno turno = buscarTurno(id);
+        if (!turno.getNombre().equalsIgnoreCase(turnoDTO.getNombre())
+                && turnoRepository.existsByNombreIgnoreCase(turnoDTO.getNombre())) {
+            throw new IllegalArgumentException("Ya existe un turno con el nombre: " + turnoDTO.getNombre());
+        }
+        turno.setNombre(turnoDTO.getNombre());
+        if (turnoDTO.getActivo() != null) {
+            turno.setActivo(turnoDTO.getActivo());
+        }
+        Turno updatedTurno = turnoRepository.save(turno);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.HORARIO);
+        return convertToDTO(updatedTurno);
+    }
+    
+    /**
+     * Desactiva un turno (soft delete): sus empleados vuelven al turno de su área o al horario general
+     */
+    public void delete(Long id) {
+        Turno turno = buscarTurno(id);
+        turno.setActivo(false);
+        turnoRepository.save(turno);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.HORARIO);
+    }
+    
+    /**
+     * Asignaciones vigentes de un turno
+     */
+    @Transactional(readOnly = true)
+    public List<AsignacionTurnoDTO> findAsignaciones(Long turnoId) {
+        return asignacionTurnoRepository.findByTurnoIdAndActivoTrue(turnoId)
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Asigna el turno a un empleado o a un área, reemplazando la asignación vigente que tuviera
+     */
+    public AsignacionTurnoDTO asignar(Long turnoId, AsignacionTurnoDTO asignacionDTO) {
+        boolean porEmpleado = asignacionDTO.getEmpleadoId() != null;
+        boolean porArea = asignacionDTO.getArea() != null && !asignacionDTO.getArea().isBlank();
+        if (porEmpleado == porArea) {
+            throw new IllegalArgumentException("Indique un empleado o un área, pero no ambos");
+        }
+        
+        Turno turno = buscarTurno(turnoId);
+        if (!Boolean.TRUE.equals(turno.getActivo())) {
+            throw new IllegalArgumentException("El turno no está activo: " + turno.getNombre());
+        }
+        
+        AsignacionTurno asignacion;
+        if (porEmpleado) {
+            Empleado empleado = empleadoRepository.findById(asignacionDTO.getEmpleadoId())
+                    .orElseThrow(() -> new IllegalArgumentException("Empleado no encontrado con ID: " + asignacionDTO.getEmpleadoId()));
+            asignacionTurnoRepository.findByEmpleadoIdAndActivoTrue(empleado.getId()).ifPresent(this::desactivar);
+            asignacion = AsignacionTurno.deEmpleado(turno, empleado);
+        } else {
+            String area = asignacionDTO.getArea().trim();
+            asignacionTurnoRepository.findByAreaAndActivoTrue(area).ifPresent(this::desactivar);
+            asignacion = AsignacionTurno.deArea(turno, area);
+        }
+        
+        AsignacionTurno savedAsignacion = asignacionTurnoRepository.save(asignacion);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.HORARIO);
+        return convertToDTO(savedAsignacion);
+    }
+    
+    /**
+     * Quita una asignación: el empleado o el área vuelve al horario que le corresponda sin ella
+     */
+    public void quitarAsignacion(Long asignacionId) {
+        AsignacionTurno asignacion = asignacionTurnoRepository.findById(asignacionId)
+                .orElseThrow(() -> new IllegalArgumentException("Asignación no encontrada con ID: " + asignacionId));
+        desactivar(asignacion);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.HORARIO);
+    }
+    
+    private void desactivar(AsignacionTurno asignacion) {
+        asignacion.setActivo(false);
+        // Se escribe antes de insertar la nueva para no chocar con los índices únicos de asignaciones vigentes
+        asignacionTurnoRepository.saveAndFlush(asignacion);
+    }
+    
+    private Turno buscarTurno(Long id) {
+        return turnoRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Turno no encontrado con ID: " + id));
+    }
+    
+    // Métodos de conversión
+    private TurnoDTO convertToDTO(Turno turno) {
+        TurnoDTO dto = new TurnoDTO();
+        dto.setId(turno.getId());
+        dto.setNombre(turno.getNombre());
+        dto.setActivo(turno.getActivo());
+        dto.setFechaCreacion(turno.getFechaCreacion());
+        return dto;
+    }
+    
+    private AsignacionTurnoDTO convertToDTO(AsignacionTurno asignacion) {
+        AsignacionTurnoDTO dto = new AsignacionTurnoDTO();
+        dto.setId(asignacion.getId());
+        dto.setTurnoId(asignacion.getTurno().getId());
+        dto.setTurnoNombre(asignacion.getTurno().getNombre());
+        if (asignacion.getEmpleado() != null) {
+            dto.setEmpleadoId(asignacion.getEmpleado().getId());
+            dto.setEmpleadoNombre(asignacion.getEmpleado().getNombreCompleto());
+        }
+        dto.setArea(asignacion.getArea());
+        dto.setFechaCreacion(asignacion.getFechaCreacion());
+        return dto;
+    }
+}
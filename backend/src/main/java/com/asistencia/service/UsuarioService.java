@@ -22,6 +22,9 @@ public class UsuarioService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private InvalidacionCacheService invalidacionCacheService;
+    
     /**
      * Obtiene todos los usuarios activos
      */
@@ -137,6 +140,7 @@ public class UsuarioService {
         }
         
         // Actualizar campos
+        String usernameAnterior = usuarioExistente.getUsername();
         usuarioExistente.setUsername(usuarioDTO.getUsername());
         usuarioExistente.setEmail(usuarioDTO.getEmail());
         
@@ -145,6 +149,7 @@ public class UsuarioService {
         }
         
         Usuario updatedUsuario = usuarioRepository.save(usuarioExistente);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.USUARIO, usernameAnterior, updatedUsuario.getUsername());
         return convertToDTO(updatedUsuario);
     }
     
@@ -157,6 +162,7 @@ public class UsuarioService {
         
         usuario.setPassword(passwordEncoder.encode(newPassword));
         usuarioRepository.save(usuario);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.USUARIO, usuario.getUsername());
     }
     
     /**
@@ -168,6 +174,7 @@ public class UsuarioService {
         
         usuario.setActivo(false);
         usuarioRepository.save(usuario);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.USUARIO, usuario.getUsername());
     }
     
     /**
@@ -178,6 +185,7 @@ public class UsuarioService {
             throw new IllegalArgumentException("Usuario no encontrado con ID: " + id);
         }
         usuarioRepository.deleteById(id);
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.USUARIO);
     }
     
     /**
@@ -1,42 +1,97 @@
 package com.asistencia.util;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Genera códigos únicos de empleado (EMP001, EMP002, ...) a partir de la secuencia
+ * empleados_codigo_seq. Cada nextval reserva un bloque de códigos que se reparte
+ * localmente sin bloqueos, por lo que varias instancias nunca generan el mismo código.
+ */
+@Component
 public class CodigoUnicoGenerator {
-    
-    private static final AtomicInteger counter = new AtomicInteger(1);
+
     private static final String PREFIX = "EMP";
-    
+    private static final int DIGITOS_MINIMOS = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${asistencia.codigo-unico.secuencia:empleados_codigo_seq}")
+    private String secuencia = "empleados_codigo_seq";
+
+    // Debe coincidir con el INCREMENT BY de la secuencia
+    @Value("${asistencia.codigo-unico.tamano-bloque:100}")
+    private int tamanoBloque = 100;
+
+    private final AtomicReference<Bloque> bloqueActual = new AtomicReference<>(new Bloque(0, 0));
+
     /**
-     * Genera un código único para empleado en formato EMP + número secuencial de 3 dígitos
+     * Genera el siguiente código único en formato EMP + número de al menos 3 dígitos
      * Ejemplo: EMP001, EMP002, etc.
      */
-    public static String generarCodigoEmpleado() {
-        int numero = counter.getAndIncrement();
-        return String.format("%s%03d", PREFIX, numero);
+    public String generarCodigoEmpleado() {
+        return formatear(siguienteNumero());
     }
-    
+
     /**
-     * Genera un código único basado en timestamp para casos especiales
+     * Reserva varios códigos consecutivos dentro de los bloques disponibles
      */
-    public static String generarCodigoConTimestamp() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        return PREFIX + timestamp.substring(timestamp.length() - 6);
+    public List<String> reservarBloque(int cantidad) {
+        List<String> codigos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            codigos.add(generarCodigoEmpleado());
+        }
+        return codigos;
+    }
+
+    private long siguienteNumero() {
+        Bloque bloque = bloqueActual.get();
+        long numero = bloque.siguiente.getAndIncrement();
+        if (numero < bloque.fin) {
+            return numero;
+        }
+        // Bloque agotado: se reserva otro; si otro hilo ya instaló uno, el sobrante de este se descarta
+        long inicio = jdbcTemplate.queryForObject("SELECT nextval('" + secuencia + "')", Long.class);
+        bloqueActual.compareAndSet(bloque, new Bloque(inicio + 1, inicio + tamanoBloque));
+        return inicio;
     }
-    
+
     /**
-     * Reinicia el contador (útil para testing)
+     * Formatea el número con el prefijo y ceros a la izquierda sin usar String.format
      */
-    public static void reiniciarContador() {
-        counter.set(1);
+    static String formatear(long numero) {
+        int digitos = 1;
+        for (long resto = numero / 10; resto > 0; resto /= 10) {
+            digitos++;
+        }
+        int ancho = Math.max(DIGITOS_MINIMOS, digitos);
+        char[] caracteres = new char[PREFIX.length() + ancho];
+        PREFIX.getChars(0, PREFIX.length(), caracteres, 0);
+        for (int i = caracteres.length - 1; i >= PREFIX.length(); i--) {
+            caracteres[i] = (char) ('0' + numero % 10);
+            numero /= 10;
+        }
+        return new String(caracteres);
     }
-    
+
     /**
-     * Establece el siguiente número del contador
+     * Rango local [siguiente, fin) reservado en la secuencia
      */
-    public static void establecerSiguienteNumero(int numero) {
-        counter.set(numero);
+    private static final class Bloque {
+        private final AtomicLong siguiente;
+        private final long fin;
+
+        Bloque(long inicio, long fin) {
+            this.siguiente = new AtomicLong(inicio);
+            this.fin = fin;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package com.asistencia.util;
+
+import com.asistencia.dto.EmpleadoDTO;
+import com.asistencia.dto.RespuestaDTO;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Escribe listas de empleados como {"success":true,"data":[...],"total":n} campo a campo con un JsonGenerator,
+ * directo a la respuesta: sin reflexión ni un árbol o buffer intermedio por lista.
+ * Los campos y formatos son los mismos que produce el ObjectMapper para EmpleadoDTO.
+ */
+@Component
+public class EmpleadoJsonWriter {
+
+    // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+    private static final int LARGO_FECHA = 29;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public StreamingResponseBody lista(List<EmpleadoDTO> empleados) {
+        return salida -> escribirLista(salida, empleados);
+    }
+
+    public StreamingResponseBody error(String mensaje) {
+        return salida -> objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValue(salida, RespuestaDTO.error(mensaje));
+    }
+
+    void escribirLista(OutputStream salida, List<EmpleadoDTO> empleados) throws IOException {
+        // La respuesta la cierra el contenedor
+        try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generador.writeStartObject();
+            generador.writeBooleanField("success", true);
+            generador.writeArrayFieldStart("data");
+            char[] fecha = new char[LARGO_FECHA];
+            for (EmpleadoDTO empleado : empleados) {
+                escribir(generador, empleado, fecha);
+            }
+            generador.writeEndArray();
+            generador.writeNumberField("total", empleados.size());
+            generador.writeEndObject();
+        }
+    }
+
+    private static void escribir(JsonGenerator generador, EmpleadoDTO empleado, char[] fecha) throws IOException {
+        generador.writeStartObject();
+        if (empleado.getId() != null) {
+            generador.writeNumberField("id", empleado.getId());
+        } else {
+            generador.writeNullField("id");
+        }
+        generador.writeStringField("codigoUnico", empleado.getCodigoUnico());
+        generador.writeStringField("dni", empleado.getDni());
+        generador.writeStringField("nombres", empleado.getNombres());
+        generador.writeStringField("apellidos", empleado.getApellidos());
+        generador.writeStringField("cargo", empleado.getCargo());
+        generador.writeStringField("area", empleado.getArea());
+        if (empleado.getActivo() != null) {
+            generador.writeBooleanField("activo", empleado.getActivo());
+        } else {
+            generador.writeNullField("activo");
+        }
+        escribirFecha(generador, "fechaCreacion", empleado.getFechaCreacion(), fecha);
+        escribirFecha(generador, "fechaActualizacion", empleado.getFechaActualizacion(), fecha);
+        generador.writeStringField("nombreCompleto", empleado.getNombreCompleto());
+        generador.writeEndObject();
+    }
+
+    /**
+     * Escribe la fecha en formato ISO_LOCAL_DATE_TIME (como el ObjectMapper) sobre un buffer reutilizado;
+     * DateTimeFormatter crea varios objetos por fecha y en listas grandes es la mayor parte de lo asignado
+     */
+    private static void escribirFecha(JsonGenerator generador, String campo, LocalDateTime fecha, char[] buffer)
+            throws IOException {
+        generador.writeFieldName(campo);
+        if (fecha == null) {
+            generador.writeNull();
+        } else if (fecha.getYear() < 0 || fecha.getYear() > 9999) {
+            generador.writeString(fecha.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        } else {
+            generador.writeString(buffer, 0, formatear(fecha, buffer));
+        }
+    }
+
+    static int formatear(LocalDateTime fecha, char[] buffer) {
+        int anio = fecha.getYear();
+        digitos(buffer, 0, anio / 100);
+        digitos(buffer, 2, anio % 100);
+        buffer[4] = '-';
+        digitos(buffer, 5, fecha.getMonthValue());
+        buffer[7] = '-';
+        digitos(buffer, 8, fecha.getDayOfMonth());
+        buffer[10] = 'T';
+        digitos(buffer, 11, fecha.getHour());
+        buffer[13] = ':';
+        digitos(buffer, 14, fecha.getMinute());
+        buffer[16] = ':';
+        digitos(buffer, 17, fecha.getSecond());
+        int nanos = fecha.getNano();
+        if (nanos == 0) {
+            return 19;
+        }
+        // Fracción de 9 dígitos sin los ceros finales
+        buffer[19] = '.';
+        for (int i = 28; i > 19; i--) {
+            buffer[i] = (char) ('0' + nanos % 10);
+            nanos /= 10;
+        }
+        int largo = LARGO_FECHA;
+        while (buffer[largo - 1] == '0') {
+            largo--;
+        }
+        return largo;
+    }
+
+    private static void digitos(char[] buffer, int posicion, int valor) {
+        buffer[posicion] = (char) ('0' + valor / 10);
+        buffer[posicion + 1] = (char) ('0' + valor % 10);
+    }
+}
@@ -1,38 +1,54 @@
 -- Datos iniciales para el Sistema de Control de Asistencia
 -- Este archivo se ejecuta automáticamente por Spring Boot
 
+-- Las entidades reservan IDs en bloques de 50 (pooled-lo); alinear las secuencias
+-- de instalaciones anteriores (ver database/migrations/001_secuencias_pooled_lo.sql)
+ALTER SEQUENCE IF EXISTS empleados_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS horarios_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS asistencias_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS usuarios_id_seq INCREMENT BY 50;
+
 -- Insertar horarios por defecto si no existen
-INSERT INTO horarios (nombre, hora_inicio, hora_fin, tipo, activo) 
-SELECT 'Entrada Matutina', '07:50:00', '08:20:00', 'ENTRADA', true
+INSERT INTO horarios (id, nombre, hora_inicio, hora_fin, tipo, activo) 
+SELECT nextval('horarios_id_seq'), 'Entrada Matutina', '07:50:00', '08:20:00', 'ENTRADA', true
 WHERE NOT EXISTS (SELECT 1 FROM horarios WHERE tipo = 'ENTRADA' AND activo = true);
 
-INSERT INTO horarios (nombre, hora_inicio, hora_fin, tipo, activo) 
-SELECT 'Salida a Almuerzo', '12:30:00', '13:00:00', 'SALIDA_ALMUERZO', true
+INSERT INTO horarios (id, nombre, hora_inicio, hora_fin, tipo, activo) 
+SELECT nextval('horarios_id_seq'), 'Salida a Almuerzo', '12:30:00', '13:00:00', 'SALIDA_ALMUERZO', true
 WHERE NOT EXISTS (SELECT 1 FROM horarios WHERE tipo = 'SALIDA_ALMUERZO' AND activo = true);
 
-INSERT INTO horarios (nombre, hora_inicio, hora_fin, tipo, activo) 
-SELECT 'Retorno de Almuerzo', '14:00:00', '14:30:00', 'RETORNO_ALMUERZO', true
+INSERT INTO horarios (id, nombre, hora_inicio, hora_fin, tipo, activo) 
+SELECT nextval('horarios_id_seq'), 'Retorno de Almuerzo', '14:00:00', '14:30:00', 'RETORNO_ALMUERZO', true
 WHERE NOT EXISTS (SELECT 1 FROM horarios WHERE tipo = 'RETORNO_ALMUERZO' AND activo = true);
 
-INSERT INTO horarios (nombre, hora_inicio, hora_fin, tipo, activo) 
-SELECT 'Salida Final', '17:30:00', '18:00:00', 'SALIDA', true
+INSERT INTO horarios (id, nombre, hora_inicio, hora_fin, tipo, activo) 
+SELECT nextval('horarios_id_seq'), 'Salida Final', '17:30:00', '18:00:00', 'SALIDA', true
 WHERE NOT EXISTS (SELECT 1 FROM horarios WHERE tipo = 'SALIDA' AND activo = true);
 
 -- Insertar usuario administrador por defecto si no existe
 -- Contraseña: admin123 (hasheada con BCrypt)
-INSERT INTO usuarios (username, password, email, activo) 
-SELECT 'admin', '$2a$12$CL8r.i9rdmIJQ3JWMR0oEOTEwmhbuzsANYVgwoEIFoLp61yq9rJZO', 'admin@asistencia.com', true
+INSERT INTO usuarios (id, username, password, email, activo) 
+SELECT nextval('usuarios_id_seq'), 'admin', '$2a$12$CL8r.i9rdmIJQ3JWMR0oEOTEwmhbuzsANYVgwoEIFoLp61yq9rJZO', 'admin@asistencia.com', true
 WHERE NOT EXISTS (SELECT 1 FROM usuarios WHERE username = 'admin');
 
 -- Insertar empleados de prueba si no existen
-INSERT INTO empleados (codigo_unico, dni, nombres, apellidos, cargo, area, activo) 
-SELECT 'EMP001', '12345678', 'Juan Carlos', 'Pérez López', 'Desarrollador', 'Tecnología', true
+INSERT INTO empleados (id, codigo_unico, dni, nombres, apellidos, cargo, area, activo) 
+SELECT nextval('empleados_id_seq'), 'EMP001', '12345678', 'Juan Carlos', 'Pérez López', 'Desarrollador', 'Tecnología', true
 WHERE NOT EXISTS (SELECT 1 FROM empleados WHERE dni = '12345678');
 
-INSERT INTO empleados (codigo_unico, dni, nombres, apellidos, cargo, area, activo) 
-SELECT 'EMP002', '87654321', 'María Elena', 'García Rodríguez', 'Analista', 'Sistemas', true
+INSERT INTO empleados (id, codigo_unico, dni, nombres, apellidos, cargo, area, activo) 
+SELECT nextval('empleados_id_seq'), 'EMP002', '87654321', 'María Elena', 'García Rodríguez', 'Analista', 'Sistemas', true
 WHERE NOT EXISTS (SELECT 1 FROM empleados WHERE dni = '87654321');
 
-INSERT INTO empleados (codigo_unico, dni, nombres, apellidos, cargo, area, activo) 
-SELECT 'EMP003', '11223344', 'Pedro Antonio', 'Martínez Silva', 'Gerente', 'Administración', true
-WHERE NOT EXISTS (SELECT 1 FROM empleados WHERE dni = '11223344');
\ No newline at end of file
+INSERT INTO empleados (id, codigo_unico, dni, nombres, apellidos, cargo, area, activo) 
+SELECT nextval('empleados_id_seq'), 'EMP003', '11223344', 'Pedro Antonio', 'Martínez Silva', 'Gerente', 'Administración', true
+WHERE NOT EXISTS (SELECT 1 FROM empleados WHERE dni = '11223344');
+
+-- Secuencia de códigos únicos de empleado (ver database/migrations/002_secuencia_codigo_unico.sql)
+CREATE SEQUENCE IF NOT EXISTS empleados_codigo_seq INCREMENT BY 100 START WITH 1;
+
+SELECT setval('empleados_codigo_seq',
+              (SELECT COALESCE(MAX(CAST(SUBSTRING(codigo_unico FROM 4) AS BIGINT)), 0) + 1
+               FROM empleados WHERE codigo_unico ~ '^EMP[0-9]+$'),
+              false)
+WHERE NOT (SELECT is_called FROM empleados_codigo_seq);
@@ -0,0 +1,131 @@
+package com.asistencia.benchmark;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara la inserción masiva con IDs IDENTITY frente a SEQUENCE pooled-lo.
+ * Se ejecuta con: mvn -P benchmark test
+ */
+@Tag("benchmark")
+class InsercionMasivaBenchmarkTest {
+
+    private static final int FILAS = 20_000;
+    private static final int BATCH_SIZE = 50;
+    private static final int RONDAS = 3;
+
+    @Test
+    void debeInsertarMasRapidoConSecuenciaPooledLo() {
+        Resultado identity = medir(FilaIdentity.class, FilaIdentity::new);
+        Resultado secuencia = medir(FilaSecuencia.class, FilaSecuencia::new);
+
+        System.out.printf("IDENTITY:           %,10.0f filas/s (%d sentencias preparadas)%n",
+                identity.filasPorSegundo, identity.sentencias);
+        System.out.printf("SEQUENCE pooled-lo: %,10.0f filas/s (%d sentencias preparadas)%n",
+                secuencia.filasPorSegundo, secuencia.sentencias);
+
+        // Con IDENTITY cada persist ejecuta su propio INSERT; con la secuencia se agrupan en lotes
+        assertTrue(identity.sentencias >= FILAS);
+        assertTrue(secuencia.sentencias < FILAS / 10);
+    }
+
+    private <T> Resultado medir(Class<T> entidad, Function<LocalDateTime, T> fabrica) {
+        try (SessionFactory sessionFactory = crearSessionFactory(entidad)) {
+            insertar(sessionFactory, fabrica); // calentamiento
+
+            Statistics estadisticas = sessionFactory.getStatistics();
+            double mejor = 0;
+            for (int ronda = 0; ronda < RONDAS; ronda++) {
+                estadisticas.clear();
+                long inicio = System.nanoTime();
+                insertar(sessionFactory, fabrica);
+                double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+                mejor = Math.max(mejor, FILAS / segundos);
+            }
+            return new Resultado(mejor, estadisticas.getPrepareStatementCount());
+        }
+    }
+
+    private <T> void insertar(SessionFactory sessionFactory, Function<LocalDateTime, T> fabrica) {
+        LocalDateTime base = LocalDateTime.now();
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < FILAS; i++) {
+                session.persist(fabrica.apply(base.plusSeconds(i)));
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    private SessionFactory crearSessionFactory(Class<?> entidad) {
+        return new Configuration()
+                .addAnnotatedClass(entidad)
+                .setProperty("hibernate.connection.url",
+                        "jdbc:h2:mem:benchmark" + System.nanoTime() + ";DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.jdbc.batch_size", String.valueOf(BATCH_SIZE))
+                .setProperty("hibernate.order_inserts", "true")
+                .setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+                .setProperty("hibernate.generate_statistics", "true")
+                .buildSessionFactory();
+    }
+
+    private record Resultado(double filasPorSegundo, long sentencias) {
+    }
+
+    @Entity
+    @Table(name = "fila_identity")
+    public static class FilaIdentity {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+        private LocalDateTime fechaHora;
+        private String tipo = "ENTRADA";
+
+        protected FilaIdentity() {
+        }
+
+        FilaIdentity(LocalDateTime fechaHora) {
+            this.fechaHora = fechaHora;
+        }
+    }
+
+    @Entity
+    @Table(name = "fila_secuencia")
+    public static class FilaSecuencia {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fila_secuencia_seq")
+        @SequenceGenerator(name = "fila_secuencia_seq", sequenceName = "fila_secuencia_id_seq", allocationSize = 50)
+        private Long id;
+        private LocalDateTime fechaHora;
+        private String tipo = "ENTRADA";
+
+        protected FilaSecuencia() {
+        }
+
+        FilaSecuencia(LocalDateTime fechaHora) {
+            this.fechaHora = fechaHora;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.asistencia.benchmark;
+
+import com.asistencia.dto.EmpleadoDTO;
+import com.asistencia.dto.RespuestaDTO;
+import com.asistencia.util.EmpleadoJsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara la serialización de la lista de empleados: Map con ObjectMapper (como antes), registro RespuestaDTO
+ * con ObjectMapper y EmpleadoJsonWriter con JsonGenerator.
+ * Se ejecuta con: mvn -P benchmark test
+ */
+@Tag("benchmark")
+class SerializacionEmpleadosBenchmarkTest {
+
+    private static final int EMPLEADOS = 10_000;
+    private static final int CALENTAMIENTO = 30;
+    private static final int RONDAS = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void debeSerializarDiezMilEmpleados() throws IOException {
+        List<EmpleadoDTO> empleados = empleados();
+        EmpleadoJsonWriter writer = new EmpleadoJsonWriter();
+        ReflectionTestUtils.setField(writer, "objectMapper", objectMapper);
+
+        Resultado mapa = medir(salida -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", empleados);
+            response.put("total", empleados.size());
+            objectMapper.writeValue(salida, response);
+        });
+        Resultado registro = medir(salida -> objectMapper.writeValue(salida, RespuestaDTO.lista(empleados)));
+        Resultado generador = medir(salida -> writer.lista(empleados).writeTo(salida));
+
+        System.out.printf("Map + ObjectMapper:         %8.2f ms/op %10.1f KB asignados/op%n", mapa.ms, mapa.kb);
+        System.out.printf("RespuestaDTO + ObjectMapper: %7.2f ms/op %10.1f KB asignados/op%n", registro.ms, registro.kb);
+        System.out.printf("EmpleadoJsonWriter:         %8.2f ms/op %10.1f KB asignados/op (%d bytes)%n",
+                generador.ms, generador.kb, generador.bytes);
+
+        // Las tres escriben el mismo documento
+        assertEquals(mapa.bytes, registro.bytes);
+        assertEquals(mapa.bytes, generador.bytes);
+    }
+
+    private Resultado medir(Escritura escritura) throws IOException {
+        Contador contador = new Contador();
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            escritura.escribir(new Contador());
+        }
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().getId();
+        long mejor = Long.MAX_VALUE;
+        long asignados = hilos.getThreadAllocatedBytes(hilo);
+        for (int ronda = 0; ronda < RONDAS; ronda++) {
+            contador = new Contador();
+            long inicio = System.nanoTime();
+            escritura.escribir(contador);
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        asignados = hilos.getThreadAllocatedBytes(hilo) - asignados;
+        return new Resultado(mejor / 1_000_000.0, asignados / 1024.0 / RONDAS, contador.bytes);
+    }
+
+    private static List<EmpleadoDTO> empleados() {
+        List<EmpleadoDTO> empleados = new ArrayList<>(EMPLEADOS);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < EMPLEADOS; i++) {
+            EmpleadoDTO empleado = new EmpleadoDTO(String.format("%08d", i), "Nombre " + i, "Apellido " + i,
+                    "Cargo " + (i % 40), "Área " + (i % 12));
+            empleado.setId((long) i + 1);
+            empleado.setCodigoUnico("EMP" + (i + 1));
+            empleado.setFechaCreacion(base.plusMinutes(i));
+            empleado.setFechaActualizacion(base.plusMinutes(i * 2L));
+            empleados.add(empleado);
+        }
+        return empleados;
+    }
+
+    /**
+     * Salida que solo cuenta bytes, para no medir la copia a un buffer
+     */
+    private static final class Contador extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+
+    private interface Escritura {
+        void escribir(OutputStream salida) throws IOException;
+    }
+
+    private record Resultado(double ms, double kb, long bytes) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.asistencia.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompartimentoReportesDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate escritura;
+    private TransactionTemplate lectura;
+
+    @BeforeEach
+    void setUp() {
+        // Dos bases H2 que se distinguen por el contenido de la tabla origen
+        DataSource primarioDataSource = baseDeDatos("primario");
+        CompartimentoReportesDataSource lecturas =
+                new CompartimentoReportesDataSource(primarioDataSource, baseDeDatos("reportes"));
+        lecturas.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primarioDataSource);
+        dataSource.setReadOnlyDataSource(lecturas);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        escritura = new TransactionTemplate(transactionManager);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+    }
+
+    @Test
+    void debeMantenerEnElPrimarioLasLecturasFueraDeLosHilosDeReportes() {
+        // Login y consultas de administración no compiten con los reportes por conexiones
+        assertEquals("primario", lectura.execute(status -> origen()));
+        assertEquals("primario", escritura.execute(status -> origen()));
+    }
+
+    @Test
+    void debeEnviarAlPoolDeReportesSoloLasLecturasDeSusHilos() throws InterruptedException {
+        // Given
+        AtomicReference<String> leido = new AtomicReference<>();
+        AtomicReference<String> escrito = new AtomicReference<>();
+        Thread hilo = new Thread(CompartimentoReportesDataSource.enHiloDeReportes(() -> {
+            leido.set(lectura.execute(status -> origen()));
+            escrito.set(escritura.execute(status -> origen()));
+        }));
+
+        // When
+        hilo.start();
+        hilo.join();
+
+        // Then
+        assertEquals("reportes", leido.get());
+        assertEquals("primario", escrito.get());
+        assertEquals("primario", lectura.execute(status -> origen()));
+    }
+
+    private String origen() {
+        return jdbcTemplate.queryForObject("SELECT MIN(nombre) FROM origen", String.class);
+    }
+
+    private DataSource baseDeDatos(String nombre) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + nombre + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        template.update("INSERT INTO origen VALUES (?)", nombre);
+        return dataSource;
+    }
+}
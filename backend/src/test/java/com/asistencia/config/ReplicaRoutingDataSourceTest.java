@@ -0,0 +1,140 @@
+package com.asistencia.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate primario;
+    private JdbcTemplate replica;
+    private ReplicaRoutingDataSource lecturas;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate escritura;
+    private TransactionTemplate lectura;
+
+    @BeforeEach
+    void setUp() {
+        // Dos bases H2 que se distinguen por el contenido de la tabla origen
+        DataSource primarioDataSource = baseDeDatos("primario");
+        DataSource replicaDataSource = baseDeDatos("replica");
+        primario = new JdbcTemplate(primarioDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("CREATE TABLE lag (segundos DOUBLE)");
+        replica.update("INSERT INTO lag VALUES (0)");
+
+        lecturas = new ReplicaRoutingDataSource(primarioDataSource, replicaDataSource, "SELECT segundos FROM lag", 10, 5000);
+        lecturas.afterPropertiesSet();
+        lecturas.verificarReplica();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primarioDataSource);
+        dataSource.setReadOnlyDataSource(lecturas);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        escritura = new TransactionTemplate(transactionManager);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+    }
+
+    @Test
+    void debeEnviarSoloLasTransaccionesDeLecturaALaReplica() {
+        assertTrue(lecturas.isReplicaDisponible());
+        assertEquals("replica", lectura.execute(status -> origen()));
+        assertEquals("primario", escritura.execute(status -> origen()));
+        assertEquals("primario", origen());
+
+        // La escritura de marcaciones queda en el primario
+        escritura.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO origen VALUES ('marcacion')"));
+        assertEquals(2, primario.queryForObject("SELECT COUNT(*) FROM origen", Integer.class));
+        assertEquals(1, replica.queryForObject("SELECT COUNT(*) FROM origen", Integer.class));
+    }
+
+    @Test
+    void debeVolverAlPrimarioSiLaReplicaSeRetrasa() {
+        // Given
+        replica.update("UPDATE lag SET segundos = 30");
+
+        // When
+        lecturas.verificarReplica();
+
+        // Then
+        assertFalse(lecturas.isReplicaDisponible());
+        assertEquals("primario", lectura.execute(status -> origen()));
+
+        // Se recupera al alcanzar al primario
+        replica.update("UPDATE lag SET segundos = 1");
+        lecturas.verificarReplica();
+        assertEquals("replica", lectura.execute(status -> origen()));
+    }
+
+    @Test
+    void debeVolverAlPrimarioSiLaReplicaNoResponde() {
+        // Given
+        replica.execute("DROP TABLE lag");
+
+        // When
+        lecturas.verificarReplica();
+
+        // Then
+        assertFalse(lecturas.isReplicaDisponible());
+        assertEquals("primario", lectura.execute(status -> origen()));
+    }
+
+    @Test
+    void debeVolverAlPrimarioSiLaUltimaVerificacionVencio() {
+        // Given: la última verificación fue hace más de tres intervalos
+        ReflectionTestUtils.setField(lecturas, "ultimaVerificacionNanos",
+                System.nanoTime() - TimeUnit.SECONDS.toNanos(16));
+
+        // When & Then
+        assertFalse(lecturas.isReplicaDisponible());
+        assertEquals("primario", lectura.execute(status -> origen()));
+
+        // Una verificación nueva la habilita otra vez
+        lecturas.verificarReplica();
+        assertEquals("replica", lectura.execute(status -> origen()));
+    }
+
+    @Test
+    void debeVerificarEnSuPropioHilo() throws Exception {
+        // Given
+        replica.update("UPDATE lag SET segundos = 30");
+
+        // When
+        lecturas.iniciarVerificacion();
+        try {
+            for (int i = 0; i < 50 && lecturas.isReplicaDisponible(); i++) {
+                Thread.sleep(20);
+            }
+        } finally {
+            lecturas.close();
+        }
+
+        // Then
+        assertFalse(lecturas.isReplicaDisponible());
+    }
+
+    private String origen() {
+        return jdbcTemplate.queryForObject("SELECT MIN(nombre) FROM origen", String.class);
+    }
+
+    private DataSource baseDeDatos(String nombre) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + nombre + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        template.update("INSERT INTO origen VALUES (?)", nombre);
+        return dataSource;
+    }
+}
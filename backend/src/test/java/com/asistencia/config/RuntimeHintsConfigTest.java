@@ -0,0 +1,38 @@
+package com.asistencia.config;
+
+import com.asistencia.dto.ParteArchivoDTO;
+import com.asistencia.dto.ReporteAsistenciaDTO;
+import com.asistencia.entity.Empleado;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuntimeHintsConfigTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void debeRegistrarLasPistasDeLaAplicacionYLasLibrerias() {
+        // When
+        new RuntimeHintsConfig.AsistenciaRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Then: tipos serializados por Jackson, incluidos los anidados
+        assertTrue(RuntimeHintsPredicates.reflection().onType(ReporteAsistenciaDTO.class)
+                .withMemberCategory(MemberCategory.DECLARED_FIELDS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(ParteArchivoDTO.Estado.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Empleado.class).test(hints));
+
+        // jjwt, POI e iText
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of("io.jsonwebtoken.impl.DefaultJwtBuilder"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of(
+                "org.openxmlformats.schemas.spreadsheetml.x2006.main.impl.CTWorksheetImpl")).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource(
+                "org/apache/poi/schemas/ooxml/system/ooxml/index.xsb").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("com/itextpdf/io/font/afm/Helvetica.afm").test(hints));
+    }
+}
@@ -5,9 +5,9 @@ import com.asistencia.dto.MarcacionRequestDTO;
 import com.asistencia.dto.MarcacionResponseDTO;
 import com.asistencia.entity.EstadoMarcacion;
 import com.asistencia.entity.TipoMarcacion;
-import com.asistencia.exception.EmpleadoNotFoundException;
-import com.asistencia.exception.MarcacionDuplicadaException;
 import com.asistencia.service.AsistenciaService;
+import com.asistencia.service.IdempotenciaMarcacionService;
+import com.asistencia.service.ResultadoMarcacion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +20,8 @@ import org.springframework.http.ResponseEntity;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +30,9 @@ class AsistenciaControllerUnitTest {
     @Mock
     private AsistenciaService asistenciaService;
     
+    @Mock
+    private IdempotenciaMarcacionService idempotenciaMarcacionService;
+    
     @InjectMocks
     private AsistenciaController asistenciaController;
     
@@ -56,10 +61,10 @@ class AsistenciaControllerUnitTest {
             LocalDateTime.now()
         );
         
-        when(asistenciaService.registrarMarcacion("12345678")).thenReturn(expectedResponse);
+        when(asistenciaService.marcar("12345678")).thenReturn(ResultadoMarcacion.registrada(expectedResponse));
         
         // When
-        ResponseEntity<MarcacionResponseDTO> response = asistenciaController.marcarAsistencia(validRequest);
+        ResponseEntity<MarcacionResponseDTO> response = asistenciaController.marcarAsistencia(validRequest, null);
         
         // Then
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -70,19 +75,18 @@ class AsistenciaControllerUnitTest {
         assertEquals(EstadoMarcacion.PUNTUAL, response.getBody().getEstado());
         assertEquals("Juan Carlos", response.getBody().getEmpleado().getNombres());
         
-        verify(asistenciaService, times(1)).registrarMarcacion("12345678");
+        verify(asistenciaService, times(1)).marcar("12345678");
     }
     
     @Test
     void debeRetornarErrorCuandoEmpleadoNoExiste() {
         // Given
-        when(asistenciaService.registrarMarcacion("99999999"))
-            .thenThrow(EmpleadoNotFoundException.porDni("99999999"));
+        when(asistenciaService.marcar("99999999")).thenReturn(ResultadoMarcacion.noEncontrado());
         
         MarcacionRequestDTO request = new MarcacionRequestDTO("99999999");
         
         // When
-        ResponseEntity<MarcacionResponseDTO> response = asistenciaController.marcarAsistencia(request);
+        ResponseEntity<MarcacionResponseDTO> response = asistenciaController.marcarAsistencia(request, null);
         
         // Then
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
@@ -90,17 +94,16 @@ class AsistenciaControllerUnitTest {
         assertFalse(response.getBody().isSuccess());
         assertEquals("Empleado no encontrado", response.getBody().getMensaje());
         
-        verify(asistenciaService, times(1)).registrarMarcacion("99999999");
+        verify(asistenciaService, times(1)).marcar("99999999");
     }
     
     @Test
     void debeRetornarErrorCuandoMarcacionDuplicada() {
         // Given
-        when(asistenciaService.registrarMarcacion("12345678"))
-            .thenThrow(new MarcacionDuplicadaException("12345678", "ENTRADA"));
+        when(asistenciaService.marcar("12345678")).thenReturn(ResultadoMarcacion.duplicada(TipoMarcacion.ENTRADA));
         
         // When
-        ResponseEntity<MarcacionResponseDTO> response = asistenciaController.marcarAsistencia(validRequest);
+        ResponseEntity<MarcacionResponseDTO> response = asistenciaController.marcarAsistencia(validRequest, null);
         
         // Then
         assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
@@ -108,17 +111,17 @@ class AsistenciaControllerUnitTest {
         assertFalse(response.getBody().isSuccess());
         assertEquals("Ya existe una marcación reciente", response.getBody().getMensaje());
         
-        verify(asistenciaService, times(1)).registrarMarcacion("12345678");
+        verify(asistenciaService, times(1)).marcar("12345678");
     }
     
     @Test
     void debeRetornarErrorInternoParaExcepcionesInesperadas() {
         // Given
-        when(asistenciaService.registrarMarcacion("12345678"))
+        when(asistenciaService.marcar("12345678"))
             .thenThrow(new RuntimeException("Error inesperado"));
         
         // When
-        ResponseEntity<MarcacionResponseDTO> response = asistenciaController.marcarAsistencia(validRequest);
+        ResponseEntity<MarcacionResponseDTO> response = asistenciaController.marcarAsistencia(validRequest, null);
         
         // Then
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
@@ -126,6 +129,27 @@ class AsistenciaControllerUnitTest {
         assertFalse(response.getBody().isSuccess());
         assertEquals("Error interno del servidor", response.getBody().getMensaje());
         
-        verify(asistenciaService, times(1)).registrarMarcacion("12345678");
+        verify(asistenciaService, times(1)).marcar("12345678");
+    }
+    
+    @Test
+    void debeResponderLosReintentosConLaRespuestaOriginal() {
+        // Given
+        MarcacionResponseDTO original = MarcacionResponseDTO.success("Entrada registrada", empleadoDTO,
+                TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL, LocalDateTime.now());
+        when(idempotenciaMarcacionService.ejecutar(eq("lector-1-000123"), eq("12345678"), any()))
+            .thenReturn(new IdempotenciaMarcacionService.Respuesta(200, original, true));
+        
+        // When
+        ResponseEntity<MarcacionResponseDTO> response = asistenciaController.marcarAsistencia(validRequest, "lector-1-000123");
+        
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(original, response.getBody());
+        assertEquals("true", response.getHeaders().getFirst("Idempotent-Replayed"));
+        verify(asistenciaService, never()).marcar(any());
+        
+        // Clave demasiado larga
+        assertEquals(HttpStatus.BAD_REQUEST, asistenciaController.marcarAsistencia(validRequest, "x".repeat(101)).getStatusCode());
     }
-}
\ No newline at end of file
+}
@@ -141,6 +141,8 @@ class HorarioControllerTest {
     @Test
     void checkOverlap_WithNoOverlap_ShouldReturnFalse() throws Exception {
         when(horarioService.existsOverlappingHorario(
+                isNull(),
+                isNull(),
                 eq(TipoMarcacion.ENTRADA), 
                 eq(LocalTime.of(8, 0)), 
                 eq(LocalTime.of(8, 30)), 
@@ -160,6 +162,8 @@ class HorarioControllerTest {
     @Test
     void checkOverlap_WithOverlap_ShouldReturnTrue() throws Exception {
         when(horarioService.existsOverlappingHorario(
+                isNull(),
+                isNull(),
                 eq(TipoMarcacion.ENTRADA), 
                 eq(LocalTime.of(8, 0)), 
                 eq(LocalTime.of(8, 30)), 
@@ -0,0 +1,195 @@
+package com.asistencia.controller;
+
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.service.IngestaIclockService;
+import com.asistencia.service.MarcacionRegistradaEvent;
+import com.asistencia.service.MotorHorarios;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Protocolo push de punta a punta con un lector simulado (SimuladorLectorZk) sobre H2
+ */
+class IclockControllerTest {
+
+    private static final String SN = "CQZ7232460012";
+    private static final LocalDateTime LUNES = LocalDateTime.of(2024, 6, 3, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private IngestaIclockService ingestaIclockService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:iclock" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SEQUENCE asistencias_id_seq START WITH 1 INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE TABLE empleados (id BIGINT PRIMARY KEY, dni VARCHAR(8) NOT NULL UNIQUE, " +
+                "nombres VARCHAR(100), apellidos VARCHAR(100), area VARCHAR(100), cargo VARCHAR(100))");
+        jdbcTemplate.execute("CREATE TABLE asistencias (id BIGINT DEFAULT nextval('asistencias_id_seq') PRIMARY KEY, " +
+                "empleado_id BIGINT NOT NULL, fecha_hora TIMESTAMP NOT NULL, tipo VARCHAR(20) NOT NULL, " +
+                "estado VARCHAR(20), observaciones VARCHAR(1000), fecha_creacion TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE dispositivos_iclock (sn VARCHAR(50) PRIMARY KEY, " +
+                "attlog_stamp BIGINT NOT NULL DEFAULT 0, registros_recibidos BIGINT NOT NULL DEFAULT 0, " +
+                "ultima_conexion TIMESTAMP, ultima_ip VARCHAR(45))");
+        jdbcTemplate.update("INSERT INTO empleados VALUES (1, '12345678', 'Juan', 'Pérez', 'Sistemas', 'Analista')");
+        jdbcTemplate.update("INSERT INTO empleados VALUES (2, '87654321', 'Ana', 'Gómez', 'Contabilidad', 'Contadora')");
+
+        // Entrada por la mañana, salida por la tarde
+        MotorHorarios motorHorarios = mock(MotorHorarios.class);
+        when(motorHorarios.clasificar(anyLong(), anyString(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            LocalDateTime momento = invocation.getArgument(2);
+            return momento.getHour() < 12
+                    ? new MotorHorarios.Clasificacion(TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL, 0)
+                    : new MotorHorarios.Clasificacion(TipoMarcacion.SALIDA, EstadoMarcacion.PUNTUAL, 0);
+        });
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        ingestaIclockService = new IngestaIclockService(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                motorHorarios, eventPublisher);
+        ReflectionTestUtils.setField(ingestaIclockService, "dispositivos", Set.of(SN));
+        ReflectionTestUtils.setField(ingestaIclockService, "tamanoBloque", 2);
+
+        IclockController controller = new IclockController();
+        ReflectionTestUtils.setField(controller, "ingestaIclockService", ingestaIclockService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void debeSubirSoloLosRegistrosPosterioresAlStampGuardado() throws Exception {
+        // Given
+        SimuladorLectorZk lector = new SimuladorLectorZk(mockMvc, SN, 2);
+        lector.marcar("12345678", LUNES.withHour(8).withMinute(1));
+        lector.marcar("87654321", LUNES.withHour(8).withMinute(3));
+        lector.marcar("12345678", LUNES.withHour(17).withMinute(30));
+
+        // When / Then: la primera sincronización sube todo en dos lotes
+        assertEquals(3, lector.sincronizar());
+        assertEquals(List.of("OK: 2", "OK: 1"), lector.getRespuestas());
+        assertEquals(3, filas());
+        assertEquals(3, ingestaIclockService.getStamp(SN));
+
+        // Sin marcaciones nuevas no hay nada que subir
+        assertEquals(0, lector.sincronizar());
+
+        // Solo sube la diferencia
+        lector.marcar("87654321", LUNES.withHour(18));
+        assertEquals(1, lector.sincronizar());
+        assertEquals(4, filas());
+        assertEquals(4L, jdbcTemplate.queryForObject(
+                "SELECT registros_recibidos FROM dispositivos_iclock WHERE sn = ?", Long.class, SN));
+        verify(eventPublisher, times(4)).publishEvent(any(MarcacionRegistradaEvent.class));
+    }
+
+    @Test
+    void debeDescartarLosRegistrosReenviadosYLasMarcacionesDuplicadas() throws Exception {
+        // Given
+        SimuladorLectorZk lector = new SimuladorLectorZk(mockMvc, SN, 10);
+        lector.marcar("12345678", LUNES.withHour(8));
+        lector.marcar("12345678", LUNES.withHour(8).withMinute(2));   // doble marcación
+        lector.marcar("87654321", LUNES.withHour(8).withMinute(10));
+        assertEquals(3, lector.sincronizar());
+        assertEquals(2, filas());
+
+        // When: el lector perdió el Stamp y reenvía todo
+        lector.marcar("87654321", LUNES.withHour(17));
+        assertEquals(4, lector.reenviarTodo());
+
+        // Then
+        assertEquals(3, filas());
+        assertEquals("OK: 4", lector.getRespuestas().get(1));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM asistencias WHERE empleado_id = 2 AND tipo = 'SALIDA'", Integer.class));
+    }
+
+    @Test
+    void debeIgnorarPinDesconocidosYLineasMalFormadas() {
+        // Given
+        String cuerpo = "99999999\t2024-06-03 08:00:00\t0\t1\n" +
+                "12345678\t2024-06-03 25:00:00\t0\t1\n" +
+                "12345678\t2024-06-03 08:00:00\t0\t1\n";
+
+        // When
+        IngestaIclockService.ResultadoIngesta resultado = ingestaIclockService.ingerirAttlog(SN, 3L, cuerpo.getBytes());
+
+        // Then
+        assertEquals(new IngestaIclockService.ResultadoIngesta(2, 1, 0, 1, 1), resultado);
+        assertEquals(1, filas());
+        assertEquals(3, ingestaIclockService.getStamp(SN));
+    }
+
+    @Test
+    void debeConservarElStampMayorAnteUnLoteTardio() {
+        ingestaIclockService.ingerirAttlog(SN, 8L, "12345678\t2024-06-03 08:00:00\t0\t1\n".getBytes());
+
+        // Reintento de un lote anterior que llega después
+        ingestaIclockService.ingerirAttlog(SN, 5L, "87654321\t2024-06-03 08:00:00\t0\t1\n".getBytes());
+        ingestaIclockService.ingerirAttlog(SN, null, "87654321\t2024-06-03 18:00:00\t0\t1\n".getBytes());
+
+        assertEquals(8, ingestaIclockService.getStamp(SN));
+        assertEquals(3, filas());
+    }
+
+    @Test
+    void debeRechazarLotesMayoresAlMaximo() throws Exception {
+        ReflectionTestUtils.setField(ingestaIclockService, "maxCuerpoBytes", 64);
+        String lote = "12345678\t2024-06-03 08:00:00\t0\t1\n".repeat(3);
+
+        mockMvc.perform(post("/iclock/cdata").param("SN", SN).param("table", "ATTLOG").param("Stamp", "3")
+                        .content(lote))
+                .andExpect(status().isPayloadTooLarge());
+
+        assertEquals(0, filas());
+        assertEquals(0, ingestaIclockService.getStamp(SN));
+    }
+
+    @Test
+    void debeRechazarLectoresNoConfigurados() throws Exception {
+        mockMvc.perform(get("/iclock/cdata").param("SN", "OTRO").param("options", "all"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/iclock/cdata").param("SN", "OTRO").param("table", "ATTLOG").param("Stamp", "1")
+                        .content("12345678\t2024-06-03 08:00:00\t0\t1\n"))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(0, filas());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM dispositivos_iclock", Integer.class));
+    }
+
+    @Test
+    void debeConfirmarOtrasTablasSinProcesarlas() throws Exception {
+        mockMvc.perform(post("/iclock/cdata").param("SN", SN).param("table", "OPERLOG").param("Stamp", "9")
+                        .content("OPLOG 4\t0\t2024-06-03 08:00:00\t0\t0\t0\t0\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("OK"));
+
+        assertEquals(0, filas());
+    }
+
+    private int filas() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM asistencias", Integer.class);
+    }
+}
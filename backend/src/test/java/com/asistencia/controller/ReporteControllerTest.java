@@ -6,6 +6,12 @@ import com.asistencia.entity.Asistencia;
 import com.asistencia.entity.Empleado;
 import com.asistencia.entity.EstadoMarcacion;
 import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.service.ArchivoAsistenciaService;
+import com.asistencia.service.CuboAsistenciaService;
+import com.asistencia.service.HojaTiempoService;
+import com.asistencia.service.IncidenciaService;
+import com.asistencia.service.IndiceMarcacionesService;
+import com.asistencia.service.ReporteEjecutorService;
 import com.asistencia.service.ReporteService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,27 +19,32 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ReporteController.class)
+@Import(ReporteEjecutorService.class)
 class ReporteControllerTest {
     
     @Autowired
@@ -42,6 +53,21 @@ class ReporteControllerTest {
     @MockBean
     private ReporteService reporteService;
     
+    @MockBean
+    private IncidenciaService incidenciaService;
+    
+    @MockBean
+    private HojaTiempoService hojaTiempoService;
+    
+    @MockBean
+    private ArchivoAsistenciaService archivoAsistenciaService;
+    
+    @MockBean
+    private CuboAsistenciaService cuboAsistenciaService;
+    
+    @MockBean
+    private IndiceMarcacionesService indiceMarcacionesService;
+    
     @Autowired
     private ObjectMapper objectMapper;
     
@@ -96,12 +122,16 @@ class ReporteControllerTest {
                 .thenReturn(page);
         
         // When & Then
-        mockMvc.perform(post("/api/admin/reportes/asistencias")
+        MvcResult resultado = mockMvc.perform(post("/api/admin/reportes/asistencias")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request))
                         .param("page", "0")
                         .param("size", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        mockMvc.perform(asyncDispatch(resultado))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
                 .andExpect(jsonPath("$.content[0].id").value(1))
@@ -121,10 +151,14 @@ class ReporteControllerTest {
                 .thenReturn(excelData);
         
         // When & Then
-        mockMvc.perform(post("/api/admin/reportes/export/excel")
+        MvcResult resultado = mockMvc.perform(post("/api/admin/reportes/export/excel")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        mockMvc.perform(asyncDispatch(resultado))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Type", "application/octet-stream"))
                 .andExpect(header().string("Content-Disposition", 
@@ -142,10 +176,14 @@ class ReporteControllerTest {
                 .thenReturn(pdfData);
         
         // When & Then
-        mockMvc.perform(post("/api/admin/reportes/export/pdf")
+        MvcResult resultado = mockMvc.perform(post("/api/admin/reportes/export/pdf")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        mockMvc.perform(asyncDispatch(resultado))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Type", "application/pdf"))
                 .andExpect(header().string("Content-Disposition", 
@@ -176,10 +214,14 @@ class ReporteControllerTest {
                 .thenThrow(new IOException("Error al generar Excel"));
         
         // When & Then
-        mockMvc.perform(post("/api/admin/reportes/export/excel")
+        MvcResult resultado = mockMvc.perform(post("/api/admin/reportes/export/excel")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        mockMvc.perform(asyncDispatch(resultado))
                 .andExpect(status().isInternalServerError());
     }
     
@@ -191,10 +233,14 @@ class ReporteControllerTest {
                 .thenThrow(new IOException("Error al generar PDF"));
         
         // When & Then
-        mockMvc.perform(post("/api/admin/reportes/export/pdf")
+        MvcResult resultado = mockMvc.perform(post("/api/admin/reportes/export/pdf")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        mockMvc.perform(asyncDispatch(resultado))
                 .andExpect(status().isInternalServerError());
     }
     
@@ -229,12 +275,36 @@ class ReporteControllerTest {
                 .thenReturn(excelData);
         
         // When & Then
-        mockMvc.perform(post("/api/admin/reportes/export/excel")
+        MvcResult resultado = mockMvc.perform(post("/api/admin/reportes/export/excel")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        mockMvc.perform(asyncDispatch(resultado))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Disposition", 
                         "form-data; name=\"attachment\"; filename=\"reporte_asistencias_20250115_20250115_entrada.xlsx\""));
     }
-}
\ No newline at end of file
+    
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void debeRecalcularIncidenciasEnElPoolDeReportes() throws Exception {
+        // Given
+        LocalDate dia = LocalDate.of(2025, 1, 15);
+        when(incidenciaService.recalcular(dia, dia.plusDays(1))).thenReturn(Map.of(dia, 2, dia.plusDays(1), 3));
+        
+        // When & Then
+        MvcResult resultado = mockMvc.perform(post("/api/admin/reportes/incidencias/recalcular")
+                        .with(csrf())
+                        .param("fechaInicio", "2025-01-15")
+                        .param("fechaFin", "2025-01-16"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5));
+    }
+}
@@ -0,0 +1,99 @@
+package com.asistencia.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Lector ZKTeco simulado para las pruebas del protocolo push: guarda sus marcaciones con un Stamp creciente
+ * y, como el firmware, pide las opciones al servidor y sube en lotes solo las posteriores al ATTLOGStamp recibido.
+ */
+class SimuladorLectorZk {
+
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final MockMvc mockMvc;
+    private final String sn;
+    private final int tamanoLote;
+    private final List<String> registros = new ArrayList<>();
+    private final List<String> respuestas = new ArrayList<>();
+
+    SimuladorLectorZk(MockMvc mockMvc, String sn, int tamanoLote) {
+        this.mockMvc = mockMvc;
+        this.sn = sn;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Marcación en el lector (estado 0, verificación por huella); su Stamp es su posición
+     */
+    void marcar(String pin, LocalDateTime fechaHora) {
+        registros.add(pin + "\t" + FORMATO.format(fechaHora) + "\t0\t1\t0\t0\t0");
+    }
+
+    /**
+     * Línea tal cual, para simular registros corruptos
+     */
+    void agregarLinea(String linea) {
+        registros.add(linea);
+    }
+
+    /**
+     * Saludo y subida de los registros pendientes; devuelve cuántos subió
+     */
+    int sincronizar() throws Exception {
+        return subirDesde(opciones());
+    }
+
+    /**
+     * Sube todos los registros, como un lector que perdió el Stamp del servidor
+     */
+    int reenviarTodo() throws Exception {
+        opciones();
+        return subirDesde(0);
+    }
+
+    long opciones() throws Exception {
+        MvcResult resultado = mockMvc.perform(get("/iclock/cdata").param("SN", sn).param("options", "all")).andReturn();
+        String cuerpo = resultado.getResponse().getContentAsString();
+        if (resultado.getResponse().getStatus() != 200) {
+            throw new IllegalStateException("Saludo rechazado: " + resultado.getResponse().getStatus() + " " + cuerpo);
+        }
+        for (String linea : cuerpo.split("\n")) {
+            if (linea.startsWith("ATTLOGStamp=")) {
+                return Long.parseLong(linea.substring("ATTLOGStamp=".length()));
+            }
+        }
+        throw new IllegalStateException("Respuesta sin ATTLOGStamp: " + cuerpo);
+    }
+
+    List<String> getRespuestas() {
+        return respuestas;
+    }
+
+    private int subirDesde(long stamp) throws Exception {
+        int subidos = 0;
+        for (int desde = (int) stamp; desde < registros.size(); desde += tamanoLote) {
+            int hasta = Math.min(registros.size(), desde + tamanoLote);
+            String lote = String.join("\n", registros.subList(desde, hasta)) + "\n";
+            MvcResult resultado = mockMvc.perform(post("/iclock/cdata")
+                    .param("SN", sn).param("table", "ATTLOG").param("Stamp", String.valueOf(hasta))
+                    .contentType(MediaType.TEXT_PLAIN).content(lote)).andReturn();
+            respuestas.add(resultado.getResponse().getContentAsString());
+            if (resultado.getResponse().getStatus() != 200) {
+                // Como el firmware: deja el resto para el siguiente intento
+                break;
+            }
+            subidos += hasta - desde;
+        }
+        return subidos;
+    }
+}
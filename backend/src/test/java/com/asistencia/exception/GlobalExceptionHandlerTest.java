@@ -134,6 +134,20 @@ class GlobalExceptionHandlerTest {
         verify(errorLoggingService).logAccessDeniedError(eq("anonymous"), anyString(), anyString(), anyString());
     }
 
+    @Test
+    void handleReporteSaturado_ShouldReturnServiceUnavailableWithRetryAfter() {
+        // Given
+        ReporteSaturadoException exception = new ReporteSaturadoException("Hay demasiados reportes en curso");
+
+        // When
+        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleReporteSaturado(exception, request);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("30");
+        assertThat(response.getBody()).containsEntry("mensaje", "Hay demasiados reportes en curso");
+    }
+
     @Test
     void handleGenericException_ShouldReturnInternalServerErrorResponse() {
         // Given
@@ -0,0 +1,59 @@
+package com.asistencia.security;
+
+import com.asistencia.config.CacheConfig;
+import com.asistencia.entity.Usuario;
+import com.asistencia.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomUserDetailsServiceTest {
+
+    private UsuarioRepository usuarioRepository;
+    private CustomUserDetailsService service;
+
+    @BeforeEach
+    void setUp() {
+        usuarioRepository = mock(UsuarioRepository.class);
+        service = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(service, "usuarioRepository", usuarioRepository);
+        ReflectionTestUtils.setField(service, "cacheManager", new CacheConfig().cacheManager());
+    }
+
+    @Test
+    void debeConsultarUnaVezYEntregarUnUserDetailsNuevoEnCadaLlamada() {
+        // Given
+        Usuario usuario = new Usuario();
+        usuario.setUsername("admin");
+        usuario.setPassword("$2a$10$hash");
+        usuario.setActivo(true);
+        when(usuarioRepository.findByUsernameAndActivoTrue("admin")).thenReturn(Optional.of(usuario));
+
+        // When: Spring Security borra la contraseña del UserDetails tras autenticar
+        UserDetails primero = service.loadUserByUsername("admin");
+        ((User) primero).eraseCredentials();
+        UserDetails segundo = service.loadUserByUsername("admin");
+
+        // Then
+        assertNotSame(primero, segundo);
+        assertEquals("$2a$10$hash", segundo.getPassword());
+        verify(usuarioRepository, times(1)).findByUsernameAndActivoTrue("admin");
+    }
+
+    @Test
+    void debeRechazarUsuariosInexistentesSinGuardarlos() {
+        when(usuarioRepository.findByUsernameAndActivoTrue("nadie")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("nadie"));
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("nadie"));
+        verify(usuarioRepository, times(2)).findByUsernameAndActivoTrue("nadie");
+    }
+}
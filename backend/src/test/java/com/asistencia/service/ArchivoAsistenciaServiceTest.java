@@ -0,0 +1,162 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.ParteArchivoDTO;
+import com.asistencia.entity.TipoMarcacion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchivoAsistenciaServiceTest {
+
+    @TempDir
+    Path directorio;
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private ObjectMapper objectMapper;
+    private ArchivoAsistenciaService archivoService;
+    private final YearMonth mes = YearMonth.of(2020, 3);
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:archivo" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE asistencias (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "empleado_id BIGINT, fecha_hora TIMESTAMP, tipo VARCHAR(20), estado VARCHAR(20), " +
+                "observaciones VARCHAR(500), fecha_creacion TIMESTAMP)");
+        jdbcTemplate.execute("CREATE ALIAS pg_advisory_xact_lock FOR 'java.lang.Math.max(int, int)'");
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        archivoService = nuevoServicio();
+    }
+
+    @Test
+    void debeArchivarElMesYBorrarloDeLaTabla() {
+        // Given: un mes completo más marcaciones de los meses vecinos
+        for (int dia = 1; dia <= 31; dia++) {
+            marcar(1L, mes.atDay(dia).atTime(8, 0), "ENTRADA", "PUNTUAL", dia % 7 == 0 ? "Llegó en taxi ñ" : null);
+            marcar(2L, mes.atDay(dia).atTime(8, 45, 12, 345000), "ENTRADA", "TARDANZA", null);
+            marcar(1L, mes.atDay(dia).atTime(17, 30), "SALIDA", null, null);
+        }
+        marcar(1L, mes.minusMonths(1).atEndOfMonth().atTime(23, 59), "SALIDA", null, null);
+        marcar(1L, mes.plusMonths(1).atDay(1).atStartOfDay(), "ENTRADA", null, null);
+        ReflectionTestUtils.setField(archivoService, "tamanoLoteBorrado", 10);
+
+        // When
+        ParteArchivoDTO parte = archivoService.archivarMes(mes);
+
+        // Then: el archivo tiene solo el mes y la tabla conserva los vecinos
+        assertEquals(93, parte.getFilas());
+        assertEquals(ParteArchivoDTO.Estado.COMPLETO, parte.getEstado());
+        assertEquals(mes.atDay(1).atTime(8, 0), parte.getDesde());
+        assertEquals(mes.atEndOfMonth().atTime(17, 30), parte.getHasta());
+        assertTrue(Files.exists(directorio.resolve(parte.getArchivo())));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM asistencias", Integer.class));
+
+        List<ArchivoColumnar.Fila> filas = archivoService.buscar(mes.atDay(1), mes.atEndOfMonth(), null, null);
+        assertEquals(93, filas.size());
+        ArchivoColumnar.Fila tardanza = filas.get(1);
+        assertEquals(2L, tardanza.empleadoId());
+        assertEquals(mes.atDay(1).atTime(8, 45, 12, 345000), tardanza.fechaHora());
+        assertEquals("TARDANZA", tardanza.estado().name());
+        assertNull(filas.get(2).estado());
+        assertEquals("Llegó en taxi ñ", archivoService.buscar(mes.atDay(7), mes.atDay(7), 1L, TipoMarcacion.ENTRADA)
+                .get(0).observaciones());
+    }
+
+    @Test
+    void debeFiltrarLasMarcacionesArchivadas() {
+        // Given
+        marcar(1L, mes.atDay(2).atTime(8, 0), "ENTRADA", null, null);
+        marcar(1L, mes.atDay(2).atTime(17, 0), "SALIDA", null, null);
+        marcar(2L, mes.atDay(3).atTime(8, 0), "ENTRADA", null, null);
+        archivoService.archivarMes(mes);
+
+        // When & Then
+        assertEquals(2, archivoService.buscar(mes.atDay(2), mes.atDay(2), null, null).size());
+        assertEquals(1, archivoService.buscar(null, null, 2L, null).size());
+        assertEquals(2, archivoService.buscar(null, null, null, TipoMarcacion.ENTRADA).size());
+        assertTrue(archivoService.buscar(mes.atDay(4), null, null, null).isEmpty());
+        assertTrue(archivoService.incluyeArchivo(LocalDate.of(2019, 1, 1), mes.atDay(1)));
+        assertFalse(archivoService.incluyeArchivo(mes.plusMonths(1).atDay(1), null));
+    }
+
+    @Test
+    void debeRecuperarElManifiestoAlReiniciar() throws Exception {
+        // Given: el mes se archiva en dos partes (llegó una marcación tardía)
+        marcar(1L, mes.atDay(2).atTime(8, 0), "ENTRADA", null, null);
+        archivoService.archivarMes(mes);
+        marcar(1L, mes.atDay(9).atTime(8, 0), "ENTRADA", null, null);
+        ParteArchivoDTO segunda = archivoService.archivarMes(mes);
+
+        // When
+        ArchivoAsistenciaService reiniciado = nuevoServicio();
+
+        // Then
+        assertEquals("asistencias-2020-03-p2.col.gz", segunda.getArchivo());
+        assertEquals(2, reiniciado.getManifiesto().size());
+        assertEquals(segunda.getSha256(), reiniciado.getManifiesto().get(1).getSha256());
+        assertEquals(2, reiniciado.buscar(mes.atDay(1), mes.atEndOfMonth(), null, null).size());
+    }
+
+    @Test
+    void debeVerLasPartesArchivadasPorOtraReplica() {
+        // Given: dos réplicas sobre el mismo directorio, la segunda ya arrancada
+        ArchivoAsistenciaService otraReplica = nuevoServicio();
+        marcar(1L, mes.atDay(2).atTime(8, 0), "ENTRADA", null, null);
+        marcar(1L, mes.plusMonths(1).atDay(2).atTime(8, 0), "ENTRADA", null, null);
+        assertFalse(otraReplica.incluyeArchivo(mes.atDay(1), mes.atEndOfMonth()));
+
+        // When: cada réplica archiva un mes
+        archivoService.archivarMes(mes);
+        otraReplica.archivarMes(mes.plusMonths(1));
+
+        // Then: ninguna pisa el manifiesto de la otra y ambas ven los dos meses
+        assertEquals(2, archivoService.getManifiesto().size());
+        assertEquals(2, otraReplica.buscar(mes.atDay(1), mes.plusMonths(1).atEndOfMonth(), null, null).size());
+        assertEquals(mes.plusMonths(2).atDay(1).atStartOfDay(), archivoService.finArchivo(mes.atDay(1), null));
+        assertEquals(mes.plusMonths(1).atDay(1).atStartOfDay(), archivoService.finArchivo(null, mes.atDay(20)));
+        assertNull(archivoService.finArchivo(mes.plusMonths(2).atDay(1), null));
+    }
+
+    @Test
+    void debeRechazarMesesDentroDelPeriodoDeRetencion() {
+        // Given
+        marcar(1L, LocalDateTime.now(), "ENTRADA", null, null);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> archivoService.archivarMes(YearMonth.now().minusMonths(1)));
+        assertNull(archivoService.archivarMes(mes));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM asistencias", Integer.class));
+    }
+
+    private ArchivoAsistenciaService nuevoServicio() {
+        ArchivoAsistenciaService servicio = new ArchivoAsistenciaService();
+        ReflectionTestUtils.setField(servicio, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(servicio, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(servicio, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(servicio, "directorio", directorio.toString());
+        ReflectionTestUtils.invokeMethod(servicio, "cargarManifiesto");
+        return servicio;
+    }
+
+    private void marcar(Long empleadoId, LocalDateTime fechaHora, String tipo, String estado, String observaciones) {
+        jdbcTemplate.update("INSERT INTO asistencias (empleado_id, fecha_hora, tipo, estado, observaciones, fecha_creacion) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", empleadoId, fechaHora, tipo, estado, observaciones, fechaHora.plusSeconds(2));
+    }
+}
@@ -1,5 +1,6 @@
 package com.asistencia.service;
 
+import com.asistencia.dto.EmpleadoResumenDTO;
 import com.asistencia.dto.MarcacionResponseDTO;
 import com.asistencia.entity.Empleado;
 import com.asistencia.entity.EstadoMarcacion;
@@ -13,7 +14,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Optional;
 
@@ -33,13 +38,27 @@ class AsistenciaServiceTest {
     @Mock
     private HorarioService horarioService;
     
+    @Mock
+    private MotorHorarios motorHorarios;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
     @InjectMocks
     private AsistenciaService asistenciaService;
     
     private Empleado empleadoTest;
     
+    private EmpleadoResumenDTO resumenTest;
+    
+    private SimpleMeterRegistry meterRegistry;
+    
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(asistenciaService, "meterRegistry", meterRegistry);
+        asistenciaService.registrarMetricas();
+        
         empleadoTest = new Empleado();
         empleadoTest.setId(1L);
         empleadoTest.setDni("12345678");
@@ -48,6 +67,7 @@ class AsistenciaServiceTest {
         empleadoTest.setCargo("Desarrollador");
         empleadoTest.setArea("TI");
         empleadoTest.setActivo(true);
+        resumenTest = new EmpleadoResumenDTO(1L, "12345678", "Juan Carlos", "Pérez López", "TI", "Desarrollador");
     }
     
     @Test
@@ -58,10 +78,10 @@ class AsistenciaServiceTest {
         EstadoMarcacion estadoEsperado = EstadoMarcacion.PUNTUAL;
         String mensajeEsperado = "Entrada registrada a las 08:00, puntual 🎉";
         
-        when(empleadoService.findEntityByDni(dni)).thenReturn(Optional.of(empleadoTest));
-        when(horarioService.determinarTipoMarcacion(any(LocalTime.class))).thenReturn(tipoEsperado);
-        when(horarioService.calcularEstadoMarcacion(any(LocalTime.class), eq(tipoEsperado))).thenReturn(estadoEsperado);
-        when(horarioService.generarMensajeMarcacion(any(LocalTime.class), eq(tipoEsperado), eq(estadoEsperado))).thenReturn(mensajeEsperado);
+        when(empleadoService.findResumenByDni(dni)).thenReturn(Optional.of(resumenTest));
+        when(motorHorarios.clasificar(eq(1L), eq("TI"), any(LocalDateTime.class)))
+                .thenReturn(new MotorHorarios.Clasificacion(tipoEsperado, estadoEsperado, 0));
+        when(horarioService.generarMensajeMarcacion(any(LocalTime.class), eq(tipoEsperado), eq(estadoEsperado), eq(0))).thenReturn(mensajeEsperado);
         when(asistenciaRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
         
         // When
@@ -79,13 +99,15 @@ class AsistenciaServiceTest {
         assertEquals(dni, response.getEmpleado().getDni());
         
         verify(asistenciaRepository).save(any());
+        verify(eventPublisher).publishEvent(argThat((Object evento) -> evento instanceof MarcacionRegistradaEvent e
+                && "TI".equals(e.empleadoArea()) && tipoEsperado == e.asistencia().getTipo()));
     }
     
     @Test
     void debeLanzarExcepcionCuandoEmpleadoNoExiste() {
         // Given
         String dniInexistente = "99999999";
-        when(empleadoService.findEntityByDni(dniInexistente)).thenReturn(Optional.empty());
+        when(empleadoService.findResumenByDni(dniInexistente)).thenReturn(Optional.empty());
         
         // When & Then
         EmpleadoNotFoundException exception = assertThrows(EmpleadoNotFoundException.class, 
@@ -101,8 +123,9 @@ class AsistenciaServiceTest {
         String dni = "12345678";
         TipoMarcacion tipoMarcacion = TipoMarcacion.ENTRADA;
         
-        when(empleadoService.findEntityByDni(dni)).thenReturn(Optional.of(empleadoTest));
-        when(horarioService.determinarTipoMarcacion(any(LocalTime.class))).thenReturn(tipoMarcacion);
+        when(empleadoService.findResumenByDni(dni)).thenReturn(Optional.of(resumenTest));
+        when(motorHorarios.clasificar(eq(1L), eq("TI"), any(LocalDateTime.class)))
+                .thenReturn(new MotorHorarios.Clasificacion(tipoMarcacion, EstadoMarcacion.PUNTUAL, 0));
         
         // Simular que existe una marcación reciente
         AsistenciaService spyService = spy(asistenciaService);
@@ -116,6 +139,31 @@ class AsistenciaServiceTest {
         verify(asistenciaRepository, never()).save(any());
     }
     
+    @Test
+    void debeRetornarRechazosSinExcepcionYContarlos() {
+        // Given
+        when(empleadoService.findResumenByDni("99999999")).thenReturn(Optional.empty());
+        when(empleadoService.findResumenByDni("12345678")).thenReturn(Optional.of(resumenTest));
+        when(motorHorarios.clasificar(eq(1L), eq("TI"), any(LocalDateTime.class)))
+                .thenReturn(new MotorHorarios.Clasificacion(TipoMarcacion.SALIDA, EstadoMarcacion.PUNTUAL, 0));
+        AsistenciaService spyService = spy(asistenciaService);
+        doReturn(true).when(spyService).existsRecentMarcacion(1L, TipoMarcacion.SALIDA, 5);
+        
+        // When
+        ResultadoMarcacion noEncontrado = spyService.marcar("99999999");
+        spyService.marcar("99999999");
+        ResultadoMarcacion duplicada = spyService.marcar("12345678");
+        
+        // Then
+        assertFalse(noEncontrado.isRegistrada());
+        assertEquals(ResultadoMarcacion.Rechazo.EMPLEADO_NO_ENCONTRADO, noEncontrado.rechazo());
+        assertEquals(ResultadoMarcacion.Rechazo.MARCACION_DUPLICADA, duplicada.rechazo());
+        assertEquals(TipoMarcacion.SALIDA, duplicada.tipo());
+        assertEquals(2.0, contador("EMPLEADO_NO_ENCONTRADO"));
+        assertEquals(1.0, contador("MARCACION_DUPLICADA"));
+        verify(asistenciaRepository, never()).save(any());
+    }
+    
     @Test
     void debeRegistrarMarcacionConTardanza() {
         // Given
@@ -125,11 +173,10 @@ class AsistenciaServiceTest {
         String mensajeEsperado = "Entrada registrada, llegaste tarde por 15 min ⏰";
         int minutosTarde = 15;
         
-        when(empleadoService.findEntityByDni(dni)).thenReturn(Optional.of(empleadoTest));
-        when(horarioService.determinarTipoMarcacion(any(LocalTime.class))).thenReturn(tipoEsperado);
-        when(horarioService.calcularEstadoMarcacion(any(LocalTime.class), eq(tipoEsperado))).thenReturn(estadoEsperado);
-        when(horarioService.generarMensajeMarcacion(any(LocalTime.class), eq(tipoEsperado), eq(estadoEsperado))).thenReturn(mensajeEsperado);
-        when(horarioService.calcularMinutosDiferencia(any(LocalTime.class), eq(tipoEsperado))).thenReturn(minutosTarde);
+        when(empleadoService.findResumenByDni(dni)).thenReturn(Optional.of(resumenTest));
+        when(motorHorarios.clasificar(eq(1L), eq("TI"), any(LocalDateTime.class)))
+                .thenReturn(new MotorHorarios.Clasificacion(tipoEsperado, estadoEsperado, minutosTarde));
+        when(horarioService.generarMensajeMarcacion(any(LocalTime.class), eq(tipoEsperado), eq(estadoEsperado), eq(minutosTarde))).thenReturn(mensajeEsperado);
         when(asistenciaRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
         
         // When
@@ -154,10 +201,10 @@ class AsistenciaServiceTest {
         EstadoMarcacion estadoEsperado = EstadoMarcacion.FUERA_HORARIO;
         String mensajeEsperado = "Fuera de horario registrada fuera de horario a las 22:30 ⚠️";
         
-        when(empleadoService.findEntityByDni(dni)).thenReturn(Optional.of(empleadoTest));
-        when(horarioService.determinarTipoMarcacion(any(LocalTime.class))).thenReturn(tipoEsperado);
-        when(horarioService.calcularEstadoMarcacion(any(LocalTime.class), eq(tipoEsperado))).thenReturn(estadoEsperado);
-        when(horarioService.generarMensajeMarcacion(any(LocalTime.class), eq(tipoEsperado), eq(estadoEsperado))).thenReturn(mensajeEsperado);
+        when(empleadoService.findResumenByDni(dni)).thenReturn(Optional.of(resumenTest));
+        when(motorHorarios.clasificar(eq(1L), eq("TI"), any(LocalDateTime.class)))
+                .thenReturn(new MotorHorarios.Clasificacion(tipoEsperado, estadoEsperado, 0));
+        when(horarioService.generarMensajeMarcacion(any(LocalTime.class), eq(tipoEsperado), eq(estadoEsperado), eq(0))).thenReturn(mensajeEsperado);
         when(asistenciaRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
         
         // When
@@ -173,4 +220,43 @@ class AsistenciaServiceTest {
         
         verify(asistenciaRepository).save(any());
     }
-}
\ No newline at end of file
+    
+    @Test
+    void debeRechazarSinConsultarCuandoElFiltroDescartaElDni() {
+        // Given
+        FiltroDniService filtroDni = mock(FiltroDniService.class);
+        ReflectionTestUtils.setField(asistenciaService, "filtroDni", filtroDni);
+        when(filtroDni.puedeExistir("99999999")).thenReturn(false);
+        when(filtroDni.puedeExistir("99999998")).thenReturn(true);
+        when(empleadoService.findResumenByDni("99999998")).thenReturn(Optional.empty());
+        
+        // When
+        ResultadoMarcacion descartado = asistenciaService.marcar("99999999");
+        ResultadoMarcacion falsoPositivo = asistenciaService.marcar("99999998");
+        
+        // Then
+        assertEquals(ResultadoMarcacion.Rechazo.EMPLEADO_NO_ENCONTRADO, descartado.rechazo());
+        assertEquals(ResultadoMarcacion.Rechazo.EMPLEADO_NO_ENCONTRADO, falsoPositivo.rechazo());
+        verify(empleadoService, never()).findResumenByDni("99999999");
+        verify(filtroDni, times(1)).registrarFalsoPositivo();
+        assertEquals(2.0, contador("EMPLEADO_NO_ENCONTRADO"));
+    }
+
+    @Test
+    void debeVerificarMarcacionRecientePorIdSinCargarEmpleado() {
+        // Given
+        when(asistenciaRepository.existsRecentMarcacion(eq(1L), eq(TipoMarcacion.ENTRADA), any(), any()))
+                .thenReturn(true);
+
+        // When
+        boolean reciente = asistenciaService.existsRecentMarcacion(1L, TipoMarcacion.ENTRADA, 5);
+
+        // Then
+        assertTrue(reciente);
+        verify(empleadoService, never()).findEntityById(any());
+    }
+
+    private double contador(String motivo) {
+        return meterRegistry.get("asistencia.marcaciones.rechazadas").tag("motivo", motivo).counter().count();
+    }
+}
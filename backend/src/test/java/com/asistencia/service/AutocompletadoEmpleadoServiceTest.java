@@ -0,0 +1,138 @@
+package com.asistencia.service;
+
+import com.asistencia.config.CacheConfig;
+import com.asistencia.dto.EmpleadoDTO;
+import com.asistencia.dto.SugerenciaEmpleadoDTO;
+import com.asistencia.entity.Empleado;
+import com.asistencia.repository.EmpleadoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AutocompletadoEmpleadoServiceTest {
+
+    @Mock
+    private EmpleadoRepository empleadoRepository;
+
+    @Mock
+    private EmpleadoService empleadoService;
+
+    @InjectMocks
+    private AutocompletadoEmpleadoService autocompletadoService;
+
+    private InvalidacionCacheService invalidacionCacheService;
+
+    @BeforeEach
+    void setUp() {
+        InvalidacionCacheBus bus = new InvalidacionCacheBus() {
+            @Override
+            public void publicar(EventoInvalidacion evento) {
+            }
+
+            @Override
+            public void setReceptor(Consumer<EventoInvalidacion> receptor) {
+            }
+        };
+        invalidacionCacheService = new InvalidacionCacheService(new CacheConfig().cacheManager(), bus);
+        ReflectionTestUtils.setField(autocompletadoService, "invalidacionCacheService", invalidacionCacheService);
+        ReflectionTestUtils.invokeMethod(autocompletadoService, "suscribir");
+
+        when(empleadoRepository.findByActivoTrue()).thenReturn(List.of(
+                empleado(1L, "12345678", "Juan Carlos", "Pérez López"),
+                empleado(2L, "87654321", "María Elena", "García Rodríguez"),
+                empleado(3L, "12399999", "José", "Peralta Núñez")));
+        autocompletadoService.reconstruir();
+    }
+
+    @Test
+    void debeSugerirPorPrefijoDeDniNombreOApellido() {
+        assertEquals(List.of(1L, 3L), ids(autocompletadoService.sugerir("123", 10)));
+        assertEquals(List.of(1L), ids(autocompletadoService.sugerir("1234", 10)));
+        // Sin tildes: "pera" (Peralta) va antes que "perez"
+        assertEquals(List.of(3L, 1L), ids(autocompletadoService.sugerir("PER", 10)));
+        assertEquals(List.of(3L), ids(autocompletadoService.sugerir("nun", 10)));
+        assertTrue(autocompletadoService.sugerir("lopezz", 10).isEmpty());
+        assertTrue(autocompletadoService.sugerir(" ", 10).isEmpty());
+    }
+
+    @Test
+    void debeExigirQueCoincidanTodasLasPalabras() {
+        assertEquals(List.of(1L), ids(autocompletadoService.sugerir("per juan", 10)));
+        assertEquals(List.of(2L), ids(autocompletadoService.sugerir("maria garc", 10)));
+        assertTrue(autocompletadoService.sugerir("jose garcia", 10).isEmpty());
+        assertEquals(List.of(3L), ids(autocompletadoService.sugerir("per", 1)));
+    }
+
+    @Test
+    void debeActualizarSoloElEmpleadoModificado() {
+        // Given: cambia el DNI y el apellido del empleado 1, se desactiva el 3 y se crea el 4
+        when(empleadoService.findByDni("12345678")).thenReturn(Optional.empty());
+        when(empleadoService.findByDni("55555555")).thenReturn(Optional.of(dto(1L, "55555555", "Juan Carlos", "Quispe", true)));
+        when(empleadoService.findByDni("12399999")).thenReturn(Optional.of(dto(3L, "12399999", "José", "Peralta Núñez", false)));
+        when(empleadoService.findByDni("44444444")).thenReturn(Optional.of(dto(4L, "44444444", "Rosa", "Pérez", true)));
+
+        // When
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO, "12345678", "55555555");
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO, "12399999");
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO, "44444444");
+
+        // Then
+        assertEquals(List.of(4L), ids(autocompletadoService.sugerir("per", 10)));
+        assertEquals(List.of(1L), ids(autocompletadoService.sugerir("quis", 10)));
+        assertEquals(List.of(1L), ids(autocompletadoService.sugerir("555", 10)));
+        assertTrue(autocompletadoService.sugerir("123", 10).isEmpty());
+        assertEquals(3, autocompletadoService.size());
+        verify(empleadoRepository, times(1)).findByActivoTrue();
+    }
+
+    @Test
+    void debeReconstruirAnteUnaInvalidacionCompleta() {
+        // Given
+        when(empleadoRepository.findByActivoTrue()).thenReturn(List.of(empleado(2L, "87654321", "María Elena", "García Rodríguez")));
+
+        // When
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO);
+
+        // Then
+        assertEquals(1, autocompletadoService.size());
+        assertTrue(autocompletadoService.sugerir("juan", 10).isEmpty());
+        assertEquals(List.of(2L), ids(autocompletadoService.sugerir("876", 10)));
+    }
+
+    private static List<Long> ids(List<SugerenciaEmpleadoDTO> sugerencias) {
+        List<Long> ids = new ArrayList<>();
+        sugerencias.forEach(sugerencia -> ids.add(sugerencia.getEmpleadoId()));
+        return ids;
+    }
+
+    private static Empleado empleado(Long id, String dni, String nombres, String apellidos) {
+        Empleado empleado = new Empleado(dni, nombres, apellidos, "Analista", "Sistemas");
+        empleado.setId(id);
+        empleado.setCodigoUnico("EMP" + id);
+        return empleado;
+    }
+
+    private static EmpleadoDTO dto(Long id, String dni, String nombres, String apellidos, boolean activo) {
+        EmpleadoDTO dto = new EmpleadoDTO();
+        dto.setId(id);
+        dto.setDni(dni);
+        dto.setNombres(nombres);
+        dto.setApellidos(apellidos);
+        dto.setArea("Sistemas");
+        dto.setActivo(activo);
+        return dto;
+    }
+}
@@ -0,0 +1,74 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CuboAsistenciaServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CuboAsistenciaService cuboService;
+    private final LocalDateTime inicioMes = YearMonth.now().atDay(1).atStartOfDay();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:cubo" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE empleados (id BIGINT PRIMARY KEY, area VARCHAR(100), cargo VARCHAR(100))");
+        jdbcTemplate.execute("CREATE TABLE asistencias (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "empleado_id BIGINT, fecha_hora TIMESTAMP, tipo VARCHAR(20), estado VARCHAR(20), fecha_creacion TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO empleados (id, area, cargo) VALUES (1, 'Sistemas', 'Analista')");
+
+        cuboService = new CuboAsistenciaService();
+        ReflectionTestUtils.setField(cuboService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(cuboService, "transactionManager", new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void debeContarUnaVezLasMarcacionesCreadasDuranteLaCarga() {
+        // Given: una marcación antigua y otra creada hace un momento (la leen las dos consultas)
+        marcar(inicioMes, inicioMes);
+        marcar(inicioMes, LocalDateTime.now().minusMinutes(1));
+
+        // When
+        cuboService.reconstruir();
+
+        // Then
+        assertEquals(2, cuboService.getEstado().get("filas"));
+    }
+
+    @Test
+    void debeAgregarLasMarcacionesConfirmadasDespuesDeCargar() {
+        // Given
+        marcar(inicioMes, inicioMes);
+        cuboService.reconstruir();
+
+        // When: una marcación local confirmada con el cubo ya publicado
+        AsistenciaDTO asistencia = new AsistenciaDTO();
+        asistencia.setId(99L);
+        asistencia.setFechaHora(LocalDateTime.now());
+        asistencia.setTipo(TipoMarcacion.ENTRADA);
+        asistencia.setEstado(EstadoMarcacion.PUNTUAL);
+        cuboService.onMarcacionRegistrada(new MarcacionRegistradaEvent(asistencia, "Sistemas", "Analista"));
+
+        // Then
+        assertEquals(2, cuboService.getEstado().get("filas"));
+    }
+
+    private void marcar(LocalDateTime fechaHora, LocalDateTime fechaCreacion) {
+        jdbcTemplate.update("INSERT INTO asistencias (empleado_id, fecha_hora, tipo, estado, fecha_creacion) " +
+                "VALUES (1, ?, 'ENTRADA', 'PUNTUAL', ?)", fechaHora, fechaCreacion);
+    }
+}
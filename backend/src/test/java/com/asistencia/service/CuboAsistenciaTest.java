@@ -0,0 +1,99 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.ConsultaCuboDTO;
+import com.asistencia.dto.ConsultaCuboDTO.Dimension;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CuboAsistenciaTest {
+
+    private static final YearMonth PERIODO = YearMonth.of(2024, 6);
+
+    private CuboAsistencia cubo;
+
+    @BeforeEach
+    void setUp() {
+        cubo = new CuboAsistencia(PERIODO, 100);
+        agregar("Sistemas", "Analista", 3, TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL);
+        agregar("Sistemas", "Analista", 3, TipoMarcacion.SALIDA, EstadoMarcacion.PUNTUAL);
+        agregar("Sistemas", "Jefe", 4, TipoMarcacion.ENTRADA, EstadoMarcacion.TARDANZA);
+        agregar("Ventas", "Vendedor", 3, TipoMarcacion.ENTRADA, EstadoMarcacion.TARDANZA);
+        agregar("Ventas", "Vendedor", 20, TipoMarcacion.ENTRADA, EstadoMarcacion.TARDANZA);
+        agregar(null, null, 4, TipoMarcacion.FUERA_HORARIO, null);
+    }
+
+    @Test
+    void debeAgruparPorVariasDimensionesEnOrdenDeSusValores() {
+        // When
+        List<Map<String, Object>> grupos = cubo.consultar(new ConsultaCuboDTO(List.of(Dimension.AREA, Dimension.ESTADO)));
+
+        // Then
+        assertEquals(4, grupos.size());
+        assertEquals(Map.of("area", "Sin área", "cantidad", 1), sinNulos(grupos.get(0)));
+        assertNull(grupos.get(0).get("estado"));
+        assertEquals(Map.of("area", "Sistemas", "estado", EstadoMarcacion.PUNTUAL, "cantidad", 2), grupos.get(1));
+        assertEquals(Map.of("area", "Sistemas", "estado", EstadoMarcacion.TARDANZA, "cantidad", 1), grupos.get(2));
+        assertEquals(Map.of("area", "Ventas", "estado", EstadoMarcacion.TARDANZA, "cantidad", 2), grupos.get(3));
+    }
+
+    @Test
+    void debeFiltrarPorDiaEstadoYValoresDesconocidos() {
+        // Given: tardanzas de la primera semana por día
+        ConsultaCuboDTO consulta = new ConsultaCuboDTO(List.of(Dimension.DIA));
+        consulta.setEstados(List.of(EstadoMarcacion.TARDANZA));
+        consulta.setDiaHasta(7);
+
+        // Then
+        assertEquals(List.of(Map.of("dia", 3, "cantidad", 1), Map.of("dia", 4, "cantidad", 1)), cubo.consultar(consulta));
+
+        // Sin agrupar: un único total
+        consulta.setAgrupar(List.of());
+        consulta.setAreas(List.of("Ventas", "Inexistente"));
+        assertEquals(List.of(Map.of("cantidad", 1)), cubo.consultar(consulta));
+
+        consulta.setAreas(List.of("Inexistente"));
+        assertTrue(cubo.consultar(consulta).isEmpty());
+    }
+
+    @Test
+    void debeRechazarMarcacionesDeOtroMesYRespetarElLimiteDeFilas() {
+        // Otro mes
+        assertFalse(cubo.agregar("Sistemas", "Analista", LocalDateTime.of(2024, 7, 1, 8, 0),
+                TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL));
+        assertFalse(cubo.saturado());
+
+        // Límite de filas
+        CuboAsistencia pequeno = new CuboAsistencia(PERIODO, 2);
+        LocalDateTime dia = PERIODO.atDay(1).atTime(8, 0);
+        assertTrue(pequeno.agregar("A", "B", dia, TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL));
+        assertTrue(pequeno.agregar("A", "B", dia, TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL));
+        assertFalse(pequeno.agregar("A", "B", dia, TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL));
+        assertTrue(pequeno.saturado());
+        assertEquals(2, pequeno.filas());
+        assertEquals(14, pequeno.memoriaMaximaBytes());
+    }
+
+    @Test
+    void debeRechazarAgrupacionesRepetidas() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cubo.consultar(new ConsultaCuboDTO(List.of(Dimension.DIA, Dimension.DIA))));
+    }
+
+    private void agregar(String area, String cargo, int dia, TipoMarcacion tipo, EstadoMarcacion estado) {
+        assertTrue(cubo.agregar(area, cargo, PERIODO.atDay(dia).atTime(8, 0), tipo, estado));
+    }
+
+    private static Map<String, Object> sinNulos(Map<String, Object> fila) {
+        fila.values().removeIf(java.util.Objects::isNull);
+        return fila;
+    }
+}
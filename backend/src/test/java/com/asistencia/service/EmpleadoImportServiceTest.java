@@ -0,0 +1,175 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.ImportacionResultadoDTO;
+import com.asistencia.entity.Empleado;
+import com.asistencia.exception.EmpleadoValidationException;
+import com.asistencia.repository.EmpleadoRepository;
+import com.asistencia.util.CodigoUnicoGenerator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmpleadoImportServiceTest {
+
+    @Mock
+    private EmpleadoRepository empleadoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CodigoUnicoGenerator codigoUnicoGenerator;
+
+    @Mock
+    private InvalidacionCacheService invalidacionCacheService;
+
+    @Spy
+    private EmpleadoService empleadoService = new EmpleadoService();
+
+    @InjectMocks
+    private EmpleadoImportService empleadoImportService;
+
+    private final List<Empleado> guardados = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        AtomicInteger contador = new AtomicInteger(1);
+        lenient().when(codigoUnicoGenerator.reservarBloque(anyInt())).thenAnswer(invocation -> {
+            List<String> codigos = new ArrayList<>();
+            for (int i = 0; i < invocation.<Integer>getArgument(0); i++) {
+                codigos.add("EMP" + contador.getAndIncrement());
+            }
+            return codigos;
+        });
+        lenient().when(empleadoRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Empleado> lote = invocation.getArgument(0);
+            guardados.addAll(lote);
+            return lote;
+        });
+    }
+
+    @Test
+    void debeImportarCsvReportandoErroresPorFila() throws Exception {
+        // Given
+        when(empleadoRepository.findDnisExistentes(anyCollection())).thenReturn(List.of("22222222"));
+        String csv = "DNI;Nombres;Apellidos;Cargo;Área\n" +
+                "11111111;Ana;Torres;Analista;Sistemas\n" +
+                "22222222;Luis;Ramos;Gerente;Ventas\n" +
+                "1234;Mal;Dni;Cargo;Area\n" +
+                "11111111;Ana;Repetida;Analista;Sistemas\n" +
+                "33333333;\"Rosa, María\";Díaz;Contadora;Finanzas\n";
+
+        // When
+        ImportacionResultadoDTO resultado = empleadoImportService.importarCsv(stream(csv));
+
+        // Then
+        assertEquals(5, resultado.getTotalFilas());
+        assertEquals(2, resultado.getImportados());
+        assertEquals(3, resultado.getRechazados());
+        assertEquals(List.of(4, 5, 3), resultado.getErrores().stream().map(e -> e.getFila()).toList());
+        assertEquals("DNI repetido en el archivo", resultado.getErrores().get(1).getMensaje());
+        assertEquals("Ya existe un empleado con el DNI: 22222222", resultado.getErrores().get(2).getMensaje());
+
+        assertEquals(2, guardados.size());
+        assertEquals("Rosa, María", guardados.get(1).getNombres());
+        assertNotNull(guardados.get(0).getCodigoUnico());
+        assertNotEquals(guardados.get(0).getCodigoUnico(), guardados.get(1).getCodigoUnico());
+    }
+
+    @Test
+    void debeConsultarDnisUnaVezPorLote() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(empleadoImportService, "tamanoLote", 2);
+        when(empleadoRepository.findDnisExistentes(anyCollection())).thenReturn(List.of());
+        StringBuilder csv = new StringBuilder("dni,nombres,apellidos,cargo,area\n");
+        for (int i = 0; i < 5; i++) {
+            csv.append(String.format("%08d,Nombre,Apellido,Cargo,Area%n", 40000000 + i));
+        }
+
+        // When
+        ImportacionResultadoDTO resultado = empleadoImportService.importarCsv(stream(csv.toString()));
+
+        // Then
+        assertEquals(5, resultado.getImportados());
+        verify(empleadoRepository, times(3)).findDnisExistentes(anyCollection());
+        ArgumentCaptor<List<Empleado>> lotes = ArgumentCaptor.forClass(List.class);
+        verify(empleadoRepository, times(3)).saveAll(lotes.capture());
+        assertEquals(List.of(2, 2, 1), lotes.getAllValues().stream().map(List::size).toList());
+        verify(codigoUnicoGenerator, times(3)).reservarBloque(anyInt());
+        verify(empleadoRepository, never()).existsByDni(anyString());
+        verify(invalidacionCacheService, times(1)).invalidar(EventoInvalidacion.Entidad.EMPLEADO);
+    }
+
+    @Test
+    void debeImportarXlsxConApiDeEventos() throws Exception {
+        // Given
+        when(empleadoRepository.findDnisExistentes(anyCollection())).thenReturn(List.of());
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet hoja = workbook.createSheet("Empleados");
+            Row cabecera = hoja.createRow(0);
+            String[] columnas = {"DNI", "Nombres", "Apellidos", "Cargo", "Área"};
+            for (int i = 0; i < columnas.length; i++) {
+                cabecera.createCell(i).setCellValue(columnas[i]);
+            }
+            Row fila = hoja.createRow(1);
+            fila.createCell(0).setCellValue(1234567); // DNI numérico con cero inicial perdido
+            fila.createCell(1).setCellValue("Carlos");
+            fila.createCell(2).setCellValue("Vega");
+            fila.createCell(3).setCellValue("Técnico");
+            fila.createCell(4).setCellValue("Soporte");
+            Row incompleta = hoja.createRow(2);
+            incompleta.createCell(0).setCellValue("77777777");
+            workbook.write(salida);
+        }
+
+        // When
+        ImportacionResultadoDTO resultado = empleadoImportService.importarXlsx(
+                new ByteArrayInputStream(salida.toByteArray()));
+
+        // Then
+        assertEquals(2, resultado.getTotalFilas());
+        assertEquals(1, resultado.getImportados());
+        assertEquals("01234567", guardados.get(0).getDni());
+        assertEquals(3, resultado.getErrores().get(0).getFila());
+        assertEquals("Los nombres son obligatorios", resultado.getErrores().get(0).getMensaje());
+    }
+
+    @Test
+    void debeRechazarArchivoSinColumnasObligatorias() {
+        // Given
+        String csv = "dni,nombres\n12345678,Ana\n";
+
+        // When & Then
+        EmpleadoValidationException exception = assertThrows(EmpleadoValidationException.class,
+                () -> empleadoImportService.importarCsv(stream(csv)));
+        assertTrue(exception.getMessage().contains("apellidos, cargo, area"));
+    }
+
+    private InputStream stream(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
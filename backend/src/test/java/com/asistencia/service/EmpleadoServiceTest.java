@@ -277,6 +277,10 @@ class EmpleadoServiceTest {
         // Then
         assertThat(resultado).hasSize(2);
         assertThat(resultado).allMatch(emp -> emp.getApellidos().contains("Pérez"));
+        // Sin tildes ni mayúsculas y ordenado por relevancia (María Pérez: coincidencia más temprana)
+        assertThat(empleadoService.findByNombreOrApellido("PEREZ"))
+                .extracting(EmpleadoDTO::getNombres)
+                .containsExactly("María", "Juan Carlos");
     }
     
     @Test
@@ -0,0 +1,112 @@
+package com.asistencia.service;
+
+import com.asistencia.config.CacheConfig;
+import com.asistencia.repository.EmpleadoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FiltroDniServiceTest {
+
+    @Mock
+    private EmpleadoRepository empleadoRepository;
+
+    @InjectMocks
+    private FiltroDniService filtroDniService;
+
+    private InvalidacionCacheService invalidacionCacheService;
+
+    @BeforeEach
+    void setUp() {
+        InvalidacionCacheBus bus = new InvalidacionCacheBus() {
+            @Override
+            public void publicar(EventoInvalidacion evento) {
+            }
+
+            @Override
+            public void setReceptor(Consumer<EventoInvalidacion> receptor) {
+            }
+        };
+        invalidacionCacheService = new InvalidacionCacheService(new CacheConfig().cacheManager(), bus);
+        ReflectionTestUtils.setField(filtroDniService, "invalidacionCacheService", invalidacionCacheService);
+        ReflectionTestUtils.setField(filtroDniService, "capacidadMinima", 100);
+        ReflectionTestUtils.invokeMethod(filtroDniService, "suscribir");
+    }
+
+    @Test
+    void debeDejarPasarTodoAntesDeCargarse() {
+        assertTrue(filtroDniService.puedeExistir("00000000"));
+        assertEquals(false, filtroDniService.getEstado().get("cargado"));
+    }
+
+    @Test
+    void debeDescartarDnisDesconocidosConLaTasaConfigurada() {
+        // Given: 10.000 DNIs conocidos
+        List<String> conocidos = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            conocidos.add(String.format("%08d", 10_000_000 + i * 7));
+        }
+        when(empleadoRepository.count()).thenReturn((long) conocidos.size());
+        when(empleadoRepository.findAllDnis()).thenReturn(conocidos);
+
+        // When
+        filtroDniService.reconstruir();
+
+        // Then: nunca descarta uno conocido y deja pasar pocos desconocidos
+        assertTrue(conocidos.stream().allMatch(filtroDniService::puedeExistir));
+        int pasan = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtroDniService.puedeExistir(String.format("%08d", 50_000_000 + i))) {
+                pasan++;
+            }
+        }
+        // Dimensionado para 20.000 con 1%: con la mitad llena la tasa queda muy por debajo
+        assertTrue(pasan < 1_000, "Falsos positivos: " + pasan);
+
+        Map<String, Object> estado = filtroDniService.getEstado();
+        assertEquals(20_000, estado.get("capacidad"));
+        assertEquals(10_000L, estado.get("dnis"));
+        assertEquals(100_000L - pasan, estado.get("descartados"));
+        assertTrue((double) estado.get("tasaFalsosPositivosEstimada") < 0.01);
+    }
+
+    @Test
+    void debeAgregarDnisCreadosYReconstruirAlBorrarOLlenarse() {
+        // Given
+        when(empleadoRepository.count()).thenReturn(1L);
+        when(empleadoRepository.findAllDnis()).thenReturn(List.of("12345678"));
+        filtroDniService.reconstruir();
+        assertFalse(filtroDniService.puedeExistir("87654321"));
+
+        // When: alta de un empleado
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO, "87654321");
+
+        // Then
+        assertTrue(filtroDniService.puedeExistir("87654321"));
+        verify(empleadoRepository, times(1)).findAllDnis();
+
+        // Superar la capacidad (100) reconstruye desde la base de datos
+        for (int i = 0; i < 99; i++) {
+            invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO, String.format("%08d", i));
+        }
+        verify(empleadoRepository, times(2)).findAllDnis();
+
+        // Un borrado físico (sin clave) también
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO);
+        verify(empleadoRepository, times(3)).findAllDnis();
+        assertFalse(filtroDniService.puedeExistir("87654321"));
+    }
+}
@@ -0,0 +1,209 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.HojaTiempoDTO;
+import com.asistencia.entity.AsignacionTurno;
+import com.asistencia.entity.Empleado;
+import com.asistencia.entity.Horario;
+import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.entity.Turno;
+import com.asistencia.repository.AsignacionTurnoRepository;
+import com.asistencia.repository.HorarioRepository;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HojaTiempoServiceTest {
+
+    @Mock
+    private HorarioRepository horarioRepository;
+
+    @Mock
+    private AsignacionTurnoRepository asignacionTurnoRepository;
+
+    private HojaTiempoService hojaTiempoService;
+
+    private JdbcTemplate jdbcTemplate;
+    private List<Horario> horarios;
+    private final LocalDate dia = LocalDate.of(2025, 3, 10);
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:hojatiempo" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE empleados (id BIGINT PRIMARY KEY, dni VARCHAR(8), nombres VARCHAR(100), " +
+                "apellidos VARCHAR(100), area VARCHAR(100))");
+        jdbcTemplate.execute("CREATE TABLE asistencias (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "empleado_id BIGINT, fecha_hora TIMESTAMP, tipo VARCHAR(20))");
+        MotorHorarios motorHorarios = new MotorHorarios();
+        ReflectionTestUtils.setField(motorHorarios, "horarioRepository", horarioRepository);
+        ReflectionTestUtils.setField(motorHorarios, "asignacionTurnoRepository", asignacionTurnoRepository);
+        hojaTiempoService = new HojaTiempoService();
+        ReflectionTestUtils.setField(hojaTiempoService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(hojaTiempoService, "motorHorarios", motorHorarios);
+
+        // Horario general: entrada hasta las 08:20 y salida hasta las 18:00
+        horarios = new ArrayList<>(List.of(
+                horario(null, TipoMarcacion.ENTRADA, 7, 50, 8, 20, Horario.TODOS_LOS_DIAS),
+                horario(null, TipoMarcacion.SALIDA, 17, 30, 18, 0, Horario.TODOS_LOS_DIAS)));
+        lenient().when(horarioRepository.findByActivoTrueOrderByHoraInicio()).thenAnswer(invocation -> horarios);
+    }
+
+    @Test
+    void debeEmparejarMarcacionesYAcumularPorEmpleado() {
+        // Given: dos días completos, uno con tardanza y horas extra
+        empleado(1L, "11111111", "Ana", "Torres", "Sistemas");
+        marcar(1L, dia, "08:00 ENTRADA", "12:30 SALIDA_ALMUERZO", "13:30 RETORNO_ALMUERZO", "17:30 SALIDA");
+        marcar(1L, dia.plusDays(1), "08:35 ENTRADA", "12:30 SALIDA_ALMUERZO", "13:15 RETORNO_ALMUERZO", "18:40 SALIDA");
+        // Empleado sin salida el primer día y sin almuerzo el segundo
+        empleado(2L, "22222222", "Luis", "Ramos", "Ventas");
+        marcar(2L, dia, "08:10 ENTRADA", "12:40 SALIDA_ALMUERZO");
+        marcar(2L, dia.plusDays(1), "08:00 ENTRADA", "16:00 SALIDA");
+
+        // When
+        List<HojaTiempoDTO> hojas = hojaTiempoService.calcular(dia, dia.plusDays(1), null);
+
+        // Then
+        assertEquals(2, hojas.size());
+
+        HojaTiempoDTO ana = hojas.get(0);
+        assertEquals("11111111", ana.getEmpleadoDni());
+        assertEquals(2, ana.getDiasTrabajados());
+        assertEquals(0, ana.getDiasIncompletos());
+        assertEquals(510 + 560, ana.getMinutosTrabajados());
+        assertEquals(60 + 45, ana.getMinutosAlmuerzo());
+        assertEquals(15, ana.getMinutosTardanza());
+        assertEquals(40, ana.getMinutosExtra());
+        assertEquals(17.83, ana.getHorasTrabajadas());
+
+        HojaTiempoDTO luis = hojas.get(1);
+        assertEquals(2, luis.getDiasTrabajados());
+        assertEquals(1, luis.getDiasIncompletos());
+        assertEquals(270 + 480, luis.getMinutosTrabajados());
+        assertEquals(0, luis.getMinutosAlmuerzo());
+        assertEquals(0, luis.getMinutosTardanza());
+    }
+
+    @Test
+    void debeFiltrarPorEmpleadoYRespetarElPeriodo() {
+        // Given
+        empleado(1L, "11111111", "Ana", "Torres", "Sistemas");
+        empleado(2L, "22222222", "Luis", "Ramos", "Ventas");
+        marcar(1L, dia, "08:00 ENTRADA", "17:00 SALIDA");
+        marcar(1L, dia.plusDays(1), "08:00 ENTRADA", "17:00 SALIDA");
+        marcar(2L, dia, "08:00 ENTRADA", "17:00 SALIDA");
+
+        // When
+        List<HojaTiempoDTO> hojas = hojaTiempoService.calcular(dia, dia, 1L);
+
+        // Then
+        assertEquals(1, hojas.size());
+        assertEquals(1, hojas.get(0).getDiasTrabajados());
+        assertEquals(540, hojas.get(0).getMinutosTrabajados());
+    }
+
+    @Test
+    void debeUsarFueraDeHorarioComoEntradaYSalida() {
+        // Given: sin horarios configurados no hay tardanza ni horas extra
+        horarios.clear();
+        empleado(1L, "11111111", "Ana", "Torres", "Sistemas");
+        marcar(1L, dia, "06:00 FUERA_HORARIO", "21:00 FUERA_HORARIO");
+
+        // When
+        HojaTiempoDTO hoja = hojaTiempoService.calcular(dia, dia, null).get(0);
+
+        // Then
+        assertEquals(900, hoja.getMinutosTrabajados());
+        assertEquals(0, hoja.getMinutosTardanza());
+        assertEquals(0, hoja.getMinutosExtra());
+    }
+
+    @Test
+    void debeImputarElTurnoNocturnoAlDiaEnQueEmpiezaConSusLimites() {
+        // Given: turno noche con entrada hasta las 22:10 y salida hasta las 06:10 del día siguiente
+        Turno noche = new Turno("Noche");
+        noche.setId(10L);
+        horarios.add(horario(noche, TipoMarcacion.ENTRADA, 21, 50, 22, 10, Horario.TODOS_LOS_DIAS));
+        horarios.add(horario(noche, TipoMarcacion.SALIDA, 5, 50, 6, 10, Horario.TODOS_LOS_DIAS));
+        Empleado vigilante = new Empleado();
+        vigilante.setId(1L);
+        when(asignacionTurnoRepository.findVigentes()).thenReturn(List.of(AsignacionTurno.deEmpleado(noche, vigilante)));
+        empleado(1L, "11111111", "Ana", "Torres", "Seguridad");
+        // La salida del último día cae fuera del período pero cierra su jornada
+        marcar(1L, dia, "22:20 ENTRADA");
+        marcar(1L, dia.plusDays(1), "06:40 SALIDA", "21:55 ENTRADA");
+        marcar(1L, dia.plusDays(2), "06:00 SALIDA");
+
+        // When
+        HojaTiempoDTO hoja = hojaTiempoService.calcular(dia, dia.plusDays(1), null).get(0);
+
+        // Then: dos jornadas completas, con tardanza y horas extra respecto de las ventanas del turno
+        assertEquals(2, hoja.getDiasTrabajados());
+        assertEquals(0, hoja.getDiasIncompletos());
+        assertEquals(500 + 485, hoja.getMinutosTrabajados());
+        assertEquals(10, hoja.getMinutosTardanza());
+        assertEquals(30, hoja.getMinutosExtra());
+    }
+
+    @Test
+    void debeExportarExcelConUnaFilaPorEmpleado() throws Exception {
+        // Given
+        empleado(1L, "11111111", "Ana", "Torres", "Sistemas");
+        marcar(1L, dia, "08:00 ENTRADA", "17:00 SALIDA");
+
+        // When
+        byte[] excel = hojaTiempoService.generarExcel(dia, dia, null);
+
+        // Then
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(excel))) {
+            Sheet hoja = workbook.getSheetAt(0);
+            assertEquals(1, hoja.getLastRowNum());
+            assertEquals("11111111", hoja.getRow(1).getCell(0).getStringCellValue());
+            assertEquals(540, hoja.getRow(1).getCell(7).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void debeRechazarPeriodoInvertido() {
+        assertThrows(IllegalArgumentException.class, () -> hojaTiempoService.calcular(dia, dia.minusDays(1), null));
+    }
+
+    private static Horario horario(Turno turno, TipoMarcacion tipo, int horaInicio, int minutoInicio,
+                                   int horaFin, int minutoFin, int diasSemana) {
+        Horario horario = new Horario(tipo.getDescripcion(), LocalTime.of(horaInicio, minutoInicio),
+                LocalTime.of(horaFin, minutoFin), tipo);
+        horario.setTurno(turno);
+        horario.setDiasSemana(diasSemana);
+        return horario;
+    }
+
+    private void empleado(Long id, String dni, String nombres, String apellidos, String area) {
+        jdbcTemplate.update("INSERT INTO empleados (id, dni, nombres, apellidos, area) VALUES (?, ?, ?, ?, ?)",
+                id, dni, nombres, apellidos, area);
+    }
+
+    private void marcar(Long empleadoId, LocalDate fecha, String... marcas) {
+        for (String marca : marcas) {
+            String[] partes = marca.split(" ");
+            jdbcTemplate.update("INSERT INTO asistencias (empleado_id, fecha_hora, tipo) VALUES (?, ?, ?)",
+                    empleadoId, fecha.atTime(LocalTime.parse(partes[0])), partes[1]);
+        }
+    }
+}
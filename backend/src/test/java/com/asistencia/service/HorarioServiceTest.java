@@ -4,7 +4,9 @@ import com.asistencia.dto.HorarioDTO;
 import com.asistencia.entity.EstadoMarcacion;
 import com.asistencia.entity.Horario;
 import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.entity.Turno;
 import com.asistencia.repository.HorarioRepository;
+import com.asistencia.repository.TurnoRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,6 +29,12 @@ class HorarioServiceTest {
     @Mock
     private HorarioRepository horarioRepository;
 
+    @Mock
+    private TurnoRepository turnoRepository;
+
+    @Mock
+    private InvalidacionCacheService invalidacionCacheService;
+
     @InjectMocks
     private HorarioService horarioService;
 
@@ -304,8 +312,8 @@ class HorarioServiceTest {
         horarioDTO.setHoraFin(LocalTime.of(9, 30));
         horarioDTO.setTipo(TipoMarcacion.ENTRADA);
 
-        when(horarioRepository.existsOverlappingHorario(any(), any(), any(), any()))
-                .thenReturn(false);
+        when(horarioRepository.findByTurnoIsNullAndTipoAndActivoTrue(TipoMarcacion.ENTRADA))
+                .thenReturn(List.of(horarioEntrada));
         when(horarioRepository.save(any(Horario.class)))
                 .thenReturn(horarioEntrada);
 
@@ -315,6 +323,7 @@ class HorarioServiceTest {
         // Then
         assertNotNull(resultado);
         verify(horarioRepository).save(any(Horario.class));
+        verify(invalidacionCacheService).invalidar(EventoInvalidacion.Entidad.HORARIO);
     }
 
     @Test
@@ -326,8 +335,8 @@ class HorarioServiceTest {
         horarioDTO.setHoraFin(LocalTime.of(8, 30));
         horarioDTO.setTipo(TipoMarcacion.ENTRADA);
 
-        when(horarioRepository.existsOverlappingHorario(any(), any(), any(), any()))
-                .thenReturn(true);
+        when(horarioRepository.findByTurnoIsNullAndTipoAndActivoTrue(TipoMarcacion.ENTRADA))
+                .thenReturn(List.of(horarioEntrada));
 
         // When & Then
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
@@ -349,4 +358,48 @@ class HorarioServiceTest {
                 () -> horarioService.create(horarioDTO));
         assertTrue(exception.getMessage().contains("hora de inicio debe ser menor"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void debeValidarSolapamientosPorTurnoDiasYVentanasNocturnas() {
+        // Given: turno noche con entrada de 21:45 a 22:15 de lunes a viernes
+        Turno noche = new Turno("Noche");
+        noche.setId(10L);
+        Horario entradaNoche = new Horario("Entrada noche", LocalTime.of(21, 45), LocalTime.of(22, 15), TipoMarcacion.ENTRADA);
+        entradaNoche.setId(20L);
+        entradaNoche.setTurno(noche);
+        entradaNoche.setDiasSemana(0b0011111);
+        when(horarioRepository.findByTurnoIdAndTipoAndActivoTrue(10L, TipoMarcacion.ENTRADA))
+                .thenReturn(List.of(entradaNoche));
+
+        // When & Then: una ventana nocturna de 22:00 a 06:00 los sábados no toca la de lunes a viernes...
+        assertFalse(horarioService.existsOverlappingHorario(10L, 0b0100000, TipoMarcacion.ENTRADA,
+                LocalTime.of(22, 0), LocalTime.of(6, 0), null));
+        // ...pero la del domingo sí alcanza la del lunes siguiente (termina el lunes a las 22:00)
+        assertTrue(horarioService.existsOverlappingHorario(10L, 0b1000000, TipoMarcacion.ENTRADA,
+                LocalTime.of(23, 0), LocalTime.of(22, 0), null));
+        // El mismo horario no se compara consigo mismo al actualizarse
+        assertFalse(horarioService.existsOverlappingHorario(10L, 0b0011111, TipoMarcacion.ENTRADA,
+                LocalTime.of(21, 30), LocalTime.of(22, 0), 20L));
+    }
+
+    @Test
+    void debeCrearHorarioNocturnoSoloEnUnTurno() {
+        // Given
+        Turno noche = new Turno("Noche");
+        noche.setId(10L);
+        HorarioDTO horarioDTO = new HorarioDTO("Salida noche", LocalTime.of(5, 45), LocalTime.of(6, 15), TipoMarcacion.SALIDA);
+        horarioDTO.setHoraInicio(LocalTime.of(23, 45));
+        horarioDTO.setTurnoId(10L);
+        when(turnoRepository.findById(10L)).thenReturn(Optional.of(noche));
+        when(horarioRepository.save(any(Horario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        HorarioDTO resultado = horarioService.create(horarioDTO);
+
+        // Then
+        assertEquals(10L, resultado.getTurnoId());
+        assertEquals(Horario.TODOS_LOS_DIAS, resultado.getDiasSemana());
+        horarioDTO.setTurnoId(null);
+        assertThrows(IllegalArgumentException.class, () -> horarioService.create(horarioDTO));
+    }
+}
@@ -0,0 +1,179 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.MarcacionResponseDTO;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotenciaMarcacionServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ObjectMapper objectMapper;
+    private IdempotenciaMarcacionService service;
+    private AtomicInteger ejecuciones;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:idempotencia" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE marcaciones_idempotentes (clave VARCHAR(100) PRIMARY KEY, " +
+                "dni VARCHAR(8) NOT NULL, status INTEGER NOT NULL, respuesta TEXT NOT NULL, " +
+                "fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        service = new IdempotenciaMarcacionService(jdbcTemplate, objectMapper);
+        ejecuciones = new AtomicInteger();
+    }
+
+    @Test
+    void debeDevolverLaRespuestaOriginalSinVolverAMarcar() {
+        // Given
+        IdempotenciaMarcacionService.Respuesta original = service.ejecutar("clave-1", "12345678", this::entrada);
+
+        // When: reintento desde memoria y desde la tabla (otra réplica o tras reiniciar)
+        IdempotenciaMarcacionService.Respuesta reintento = service.ejecutar("clave-1", "12345678", this::entrada);
+        IdempotenciaMarcacionService otraInstancia = new IdempotenciaMarcacionService(jdbcTemplate, objectMapper);
+        IdempotenciaMarcacionService.Respuesta desdeTabla = otraInstancia.ejecutar("clave-1", "12345678", this::entrada);
+
+        // Then
+        assertEquals(1, ejecuciones.get());
+        assertFalse(original.repetida());
+        assertTrue(reintento.repetida());
+        assertSame(original.cuerpo(), reintento.cuerpo());
+        assertTrue(desdeTabla.repetida());
+        assertEquals(200, desdeTabla.status());
+        assertEquals(TipoMarcacion.ENTRADA, desdeTabla.cuerpo().getTipo());
+        assertEquals(original.cuerpo().getFechaHora(), desdeTabla.cuerpo().getFechaHora());
+        assertEquals("Entrada registrada", desdeTabla.cuerpo().getMensaje());
+    }
+
+    @Test
+    void debeRechazarLaClaveConOtroDniYNoGuardarErroresInternos() {
+        // Given
+        service.ejecutar("clave-1", "12345678", this::entrada);
+
+        // Then: la clave pertenece a otro DNI, también en otra instancia
+        assertEquals(422, service.ejecutar("clave-1", "87654321", this::entrada).status());
+        assertEquals(422, new IdempotenciaMarcacionService(jdbcTemplate, objectMapper)
+                .ejecutar("clave-1", "87654321", this::entrada).status());
+
+        // Un 500 no se guarda: el reintento vuelve a procesarse
+        IdempotenciaMarcacionService.Respuesta error = service.ejecutar("clave-2", "12345678",
+                () -> new IdempotenciaMarcacionService.Respuesta(500, MarcacionResponseDTO.error("Error interno del servidor")));
+        assertEquals(500, error.status());
+        assertFalse(service.ejecutar("clave-2", "12345678", this::entrada).repetida());
+        assertEquals(2, ejecuciones.get());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM marcaciones_idempotentes", Integer.class));
+    }
+
+    @Test
+    void debeGuardarSoloLasMarcacionesRegistradasYDuplicadas() {
+        // Given: un DNI desconocido no ocupa la tabla
+        service.ejecutar("clave-1", "99999999",
+                () -> new IdempotenciaMarcacionService.Respuesta(404, MarcacionResponseDTO.error("Empleado no encontrado")));
+        service.ejecutar("clave-2", "12345678",
+                () -> new IdempotenciaMarcacionService.Respuesta(409, MarcacionResponseDTO.error("Ya existe una marcación reciente")));
+
+        // Then
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM marcaciones_idempotentes", Integer.class));
+        assertEquals(1, service.size());
+        assertTrue(service.ejecutar("clave-2", "12345678", this::entrada).repetida());
+    }
+
+    @Test
+    void debeRechazarSinTocarLaTablaLosDniQueElFiltroDescarta() {
+        // Given
+        FiltroDniService filtroDni = mock(FiltroDniService.class);
+        when(filtroDni.puedeExistir("99999999")).thenReturn(false);
+        ReflectionTestUtils.setField(service, "filtroDni", filtroDni);
+        jdbcTemplate.execute("DROP TABLE marcaciones_idempotentes");
+
+        // When
+        IdempotenciaMarcacionService.Respuesta respuesta = service.ejecutar("clave-1", "99999999",
+                () -> new IdempotenciaMarcacionService.Respuesta(404, MarcacionResponseDTO.error("Empleado no encontrado")));
+
+        // Then
+        assertEquals(404, respuesta.status());
+        assertEquals(0, service.size());
+    }
+
+    @Test
+    void debeProcesarUnaSolaVezLosReintentosConcurrentes() throws Exception {
+        // Given: la marcación original tarda mientras llegan los reintentos
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            Future<IdempotenciaMarcacionService.Respuesta> primera = hilos.submit(() ->
+                    service.ejecutar("clave-1", "12345678", () -> {
+                        enCurso.countDown();
+                        esperar(liberar);
+                        return entrada();
+                    }));
+            assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+            Future<IdempotenciaMarcacionService.Respuesta> segunda = hilos.submit(() ->
+                    service.ejecutar("clave-1", "12345678", this::entrada));
+            Future<IdempotenciaMarcacionService.Respuesta> tercera = hilos.submit(() ->
+                    service.ejecutar("clave-1", "12345678", this::entrada));
+
+            // When
+            Thread.sleep(100);
+            liberar.countDown();
+
+            // Then
+            assertFalse(primera.get(5, TimeUnit.SECONDS).repetida());
+            assertTrue(segunda.get(5, TimeUnit.SECONDS).repetida());
+            assertTrue(tercera.get(5, TimeUnit.SECONDS).repetida());
+            assertEquals(1, ejecuciones.get());
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    void debePurgarLasClavesVencidas() {
+        // Given
+        service.ejecutar("clave-1", "12345678", this::entrada);
+        jdbcTemplate.update("UPDATE marcaciones_idempotentes SET fecha_creacion = ?", LocalDateTime.now().minusDays(2));
+
+        // When
+        service.purgar();
+
+        // Then
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM marcaciones_idempotentes", Integer.class));
+        // Sigue en memoria hasta su vencimiento
+        assertEquals(1, service.size());
+    }
+
+    private IdempotenciaMarcacionService.Respuesta entrada() {
+        ejecuciones.incrementAndGet();
+        return new IdempotenciaMarcacionService.Respuesta(200, MarcacionResponseDTO.success("Entrada registrada", null,
+                TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL, LocalDateTime.of(2024, 6, 3, 8, 1, 30, 123_000_000)));
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.AsignacionTurno;
+import com.asistencia.entity.Empleado;
+import com.asistencia.entity.Horario;
+import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.entity.Turno;
+import com.asistencia.repository.AsignacionTurnoRepository;
+import com.asistencia.repository.HorarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IncidenciaServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private IncidenciaService incidenciaService;
+    private HorarioRepository horarioRepository;
+    private AsignacionTurnoRepository asignacionTurnoRepository;
+    // Lunes ya terminado, para que sea laborable y procesable
+    private final LocalDate lunes = LocalDate.now().minusDays(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:incidencias" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SEQUENCE incidencias_id_seq START WITH 1 INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE TABLE empleados (id BIGINT PRIMARY KEY, area VARCHAR(100), activo BOOLEAN, " +
+                "fecha_creacion TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE turnos (id BIGINT PRIMARY KEY, activo BOOLEAN)");
+        jdbcTemplate.execute("CREATE TABLE asignaciones_turno (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "turno_id BIGINT, empleado_id BIGINT, area VARCHAR(100), activo BOOLEAN)");
+        jdbcTemplate.execute("CREATE TABLE asistencias (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, empleado_id BIGINT, " +
+                "fecha_hora TIMESTAMP, tipo VARCHAR(20))");
+        jdbcTemplate.execute("CREATE TABLE incidencias (id BIGINT PRIMARY KEY, empleado_id BIGINT NOT NULL, " +
+                "fecha DATE NOT NULL, tipo VARCHAR(30) NOT NULL, fecha_creacion TIMESTAMP, " +
+                "UNIQUE (empleado_id, fecha, tipo))");
+
+        incidenciaService = new IncidenciaService();
+        ReflectionTestUtils.setField(incidenciaService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(incidenciaService, "transactionManager", new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.invokeMethod(incidenciaService, "iniciar");
+
+        // Sin horarios: cada jornada es el día calendario
+        horarioRepository = mock(HorarioRepository.class);
+        asignacionTurnoRepository = mock(AsignacionTurnoRepository.class);
+        MotorHorarios motorHorarios = new MotorHorarios();
+        ReflectionTestUtils.setField(motorHorarios, "horarioRepository", horarioRepository);
+        ReflectionTestUtils.setField(motorHorarios, "asignacionTurnoRepository", asignacionTurnoRepository);
+        ReflectionTestUtils.setField(incidenciaService, "motorHorarios", motorHorarios);
+    }
+
+    @Test
+    void debeDetectarAusenciasYMarcacionesFaltantesEnUnaSentencia() {
+        // Given
+        empleado(1L, true, null);                        // jornada completa
+        empleado(2L, true, null);                        // sin marcaciones
+        empleado(3L, true, null);                        // salió a almorzar y no volvió
+        empleado(4L, true, null);                        // sin salida
+        empleado(5L, false, null);                       // inactivo
+        empleado(6L, true, lunes.plusDays(1).atTime(9, 0)); // registrado después
+        jornada(1L, "ENTRADA", "SALIDA_ALMUERZO", "RETORNO_ALMUERZO", "SALIDA");
+        jornada(3L, "ENTRADA", "SALIDA_ALMUERZO");
+        jornada(4L, "ENTRADA");
+        // Marcación de otro día que no debe contar
+        marcar(2L, lunes.minusDays(1).atTime(8, 0), "ENTRADA");
+
+        // When
+        int generadas = incidenciaService.procesarDia(lunes);
+
+        // Then
+        assertEquals(4, generadas);
+        assertEquals(List.of("2:AUSENCIA", "3:SIN_RETORNO_ALMUERZO", "3:SIN_SALIDA", "4:SIN_SALIDA"), incidencias(lunes));
+    }
+
+    @Test
+    void debeReemplazarResultadosAlRecalcularElDia() {
+        // Given
+        empleado(1L, true, null);
+        incidenciaService.procesarDia(lunes);
+        assertEquals(List.of("1:AUSENCIA"), incidencias(lunes));
+
+        // When: llega tarde una marcación corregida
+        jornada(1L, "ENTRADA", "SALIDA");
+        int generadas = incidenciaService.procesarDia(lunes);
+
+        // Then
+        assertEquals(0, generadas);
+        assertTrue(incidencias(lunes).isEmpty());
+    }
+
+    @Test
+    void debeRecalcularRangoEnParaleloOmitiendoDiasNoLaborables() {
+        // Given
+        empleado(1L, true, null);
+        LocalDate domingo = lunes.minusDays(1);
+        LocalDate jueves = lunes.minusDays(4);
+
+        // When
+        Map<LocalDate, Integer> porDia = incidenciaService.recalcular(jueves, lunes);
+
+        // Then
+        assertEquals(5, porDia.size());
+        assertEquals(1, porDia.get(jueves));
+        assertEquals(0, porDia.get(domingo));
+        assertEquals(0, porDia.get(lunes.minusDays(2)));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM incidencias", Integer.class));
+    }
+
+    @Test
+    void debeUsarLaJornadaYLosDiasDelTurnoDeCadaEmpleado() {
+        // Given: turno noche de lunes a viernes (22:00 a 06:00) y turno de fin de semana
+        Turno noche = turno(10L, "Noche");
+        Turno finDeSemana = turno(20L, "Fin de semana");
+        Empleado vigilante = asignado(1L, noche);
+        Empleado guardia = asignado(2L, finDeSemana);
+        empleado(3L, true, null);
+        when(horarioRepository.findByActivoTrueOrderByHoraInicio()).thenReturn(List.of(
+                horario(noche, TipoMarcacion.ENTRADA, 21, 50, 22, 10, 0b0011111),
+                horario(noche, TipoMarcacion.SALIDA, 5, 50, 6, 10, 0b0111110),
+                horario(finDeSemana, TipoMarcacion.ENTRADA, 7, 50, 8, 10, 0b1100000),
+                horario(null, TipoMarcacion.ENTRADA, 7, 50, 8, 10, Horario.TODOS_LOS_DIAS)));
+        when(asignacionTurnoRepository.findVigentes()).thenReturn(List.of(
+                AsignacionTurno.deEmpleado(noche, vigilante), AsignacionTurno.deEmpleado(finDeSemana, guardia)));
+        // El vigilante entra el lunes por la noche y sale el martes temprano (semana anterior: jornada ya cerrada)
+        LocalDate dia = lunes.minusWeeks(1);
+        marcar(1L, dia.atTime(22, 0), "ENTRADA");
+        marcar(1L, dia.plusDays(1).atTime(6, 0), "SALIDA");
+
+        // When
+        int generadas = incidenciaService.procesarDia(dia);
+
+        // Then: la salida del martes cierra la jornada del lunes y el guardia no trabaja los lunes
+        assertEquals(1, generadas);
+        assertEquals(List.of("3:AUSENCIA"), incidencias(dia));
+    }
+
+    @Test
+    void debeRechazarDiasNoTerminados() {
+        assertThrows(IllegalArgumentException.class, () -> incidenciaService.procesarDia(LocalDate.now()));
+        assertThrows(IllegalArgumentException.class,
+                () -> incidenciaService.recalcular(lunes, LocalDate.now()));
+        assertThrows(IllegalArgumentException.class,
+                () -> incidenciaService.recalcular(lunes, lunes.minusDays(1)));
+    }
+
+    private void empleado(Long id, boolean activo, LocalDateTime fechaCreacion) {
+        jdbcTemplate.update("INSERT INTO empleados (id, activo, fecha_creacion) VALUES (?, ?, ?)", id, activo, fechaCreacion);
+    }
+
+    private Turno turno(Long id, String nombre) {
+        jdbcTemplate.update("INSERT INTO turnos (id, activo) VALUES (?, TRUE)", id);
+        Turno turno = new Turno(nombre);
+        turno.setId(id);
+        return turno;
+    }
+
+    private Empleado asignado(Long id, Turno turno) {
+        empleado(id, true, null);
+        jdbcTemplate.update("INSERT INTO asignaciones_turno (turno_id, empleado_id, activo) VALUES (?, ?, TRUE)",
+                turno.getId(), id);
+        Empleado empleado = new Empleado();
+        empleado.setId(id);
+        return empleado;
+    }
+
+    private static Horario horario(Turno turno, TipoMarcacion tipo, int horaInicio, int minutoInicio,
+                                   int horaFin, int minutoFin, int diasSemana) {
+        Horario horario = new Horario(tipo.getDescripcion(), LocalTime.of(horaInicio, minutoInicio),
+                LocalTime.of(horaFin, minutoFin), tipo);
+        horario.setTurno(turno);
+        horario.setDiasSemana(diasSemana);
+        return horario;
+    }
+
+    private void jornada(Long empleadoId, String... tipos) {
+        for (int i = 0; i < tipos.length; i++) {
+            marcar(empleadoId, lunes.atTime(8 + i * 3, 0), tipos[i]);
+        }
+    }
+
+    private void marcar(Long empleadoId, LocalDateTime fechaHora, String tipo) {
+        jdbcTemplate.update("INSERT INTO asistencias (empleado_id, fecha_hora, tipo) VALUES (?, ?, ?)",
+                empleadoId, fechaHora, tipo);
+    }
+
+    private List<String> incidencias(LocalDate fecha) {
+        return jdbcTemplate.queryForList("SELECT empleado_id || ':' || tipo FROM incidencias WHERE fecha = ? " +
+                "ORDER BY empleado_id, tipo", String.class, fecha);
+    }
+}
@@ -0,0 +1,210 @@
+package com.asistencia.service;
+
+import com.asistencia.config.CacheConfig;
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.dto.ExpresionIndiceDTO;
+import com.asistencia.dto.ExpresionIndiceDTO.Operacion;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class IndiceMarcacionesServiceTest {
+
+    // Los dos últimos lunes anteriores a hoy
+    private final LocalDate lunes2 = LocalDate.now().minusDays(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    private final LocalDate lunes1 = lunes2.minusWeeks(1);
+
+    @TempDir
+    Path directorio;
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private Consumer<MarcacionRegistradaEvent> replicadas;
+    private IndiceMarcacionesService indice;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:indice" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate.execute("CREATE TABLE empleados (id BIGINT PRIMARY KEY, activo BOOLEAN DEFAULT TRUE)");
+        jdbcTemplate.execute("CREATE TABLE asistencias (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "empleado_id BIGINT NOT NULL, fecha_hora TIMESTAMP NOT NULL, tipo VARCHAR(20) NOT NULL, " +
+                "estado VARCHAR(20), fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO empleados (id, activo) VALUES (1, true), (2, true), (3, true), (4, false)");
+
+        // Lunes 1: el 1 llega tarde y el 2 puntual; lunes 2: solo el 1, tarde. El 3 nunca marca
+        marcar(1L, lunes1, TipoMarcacion.ENTRADA, EstadoMarcacion.TARDANZA);
+        marcar(1L, lunes1, TipoMarcacion.SALIDA, EstadoMarcacion.PUNTUAL);
+        marcar(2L, lunes1, TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL);
+        marcar(1L, lunes2, TipoMarcacion.ENTRADA, EstadoMarcacion.TARDANZA);
+
+        indice = nuevoServicio();
+        indice.iniciar();
+    }
+
+    @Test
+    void debeResolverAusenciasYCombinacionesDeConjuntos() {
+        // Ausentes algún lunes: {3} el primero y {2, 3} el segundo
+        assertEquals(List.of(2L, 3L), empleados(ausentesLunes(Operacion.OR)));
+        // Ausentes todos los lunes
+        assertEquals(List.of(3L), empleados(ausentesLunes(Operacion.AND)));
+        // Ausentes algún lunes, menos los que marcaron el primero
+        assertEquals(List.of(3L), empleados(ExpresionIndiceDTO.combinar(Operacion.ANDNOT,
+                ausentesLunes(Operacion.OR), ExpresionIndiceDTO.hoja(lunes1, lunes1))));
+        // Tardanza de entrada algún día, o salida
+        ExpresionIndiceDTO tardanzaEntrada = ExpresionIndiceDTO.hoja(lunes1, lunes2);
+        tardanzaEntrada.setTipo(TipoMarcacion.ENTRADA);
+        tardanzaEntrada.setEstado(EstadoMarcacion.TARDANZA);
+        assertEquals(List.of(1L), empleados(tardanzaEntrada));
+    }
+
+    @Test
+    void debeContarLosDiasQueCumplenLaCondicion() {
+        ExpresionIndiceDTO tardanza = ExpresionIndiceDTO.hoja(lunes1, lunes2);
+        tardanza.setEstado(EstadoMarcacion.TARDANZA);
+
+        assertEquals(List.of(Map.of("empleadoId", 1L, "dias", 2)), indice.frecuencia(tardanza, 2));
+
+        ExpresionIndiceDTO ausencias = ausentesLunes(Operacion.OR);
+        List<Map<String, Object>> ausentes = indice.frecuencia(ausencias, 1);
+        assertEquals(Map.of("empleadoId", 3L, "dias", 2), ausentes.get(0));
+        assertEquals(Map.of("empleadoId", 2L, "dias", 1), ausentes.get(1));
+
+        assertThrows(IllegalArgumentException.class, () -> indice.frecuencia(
+                ExpresionIndiceDTO.combinar(Operacion.OR, tardanza, ausencias), 1));
+    }
+
+    @Test
+    void debeLeerElArchivoYCompletarConLasMarcacionesNuevas() {
+        // Given: índice guardado; luego se borra una marcación (no se refleja) y se registra otra
+        indice.guardar();
+        jdbcTemplate.update("DELETE FROM asistencias WHERE empleado_id = 2");
+        marcar(3L, lunes2, TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL);
+
+        // When
+        IndiceMarcacionesService reiniciado = nuevoServicio();
+        reiniciado.iniciar();
+
+        // Then: el 2 sigue presente el primer lunes (viene del archivo) y el 3 se agregó al completar
+        assertNotNull(reiniciado.getEstado().get("guardadoEn"));
+        assertEquals(List.of(1L, 2L), empleados(reiniciado, ExpresionIndiceDTO.hoja(lunes1, lunes1)));
+        assertEquals(List.of(1L, 3L), empleados(reiniciado, ExpresionIndiceDTO.hoja(lunes2, lunes2)));
+
+        // Al reconstruir desaparece la marcación borrada
+        reiniciado.reconstruir();
+        assertEquals(List.of(1L), empleados(reiniciado, ExpresionIndiceDTO.hoja(lunes1, lunes1)));
+    }
+
+    @Test
+    void debeAgregarMarcacionesDeOtrasReplicasConSuEstado() {
+        // When
+        replicadas.accept(new MarcacionRegistradaEvent(
+                new AsistenciaDTO(3L, lunes2.atTime(9, 0), TipoMarcacion.ENTRADA, EstadoMarcacion.TARDANZA), "TI"));
+        replicadas.accept(new MarcacionRegistradaEvent(
+                new AsistenciaDTO(2L, lunes2.atTime(18, 0), TipoMarcacion.SALIDA, null), "TI"));
+
+        // Then
+        ExpresionIndiceDTO tardanza = ExpresionIndiceDTO.hoja(lunes2, lunes2);
+        tardanza.setEstado(EstadoMarcacion.TARDANZA);
+        assertEquals(List.of(1L, 3L), empleados(tardanza));
+        assertEquals(List.of(1L, 2L, 3L), empleados(ExpresionIndiceDTO.hoja(lunes2, lunes2)));
+    }
+
+    @Test
+    void debeSeguirRespondiendoConElIndiceAnteriorSiLaReconstruccionFalla() {
+        // Given: la carga falla a mitad de la reconstrucción
+        jdbcTemplate.execute("ALTER TABLE asistencias RENAME TO asistencias_movida");
+
+        // When
+        assertThrows(RuntimeException.class, () -> indice.reconstruir());
+
+        // Then: las consultas no ven un índice vacío ni parcial
+        assertEquals(List.of(2L, 3L), empleados(ausentesLunes(Operacion.OR)));
+
+        // Y la siguiente reconstrucción lo reemplaza completo
+        jdbcTemplate.execute("ALTER TABLE asistencias_movida RENAME TO asistencias");
+        marcar(3L, lunes2, TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL);
+        indice.reconstruir();
+        ExpresionIndiceDTO ausentesLunes2 = ExpresionIndiceDTO.hoja(lunes2, lunes2);
+        ausentesLunes2.setAusente(true);
+        assertEquals(List.of(2L), empleados(ausentesLunes2));
+    }
+
+    @Test
+    void debeRechazarRangosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> indice.consultar(ExpresionIndiceDTO.hoja(lunes2, lunes1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> indice.consultar(ExpresionIndiceDTO.hoja(lunes2.minusYears(2), lunes2)));
+        ExpresionIndiceDTO sinNegacion = ExpresionIndiceDTO.hoja(lunes1, lunes2);
+        sinNegacion.setOperacion(Operacion.ANDNOT);
+        assertThrows(IllegalArgumentException.class, () -> indice.consultar(sinNegacion));
+    }
+
+    private ExpresionIndiceDTO ausentesLunes(Operacion entreDias) {
+        ExpresionIndiceDTO ausentes = ExpresionIndiceDTO.hoja(lunes1, lunes2);
+        ausentes.setDiasSemana(List.of(DayOfWeek.MONDAY));
+        ausentes.setAusente(true);
+        ausentes.setOperacion(entreDias);
+        return ausentes;
+    }
+
+    private List<Long> empleados(ExpresionIndiceDTO expresion) {
+        return empleados(indice, expresion);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> empleados(IndiceMarcacionesService servicio, ExpresionIndiceDTO expresion) {
+        return (List<Long>) servicio.consultar(expresion).get("empleados");
+    }
+
+    private IndiceMarcacionesService nuevoServicio() {
+        InvalidacionCacheBus bus = new InvalidacionCacheBus() {
+            @Override
+            public void publicar(EventoInvalidacion evento) {
+            }
+
+            @Override
+            public void setReceptor(Consumer<EventoInvalidacion> receptor) {
+            }
+        };
+        IndiceMarcacionesService servicio = new IndiceMarcacionesService();
+        ReflectionTestUtils.setField(servicio, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(servicio, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(servicio, "invalidacionCacheService",
+                new InvalidacionCacheService(new CacheConfig().cacheManager(), bus));
+        ReflectionTestUtils.setField(servicio, "archivo", directorio.resolve("indice.bin").toString());
+        ReplicacionMarcacionesService replicacion = mock(ReplicacionMarcacionesService.class);
+        doAnswer(invocation -> replicadas = invocation.getArgument(0)).when(replicacion).suscribir(any());
+        ReflectionTestUtils.setField(servicio, "replicacionMarcaciones", replicacion);
+        ReflectionTestUtils.invokeMethod(servicio, "suscribir");
+        return servicio;
+    }
+
+    private void marcar(Long empleadoId, LocalDate dia, TipoMarcacion tipo, EstadoMarcacion estado) {
+        LocalDateTime fechaHora = dia.atTime(tipo == TipoMarcacion.ENTRADA ? 8 : 17, 0);
+        jdbcTemplate.update("INSERT INTO asistencias (empleado_id, fecha_hora, tipo, estado) VALUES (?, ?, ?, ?)",
+                empleadoId, fechaHora, tipo.name(), estado.name());
+    }
+}
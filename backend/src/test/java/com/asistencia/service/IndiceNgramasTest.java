@@ -0,0 +1,57 @@
+package com.asistencia.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceNgramasTest {
+
+    private final IndiceNgramas indice = new IndiceNgramas(Map.of(
+            1L, "Juan Carlos Pérez López",
+            2L, "María Elena García Rodríguez",
+            3L, "Mariana Anaya Núñez",
+            4L, "José Pérez",
+            5L, "Ana Torres"));
+
+    @Test
+    void debeBuscarSinDistinguirTildesNiMayusculas() {
+        assertEquals(List.of(4L, 1L), indice.buscar("PEREZ", 10));
+        assertEquals(List.of(3L), indice.buscar("nunez", 10));
+        assertEquals(List.of(3L), indice.buscar("Núñez", 10));
+        assertEquals(List.of(1L), indice.buscar("carlos  pérez", 10));
+        assertTrue(indice.buscar("gonzales", 10).isEmpty());
+    }
+
+    @Test
+    void debeOrdenarPorInicioDePalabraYPosicion() {
+        // "ana" inicia el nombre de Ana y una palabra de Mariana Anaya; en María Elena no aparece
+        assertEquals(List.of(5L, 3L), indice.buscar("ana", 10));
+        // "ia": ninguna palabra empieza así; misma posición en ambos, primero el texto más corto
+        assertEquals(List.of(3L, 2L), indice.buscar("ia", 10));
+    }
+
+    @Test
+    void debeLimitarLosResultados() {
+        assertEquals(List.of(3L), indice.buscar("mar", 1));
+        assertTrue(indice.buscar("   ", 10).isEmpty());
+        assertTrue(indice.buscar(null, 10).isEmpty());
+    }
+
+    @Test
+    void debeEncontrarTodasLasCoincidenciasEnIndicesGrandes() {
+        // Given
+        Map<Long, String> textos = new HashMap<>();
+        for (long id = 1; id <= 5000; id++) {
+            textos.put(id, "Empleado " + id + (id % 1000 == 0 ? " Quispe" : " Mamani"));
+        }
+        IndiceNgramas grande = new IndiceNgramas(textos);
+
+        // When & Then
+        assertEquals(List.of(1000L, 2000L, 3000L, 4000L, 5000L), grande.buscar("quis", 100));
+        assertEquals(List.of(4999L), grande.buscar("empleado 4999", 100));
+    }
+}
@@ -0,0 +1,85 @@
+package com.asistencia.service;
+
+import com.asistencia.SistemaControlAsistenciaApplication;
+import com.asistencia.dto.EmpleadoDTO;
+import com.asistencia.dto.EmpleadoResumenDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Levanta dos contextos de la aplicación contra la misma base de datos PostgreSQL
+ * y comprueba que un cambio en un nodo invalida la caché del otro vía LISTEN/NOTIFY.
+ * Necesita un PostgreSQL en localhost: solo se ejecuta con POSTGRES_IT=true.
+ */
+@EnabledIfEnvironmentVariable(named = "POSTGRES_IT", matches = "true")
+class InvalidacionCacheMultiNodoIntegrationTest {
+
+    private ConfigurableApplicationContext nodoA;
+    private ConfigurableApplicationContext nodoB;
+
+    @BeforeEach
+    void setUp() {
+        nodoA = iniciarNodo();
+        nodoB = iniciarNodo();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (nodoA != null) {
+            nodoA.close();
+        }
+        if (nodoB != null) {
+            nodoB.close();
+        }
+    }
+
+    @Test
+    void debePropagarCambioDeEmpleadoAlOtroNodo() throws Exception {
+        // Given: ambos nodos tienen el empleado en caché
+        EmpleadoService empleadosA = nodoA.getBean(EmpleadoService.class);
+        EmpleadoService empleadosB = nodoB.getBean(EmpleadoService.class);
+
+        EmpleadoDTO nuevo = new EmpleadoDTO();
+        nuevo.setDni(String.valueOf(90_000_000 + (int) (System.nanoTime() % 9_000_000)));
+        nuevo.setNombres("Nodo");
+        nuevo.setApellidos("Compartido");
+        nuevo.setCargo("Analista");
+        nuevo.setArea("Sistemas");
+        EmpleadoDTO creado = empleadosA.create(nuevo);
+
+        try {
+            assertEquals("Analista", empleadosA.findResumenByDni(creado.getDni()).orElseThrow().cargo());
+            assertEquals("Analista", empleadosB.findResumenByDni(creado.getDni()).orElseThrow().cargo());
+
+            // When: el nodo A modifica el empleado
+            creado.setCargo("Gerente");
+            empleadosA.update(creado.getId(), creado);
+
+            // Then: el nodo B deja de ver el valor anterior
+            long limite = System.currentTimeMillis() + 5000;
+            Optional<EmpleadoResumenDTO> enB = empleadosB.findResumenByDni(creado.getDni());
+            while (!"Gerente".equals(enB.map(EmpleadoResumenDTO::cargo).orElse(null))
+                    && System.currentTimeMillis() < limite) {
+                Thread.sleep(50);
+                enB = empleadosB.findResumenByDni(creado.getDni());
+            }
+            assertEquals("Gerente", enB.orElseThrow().cargo());
+        } finally {
+            empleadosA.deletePhysically(creado.getId());
+        }
+    }
+
+    private ConfigurableApplicationContext iniciarNodo() {
+        return new SpringApplicationBuilder(SistemaControlAsistenciaApplication.class)
+                .properties("asistencia.cache.bus=postgres", "server.port=0", "spring.sql.init.mode=never")
+                .run();
+    }
+}
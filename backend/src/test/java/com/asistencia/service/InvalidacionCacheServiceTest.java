@@ -0,0 +1,112 @@
+package com.asistencia.service;
+
+import com.asistencia.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvalidacionCacheServiceTest {
+
+    private BusEnMemoria red;
+    private CacheManager cachesNodoA;
+    private CacheManager cachesNodoB;
+    private InvalidacionCacheService nodoA;
+    private InvalidacionCacheService nodoB;
+
+    @BeforeEach
+    void setUp() {
+        red = new BusEnMemoria();
+        cachesNodoA = new CacheConfig().cacheManager();
+        cachesNodoB = new CacheConfig().cacheManager();
+        nodoA = new InvalidacionCacheService(cachesNodoA, red.conectar());
+        nodoB = new InvalidacionCacheService(cachesNodoB, red.conectar());
+    }
+
+    @Test
+    void debeInvalidarEmpleadoEnTodosLosNodos() {
+        // Given
+        cachesNodoA.getCache(CacheConfig.EMPLEADOS_POR_DNI).put("12345678", "empleado");
+        cachesNodoB.getCache(CacheConfig.EMPLEADOS_POR_DNI).put("12345678", "empleado");
+        cachesNodoB.getCache(CacheConfig.EMPLEADOS_POR_DNI).put("87654321", "otro");
+
+        // When
+        nodoA.invalidar(EventoInvalidacion.Entidad.EMPLEADO, "12345678");
+
+        // Then
+        assertNull(cachesNodoA.getCache(CacheConfig.EMPLEADOS_POR_DNI).get("12345678"));
+        assertNull(cachesNodoB.getCache(CacheConfig.EMPLEADOS_POR_DNI).get("12345678"));
+        assertNotNull(cachesNodoB.getCache(CacheConfig.EMPLEADOS_POR_DNI).get("87654321"));
+    }
+
+    @Test
+    void debeNotificarCambiosDeHorariosALosSuscriptores() {
+        // Given
+        List<EventoInvalidacion> recibidos = new ArrayList<>();
+        nodoB.suscribir(recibidos::add);
+
+        // When
+        nodoA.invalidar(EventoInvalidacion.Entidad.HORARIO);
+
+        // Then
+        assertEquals(1, recibidos.size());
+        assertEquals(nodoA.getNodoId(), recibidos.get(0).nodoOrigen());
+    }
+
+    @Test
+    void debeEsperarAlCommitParaInvalidar() {
+        // Given
+        cachesNodoB.getCache(CacheConfig.USUARIOS_POR_USERNAME).put("admin", "usuario");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            nodoA.invalidar(EventoInvalidacion.Entidad.USUARIO, "admin");
+
+            // Then
+            assertNotNull(cachesNodoB.getCache(CacheConfig.USUARIOS_POR_USERNAME).get("admin"));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertNull(cachesNodoB.getCache(CacheConfig.USUARIOS_POR_USERNAME).get("admin"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void debeSerializarEventosConClavesConDosPuntos() {
+        EventoInvalidacion evento = new EventoInvalidacion(EventoInvalidacion.Entidad.USUARIO, "a:b", "nodo-1");
+
+        EventoInvalidacion leido = EventoInvalidacion.fromPayload(evento.toPayload());
+
+        assertEquals(evento, leido);
+        assertNull(EventoInvalidacion.fromPayload("HORARIO:nodo-1:").clave());
+    }
+
+    /**
+     * Simula el canal compartido: entrega cada evento a todos los nodos, incluido el emisor
+     */
+    private static class BusEnMemoria {
+
+        private final List<Consumer<EventoInvalidacion>> receptores = new ArrayList<>();
+
+        InvalidacionCacheBus conectar() {
+            return new InvalidacionCacheBus() {
+                @Override
+                public void publicar(EventoInvalidacion evento) {
+                    receptores.forEach(receptor -> receptor.accept(evento));
+                }
+
+                @Override
+                public void setReceptor(Consumer<EventoInvalidacion> receptor) {
+                    receptores.add(receptor);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.asistencia.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LectorAttlogTest {
+
+    private record Leido(String pin, LocalDateTime fechaHora, int estado, int verificacion) {
+    }
+
+    @Test
+    void debeLeerLineasConTabulacionesYFinesDeLineaMixtos() {
+        // Given
+        String cuerpo = "12345678\t2024-06-03 08:01:30\t0\t1\t0\t0\t0\n" +
+                "87654321\t2024-06-03 17:45:00\t1\t15\r\n" +
+                "\n" +
+                "11223344\t2024-06-04 07:59:59";
+
+        // When
+        List<Leido> leidos = new ArrayList<>();
+        int malformadas = LectorAttlog.leer(cuerpo.getBytes(StandardCharsets.US_ASCII),
+                (pin, fechaHora, estado, verificacion) -> leidos.add(new Leido(pin, fechaHora, estado, verificacion)));
+
+        // Then
+        assertEquals(0, malformadas);
+        assertEquals(List.of(
+                new Leido("12345678", LocalDateTime.of(2024, 6, 3, 8, 1, 30), 0, 1),
+                new Leido("87654321", LocalDateTime.of(2024, 6, 3, 17, 45, 0), 1, 15),
+                new Leido("11223344", LocalDateTime.of(2024, 6, 4, 7, 59, 59), 0, 0)), leidos);
+    }
+
+    @Test
+    void debeContarLasLineasMalFormadasYSeguirConLasDemas() {
+        String cuerpo = "sin tabulacion\n" +
+                "12345678\t2024-13-03 08:01:30\t0\n" +     // mes inválido
+                "12345678\t2024-06-03T08:01:30\t0\n" +     // separador de fecha
+                "12345678\t2024-06-03 08:01\t0\n" +        // fecha incompleta
+                "12345678\t2024-06-03 08:01:30\tX\n" +     // estado no numérico
+                "\t2024-06-03 08:01:30\t0\n" +             // sin PIN
+                "12345678\t2024-06-03 08:01:30\t\t\n" +    // campos opcionales vacíos
+                "87654321\t2024-06-03 08:02:00\t0\n";
+
+        List<String> pines = new ArrayList<>();
+        int malformadas = LectorAttlog.leer(cuerpo.getBytes(StandardCharsets.US_ASCII),
+                (pin, fechaHora, estado, verificacion) -> pines.add(pin));
+
+        assertEquals(6, malformadas);
+        assertEquals(List.of("12345678", "87654321"), pines);
+    }
+
+    @Test
+    void debeLeerSoloElRangoIndicado() {
+        byte[] datos = "XX12345678\t2024-06-03 08:01:30\t0\nYY".getBytes(StandardCharsets.US_ASCII);
+
+        List<String> pines = new ArrayList<>();
+        int malformadas = LectorAttlog.leer(datos, 2, datos.length - 2,
+                (pin, fechaHora, estado, verificacion) -> pines.add(pin));
+
+        assertEquals(0, malformadas);
+        assertEquals(List.of("12345678"), pines);
+    }
+}
@@ -0,0 +1,110 @@
+package com.asistencia.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapaBitsComprimidoTest {
+
+    @Test
+    void debeOperarConjuntosEntreArreglosYMapasDeBits() {
+        // Given: valores dispersos (contenedores de arreglo) y densos (más de 4096 en un grupo: mapa de bits)
+        Random random = new Random(42);
+        BitSet esperadoA = new BitSet();
+        BitSet esperadoB = new BitSet();
+        MapaBitsComprimido a = new MapaBitsComprimido();
+        MapaBitsComprimido b = new MapaBitsComprimido();
+        for (int i = 0; i < 30_000; i++) {
+            int denso = random.nextInt(20_000);
+            int disperso = random.nextInt(1 << 22);
+            a.agregar(denso);
+            esperadoA.set(denso);
+            b.agregar(disperso);
+            esperadoB.set(disperso);
+            if (i % 3 == 0) {
+                a.agregar(disperso);
+                esperadoA.set(disperso);
+            }
+        }
+
+        // Then
+        assertEquals(esperadoA.cardinality(), a.cardinalidad());
+        assertIguales(and(esperadoA, esperadoB), a.and(b));
+        assertIguales(or(esperadoA, esperadoB), a.or(b));
+        assertIguales(andNot(esperadoA, esperadoB), a.andNot(b));
+        assertIguales(andNot(esperadoB, esperadoA), b.andNot(a));
+        assertTrue(a.andNot(a).estaVacio());
+        assertIguales(esperadoA, a.or(MapaBitsComprimido.VACIO));
+    }
+
+    @Test
+    void debeIndicarSiElValorEraNuevoYContarPorValor() {
+        MapaBitsComprimido mapa = MapaBitsComprimido.de(3, 70_000);
+        assertTrue(mapa.agregar(5));
+        assertFalse(mapa.agregar(5));
+        assertTrue(mapa.contiene(70_000));
+        assertFalse(mapa.contiene(70_001));
+        assertArrayEquals(new int[]{3, 5, 70_000}, mapa.valores());
+
+        int[] contadores = new int[70_001];
+        mapa.sumarEn(contadores);
+        MapaBitsComprimido.de(5).sumarEn(contadores);
+        assertEquals(2, contadores[5]);
+        assertEquals(1, contadores[70_000]);
+    }
+
+    @Test
+    void debeLeerLoQueEscribe() throws IOException {
+        // Given: un grupo denso y uno disperso
+        MapaBitsComprimido mapa = new MapaBitsComprimido();
+        for (int i = 0; i < 10_000; i += 2) {
+            mapa.agregar(i);
+        }
+        mapa.agregar(1 << 20);
+
+        // When
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        mapa.escribir(new DataOutputStream(bytes));
+        MapaBitsComprimido.VACIO.escribir(new DataOutputStream(bytes));
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        MapaBitsComprimido leido = MapaBitsComprimido.leer(entrada);
+
+        // Then
+        assertArrayEquals(mapa.valores(), leido.valores());
+        assertTrue(MapaBitsComprimido.leer(entrada).estaVacio());
+        // El leído admite nuevos valores
+        assertTrue(leido.agregar(1));
+        assertEquals(mapa.cardinalidad() + 1, leido.cardinalidad());
+    }
+
+    private static void assertIguales(BitSet esperado, MapaBitsComprimido mapa) {
+        assertArrayEquals(esperado.stream().toArray(), mapa.valores());
+        assertEquals(esperado.cardinality(), mapa.cardinalidad());
+    }
+
+    private static BitSet and(BitSet a, BitSet b) {
+        BitSet resultado = (BitSet) a.clone();
+        resultado.and(b);
+        return resultado;
+    }
+
+    private static BitSet or(BitSet a, BitSet b) {
+        BitSet resultado = (BitSet) a.clone();
+        resultado.or(b);
+        return resultado;
+    }
+
+    private static BitSet andNot(BitSet a, BitSet b) {
+        BitSet resultado = (BitSet) a.clone();
+        resultado.andNot(b);
+        return resultado;
+    }
+}
@@ -0,0 +1,142 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.entity.TipoMarcacion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarcacionFeedServiceTest {
+
+    private MarcacionFeedService feedService;
+
+    @BeforeEach
+    void setUp() {
+        feedService = new MarcacionFeedService();
+        ReflectionTestUtils.setField(feedService, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(feedService, "tamanoBuffer", 4);
+        ReflectionTestUtils.setField(feedService, "heartbeatSegundos", 60L);
+        ReflectionTestUtils.invokeMethod(feedService, "iniciar");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(feedService, "detener");
+    }
+
+    @Test
+    void debeDifundirMarcacionATodosLosSuscriptores() throws Exception {
+        // Given
+        CapturaEmitter a = new CapturaEmitter();
+        CapturaEmitter b = new CapturaEmitter();
+        registrar(a);
+        registrar(b);
+
+        // When
+        feedService.onMarcacionRegistrada(evento("12345678"));
+
+        // Then: comentario de conexión + la marcación
+        assertTrue(a.esperar(2));
+        assertTrue(b.esperar(2));
+        assertTrue(a.contenido().contains("event:marcacion"));
+        assertTrue(a.contenido().contains("\"empleadoDni\":\"12345678\""));
+        assertTrue(b.contenido().contains("\"empleadoArea\":\"TI\""));
+    }
+
+    @Test
+    void debeDesconectarSuscriptorLentoSinAfectarAlResto() throws Exception {
+        // Given: un suscriptor bloqueado en el envío y otro normal
+        CountDownLatch liberar = new CountDownLatch(1);
+        CapturaEmitter lento = new CapturaEmitter(liberar);
+        CapturaEmitter rapido = new CapturaEmitter();
+        registrar(lento);
+        registrar(rapido);
+
+        // When: se generan más eventos de los que caben en el buffer
+        for (int i = 0; i < 10; i++) {
+            feedService.onMarcacionRegistrada(evento(String.valueOf(10_000_000 + i)));
+            assertTrue(rapido.esperar(i + 2));
+        }
+
+        // Then
+        assertEquals(1, feedService.getSuscriptores());
+        assertTrue(lento.completado);
+        liberar.countDown();
+    }
+
+    private void registrar(CapturaEmitter emitter) {
+        feedService.suscribir(emitter);
+    }
+
+    private MarcacionRegistradaEvent evento(String dni) {
+        AsistenciaDTO dto = new AsistenciaDTO();
+        dto.setEmpleadoDni(dni);
+        dto.setTipo(TipoMarcacion.ENTRADA);
+        dto.setFechaHora(LocalDateTime.now());
+        return new MarcacionRegistradaEvent(dto, "TI");
+    }
+
+    private static class CapturaEmitter extends SseEmitter {
+        private final List<String> enviados = new CopyOnWriteArrayList<>();
+        private final CountDownLatch bloqueo;
+        private volatile boolean completado;
+
+        CapturaEmitter() {
+            this(null);
+        }
+
+        CapturaEmitter(CountDownLatch bloqueo) {
+            this.bloqueo = bloqueo;
+        }
+
+        boolean esperar(int eventos) throws InterruptedException {
+            long limite = System.currentTimeMillis() + 5000;
+            while (enviados.size() < eventos && System.currentTimeMillis() < limite) {
+                Thread.sleep(10);
+            }
+            return enviados.size() >= eventos;
+        }
+
+        String contenido() {
+            return String.join("\n", enviados);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (bloqueo != null) {
+                try {
+                    bloqueo.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder texto = new StringBuilder();
+            builder.build().forEach(parte -> texto.append(parte.getData()));
+            enviados.add(texto.toString());
+        }
+
+        @Override
+        public void send(Object object, MediaType mediaType) throws IOException {
+            enviados.add(String.valueOf(object));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completado = true;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.Asistencia;
+import com.asistencia.entity.Empleado;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.TipoMarcacion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarcacionWriteBehindServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private MarcacionWriteBehindService service;
+    private Path journal;
+    private Empleado empleado;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:writebehind" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate.execute("CREATE SEQUENCE asistencias_id_seq START WITH 1 INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE TABLE asistencias (id BIGINT DEFAULT nextval('asistencias_id_seq') PRIMARY KEY, " +
+                "empleado_id BIGINT NOT NULL, fecha_hora TIMESTAMP NOT NULL, tipo VARCHAR(20) NOT NULL, " +
+                "estado VARCHAR(20), observaciones VARCHAR(1000), fecha_creacion TIMESTAMP)");
+
+        journal = tempDir.resolve("marcaciones.journal");
+        empleado = new Empleado();
+        empleado.setId(7L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null && service.isRunning()) {
+            service.stop();
+        }
+    }
+
+    @Test
+    void debeInsertarMarcacionesEnLoteYTruncarJournal() throws Exception {
+        service = crearServicio(3, 10_000);
+        service.start();
+
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(service.encolar(asistencia(ahora.plusSeconds(i), TipoMarcacion.ENTRADA)));
+        }
+
+        esperarFilas(3);
+        // Las filas se ven al confirmar, un instante antes de liberar el lote en vuelo
+        esperar(() -> service.getPendientes() == 0);
+        assertEquals(0, service.getPendientes());
+        esperar(() -> tamanioJournal() == 0);
+    }
+
+    @Test
+    void debeDetectarMarcacionPendienteReciente() {
+        service = crearServicio(100, 60_000);
+        service.start();
+
+        LocalDateTime ahora = LocalDateTime.now();
+        service.encolar(asistencia(ahora, TipoMarcacion.ENTRADA));
+
+        assertTrue(service.existePendienteReciente(7L, TipoMarcacion.ENTRADA, ahora.minusMinutes(5), ahora.plusMinutes(5)));
+        assertFalse(service.existePendienteReciente(7L, TipoMarcacion.SALIDA, ahora.minusMinutes(5), ahora.plusMinutes(5)));
+        assertFalse(service.existePendienteReciente(8L, TipoMarcacion.ENTRADA, ahora.minusMinutes(5), ahora.plusMinutes(5)));
+    }
+
+    @Test
+    void debeRechazarCuandoLaColaEstaLlena() {
+        // Sin tabla el lote falla y el hilo de escritura lo retiene sin seguir vaciando la cola
+        jdbcTemplate.execute("DROP TABLE asistencias");
+        service = new MarcacionWriteBehindService(jdbcTemplate, transactionManager,
+                1, 1, 60_000, journal.toString(), false);
+        service.start();
+
+        LocalDateTime ahora = LocalDateTime.now();
+        // El hilo de escritura puede retener la primera; la cola se llena tras como máximo dos
+        boolean aceptada = true;
+        for (int i = 0; i < 3 && aceptada; i++) {
+            aceptada = service.encolar(asistencia(ahora.plusSeconds(i), TipoMarcacion.ENTRADA));
+        }
+        assertFalse(aceptada);
+    }
+
+    @Test
+    void debeRecuperarJournalSinDuplicarFilasYaInsertadas() throws Exception {
+        LocalDateTime fecha = LocalDateTime.of(2025, 3, 10, 8, 1, 0);
+        jdbcTemplate.update("INSERT INTO asistencias (empleado_id, fecha_hora, tipo, estado) VALUES (?, ?, ?, ?)",
+                7L, fecha, "ENTRADA", "PUNTUAL");
+
+        String contenido = "7\t" + fecha + "\tENTRADA\tPUNTUAL\t\n" +
+                "7\t" + fecha.plusHours(4) + "\tSALIDA_ALMUERZO\tPUNTUAL\t\n" +
+                "7\t2025-03-10T18:0";
+        Files.writeString(journal, contenido, StandardCharsets.UTF_8);
+
+        service = crearServicio(100, 60_000);
+        service.start();
+
+        assertEquals(2, contarFilas());
+        assertEquals(0, tamanioJournal());
+    }
+
+    @Test
+    void debeLiberarLosSegmentosConfirmadosAunqueLaColaNoSeVacie() throws Exception {
+        // Given: un segmento por marcación y lotes de dos; la quinta espera el intervalo
+        service = crearServicio(2, 60_000);
+        ReflectionTestUtils.setField(service, "tamanoSegmento", 1L);
+        service.start();
+
+        // When
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            service.encolar(asistencia(ahora.plusSeconds(i), TipoMarcacion.ENTRADA));
+        }
+        esperarFilas(4);
+
+        // Then: además del activo vacío solo queda el segmento de la marcación sin confirmar
+        esperar(() -> archivosJournal() == 2);
+        assertEquals(2, archivosJournal());
+        assertEquals(1, service.getPendientes());
+        assertTrue(Files.size(tempDir.resolve("marcaciones.journal.5")) > 0);
+        assertEquals(0, tamanioJournal());
+    }
+
+    @Test
+    void debeRecuperarTodosLosSegmentosDelJournalEnOrden() throws Exception {
+        // Given: dos segmentos cerrados y el activo tras una caída
+        LocalDateTime fecha = LocalDateTime.of(2025, 3, 10, 8, 1, 0);
+        Files.writeString(tempDir.resolve("marcaciones.journal.10"),
+                "7\t" + fecha.plusHours(4) + "\tSALIDA_ALMUERZO\tPUNTUAL\t\n", StandardCharsets.UTF_8);
+        Files.writeString(tempDir.resolve("marcaciones.journal.9"),
+                "7\t" + fecha + "\tENTRADA\tPUNTUAL\t\n", StandardCharsets.UTF_8);
+        Files.writeString(journal, "7\t" + fecha.plusHours(9) + "\tSALIDA\tPUNTUAL\t\n", StandardCharsets.UTF_8);
+
+        // When
+        service = crearServicio(100, 60_000);
+        service.start();
+
+        // Then
+        assertEquals(3, contarFilas());
+        assertEquals(1, archivosJournal());
+        assertEquals(0, tamanioJournal());
+        assertEquals(List.of("ENTRADA", "SALIDA_ALMUERZO", "SALIDA"),
+                jdbcTemplate.queryForList("SELECT tipo FROM asistencias ORDER BY id", String.class));
+    }
+
+    @Test
+    void debeRegistrarEnElOutboxElIdDeCadaMarcacion() throws Exception {
+        // Given
+        jdbcTemplate.execute("CREATE TABLE outbox_eventos (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "empleado_id BIGINT NOT NULL, tipo VARCHAR(30) NOT NULL, payload TEXT NOT NULL, " +
+                "fecha_creacion TIMESTAMP NOT NULL, intentos INTEGER NOT NULL DEFAULT 0, " +
+                "proximo_intento TIMESTAMP NOT NULL, fecha_envio TIMESTAMP, ultimo_error VARCHAR(500))");
+        jdbcTemplate.execute("CREATE ALIAS pg_advisory_xact_lock FOR 'java.lang.Math.max(int, int)'");
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        service = crearServicio(2, 60_000);
+        ReflectionTestUtils.setField(service, "outboxService", new OutboxService(jdbcTemplate, objectMapper));
+        service.start();
+
+        // When
+        LocalDateTime ahora = LocalDateTime.now();
+        service.encolar(asistencia(ahora, TipoMarcacion.ENTRADA));
+        service.encolar(asistencia(ahora.plusSeconds(1), TipoMarcacion.SALIDA));
+        esperarFilas(2);
+        esperar(() -> service.getPendientes() == 0);
+
+        // Then: los ids del payload son los de las filas, en el mismo orden
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM asistencias ORDER BY id", Long.class);
+        List<Long> enOutbox = new ArrayList<>();
+        for (String payload : jdbcTemplate.queryForList("SELECT payload FROM outbox_eventos ORDER BY id", String.class)) {
+            enOutbox.add(objectMapper.readTree(payload).get("id").asLong());
+        }
+        assertEquals(ids, enOutbox);
+    }
+
+    @Test
+    void debeVaciarLaColaAlDetener() {
+        service = crearServicio(100, 60_000);
+        service.start();
+
+        service.encolar(asistencia(LocalDateTime.now(), TipoMarcacion.SALIDA));
+        service.stop();
+
+        assertEquals(1, contarFilas());
+    }
+
+    private MarcacionWriteBehindService crearServicio(int batchSize, long flushIntervalMs) {
+        return new MarcacionWriteBehindService(jdbcTemplate, transactionManager,
+                1000, batchSize, flushIntervalMs, journal.toString(), false);
+    }
+
+    private Asistencia asistencia(LocalDateTime fechaHora, TipoMarcacion tipo) {
+        Asistencia asistencia = new Asistencia(empleado, fechaHora, tipo, EstadoMarcacion.PUNTUAL);
+        asistencia.setObservaciones("prueba");
+        return asistencia;
+    }
+
+    private int contarFilas() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM asistencias", Integer.class);
+    }
+
+    private long tamanioJournal() {
+        try {
+            return Files.size(journal);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private long archivosJournal() {
+        try (Stream<Path> archivos = Files.list(tempDir)) {
+            return archivos.filter(archivo -> archivo.getFileName().toString().startsWith("marcaciones.journal")).count();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private void esperarFilas(int esperadas) throws InterruptedException {
+        esperar(() -> contarFilas() == esperadas);
+        assertEquals(esperadas, contarFilas());
+    }
+
+    private void esperar(java.util.function.BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5000;
+        while (!condicion.getAsBoolean() && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.asistencia.service;
+
+import com.asistencia.config.CacheConfig;
+import com.asistencia.entity.AsignacionTurno;
+import com.asistencia.entity.Empleado;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.Horario;
+import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.entity.Turno;
+import com.asistencia.repository.AsignacionTurnoRepository;
+import com.asistencia.repository.HorarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MotorHorariosTest {
+
+    // 2024-06-03 es lunes
+    private static final LocalDateTime LUNES = LocalDateTime.of(2024, 6, 3, 0, 0);
+
+    @Mock
+    private HorarioRepository horarioRepository;
+
+    @Mock
+    private AsignacionTurnoRepository asignacionTurnoRepository;
+
+    @InjectMocks
+    private MotorHorarios motorHorarios;
+
+    private InvalidacionCacheService invalidacionCacheService;
+
+    private Turno noche;
+
+    @BeforeEach
+    void setUp() {
+        InvalidacionCacheBus bus = new InvalidacionCacheBus() {
+            @Override
+            public void publicar(EventoInvalidacion evento) {
+            }
+
+            @Override
+            public void setReceptor(Consumer<EventoInvalidacion> receptor) {
+            }
+        };
+        invalidacionCacheService = new InvalidacionCacheService(new CacheConfig().cacheManager(), bus);
+        ReflectionTestUtils.setField(motorHorarios, "invalidacionCacheService", invalidacionCacheService);
+        ReflectionTestUtils.invokeMethod(motorHorarios, "suscribir");
+
+        noche = new Turno("Noche");
+        noche.setId(10L);
+        // Noche: entrada de lunes a viernes, salida nocturna que empieza esos días y termina al día siguiente
+        Horario entradaNoche = horario(21, 45, 22, 15, TipoMarcacion.ENTRADA, noche, 0b0011111);
+        Horario salidaNoche = horario(23, 50, 0, 20, TipoMarcacion.SALIDA, noche, 0b0011111);
+        Horario entradaGeneral = horario(7, 50, 8, 20, TipoMarcacion.ENTRADA, null, Horario.TODOS_LOS_DIAS);
+        Horario salidaGeneral = horario(17, 30, 18, 0, TipoMarcacion.SALIDA, null, Horario.TODOS_LOS_DIAS);
+        when(horarioRepository.findByActivoTrueOrderByHoraInicio())
+                .thenReturn(List.of(entradaGeneral, salidaGeneral, entradaNoche, salidaNoche));
+
+        Empleado vigilante = new Empleado("12345678", "Juan", "Pérez", "Vigilante", "Administración");
+        vigilante.setId(1L);
+        when(asignacionTurnoRepository.findVigentes()).thenReturn(List.of(
+                AsignacionTurno.deEmpleado(noche, vigilante),
+                AsignacionTurno.deArea(noche, "Seguridad")));
+    }
+
+    @Test
+    void debeResolverElTurnoDelEmpleadoLuegoElDelAreaYLuegoElGeneral() {
+        LocalDateTime lunesNoche = LUNES.withHour(22).withMinute(5);
+
+        // Asignado por empleado aunque su área no tenga turno
+        assertEquals(new MotorHorarios.Clasificacion(TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL, 0),
+                motorHorarios.clasificar(1L, "Administración", lunesNoche));
+        // Asignado por área
+        assertEquals(TipoMarcacion.ENTRADA, motorHorarios.clasificar(2L, "Seguridad", lunesNoche).tipo());
+        // Sin asignación: horario general, donde las 22:05 no están cerca de ninguna ventana
+        assertEquals(MotorHorarios.Clasificacion.FUERA_DE_HORARIO, motorHorarios.clasificar(3L, "Sistemas", lunesNoche));
+        assertEquals(TipoMarcacion.ENTRADA, motorHorarios.clasificar(3L, "Sistemas", LUNES.withHour(8)).tipo());
+    }
+
+    @Test
+    void debeClasificarVentanasNocturnasYDiasDeLaSemana() {
+        // La salida del lunes por la noche sigue abierta pasada la medianoche
+        assertEquals(new MotorHorarios.Clasificacion(TipoMarcacion.SALIDA, EstadoMarcacion.PUNTUAL, 0),
+                motorHorarios.clasificar(1L, null, LUNES.plusDays(1).withMinute(5)));
+        // Veinte minutos después del cierre: tardanza respecto de esa misma ventana
+        assertEquals(new MotorHorarios.Clasificacion(TipoMarcacion.SALIDA, EstadoMarcacion.TARDANZA, 20),
+                motorHorarios.clasificar(1L, null, LUNES.plusDays(1).withMinute(40)));
+        // El sábado no hay entrada nocturna; la salida que empezó el viernes sí cubre el sábado temprano
+        assertEquals(MotorHorarios.Clasificacion.FUERA_DE_HORARIO,
+                motorHorarios.clasificar(1L, null, LUNES.plusDays(5).withHour(22)));
+        assertEquals(TipoMarcacion.SALIDA, motorHorarios.clasificar(1L, null, LUNES.plusDays(5).withMinute(10)).tipo());
+        // El lunes temprano no hay salida: la ventana del domingo no existe
+        assertEquals(MotorHorarios.Clasificacion.FUERA_DE_HORARIO,
+                motorHorarios.clasificar(1L, null, LUNES.withMinute(10)));
+    }
+
+    @Test
+    void debeConsultarLosHorariosUnaVezHastaQueSeInvaliden() {
+        // Given
+        motorHorarios.clasificar(1L, null, LUNES.withHour(22));
+        motorHorarios.clasificar(2L, "Seguridad", LUNES.withHour(23));
+        verify(horarioRepository, times(1)).findByActivoTrueOrderByHoraInicio();
+
+        // When: se quita el turno noche
+        when(asignacionTurnoRepository.findVigentes()).thenReturn(List.of());
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.HORARIO);
+
+        // Then: el empleado vuelve al horario general
+        assertEquals(MotorHorarios.Clasificacion.FUERA_DE_HORARIO,
+                motorHorarios.clasificar(1L, null, LUNES.withHour(22).withMinute(5)));
+        verify(horarioRepository, times(2)).findByActivoTrueOrderByHoraInicio();
+    }
+
+    private static Horario horario(int horaInicio, int minutoInicio, int horaFin, int minutoFin,
+                                   TipoMarcacion tipo, Turno turno, int diasSemana) {
+        Horario horario = new Horario(tipo.getDescripcion(), LocalTime.of(horaInicio, minutoInicio),
+                LocalTime.of(horaFin, minutoFin), tipo);
+        horario.setTurno(turno);
+        horario.setDiasSemana(diasSemana);
+        return horario;
+    }
+}
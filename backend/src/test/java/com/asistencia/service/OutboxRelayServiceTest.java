@@ -0,0 +1,188 @@
+package com.asistencia.service;
+
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.entity.EstadoMarcacion;
+import com.asistencia.entity.EventoOutbox;
+import com.asistencia.entity.TipoEventoOutbox;
+import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.exception.EventoRechazadoException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.ConnectException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxRelayServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private OutboxService outboxService;
+    private OutboxRelayService relay;
+    private SimpleMeterRegistry meterRegistry;
+
+    // Lotes recibidos por el destino (solo los aceptados), empleados cuyos eventos rechaza y si está caído
+    private final List<List<Long>> lotesRecibidos = new ArrayList<>();
+    private final Set<Long> empleadosRechazados = new HashSet<>();
+    private boolean destinoCaido;
+    private int envios;
+    private DataSourceTransactionManager transactionManager;
+    private OutboxSink sink;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:outbox" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate.execute("CREATE TABLE outbox_eventos (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "empleado_id BIGINT NOT NULL, tipo VARCHAR(30) NOT NULL, payload TEXT NOT NULL, " +
+                "fecha_creacion TIMESTAMP NOT NULL, intentos INTEGER NOT NULL DEFAULT 0, " +
+                "proximo_intento TIMESTAMP NOT NULL, fecha_envio TIMESTAMP, ultimo_error VARCHAR(500))");
+        // H2 no tiene bloqueos consultivos; basta una función con la misma firma
+        jdbcTemplate.execute("CREATE ALIAS pg_advisory_xact_lock FOR 'java.lang.Math.max(int, int)'");
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        outboxService = new OutboxService(jdbcTemplate, objectMapper);
+
+        sink = lote -> {
+            envios++;
+            if (destinoCaido) {
+                throw new ConnectException("Conexión rechazada");
+            }
+            for (EventoOutbox evento : lote) {
+                // El sobre debe poder construirse con el payload guardado
+                OutboxSink.sobre(objectMapper, evento);
+                if (empleadosRechazados.contains(evento.getEmpleadoId())) {
+                    throw new EventoRechazadoException("Destino rechazó al empleado " + evento.getEmpleadoId());
+                }
+            }
+            lotesRecibidos.add(lote.stream().map(EventoOutbox::getId).toList());
+        };
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelayService(jdbcTemplate, transactionManager, sink, meterRegistry, 10, 1000, 60_000, 7, 50);
+    }
+
+    @Test
+    void debeEntregarEnLotesRespetandoElOrdenDeCadaEmpleado() {
+        // Given: dos eventos del empleado 1 con uno del empleado 2 entre ellos
+        long primero = registrar(1L, TipoEventoOutbox.ASISTENCIA_REGISTRADA);
+        long otroEmpleado = registrar(2L, TipoEventoOutbox.ASISTENCIA_REGISTRADA);
+        long segundo = registrar(1L, TipoEventoOutbox.ASISTENCIA_ACTUALIZADA);
+
+        // When
+        int entregados = relay.drenar();
+
+        // Then: el segundo evento del empleado 1 sale en un lote posterior al primero
+        assertEquals(3, entregados);
+        assertEquals(List.of(List.of(primero, otroEmpleado), List.of(segundo)), lotesRecibidos);
+        assertEquals(0, contar("fecha_envio IS NULL"));
+        assertEquals(3.0, meterRegistry.get("asistencia.outbox.enviados").counter().count());
+        assertEquals(0.0, meterRegistry.get("asistencia.outbox.pendientes").gauge().value());
+        assertEquals(3, meterRegistry.get("asistencia.outbox.latencia").timer().count());
+    }
+
+    @Test
+    void debeReintentarConBackoffSinAdelantarLosEventosSiguientesDelEmpleado() {
+        // Given: el destino rechaza los eventos del empleado 1
+        long primero = registrar(1L, TipoEventoOutbox.ASISTENCIA_REGISTRADA);
+        long otroEmpleado = registrar(2L, TipoEventoOutbox.ASISTENCIA_REGISTRADA);
+        long segundo = registrar(1L, TipoEventoOutbox.ASISTENCIA_ELIMINADA);
+        empleadosRechazados.add(1L);
+
+        // When
+        int entregados = relay.drenar();
+
+        // Then: el lote se reintentó uno por uno; el evento rechazado espera y retiene al siguiente del empleado
+        assertEquals(1, entregados);
+        assertEquals(List.of(List.of(otroEmpleado)), lotesRecibidos);
+        assertEquals(1, contar("id = " + primero + " AND intentos = 1 AND ultimo_error IS NOT NULL " +
+                "AND fecha_envio IS NULL AND proximo_intento > CURRENT_TIMESTAMP"));
+        assertEquals(1, contar("id = " + segundo + " AND intentos = 0 AND fecha_envio IS NULL"));
+        assertEquals(1.0, meterRegistry.get("asistencia.outbox.fallidos").counter().count());
+        assertEquals(2.0, meterRegistry.get("asistencia.outbox.pendientes").gauge().value());
+
+        // When: el destino se recupera y vence la espera
+        empleadosRechazados.clear();
+        jdbcTemplate.update("UPDATE outbox_eventos SET proximo_intento = ? WHERE id = ?",
+                LocalDateTime.now().minusSeconds(1), primero);
+
+        // Then
+        assertEquals(2, relay.drenar());
+        assertEquals(List.of(List.of(otroEmpleado), List.of(primero), List.of(segundo)), lotesRecibidos);
+    }
+
+    @Test
+    void debePausarYReintentarElLoteEnteroSiElDestinoNoEstaDisponible() {
+        // Given
+        long primero = registrar(1L, TipoEventoOutbox.ASISTENCIA_REGISTRADA);
+        long otroEmpleado = registrar(2L, TipoEventoOutbox.ASISTENCIA_REGISTRADA);
+        destinoCaido = true;
+
+        // When
+        int entregados = relay.drenar();
+
+        // Then: un solo intento, sin envíos uno por uno ni cambios en los eventos
+        assertEquals(0, entregados);
+        assertEquals(1, envios);
+        assertEquals(2, contar("intentos = 0 AND ultimo_error IS NULL AND fecha_envio IS NULL"));
+
+        // When: el destino vuelve, pero la pausa no venció
+        destinoCaido = false;
+        assertEquals(0, relay.drenar());
+        assertEquals(1, envios);
+
+        // Then: al vencer la pausa sale el lote completo
+        ReflectionTestUtils.setField(relay, "pausaHastaMs", 0L);
+        assertEquals(2, relay.drenar());
+        assertEquals(List.of(List.of(primero, otroEmpleado)), lotesRecibidos);
+    }
+
+    @Test
+    void debeLimitarLosLotesPorCiclo() {
+        // Given: tres eventos del mismo empleado, que salen en lotes sucesivos
+        for (int i = 0; i < 3; i++) {
+            registrar(1L, TipoEventoOutbox.ASISTENCIA_REGISTRADA);
+        }
+        OutboxRelayService limitado = new OutboxRelayService(jdbcTemplate, transactionManager, sink,
+                new SimpleMeterRegistry(), 10, 1000, 60_000, 7, 2);
+
+        // When & Then: el resto queda para el ciclo siguiente
+        assertEquals(2, limitado.drenar());
+        assertEquals(1, limitado.drenar());
+    }
+
+    @Test
+    void debeDuplicarLaEsperaHastaElMaximo() {
+        assertEquals(1000, relay.espera(0));
+        assertEquals(8000, relay.espera(3));
+        assertEquals(60_000, relay.espera(6));
+        assertEquals(60_000, relay.espera(100));
+    }
+
+    private long registrar(Long empleadoId, TipoEventoOutbox tipo) {
+        AsistenciaDTO asistencia = new AsistenciaDTO(empleadoId, LocalDateTime.now(), TipoMarcacion.ENTRADA,
+                EstadoMarcacion.PUNTUAL);
+        transactionTemplate.executeWithoutResult(status -> outboxService.registrar(tipo, asistencia));
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM outbox_eventos", Long.class);
+    }
+
+    private int contar(String condicion) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_eventos WHERE " + condicion, Integer.class);
+    }
+}
@@ -0,0 +1,172 @@
+package com.asistencia.service;
+
+import com.asistencia.config.CacheConfig;
+import com.asistencia.dto.AsistenciaDTO;
+import com.asistencia.dto.PresenciaDTO;
+import com.asistencia.entity.Empleado;
+import com.asistencia.entity.TipoMarcacion;
+import com.asistencia.repository.AsistenciaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresenciaServiceTest {
+
+    @Mock
+    private AsistenciaRepository asistenciaRepository;
+
+    @Mock
+    private EmpleadoService empleadoService;
+
+    @Mock
+    private ReplicacionMarcacionesService replicacionMarcaciones;
+
+    @InjectMocks
+    private PresenciaService presenciaService;
+
+    private Consumer<MarcacionRegistradaEvent> replicadas;
+    private InvalidacionCacheService invalidacionCacheService;
+    private final LocalDate hoy = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        InvalidacionCacheBus bus = new InvalidacionCacheBus() {
+            @Override
+            public void publicar(EventoInvalidacion evento) {
+            }
+
+            @Override
+            public void setReceptor(Consumer<EventoInvalidacion> receptor) {
+            }
+        };
+        invalidacionCacheService = new InvalidacionCacheService(new CacheConfig().cacheManager(), bus);
+        ReflectionTestUtils.setField(presenciaService, "invalidacionCacheService", invalidacionCacheService);
+        ReflectionTestUtils.invokeMethod(presenciaService, "suscribir");
+        ArgumentCaptor<Consumer<MarcacionRegistradaEvent>> suscriptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(replicacionMarcaciones).suscribir(suscriptor.capture());
+        replicadas = suscriptor.getValue();
+    }
+
+    @Test
+    void debeReconstruirDesdeLasMarcacionesDelDia() {
+        // Given
+        when(asistenciaRepository.findMarcacionesDesde(hoy.atStartOfDay())).thenReturn(List.of(
+                fila(1L, "TI", TipoMarcacion.ENTRADA, 8, 0),
+                fila(2L, "Ventas", TipoMarcacion.ENTRADA, 8, 5),
+                fila(3L, "Ventas", TipoMarcacion.ENTRADA, 8, 10),
+                fila(3L, "Ventas", TipoMarcacion.SALIDA, 17, 0)));
+
+        // When
+        presenciaService.reconstruir();
+
+        // Then
+        Map<String, Object> ocupacion = presenciaService.getOcupacion();
+        assertEquals(2, ocupacion.get("presentes"));
+        assertEquals(3, ocupacion.get("conMarcacion"));
+        assertEquals(Map.of("TI", 1, "Ventas", 1), ocupacion.get("porArea"));
+        assertEquals(TipoMarcacion.SALIDA, presenciaService.findByEmpleadoId(3L).orElseThrow().getUltimaMarcacion());
+    }
+
+    @Test
+    void debeActualizarContadoresConCadaMarcacion() {
+        // Given
+        presenciaService.onMarcacionRegistrada(evento(1L, "TI", TipoMarcacion.ENTRADA, 8, 0));
+        presenciaService.onMarcacionRegistrada(evento(2L, null, TipoMarcacion.FUERA_HORARIO, 7, 0));
+        assertEquals(2, presenciaService.getOcupacion().get("presentes"));
+
+        // When: sale a almorzar, se repite el evento y otro llega tarde y fuera de orden
+        presenciaService.onMarcacionRegistrada(evento(1L, "TI", TipoMarcacion.SALIDA_ALMUERZO, 13, 0));
+        presenciaService.onMarcacionRegistrada(evento(1L, "TI", TipoMarcacion.SALIDA_ALMUERZO, 13, 0));
+        presenciaService.onMarcacionRegistrada(evento(1L, "TI", TipoMarcacion.ENTRADA, 8, 0));
+
+        // Then
+        Map<String, Object> ocupacion = presenciaService.getOcupacion();
+        assertEquals(1, ocupacion.get("presentes"));
+        assertEquals(Map.of(PresenciaService.SIN_AREA, 1), ocupacion.get("porArea"));
+        assertFalse(presenciaService.findByEmpleadoId(1L).orElseThrow().isPresente());
+
+        // When: la siguiente marcación fuera de horario se toma como salida
+        presenciaService.onMarcacionRegistrada(evento(2L, null, TipoMarcacion.FUERA_HORARIO, 7, 30));
+
+        // Then
+        assertEquals(0, presenciaService.getOcupacion().get("presentes"));
+        assertTrue(presenciaService.findPresentes(null).isEmpty());
+    }
+
+    @Test
+    void debeAplicarMarcacionesDeOtraInstancia() {
+        // When
+        replicadas.accept(evento(5L, "Almacén", TipoMarcacion.ENTRADA, 9, 0));
+
+        // Then
+        List<PresenciaDTO> presentes = presenciaService.findPresentes("almacén");
+        assertEquals(1, presentes.size());
+        assertEquals("00000005", presentes.get(0).getEmpleadoDni());
+        verify(empleadoService, never()).findEntityById(any());
+    }
+
+    @Test
+    void debeIgnorarSuPropiaMarcacionReplicada() {
+        // Given
+        presenciaService.onMarcacionRegistrada(evento(1L, "TI", TipoMarcacion.ENTRADA, 8, 0));
+
+        // When: la réplica también entrega las marcaciones propias
+        replicadas.accept(evento(1L, "TI", TipoMarcacion.ENTRADA, 8, 0));
+
+        // Then
+        assertEquals(1, presenciaService.getOcupacion().get("presentes"));
+    }
+
+    @Test
+    void debeMoverOcupacionCuandoCambiaElAreaDelEmpleado() {
+        // Given
+        presenciaService.onMarcacionRegistrada(evento(7L, "TI", TipoMarcacion.ENTRADA, 8, 0));
+        when(empleadoService.findEntityById(7L)).thenReturn(Optional.of(empleado(7L, "Finanzas")));
+
+        // When
+        invalidacionCacheService.invalidar(EventoInvalidacion.Entidad.EMPLEADO, "00000007");
+
+        // Then
+        assertEquals(Map.of("Finanzas", 1), presenciaService.getOcupacion().get("porArea"));
+    }
+
+    private Object[] fila(Long id, String area, TipoMarcacion tipo, int hora, int minuto) {
+        return new Object[]{id, String.format("%08d", id), "Nombre", "Apellido", area, tipo, hoy.atTime(hora, minuto)};
+    }
+
+    private MarcacionRegistradaEvent evento(Long id, String area, TipoMarcacion tipo, int hora, int minuto) {
+        AsistenciaDTO dto = new AsistenciaDTO();
+        dto.setEmpleadoId(id);
+        dto.setEmpleadoDni(String.format("%08d", id));
+        dto.setEmpleadoNombre("Nombre Apellido");
+        dto.setTipo(tipo);
+        dto.setFechaHora(hoy.atTime(hora, minuto));
+        return new MarcacionRegistradaEvent(dto, area);
+    }
+
+    private Empleado empleado(Long id, String area) {
+        Empleado empleado = new Empleado();
+        empleado.setId(id);
+        empleado.setDni(String.format("%08d", id));
+        empleado.setNombres("Nombre");
+        empleado.setApellidos("Apellido");
+        empleado.setArea(area);
+        return empleado;
+    }
+}
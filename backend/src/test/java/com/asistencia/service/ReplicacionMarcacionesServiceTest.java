@@ -0,0 +1,79 @@
+package com.asistencia.service;
+
+import com.asistencia.entity.TipoMarcacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicacionMarcacionesServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ReplicacionMarcacionesService service;
+    private List<MarcacionRegistradaEvent> recibidas;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:replicacion" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE empleados (id BIGINT PRIMARY KEY, dni VARCHAR(8), nombres VARCHAR(100), " +
+                "apellidos VARCHAR(100), area VARCHAR(100), cargo VARCHAR(100))");
+        jdbcTemplate.execute("CREATE TABLE asistencias (id BIGINT PRIMARY KEY, empleado_id BIGINT NOT NULL, " +
+                "fecha_hora TIMESTAMP NOT NULL, tipo VARCHAR(20) NOT NULL, estado VARCHAR(20), fecha_creacion TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO empleados VALUES (1, '12345678', 'Juan', 'Pérez', 'Sistemas', 'Analista')");
+
+        service = new ReplicacionMarcacionesService(jdbcTemplate);
+        recibidas = new ArrayList<>();
+        service.suscribir(recibidas::add);
+    }
+
+    @Test
+    void debeEntregarCadaMarcacionUnaSolaVezConLosDatosDelEmpleado() {
+        // Given
+        LocalDateTime ahora = LocalDateTime.now();
+        insertar(1, ahora, "ENTRADA", "PUNTUAL");
+        insertar(2, ahora.plusSeconds(1), "SALIDA_ALMUERZO", null);
+
+        // When
+        assertEquals(2, service.sondear());
+        assertEquals(0, service.sondear());
+
+        // Then
+        assertEquals(2, recibidas.size());
+        MarcacionRegistradaEvent primera = recibidas.get(0);
+        assertEquals(1L, primera.asistencia().getId());
+        assertEquals("12345678", primera.asistencia().getEmpleadoDni());
+        assertEquals("Juan Pérez", primera.asistencia().getEmpleadoNombre());
+        assertEquals("Sistemas", primera.empleadoArea());
+        assertEquals(TipoMarcacion.SALIDA_ALMUERZO, recibidas.get(1).asistencia().getTipo());
+        assertNull(recibidas.get(1).asistencia().getEstado());
+    }
+
+    @Test
+    void debeRecuperarLasQueSeConfirmaronTardeDentroDelMargen() {
+        // Given
+        LocalDateTime ahora = LocalDateTime.now();
+        insertar(1, ahora, "ENTRADA", "PUNTUAL");
+        service.sondear();
+
+        // When: otra réplica confirma después una marcación creada antes
+        insertar(2, ahora.minusSeconds(20), "ENTRADA", "TARDANZA");
+
+        // Then
+        assertEquals(1, service.sondear());
+        assertEquals(2L, recibidas.get(1).asistencia().getId());
+    }
+
+    private void insertar(long id, LocalDateTime creacion, String tipo, String estado) {
+        jdbcTemplate.update("INSERT INTO asistencias VALUES (?, 1, ?, ?, ?, ?)",
+                id, Timestamp.valueOf(creacion), tipo, estado, Timestamp.valueOf(creacion));
+    }
+}
@@ -0,0 +1,100 @@
+package com.asistencia.service;
+
+import com.asistencia.exception.ReporteSaturadoException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReporteEjecutorServiceTest {
+
+    private ReporteEjecutorService reporteEjecutor;
+    private final CountDownLatch liberar = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        reporteEjecutor = new ReporteEjecutorService();
+        ReflectionTestUtils.setField(reporteEjecutor, "hilos", 1);
+        ReflectionTestUtils.setField(reporteEjecutor, "cola", 1);
+        ReflectionTestUtils.invokeMethod(reporteEjecutor, "iniciar");
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        ReflectionTestUtils.invokeMethod(reporteEjecutor, "detener");
+    }
+
+    @Test
+    void debeRechazarReportesCuandoElCompartimentoEstaLleno() throws Exception {
+        // Given: un reporte en curso y otro en espera
+        CountDownLatch iniciado = new CountDownLatch(1);
+        DeferredResult<String> enCurso = reporteEjecutor.ejecutar(() -> {
+            iniciado.countDown();
+            liberar.await();
+            return "primero";
+        });
+        assertTrue(iniciado.await(5, TimeUnit.SECONDS));
+        DeferredResult<String> enEspera = reporteEjecutor.ejecutar(() -> "segundo");
+
+        // When & Then
+        assertThrows(ReporteSaturadoException.class, () -> reporteEjecutor.ejecutar(() -> "tercero"));
+        assertEquals(1, reporteEjecutor.getRechazados());
+
+        liberar.countDown();
+        assertEquals("primero", esperar(enCurso));
+        assertEquals("segundo", esperar(enEspera));
+    }
+
+    @Test
+    void debeEntregarLaExcepcionDelReporte() throws Exception {
+        // When
+        DeferredResult<String> resultado = reporteEjecutor.ejecutar(() -> {
+            throw new IOException("Error al generar");
+        });
+
+        // Then
+        assertInstanceOf(IOException.class, esperar(resultado));
+    }
+
+    @Test
+    void debeInterrumpirElReporteSiElClienteSeDesconecta() throws Exception {
+        // Given
+        CountDownLatch iniciado = new CountDownLatch(1);
+        CountDownLatch interrumpido = new CountDownLatch(1);
+        DeferredResult<String> resultado = reporteEjecutor.ejecutar(() -> {
+            iniciado.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                interrumpido.countDown();
+            }
+            return "sin destino";
+        });
+        assertTrue(iniciado.await(5, TimeUnit.SECONDS));
+
+        // When: el contenedor notifica el error de la conexión
+        DeferredResultProcessingInterceptor interceptor =
+                ReflectionTestUtils.invokeMethod(resultado, "getInterceptor");
+        interceptor.handleError(null, resultado, new IOException("Connection reset by peer"));
+
+        // Then
+        assertTrue(interrumpido.await(5, TimeUnit.SECONDS));
+    }
+
+    private Object esperar(DeferredResult<?> resultado) throws InterruptedException {
+        for (int i = 0; i < 500 && !resultado.hasResult(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(resultado.hasResult());
+        return resultado.getResult();
+    }
+}
@@ -7,23 +7,33 @@ import com.asistencia.entity.Empleado;
 import com.asistencia.entity.EstadoMarcacion;
 import com.asistencia.entity.TipoMarcacion;
 import com.asistencia.repository.AsistenciaRepository;
+import com.asistencia.repository.EmpleadoRepository;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,6 +45,18 @@ class ReporteServiceTest {
     @Mock
     private AsistenciaRepository asistenciaRepository;
     
+    @Mock
+    private EmpleadoRepository empleadoRepository;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @Mock
+    private ArchivoAsistenciaService archivoService;
+    
+    @Spy
+    private ReporteEjecutorService reporteEjecutor = new ReporteEjecutorService();
+    
     @InjectMocks
     private ReporteService reporteService;
     
@@ -71,6 +93,13 @@ class ReporteServiceTest {
         request = new ReporteRequestDTO();
         request.setFechaInicio(LocalDate.of(2025, 1, 15));
         request.setFechaFin(LocalDate.of(2025, 1, 15));
+        
+        ReflectionTestUtils.invokeMethod(reporteEjecutor, "iniciar");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(reporteEjecutor, "detener");
     }
     
     @Test
@@ -98,6 +127,42 @@ class ReporteServiceTest {
         verify(asistenciaRepository).findAll(any(Specification.class), eq(pageable));
     }
     
+    @Test
+    void debeCombinarMarcacionesArchivadasConLasDeLaTabla() {
+        // Given: el rango abarca un mes archivado
+        request.setFechaInicio(LocalDate.of(2022, 12, 1));
+        request.setFechaFin(LocalDate.of(2025, 1, 15));
+        ArchivoColumnar.Fila archivada = new ArchivoColumnar.Fila(90L, 1L, LocalDateTime.of(2022, 12, 5, 8, 5),
+                TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL, null, LocalDateTime.of(2022, 12, 5, 8, 5));
+        
+        // Las marcaciones posteriores al mes archivado se paginan en SQL; no queda ninguna anterior sin borrar
+        when(asistenciaRepository.findAll(any(Specification.class), any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(1);
+            List<Asistencia> pagina = pageable.getPageNumber() == 0 ? List.of(asistencia2, asistencia1) : List.of();
+            return new PageImpl<>(pagina, pageable, 2);
+        });
+        when(asistenciaRepository.findAll(any(Specification.class))).thenReturn(List.of());
+        when(archivoService.finArchivo(request.getFechaInicio(), request.getFechaFin()))
+                .thenReturn(LocalDateTime.of(2023, 1, 1, 0, 0));
+        when(archivoService.incluyeArchivo(request.getFechaInicio(), request.getFechaFin())).thenReturn(true);
+        when(archivoService.buscar(request.getFechaInicio(), request.getFechaFin(), null, null)).thenReturn(List.of(archivada));
+        when(empleadoRepository.findAllById(any())).thenReturn(List.of(empleado));
+        
+        // When
+        Page<Asistencia> pagina = reporteService.obtenerReporteAsistencias(request, PageRequest.of(0, 2));
+        Page<Asistencia> segunda = reporteService.obtenerReporteAsistencias(request, PageRequest.of(1, 2));
+        Page<Asistencia> mixta = reporteService.obtenerReporteAsistencias(request, PageRequest.of(0, 3));
+        
+        // Then: orden por fecha descendente y la archivada después de las de la tabla
+        assertEquals(3, pagina.getTotalElements());
+        assertEquals(List.of(2L, 1L), pagina.getContent().stream().map(Asistencia::getId).toList());
+        assertEquals(3, segunda.getTotalElements());
+        Asistencia ultima = segunda.getContent().get(0);
+        assertEquals(90L, ultima.getId());
+        assertEquals("Juan Carlos", ultima.getEmpleado().getNombres());
+        assertEquals(List.of(2L, 1L, 90L), mixta.getContent().stream().map(Asistencia::getId).toList());
+    }
+    
     @Test
     void debeObtenerReporteAsistenciasSinPaginacion() {
         // Given
@@ -227,4 +292,74 @@ class ReporteServiceTest {
         
         verify(asistenciaRepository, times(2)).findAll(any(Specification.class));
     }
-}
\ No newline at end of file
+    
+    @Test
+    void debeGenerarUnaHojaPorAreaConMarcaciones() throws IOException {
+        // Given: un área real llamada "Sin área" además de los empleados sin área
+        when(asistenciaRepository.findAreasConMarcaciones(any(), any(), any(), any()))
+                .thenReturn(Arrays.asList("TI", null, "Recursos Humanos", "Sin área"));
+        when(asistenciaRepository.findAll(any(Specification.class))).thenReturn(Arrays.asList(asistencia1, asistencia2));
+        
+        // When
+        byte[] excelData = reporteService.generarReporteExcelPorArea(request);
+        
+        // Then
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(excelData))) {
+            assertEquals(4, workbook.getNumberOfSheets());
+            assertEquals("Recursos Humanos", workbook.getSheetName(0));
+            assertEquals("Sin área", workbook.getSheetName(1));
+            assertEquals("Sin área (2)", workbook.getSheetName(2));
+            assertEquals("TI", workbook.getSheetName(3));
+            assertEquals(2, workbook.getSheetAt(3).getLastRowNum());
+        }
+        verify(asistenciaRepository, times(4)).findAll(any(Specification.class));
+        verify(asistenciaRepository).findAreasConMarcaciones(null, null,
+                LocalDateTime.of(2025, 1, 15, 0, 0), LocalDateTime.of(2025, 1, 15, 23, 59, 59));
+    }
+    
+    @Test
+    void debeIncluirLasAreasDeLasMarcacionesArchivadas() throws IOException {
+        // Given: el rango abarca un mes archivado con marcaciones de un área sin marcaciones en la tabla
+        Empleado ventas = new Empleado();
+        ventas.setId(2L);
+        ventas.setArea("Ventas");
+        when(archivoService.incluyeArchivo(any(), any())).thenReturn(true);
+        when(archivoService.buscar(any(), any(), any(), any())).thenReturn(List.of(new ArchivoColumnar.Fila(
+                7L, 2L, LocalDateTime.of(2025, 1, 15, 8, 0), TipoMarcacion.ENTRADA, EstadoMarcacion.PUNTUAL, null, null)));
+        when(empleadoRepository.findAllById(any())).thenReturn(List.of(ventas));
+        when(asistenciaRepository.findAreasConMarcaciones(any(), any(), any(), any())).thenReturn(List.of("TI"));
+        when(asistenciaRepository.findAll(any(Specification.class))).thenReturn(List.of());
+        
+        // When
+        byte[] excelData = reporteService.generarReporteExcelPorArea(request);
+        
+        // Then
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(excelData))) {
+            assertEquals(2, workbook.getNumberOfSheets());
+            assertEquals("TI", workbook.getSheetName(0));
+            assertEquals("Ventas", workbook.getSheetName(1));
+            assertEquals(1, workbook.getSheetAt(1).getLastRowNum());
+        }
+    }
+    
+    @Test
+    void debeGenerarZipConUnPDFPorArea() throws IOException {
+        // Given
+        when(asistenciaRepository.findAreasConMarcaciones(any(), any(), any(), any()))
+                .thenReturn(Arrays.asList("TI", "Ventas/Norte"));
+        when(asistenciaRepository.findAll(any(Specification.class))).thenReturn(Arrays.asList(asistencia1));
+        
+        // When
+        byte[] zipData = reporteService.generarReportePDFPorArea(request);
+        
+        // Then
+        List<String> entradas = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(zipData))) {
+            for (ZipEntry entrada = zip.getNextEntry(); entrada != null; entrada = zip.getNextEntry()) {
+                entradas.add(entrada.getName());
+                assertTrue(zip.readAllBytes().length > 0);
+            }
+        }
+        assertEquals(List.of("TI.pdf", "Ventas_Norte.pdf"), entradas);
+    }
+}
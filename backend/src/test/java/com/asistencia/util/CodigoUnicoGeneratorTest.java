@@ -0,0 +1,98 @@
+package com.asistencia.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodigoUnicoGeneratorTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:codigos" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // Simula una base con EMP001..EMP003 ya registrados
+        jdbcTemplate.execute("CREATE SEQUENCE empleados_codigo_seq START WITH 4 INCREMENT BY 100");
+    }
+
+    @Test
+    void debeFormatearConCerosALaIzquierda() {
+        assertEquals("EMP001", CodigoUnicoGenerator.formatear(1));
+        assertEquals("EMP042", CodigoUnicoGenerator.formatear(42));
+        assertEquals("EMP999", CodigoUnicoGenerator.formatear(999));
+        assertEquals("EMP1000", CodigoUnicoGenerator.formatear(1000));
+        assertEquals("EMP123456", CodigoUnicoGenerator.formatear(123456));
+    }
+
+    @Test
+    void debeContinuarDesdeLaSecuenciaTrasReinicio() {
+        CodigoUnicoGenerator generador = crearGenerador();
+
+        assertEquals("EMP004", generador.generarCodigoEmpleado());
+        assertEquals("EMP005", generador.generarCodigoEmpleado());
+
+        // Un reinicio descarta el resto del bloque pero nunca repite códigos
+        CodigoUnicoGenerator reiniciado = crearGenerador();
+        assertEquals("EMP104", reiniciado.generarCodigoEmpleado());
+    }
+
+    @Test
+    void debeConsultarLaSecuenciaUnaVezPorBloque() {
+        CodigoUnicoGenerator generador = crearGenerador();
+
+        List<String> codigos = generador.reservarBloque(250);
+
+        assertEquals(250, new HashSet<>(codigos).size());
+        assertEquals("EMP004", codigos.get(0));
+        assertEquals("EMP253", codigos.get(249));
+        assertEquals(304L, jdbcTemplate.queryForObject("SELECT nextval('empleados_codigo_seq')", Long.class));
+    }
+
+    @Test
+    void noDebeRepetirCodigosEntreInstanciasConcurrentes() throws Exception {
+        List<CodigoUnicoGenerator> instancias = List.of(crearGenerador(), crearGenerador());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<List<String>>> tareas = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                CodigoUnicoGenerator generador = instancias.get(i % 2);
+                tareas.add(() -> {
+                    List<String> codigos = new ArrayList<>();
+                    for (int j = 0; j < 500; j++) {
+                        codigos.add(generador.generarCodigoEmpleado());
+                    }
+                    return codigos;
+                });
+            }
+
+            Set<String> todos = new HashSet<>();
+            for (Future<List<String>> resultado : executor.invokeAll(tareas)) {
+                todos.addAll(resultado.get());
+            }
+            assertEquals(4000, todos.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private CodigoUnicoGenerator crearGenerador() {
+        CodigoUnicoGenerator generador = new CodigoUnicoGenerator();
+        ReflectionTestUtils.setField(generador, "jdbcTemplate", jdbcTemplate);
+        return generador;
+    }
+}
@@ -0,0 +1,70 @@
+package com.asistencia.util;
+
+import com.asistencia.dto.EmpleadoDTO;
+import com.asistencia.dto.RespuestaDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmpleadoJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private EmpleadoJsonWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new EmpleadoJsonWriter();
+        ReflectionTestUtils.setField(writer, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void debeEscribirLoMismoQueElObjectMapper() throws IOException {
+        // Given: uno completo y otro recién creado, sin id, código ni fechas
+        EmpleadoDTO completo = new EmpleadoDTO("12345678", "Juan Carlos", "Pérez \"López\"", "Analista", "TI");
+        completo.setId(7L);
+        completo.setCodigoUnico("EMP007");
+        completo.setFechaCreacion(LocalDateTime.of(2025, 1, 15, 8, 0));
+        completo.setFechaActualizacion(LocalDateTime.of(2025, 2, 1, 17, 30, 5, 120_000_000));
+        EmpleadoDTO nuevo = new EmpleadoDTO("87654321", "Ana", "Ríos", "Jefa", "Ventas");
+        nuevo.setActivo(null);
+        List<EmpleadoDTO> empleados = List.of(completo, nuevo);
+
+        // When
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        writer.lista(empleados).writeTo(salida);
+
+        // Then
+        JsonNode esperado = objectMapper.readTree(objectMapper.writeValueAsBytes(RespuestaDTO.lista(empleados)));
+        assertEquals(esperado, objectMapper.readTree(salida.toByteArray()));
+    }
+
+    @Test
+    void debeFormatearFechasComoIsoLocalDateTime() {
+        char[] buffer = new char[29];
+        for (LocalDateTime fecha : List.of(LocalDateTime.of(2025, 1, 5, 8, 0), LocalDateTime.of(999, 12, 31, 23, 59, 59),
+                LocalDateTime.of(2025, 1, 5, 8, 0, 1, 100), LocalDateTime.of(2025, 1, 5, 8, 0, 1, 123_456_789))) {
+            int largo = EmpleadoJsonWriter.formatear(fecha, buffer);
+            assertEquals(fecha.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME), new String(buffer, 0, largo));
+        }
+    }
+
+    @Test
+    void debeEscribirUnaListaVacia() throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        writer.lista(List.of()).writeTo(salida);
+
+        assertEquals("{\"success\":true,\"data\":[],\"total\":0}", salida.toString());
+    }
+}
@@ -2,6 +2,8 @@
 
 -- Crear extensiones necesarias
 CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
 
 -- Crear esquema si no existe
 CREATE SCHEMA IF NOT EXISTS public;
@@ -32,12 +34,22 @@ CREATE TABLE IF NOT EXISTS empleados (
     fecha_actualizacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE TABLE IF NOT EXISTS turnos (
+    id BIGSERIAL PRIMARY KEY,
+    nombre VARCHAR(50) UNIQUE NOT NULL,
+    activo BOOLEAN DEFAULT TRUE,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Sin turno_id: horario general. dias_semana: lunes = 1 ... domingo = 64 (ver migrations/005_turnos.sql)
 CREATE TABLE IF NOT EXISTS horarios (
     id BIGSERIAL PRIMARY KEY,
     nombre VARCHAR(50) NOT NULL,
     hora_inicio TIME NOT NULL,
     hora_fin TIME NOT NULL,
     tipo VARCHAR(20) NOT NULL CHECK (tipo IN ('ENTRADA', 'SALIDA_ALMUERZO', 'RETORNO_ALMUERZO', 'SALIDA')),
+    turno_id BIGINT REFERENCES turnos(id),
+    dias_semana INTEGER NOT NULL DEFAULT 127 CHECK (dias_semana BETWEEN 1 AND 127),
     activo BOOLEAN DEFAULT TRUE,
     fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -61,6 +73,65 @@ CREATE TABLE IF NOT EXISTS usuarios (
     fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE TABLE IF NOT EXISTS asignaciones_turno (
+    id BIGSERIAL PRIMARY KEY,
+    turno_id BIGINT NOT NULL REFERENCES turnos(id),
+    empleado_id BIGINT REFERENCES empleados(id),
+    area VARCHAR(100),
+    activo BOOLEAN DEFAULT TRUE,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT ck_asignaciones_turno_destino CHECK ((empleado_id IS NULL) <> (area IS NULL))
+);
+
+CREATE TABLE IF NOT EXISTS incidencias (
+    id BIGSERIAL PRIMARY KEY,
+    empleado_id BIGINT NOT NULL REFERENCES empleados(id),
+    fecha DATE NOT NULL,
+    tipo VARCHAR(30) NOT NULL CHECK (tipo IN ('AUSENCIA', 'SIN_RETORNO_ALMUERZO', 'SIN_SALIDA')),
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_incidencias_empleado_fecha_tipo UNIQUE (empleado_id, fecha, tipo)
+);
+
+-- Outbox de eventos de asistencia para sistemas externos (id sin bloques: define el orden de entrega)
+CREATE TABLE IF NOT EXISTS outbox_eventos (
+    id BIGSERIAL PRIMARY KEY,
+    empleado_id BIGINT NOT NULL,
+    tipo VARCHAR(30) NOT NULL CHECK (tipo IN ('ASISTENCIA_REGISTRADA', 'ASISTENCIA_ACTUALIZADA', 'ASISTENCIA_ELIMINADA')),
+    payload TEXT NOT NULL,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    intentos INTEGER NOT NULL DEFAULT 0,
+    proximo_intento TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fecha_envio TIMESTAMP,
+    ultimo_error VARCHAR(500)
+);
+
+-- Respuesta original de las marcaciones enviadas con Idempotency-Key (reintentos del lector)
+CREATE TABLE IF NOT EXISTS marcaciones_idempotentes (
+    clave VARCHAR(100) PRIMARY KEY,
+    dni VARCHAR(8) NOT NULL,
+    status INTEGER NOT NULL,
+    respuesta TEXT NOT NULL,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Lectores ZKTeco con push (ADMS) y el último Stamp de marcaciones recibido de cada uno
+CREATE TABLE IF NOT EXISTS dispositivos_iclock (
+    sn VARCHAR(50) PRIMARY KEY,
+    attlog_stamp BIGINT NOT NULL DEFAULT 0,
+    registros_recibidos BIGINT NOT NULL DEFAULT 0,
+    ultima_conexion TIMESTAMP,
+    ultima_ip VARCHAR(45)
+);
+
+-- Las entidades JPA reservan IDs en bloques de 50 (pooled-lo)
+ALTER SEQUENCE empleados_id_seq INCREMENT BY 50;
+ALTER SEQUENCE horarios_id_seq INCREMENT BY 50;
+ALTER SEQUENCE asistencias_id_seq INCREMENT BY 50;
+ALTER SEQUENCE usuarios_id_seq INCREMENT BY 50;
+ALTER SEQUENCE incidencias_id_seq INCREMENT BY 50;
+ALTER SEQUENCE turnos_id_seq INCREMENT BY 50;
+ALTER SEQUENCE asignaciones_turno_id_seq INCREMENT BY 50;
+
 -- Crear triggers para actualizar timestamp
 DROP TRIGGER IF EXISTS update_empleados_updated_at ON empleados;
 CREATE TRIGGER update_empleados_updated_at 
@@ -91,13 +162,44 @@ VALUES
     ('EMP003', '11223344', 'Pedro Antonio', 'Martínez Silva', 'Gerente', 'Administración', true)
 ON CONFLICT (dni) DO NOTHING;
 
+-- Secuencia de códigos únicos (bloques de 100 por instancia), después de los empleados de prueba
+CREATE SEQUENCE IF NOT EXISTS empleados_codigo_seq INCREMENT BY 100 START WITH 1;
+SELECT setval('empleados_codigo_seq',
+              (SELECT COALESCE(MAX(CAST(SUBSTRING(codigo_unico FROM 4) AS BIGINT)), 0) + 1
+               FROM empleados WHERE codigo_unico ~ '^EMP[0-9]+$'),
+              false)
+WHERE NOT (SELECT is_called FROM empleados_codigo_seq);
+
 -- Crear índices para mejorar rendimiento
 CREATE INDEX IF NOT EXISTS idx_empleados_dni ON empleados(dni);
 CREATE INDEX IF NOT EXISTS idx_empleados_activo ON empleados(activo);
 CREATE INDEX IF NOT EXISTS idx_asistencias_empleado_fecha ON asistencias(empleado_id, fecha_hora);
 CREATE INDEX IF NOT EXISTS idx_asistencias_fecha_hora ON asistencias(fecha_hora);
 CREATE INDEX IF NOT EXISTS idx_asistencias_tipo ON asistencias(tipo);
+CREATE INDEX IF NOT EXISTS idx_asistencias_fecha_creacion ON asistencias(fecha_creacion);
 CREATE INDEX IF NOT EXISTS idx_horarios_tipo_activo ON horarios(tipo, activo);
+CREATE INDEX IF NOT EXISTS idx_incidencias_fecha ON incidencias(fecha);
+CREATE INDEX IF NOT EXISTS idx_horarios_turno ON horarios(turno_id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_asignaciones_turno_empleado ON asignaciones_turno(empleado_id)
+    WHERE activo AND empleado_id IS NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_asignaciones_turno_area ON asignaciones_turno(area)
+    WHERE activo AND area IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_pendientes ON outbox_eventos(id) WHERE fecha_envio IS NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_empleado_pendientes ON outbox_eventos(empleado_id, id)
+    WHERE fecha_envio IS NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_fecha_envio ON outbox_eventos(fecha_envio) WHERE fecha_envio IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_marcaciones_idempotentes_fecha ON marcaciones_idempotentes(fecha_creacion);
+
+-- Búsqueda por nombre sin tildes con índices de trigramas (ver migrations/004_busqueda_trigram.sql)
+CREATE OR REPLACE FUNCTION f_normalizar(texto TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+    AS $$ SELECT lower(public.unaccent('public.unaccent'::regdictionary, texto)) $$;
+ALTER TABLE empleados ADD COLUMN IF NOT EXISTS nombre_busqueda TEXT
+    GENERATED ALWAYS AS (f_normalizar(nombres || ' ' || apellidos)) STORED;
+ALTER TABLE horarios ADD COLUMN IF NOT EXISTS nombre_busqueda TEXT
+    GENERATED ALWAYS AS (f_normalizar(nombre)) STORED;
+CREATE INDEX IF NOT EXISTS idx_empleados_nombre_trgm ON empleados USING GIN (nombre_busqueda gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_horarios_nombre_trgm ON horarios USING GIN (nombre_busqueda gin_trgm_ops);
 
 -- Comentarios para documentación
 COMMENT ON DATABASE asistencia_db IS 'Base de datos para el Sistema MVP de Control de Asistencia';
@@ -105,4 +207,10 @@ COMMENT ON SCHEMA public IS 'Esquema principal del sistema de asistencia';
 COMMENT ON TABLE empleados IS 'Tabla de empleados del sistema';
 COMMENT ON TABLE horarios IS 'Tabla de configuración de horarios de trabajo';
 COMMENT ON TABLE asistencias IS 'Tabla de registros de asistencia de empleados';
-COMMENT ON TABLE usuarios IS 'Tabla de usuarios administrativos del sistema';
\ No newline at end of file
+COMMENT ON TABLE usuarios IS 'Tabla de usuarios administrativos del sistema';
+COMMENT ON TABLE turnos IS 'Turnos de trabajo con horarios propios';
+COMMENT ON TABLE asignaciones_turno IS 'Turno vigente de cada empleado o área';
+COMMENT ON TABLE incidencias IS 'Ausencias y marcaciones faltantes calculadas por día laborable';
+COMMENT ON TABLE outbox_eventos IS 'Eventos de asistencia pendientes de entregar a sistemas externos';
+COMMENT ON TABLE marcaciones_idempotentes IS 'Respuesta original de cada marcación enviada con Idempotency-Key';
+COMMENT ON TABLE dispositivos_iclock IS 'Lectores ZKTeco con push (ADMS) y el último Stamp de marcaciones recibido';
\ No newline at end of file
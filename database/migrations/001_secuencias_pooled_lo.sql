@@ -0,0 +1,21 @@
+-- Migración: IDs por secuencia con asignación en bloques (pooled-lo)
+-- Las entidades JPA pasan de GenerationType.IDENTITY a SEQUENCE con allocationSize = 50.
+-- Se reutilizan las secuencias creadas por BIGSERIAL; solo cambia el incremento.
+-- Idempotente: puede ejecutarse más de una vez.
+
+BEGIN;
+
+ALTER SEQUENCE empleados_id_seq INCREMENT BY 50;
+ALTER SEQUENCE horarios_id_seq INCREMENT BY 50;
+ALTER SEQUENCE asistencias_id_seq INCREMENT BY 50;
+ALTER SEQUENCE usuarios_id_seq INCREMENT BY 50;
+
+-- Asegurar que el siguiente bloque empiece por encima del mayor ID existente
+SELECT setval('empleados_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM empleados), (SELECT last_value FROM empleados_id_seq)), true);
+SELECT setval('horarios_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM horarios), (SELECT last_value FROM horarios_id_seq)), true);
+SELECT setval('asistencias_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM asistencias), (SELECT last_value FROM asistencias_id_seq)), true);
+SELECT setval('usuarios_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM usuarios), (SELECT last_value FROM usuarios_id_seq)), true);
+
+-- El DEFAULT nextval(...) de las columnas se mantiene para inserciones manuales
+
+COMMIT;
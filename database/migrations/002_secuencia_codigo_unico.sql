@@ -0,0 +1,15 @@
+-- Migración: códigos únicos de empleado generados desde una secuencia
+-- Cada nextval reserva un bloque de 100 códigos (EMP<n>) para una instancia del backend.
+-- Idempotente: solo ajusta el valor inicial si la secuencia aún no se ha usado.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS empleados_codigo_seq INCREMENT BY 100 START WITH 1;
+
+SELECT setval('empleados_codigo_seq',
+              (SELECT COALESCE(MAX(CAST(SUBSTRING(codigo_unico FROM 4) AS BIGINT)), 0) + 1
+               FROM empleados WHERE codigo_unico ~ '^EMP[0-9]+$'),
+              false)
+WHERE NOT (SELECT is_called FROM empleados_codigo_seq);
+
+COMMIT;
@@ -0,0 +1,20 @@
+-- Migración: tabla de incidencias (ausencias y marcaciones faltantes por día)
+-- La llena el proceso diario de IncidenciaService con un INSERT ... SELECT por día.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS incidencias (
+    id BIGSERIAL PRIMARY KEY,
+    empleado_id BIGINT NOT NULL REFERENCES empleados(id),
+    fecha DATE NOT NULL,
+    tipo VARCHAR(30) NOT NULL CHECK (tipo IN ('AUSENCIA', 'SIN_RETORNO_ALMUERZO', 'SIN_SALIDA')),
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_incidencias_empleado_fecha_tipo UNIQUE (empleado_id, fecha, tipo)
+);
+
+-- Misma asignación por bloques (pooled-lo) que el resto de entidades
+ALTER SEQUENCE incidencias_id_seq INCREMENT BY 50;
+
+CREATE INDEX IF NOT EXISTS idx_incidencias_fecha ON incidencias(fecha);
+
+COMMIT;
@@ -0,0 +1,24 @@
+-- Migración: búsqueda de empleados y horarios por subcadena con índices de trigramas
+-- LIKE '%termino%' sobre LOWER(...) no puede usar un índice B-tree; pg_trgm sí, con un índice GIN.
+-- La columna normalizada (minúsculas y sin tildes) permite buscar "perez" y encontrar "Pérez".
+-- Idempotente: puede ejecutarse más de una vez.
+
+BEGIN;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() no es IMMUTABLE; con el diccionario explícito puede usarse en columnas generadas e índices
+CREATE OR REPLACE FUNCTION f_normalizar(texto TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+    AS $$ SELECT lower(public.unaccent('public.unaccent'::regdictionary, texto)) $$;
+
+ALTER TABLE empleados ADD COLUMN IF NOT EXISTS nombre_busqueda TEXT
+    GENERATED ALWAYS AS (f_normalizar(nombres || ' ' || apellidos)) STORED;
+ALTER TABLE horarios ADD COLUMN IF NOT EXISTS nombre_busqueda TEXT
+    GENERATED ALWAYS AS (f_normalizar(nombre)) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_empleados_nombre_trgm ON empleados USING GIN (nombre_busqueda gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_horarios_nombre_trgm ON horarios USING GIN (nombre_busqueda gin_trgm_ops);
+
+COMMIT;
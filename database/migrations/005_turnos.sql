@@ -0,0 +1,40 @@
+-- Migración: turnos con horarios propios y su asignación a empleados o áreas
+-- Los horarios sin turno siguen siendo el horario general. dias_semana es una máscara de 7 bits
+-- (lunes = 1 ... domingo = 64); en un turno hora_fin < hora_inicio indica una ventana nocturna.
+-- Idempotente: puede ejecutarse más de una vez.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS turnos (
+    id BIGSERIAL PRIMARY KEY,
+    nombre VARCHAR(50) UNIQUE NOT NULL,
+    activo BOOLEAN DEFAULT TRUE,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE horarios ADD COLUMN IF NOT EXISTS turno_id BIGINT REFERENCES turnos(id);
+ALTER TABLE horarios ADD COLUMN IF NOT EXISTS dias_semana INTEGER NOT NULL DEFAULT 127
+    CHECK (dias_semana BETWEEN 1 AND 127);
+
+CREATE TABLE IF NOT EXISTS asignaciones_turno (
+    id BIGSERIAL PRIMARY KEY,
+    turno_id BIGINT NOT NULL REFERENCES turnos(id),
+    empleado_id BIGINT REFERENCES empleados(id),
+    area VARCHAR(100),
+    activo BOOLEAN DEFAULT TRUE,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT ck_asignaciones_turno_destino CHECK ((empleado_id IS NULL) <> (area IS NULL))
+);
+
+-- Misma asignación por bloques (pooled-lo) que el resto de entidades
+ALTER SEQUENCE turnos_id_seq INCREMENT BY 50;
+ALTER SEQUENCE asignaciones_turno_id_seq INCREMENT BY 50;
+
+-- Una sola asignación vigente por empleado y por área
+CREATE UNIQUE INDEX IF NOT EXISTS uk_asignaciones_turno_empleado ON asignaciones_turno(empleado_id)
+    WHERE activo AND empleado_id IS NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_asignaciones_turno_area ON asignaciones_turno(area)
+    WHERE activo AND area IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_horarios_turno ON horarios(turno_id);
+
+COMMIT;
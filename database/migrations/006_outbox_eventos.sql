@@ -0,0 +1,29 @@
+-- Migración: outbox transaccional de eventos de asistencia para planillas y control de acceso
+-- Los eventos se escriben en la misma transacción que la asistencia y OutboxRelayService los entrega en lotes.
+-- El id es una secuencia simple (no pooled-lo): su orden es el de registro y define el orden por empleado.
+-- Idempotente: puede ejecutarse más de una vez.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS outbox_eventos (
+    id BIGSERIAL PRIMARY KEY,
+    empleado_id BIGINT NOT NULL,
+    tipo VARCHAR(30) NOT NULL CHECK (tipo IN ('ASISTENCIA_REGISTRADA', 'ASISTENCIA_ACTUALIZADA', 'ASISTENCIA_ELIMINADA')),
+    payload TEXT NOT NULL,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    intentos INTEGER NOT NULL DEFAULT 0,
+    proximo_intento TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fecha_envio TIMESTAMP,
+    ultimo_error VARCHAR(500)
+);
+
+-- Solo los pendientes: el relay los recorre por id y busca el anterior de cada empleado
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_pendientes ON outbox_eventos(id) WHERE fecha_envio IS NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_empleado_pendientes ON outbox_eventos(empleado_id, id)
+    WHERE fecha_envio IS NULL;
+-- Purga de los ya entregados
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_fecha_envio ON outbox_eventos(fecha_envio) WHERE fecha_envio IS NOT NULL;
+
+COMMENT ON TABLE outbox_eventos IS 'Eventos de asistencia pendientes de entregar a sistemas externos';
+
+COMMIT;
@@ -0,0 +1,9 @@
+-- Migración: índice por fecha de creación de asistencias
+-- IndiceMarcacionesService completa su índice en memoria con las asistencias creadas desde su último guardado.
+-- Idempotente: puede ejecutarse más de una vez.
+
+BEGIN;
+
+CREATE INDEX IF NOT EXISTS idx_asistencias_fecha_creacion ON asistencias(fecha_creacion);
+
+COMMIT;
@@ -0,0 +1,21 @@
+-- Migración: respuestas de marcaciones por Idempotency-Key
+-- Un lector que reintenta POST /api/public/asistencia/marcar con la misma clave recibe la respuesta original
+-- en lugar de registrar otra marcación o recibir un 409. Las filas se purgan al vencer (asistencia.idempotencia.ttl-horas).
+-- Idempotente: puede ejecutarse más de una vez.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS marcaciones_idempotentes (
+    clave VARCHAR(100) PRIMARY KEY,
+    dni VARCHAR(8) NOT NULL,
+    status INTEGER NOT NULL,
+    respuesta TEXT NOT NULL,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Purga de las vencidas
+CREATE INDEX IF NOT EXISTS idx_marcaciones_idempotentes_fecha ON marcaciones_idempotentes(fecha_creacion);
+
+COMMENT ON TABLE marcaciones_idempotentes IS 'Respuesta original de cada marcación enviada con Idempotency-Key';
+
+COMMIT;
@@ -0,0 +1,18 @@
+-- Migración: lectores ZKTeco que suben sus marcaciones por el protocolo push (ADMS, /iclock/cdata)
+-- Guarda por dispositivo el último Stamp de ATTLOG recibido: se le devuelve al conectarse para que
+-- solo suba los registros nuevos.
+-- Idempotente: puede ejecutarse más de una vez.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS dispositivos_iclock (
+    sn VARCHAR(50) PRIMARY KEY,
+    attlog_stamp BIGINT NOT NULL DEFAULT 0,
+    registros_recibidos BIGINT NOT NULL DEFAULT 0,
+    ultima_conexion TIMESTAMP,
+    ultima_ip VARCHAR(45)
+);
+
+COMMENT ON TABLE dispositivos_iclock IS 'Lectores ZKTeco con push (ADMS) y el último Stamp de marcaciones recibido';
+
+COMMIT;
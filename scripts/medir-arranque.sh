@@ -0,0 +1,83 @@
+#!/bin/bash
+
+# Compara el arranque del backend: jar normal, jar con AOT + CDS y, si existe, la imagen nativa.
+# Lo ejecuta "mvn -P aot verify" (y "-P aot,native verify"); también puede usarse a mano:
+#   scripts/medir-arranque.sh backend/target/sistema-control-asistencia-0.0.1-SNAPSHOT.jar [binario-nativo]
+#
+# Cada variante arranca hasta terminar de refrescar el contexto (spring.context.exit=onRefresh) con la configuración
+# de producción: se conecta a la base de datos de application.yml (DB_USERNAME, DB_PASSWORD), compara el esquema
+# según DDL_AUTO y ejecuta data.sql según SQL_INIT_MODE, como al desplegar.
+# Con ARRANQUE_SIN_BASE_DATOS=true no se conecta a la base de datos ni ejecuta data.sql: mide solo el costo
+# propio de la aplicación, no el arranque real.
+
+set -euo pipefail
+
+JAR=$(realpath "$1")
+NATIVO=${2:-}
+REPETICIONES=${REPETICIONES:-3}
+MAIN=com.asistencia.SistemaControlAsistenciaApplication
+TRABAJO=$(dirname "$JAR")/arranque
+
+ARGUMENTOS=(--logging.level.root=WARN)
+if [ "${ARRANQUE_SIN_BASE_DATOS:-false}" = "true" ]; then
+    # Hibernate no lee metadatos JDBC ni compara el esquema, y data.sql no se ejecuta
+    ARGUMENTOS+=(
+        --spring.jpa.hibernate.ddl-auto=none
+        --spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false
+        --spring.sql.init.mode=never
+    )
+    echo "Sin base de datos: no incluye la conexión, el esquema ni data.sql del arranque real"
+fi
+
+rm -rf "$TRABAJO"
+mkdir -p "$TRABAJO"
+
+# Mejor tiempo (s) y RSS máximo (MB) de varias ejecuciones
+medir() {
+    local mejor="" rss=""
+    for ((i = 1; i <= REPETICIONES; i++)); do
+        if [ -x /usr/bin/time ]; then
+            /usr/bin/time -o "$TRABAJO/tiempo" -f '%e %M' "$@" >"$TRABAJO/salida.log" 2>&1 || {
+                echo "La ejecución falló, ver $TRABAJO/salida.log" >&2
+                return 1
+            }
+            read -r segundos kb <"$TRABAJO/tiempo"
+            rss=$((kb / 1024))
+        else
+            local inicio=$(date +%s%N)
+            "$@" >"$TRABAJO/salida.log" 2>&1
+            segundos=$(awk -v ns=$(($(date +%s%N) - inicio)) 'BEGIN { printf "%.2f", ns / 1e9 }')
+            rss="n/d"
+        fi
+        if [ -z "$mejor" ] || awk -v a="$segundos" -v b="$mejor" 'BEGIN { exit !(a < b) }'; then
+            mejor=$segundos
+        fi
+    done
+    echo "$mejor $rss"
+}
+
+echo "Midiendo arranque ($REPETICIONES ejecuciones por variante)..."
+
+read -r T_JAR R_JAR < <(medir java -Dspring.context.exit=onRefresh -jar "$JAR" "${ARGUMENTOS[@]}")
+
+# CDS solo archiva clases del class loader de la aplicación: se usa el jar extraído con un classpath plano
+java -Djarmode=layertools -jar "$JAR" extract --destination "$TRABAJO/extraido" >/dev/null
+CLASSPATH="$TRABAJO/extraido/application/BOOT-INF/classes"
+for lib in "$TRABAJO"/extraido/*/BOOT-INF/lib/*.jar; do
+    CLASSPATH="$CLASSPATH:$lib"
+done
+java -XX:ArchiveClassesAtExit="$TRABAJO/app.jsa" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+    -cp "$CLASSPATH" "$MAIN" "${ARGUMENTOS[@]}" >"$TRABAJO/entrenamiento-cds.log" 2>&1
+read -r T_CDS R_CDS < <(medir java -XX:SharedArchiveFile="$TRABAJO/app.jsa" -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh -cp "$CLASSPATH" "$MAIN" "${ARGUMENTOS[@]}")
+
+echo
+printf '%-22s %14s %16s\n' "Variante" "Arranque (s)" "RSS máximo (MB)"
+printf '%-22s %14s %16s\n' "jar" "$T_JAR" "$R_JAR"
+printf '%-22s %14s %16s\n' "AOT + CDS" "$T_CDS" "$R_CDS"
+if [ -n "$NATIVO" ] && [ -x "$NATIVO" ]; then
+    read -r T_NATIVO R_NATIVO < <(medir "$NATIVO" -Dspring.context.exit=onRefresh "${ARGUMENTOS[@]}")
+    printf '%-22s %14s %16s\n' "imagen nativa" "$T_NATIVO" "$R_NATIVO"
+fi
+echo
+echo "Archivo CDS: $TRABAJO/app.jsa (ejecutar con -XX:SharedArchiveFile y el mismo classpath extraído)"